@@ -7,10 +7,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,8 +33,14 @@ public class FdaDrugCodeDisplayLookup {
    */
   private Map<String, String> ndcProductHashMap = new HashMap<>();
 
+  /**
+   * Whether {@link #FAKE_DRUG_CODE} is looked up without consulting {@link #ndcProductHashMap}, for
+   * maps that can't be modified.
+   */
+  private boolean includeFakeDrugCode;
+
   /** Tracks the national drug codes that have already had code lookup failures. */
-  private final Set<String> drugCodeLookupMissingFailures = new HashSet<>();
+  private final Set<String> drugCodeLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /** Keeps track of the PRODUCTNDC column index in the fda_products_utf8.tsv file. */
   private static int PRODUCT_NDC_COLUMN_INDEX = 1;
@@ -83,6 +91,20 @@ public class FdaDrugCodeDisplayLookup {
     return drugCodeLookupForProduction;
   }
 
+  /**
+   * Factory method for creating a {@link FdaDrugCodeDisplayLookup} from drug code displays that
+   * have already been read, such as a view of the {@link App#FDA_PRODUCTS_DISPLAY_RESOURCE} lookup
+   * table that is held outside of the heap. The map is used as is rather than copied.
+   *
+   * @param ndcProducts the drug code displays, keyed by drug code (PRODUCTNDC)
+   * @param includeFakeDrugCode whether to include the fake testing drug code or not
+   * @return the {@link FdaDrugCodeDisplayLookup}
+   */
+  public static FdaDrugCodeDisplayLookup createDrugCodeLookup(
+      Map<String, String> ndcProducts, boolean includeFakeDrugCode) {
+    return new FdaDrugCodeDisplayLookup(ndcProducts, includeFakeDrugCode);
+  }
+
   /**
    * Constructs an {@link FdaDrugCodeDisplayLookup}.
    *
@@ -92,6 +114,18 @@ public class FdaDrugCodeDisplayLookup {
     readFDADrugCodeFile(includeFakeDrugCode, getFileInputStream(App.FDA_PRODUCTS_RESOURCE));
   }
 
+  /**
+   * Constructs an {@link FdaDrugCodeDisplayLookup} from drug code displays that have already been
+   * read.
+   *
+   * @param ndcProducts the drug code displays, keyed by drug code (PRODUCTNDC)
+   * @param includeFakeDrugCode whether to include the fake testing drug code or not
+   */
+  private FdaDrugCodeDisplayLookup(Map<String, String> ndcProducts, boolean includeFakeDrugCode) {
+    this.ndcProductHashMap = ndcProducts;
+    this.includeFakeDrugCode = includeFakeDrugCode;
+  }
+
   /**
    * Retrieves the Drug Code Display (SUBSTANCENAME) for the given Drug Code (PRODUCTNDC) using the
    * drug code file downloaded during the build.
@@ -113,6 +147,10 @@ public class FdaDrugCodeDisplayLookup {
     claimDrugCodeReformatted =
         claimDrugCode.get().substring(0, 5) + "-" + claimDrugCode.get().substring(5, 9);
 
+    if (includeFakeDrugCode && FAKE_DRUG_CODE.equals(claimDrugCodeReformatted)) {
+      return FAKE_DRUG_CODE_DISPLAY;
+    }
+
     if (ndcProductHashMap.containsKey(claimDrugCodeReformatted)) {
       String ndcSubstanceName = ndcProductHashMap.get(claimDrugCodeReformatted);
       return ndcSubstanceName;
@@ -164,8 +202,19 @@ public class FdaDrugCodeDisplayLookup {
    */
   protected Map<String, String> getFdaProcessedData(
       boolean includeFakeDrugCode, InputStream inputStream) {
+    return readFdaProducts(inputStream);
+  }
 
-    Map<String, String> ndcProcessedData = new HashMap<String, String>();
+  /**
+   * Reads the display (<code>PROPRIETARYNAME</code> - <code>SUBSTANCENAME</code>) of each drug code
+   * (<code>PRODUCTNDC</code>) in an FDA NDC Products file. This is used both to build the {@link
+   * App#FDA_PRODUCTS_DISPLAY_RESOURCE} lookup table and to read the products file directly.
+   *
+   * @param inputStream the products file, which is closed once it has been read
+   * @return the drug code displays, sorted by drug code
+   */
+  public static SortedMap<String, String> readFdaProducts(InputStream inputStream) {
+    SortedMap<String, String> ndcProcessedData = new TreeMap<>();
 
     try (final InputStream ndcProductStream = inputStream;
         final BufferedReader ndcProductsIn =
@@ -204,6 +253,7 @@ public class FdaDrugCodeDisplayLookup {
     }
     return ndcProcessedData;
   }
+
   /**
    * Returns a inputStream from file name passed in.
    *
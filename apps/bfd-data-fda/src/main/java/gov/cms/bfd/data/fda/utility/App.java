@@ -8,6 +8,13 @@ public class App {
    */
   public static final String FDA_PRODUCTS_RESOURCE = "fda_products_utf8.tsv";
 
+  /**
+   * The name of the classpath resource that holds just the drug code and display of each product in
+   * {@link #FDA_PRODUCTS_RESOURCE}, one tab separated pair per line, sorted by drug code so that it
+   * can be searched without being parsed into a map first.
+   */
+  public static final String FDA_PRODUCTS_DISPLAY_RESOURCE = "fda_products_display.tsv";
+
   /**
    * The application entry point, which will receive all non-JVM command line options in the <code>
    * args</code> array.
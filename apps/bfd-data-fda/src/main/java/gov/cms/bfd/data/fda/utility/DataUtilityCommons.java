@@ -1,5 +1,6 @@
 package gov.cms.bfd.data.fda.utility;
 
+import gov.cms.bfd.data.fda.lookup.FdaDrugCodeDisplayLookup;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -19,6 +20,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.SortedMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.apache.commons.io.FileUtils;
@@ -115,6 +118,30 @@ public class DataUtilityCommons {
         out.newLine();
       }
     }
+
+    buildProductsDisplayResource(
+        convertedNdcDataFile,
+        convertedNdcDataFile.resolveSibling(App.FDA_PRODUCTS_DISPLAY_RESOURCE));
+  }
+
+  /**
+   * Creates the drug code display resource from the converted products file, with one line per drug
+   * code in sorted order.
+   *
+   * @param convertedNdcDataFile the converted products file
+   * @param displayDataFile the output file/resource to produce
+   * @throws IOException (any errors encountered will be bubbled up)
+   */
+  public static void buildProductsDisplayResource(Path convertedNdcDataFile, Path displayDataFile)
+      throws IOException {
+    SortedMap<String, String> displays =
+        FdaDrugCodeDisplayLookup.readFdaProducts(Files.newInputStream(convertedNdcDataFile));
+    try (BufferedWriter out = Files.newBufferedWriter(displayDataFile, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, String> display : displays.entrySet()) {
+        out.write(display.getKey() + "\t" + display.getValue());
+        out.newLine();
+      }
+    }
   }
 
   /**
@@ -6,8 +6,10 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -138,4 +140,37 @@ public class FdaDrugCodeDisplayLookupTest {
     Map<String, String> results = fdaDrugCodeDisplay.readFDADrugCodeFile(false, targetStream);
     assertEquals(null, results.get(FdaDrugCodeDisplayLookup.FAKE_DRUG_CODE));
   }
+
+  /** Should return the displays of a lookup created from drug codes that were already read. */
+  @Test
+  void shouldReturnDrugCodeDisplayFromProvidedDrugCodes() {
+    Map<String, String> ndcProducts = Map.of("00000-0001", "Sterile Diluent - WATER");
+
+    fdaDrugCodeDisplay = FdaDrugCodeDisplayLookup.createDrugCodeLookup(ndcProducts, true);
+    assertEquals(
+        "Sterile Diluent - WATER",
+        fdaDrugCodeDisplay.retrieveFDADrugCodeDisplay(Optional.of("000000001")));
+    assertEquals(
+        FdaDrugCodeDisplayLookup.FAKE_DRUG_CODE_DISPLAY,
+        fdaDrugCodeDisplay.retrieveFDADrugCodeDisplay(Optional.of(FAKE_DRUG_CODE_NUMBER)));
+
+    fdaDrugCodeDisplay = FdaDrugCodeDisplayLookup.createDrugCodeLookup(ndcProducts, false);
+    assertEquals(
+        null, fdaDrugCodeDisplay.retrieveFDADrugCodeDisplay(Optional.of(FAKE_DRUG_CODE_NUMBER)));
+  }
+
+  /** Should return the products file's drug codes in sorted order. */
+  @Test
+  void shouldReturnFdaProductsSortedByDrugCode() {
+    String inputFileString =
+        INPUT_FILE_STRING
+            + "00002-1_x\t2-1\tHUMAN OTC DRUG\tSecond\t\t\t\t\t\t\t\t\t\tB\n"
+            + "00001-2_x\t00001-0002\tHUMAN OTC DRUG\tFirst\t\t\t\t\t\t\t\t\t\tA\n";
+
+    SortedMap<String, String> results =
+        FdaDrugCodeDisplayLookup.readFdaProducts(
+            new ByteArrayInputStream(inputFileString.getBytes()));
+    assertEquals(List.of("00000-0001", "00001-0002", "00002-0001"), List.copyOf(results.keySet()));
+    assertEquals("Second - B", results.get("00002-0001"));
+  }
 }
@@ -58,6 +58,16 @@ public class NPIOrgLookup {
     npiOrgHashMap = readNPIOrgDataStream(npiDataStream);
   }
 
+  /**
+   * Constructs an {@link NPIOrgLookup} from org names that have already been read, such as a view
+   * of a lookup table that is held outside of the heap. The map is used as is rather than copied.
+   *
+   * @param npiOrgNames the org names, keyed by npi number
+   */
+  public NPIOrgLookup(Map<String, String> npiOrgNames) {
+    npiOrgHashMap = npiOrgNames;
+  }
+
   /**
    * Retrieves the Org Data for NPI Display for the given NPI number using the npi file downloaded
    * during the build.
@@ -25,6 +25,8 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.apache.commons.io.FileUtils;
@@ -283,6 +285,8 @@ public class DataUtilityCommons {
       Integer orgNameIndex =
           getIndexNumberForField(indexes, "Provider Organization Name (Legal Business Name)");
 
+      // sorted by NPI so that the server can binary search the file rather than parse it
+      SortedMap<String, String> orgNames = new TreeMap<>();
       while ((line = reader.readLine()) != null) {
         fields = line.split(",");
 
@@ -292,10 +296,13 @@ public class DataUtilityCommons {
 
         // entity type code 2 is organization
         if (!Strings.isNullOrEmpty(entityTypeCode) && Integer.parseInt(entityTypeCode) == 2) {
-          out.write(npi + "\t" + orgName);
-          out.newLine();
+          orgNames.put(npi, orgName);
         }
       }
+      for (Map.Entry<String, String> orgName : orgNames.entrySet()) {
+        out.write(orgName.getKey() + "\t" + orgName.getValue());
+        out.newLine();
+      }
     }
   }
 
@@ -76,6 +76,15 @@ public class NPIOrgLookupTest {
         npiOrgDataLookup.FAKE_NPI_ORG_NAME, npiOrgMap.get(npiOrgDataLookup.FAKE_NPI_NUMBER));
   }
 
+  /** Should return the org names of a lookup created from org names that were already read. */
+  @Test
+  public void shouldReturnOrgNameFromProvidedOrgNames() {
+    NPIOrgLookup lookup = new NPIOrgLookup(Map.of("1234567890", "Some Org"));
+    assertEquals(Optional.of("Some Org"), lookup.retrieveNPIOrgDisplay(Optional.of("1234567890")));
+    assertFalse(
+        lookup.retrieveNPIOrgDisplay(Optional.of(NPIOrgLookup.FAKE_NPI_NUMBER)).isPresent());
+  }
+
   /**
    * Check to see if a Map is empty or null.
    *
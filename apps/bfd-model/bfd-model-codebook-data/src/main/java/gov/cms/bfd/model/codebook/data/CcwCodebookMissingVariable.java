@@ -1,6 +1,7 @@
 package gov.cms.bfd.model.codebook.data;
 
 import gov.cms.bfd.model.codebook.model.CcwCodebookInterface;
+import gov.cms.bfd.model.codebook.model.CodedValues;
 import gov.cms.bfd.model.codebook.model.Value;
 import gov.cms.bfd.model.codebook.model.ValueGroup;
 import gov.cms.bfd.model.codebook.model.Variable;
@@ -164,6 +165,12 @@ public enum CcwCodebookMissingVariable implements CcwCodebookInterface {
   /** The variables mapped by id. */
   private Map<String, Variable> VARIABLES_BY_ID = buildVariablesMappedById();
 
+  /** The coded values of this variable, indexed by code, or none if it has no {@link Variable}. */
+  private final CodedValues codedValues =
+      VARIABLES_BY_ID.containsKey(this.name())
+          ? CodedValues.fromValueGroups(VARIABLES_BY_ID.get(this.name()).getValueGroups())
+          : CodedValues.NONE;
+
   /**
    * Build variables mapped by id.
    *
@@ -307,4 +314,33 @@ public enum CcwCodebookMissingVariable implements CcwCodebookInterface {
   public Variable getVariable() {
     return VARIABLES_BY_ID.get(this.name());
   }
+
+  /**
+   * Returns the id of this variable, which is the name of its constant.
+   *
+   * @return the {@link Variable#getId()} of this {@link CcwCodebookMissingVariable} constant
+   */
+  @Override
+  public String getId() {
+    return this.name();
+  }
+
+  /**
+   * Returns the label of this variable.
+   *
+   * @return the {@link Variable#getLabel()} of this {@link CcwCodebookMissingVariable} constant
+   */
+  @Override
+  public String getLabel() {
+    return getVariable().getLabel();
+  }
+
+  /**
+   * Returns the coded values of this variable, indexed by code.
+   *
+   * @return the {@link CodedValues} of this {@link CcwCodebookMissingVariable} constant
+   */
+  public CodedValues getCodedValues() {
+    return codedValues;
+  }
 }
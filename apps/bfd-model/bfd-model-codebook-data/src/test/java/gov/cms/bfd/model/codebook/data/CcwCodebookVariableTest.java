@@ -1,8 +1,16 @@
 package gov.cms.bfd.model.codebook.data;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import gov.cms.bfd.model.codebook.model.CodedValues;
+import gov.cms.bfd.model.codebook.model.Value;
+import gov.cms.bfd.model.codebook.model.ValueGroup;
+import gov.cms.bfd.model.codebook.model.Variable;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 /** Unit tests for {@link gov.cms.bfd.model.codebook.data.CcwCodebookVariable}. */
@@ -26,4 +34,56 @@ public final class CcwCodebookVariableTest {
       assertNotNull(variableEnum.getVariable());
     }
   }
+
+  /**
+   * Verifies that the ids and labels generated for every {@link CcwCodebookVariable} match its
+   * parsed {@link Variable}.
+   */
+  @Test
+  public void getIdAndLabel() {
+    for (CcwCodebookVariable variableEnum : CcwCodebookVariable.values()) {
+      Variable variable = variableEnum.getVariable();
+      assertEquals(variable.getId(), variableEnum.getId());
+      assertEquals(variable.getLabel(), variableEnum.getLabel(), variableEnum.name());
+    }
+  }
+
+  /**
+   * Verifies that the {@link CodedValues} generated for every {@link CcwCodebookVariable} agree
+   * with a scan of its parsed {@link ValueGroup}s.
+   */
+  @Test
+  public void getCodedValues() {
+    for (CcwCodebookVariable variableEnum : CcwCodebookVariable.values()) {
+      CodedValues codedValues = variableEnum.getCodedValues();
+      Optional<List<ValueGroup>> valueGroups = variableEnum.getVariable().getValueGroups();
+      assertEquals(valueGroups.isPresent(), codedValues.isCoded(), variableEnum.name());
+      if (!valueGroups.isPresent()) {
+        continue;
+      }
+
+      for (ValueGroup valueGroup : valueGroups.get()) {
+        for (Value value : valueGroup.getValues()) {
+          List<Value> matches =
+              valueGroups.get().stream()
+                  .flatMap(group -> group.getValues().stream())
+                  .filter(v -> v.getCode().equals(value.getCode()))
+                  .collect(Collectors.toList());
+          assertEquals(matches.size() > 1, codedValues.isDuplicate(value.getCode()));
+          Optional<String> expected =
+              matches.size() == 1 ? Optional.of(value.getDescription()) : Optional.empty();
+          assertEquals(expected, codedValues.getDescription(value.getCode()), variableEnum.name());
+        }
+      }
+    }
+  }
+
+  /** Verifies that {@link CcwCodebookMissingVariable#getCodedValues()} works as expected. */
+  @Test
+  public void getMissingVariableCodedValues() {
+    CodedValues codedValues = CcwCodebookMissingVariable.REV_CNTR_UNIT_CNT.getCodedValues();
+    assertTrue(codedValues.isCoded());
+    assertEquals(Optional.of("Revenue Center Unit Count"), codedValues.getDescription(""));
+    assertEquals(Optional.empty(), codedValues.getDescription("1"));
+  }
 }
@@ -10,6 +10,27 @@ public interface CcwCodebookInterface {
    */
   public Variable getVariable();
 
+  /**
+   * Gets the CCW Codebook variable's id, without loading its {@link Variable}.
+   *
+   * @return the {@link Variable#getId()}
+   */
+  public String getId();
+
+  /**
+   * Gets the CCW Codebook variable's label, without loading its {@link Variable}.
+   *
+   * @return the {@link Variable#getLabel()}
+   */
+  public String getLabel();
+
+  /**
+   * Gets the CCW Codebook variable's coded values, indexed by code.
+   *
+   * @return the {@link CodedValues}, which are {@link CodedValues#NONE} if the variable isn't coded
+   */
+  public CodedValues getCodedValues();
+
   /**
    * Gets the CCW Codebook variable's name.
    *
@@ -0,0 +1,137 @@
+package gov.cms.bfd.model.codebook.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * An immutable index of the {@link Value}s of a coded {@link Variable}, keyed by {@link
+ * Value#getCode()}, so that the description of a code can be found without scanning every {@link
+ * ValueGroup}.
+ *
+ * <p>Codes that appear more than once among a {@link Variable}'s {@link ValueGroup}s are ambiguous:
+ * they have no description here and are reported by {@link #isDuplicate(String)} instead.
+ *
+ * <p>This class is not part of the JAXB model and must not be listed in {@code jaxb.index}.
+ */
+public final class CodedValues {
+  /** The {@link CodedValues} of a {@link Variable} that has no {@link ValueGroup}s. */
+  public static final CodedValues NONE =
+      new CodedValues(false, Collections.emptyMap(), Collections.emptySet());
+
+  /** Whether the {@link Variable} has any {@link ValueGroup}s at all. */
+  private final boolean coded;
+
+  /** The description of each code that appears exactly once. */
+  private final Map<String, String> descriptionsByCode;
+
+  /** The codes that appear more than once. */
+  private final Set<String> duplicateCodes;
+
+  /**
+   * Constructs a new {@link CodedValues}.
+   *
+   * @param coded the value for {@link #isCoded()}
+   * @param descriptionsByCode the description of each code that appears exactly once
+   * @param duplicateCodes the codes that appear more than once
+   */
+  private CodedValues(
+      boolean coded, Map<String, String> descriptionsByCode, Set<String> duplicateCodes) {
+    this.coded = coded;
+    this.descriptionsByCode = descriptionsByCode;
+    this.duplicateCodes = duplicateCodes;
+  }
+
+  /**
+   * Builds the {@link CodedValues} of a coded {@link Variable} from its codes and descriptions, in
+   * the order they appear in its {@link ValueGroup}s. This is the form used by generated code.
+   *
+   * @param codesAndDescriptions alternating {@link Value#getCode()} and {@link
+   *     Value#getDescription()} entries
+   * @return the {@link CodedValues}
+   */
+  public static CodedValues of(String... codesAndDescriptions) {
+    if (codesAndDescriptions.length % 2 != 0)
+      throw new IllegalArgumentException("Codes and descriptions must be paired.");
+
+    Map<String, String> descriptionsByCode = new HashMap<>(codesAndDescriptions.length);
+    Set<String> duplicateCodes = new HashSet<>();
+    for (int i = 0; i < codesAndDescriptions.length; i += 2) {
+      String code = codesAndDescriptions[i];
+      if (duplicateCodes.contains(code)) continue;
+      if (descriptionsByCode.containsKey(code)) {
+        descriptionsByCode.remove(code);
+        duplicateCodes.add(code);
+      } else {
+        descriptionsByCode.put(code, codesAndDescriptions[i + 1]);
+      }
+    }
+    return new CodedValues(
+        true,
+        Collections.unmodifiableMap(descriptionsByCode),
+        Collections.unmodifiableSet(duplicateCodes));
+  }
+
+  /**
+   * Builds the {@link CodedValues} of a {@link Variable} from its {@link
+   * Variable#getValueGroups()}.
+   *
+   * @param valueGroups the {@link ValueGroup}s, if the {@link Variable} is coded
+   * @return the {@link CodedValues}, or {@link #NONE} if there are no {@link ValueGroup}s
+   */
+  public static CodedValues fromValueGroups(Optional<List<ValueGroup>> valueGroups) {
+    if (!valueGroups.isPresent()) return NONE;
+
+    String[] codesAndDescriptions =
+        valueGroups.get().stream()
+            .flatMap(valueGroup -> valueGroup.getValues().stream())
+            .flatMap(value -> Stream.of(value.getCode(), value.getDescription()))
+            .toArray(String[]::new);
+    return of(codesAndDescriptions);
+  }
+
+  /**
+   * Determines whether the {@link Variable} has any {@link ValueGroup}s, i.e. whether it is
+   * meaningful to look up descriptions at all.
+   *
+   * @return <code>true</code> if the {@link Variable} is coded
+   */
+  public boolean isCoded() {
+    return coded;
+  }
+
+  /**
+   * Looks up the description of a code.
+   *
+   * @param code the {@link Value#getCode()} to look up
+   * @return the {@link Value#getDescription()} of the code, or {@link Optional#empty()} if the code
+   *     is unknown or is a duplicate
+   */
+  public Optional<String> getDescription(String code) {
+    return Optional.ofNullable(descriptionsByCode.get(code));
+  }
+
+  /**
+   * Determines whether a code appears more than once, and so has no single description.
+   *
+   * @param code the {@link Value#getCode()} to check
+   * @return <code>true</code> if the code appears more than once
+   */
+  public boolean isDuplicate(String code) {
+    return duplicateCodes.contains(code);
+  }
+
+  /**
+   * Gets the number of codes that have a single description.
+   *
+   * @return the number of codes that {@link #getDescription(String)} can find
+   */
+  public int size() {
+    return descriptionsByCode.size();
+  }
+}
@@ -0,0 +1,53 @@
+package gov.cms.bfd.model.codebook.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link CodedValues}. */
+public final class CodedValuesTest {
+  /** Verifies that unique codes are found and duplicated codes are reported as such. */
+  @Test
+  public void lookupByCode() {
+    CodedValues codedValues =
+        CodedValues.of("1", "One", "2", "Two", "2", "Deux", "3", "Three", "2", "Dos");
+
+    assertTrue(codedValues.isCoded());
+    assertEquals(Optional.of("One"), codedValues.getDescription("1"));
+    assertEquals(Optional.of("Three"), codedValues.getDescription("3"));
+    assertEquals(Optional.empty(), codedValues.getDescription("2"));
+    assertTrue(codedValues.isDuplicate("2"));
+    assertEquals(Optional.empty(), codedValues.getDescription("4"));
+    assertFalse(codedValues.isDuplicate("4"));
+    assertEquals(2, codedValues.size());
+  }
+
+  /** Verifies that {@link CodedValues#fromValueGroups} indexes values across all groups. */
+  @Test
+  public void fromValueGroups() {
+    ValueGroup first =
+        new ValueGroup(null, Arrays.asList(new Value("A", "Alpha"), new Value("B", "Bravo")));
+    ValueGroup second =
+        new ValueGroup(null, Arrays.asList(new Value("C", "Charlie"), new Value("A", "Again")));
+    CodedValues codedValues =
+        CodedValues.fromValueGroups(Optional.of(Arrays.asList(first, second)));
+
+    assertEquals(Optional.of("Bravo"), codedValues.getDescription("B"));
+    assertEquals(Optional.of("Charlie"), codedValues.getDescription("C"));
+    assertTrue(codedValues.isDuplicate("A"));
+    assertSame(CodedValues.NONE, CodedValues.fromValueGroups(Optional.empty()));
+    assertFalse(CodedValues.NONE.isCoded());
+  }
+
+  /** Verifies that unpaired arguments are rejected. */
+  @Test
+  public void unpairedArgumentsAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> CodedValues.of("1", "One", "2"));
+  }
+}
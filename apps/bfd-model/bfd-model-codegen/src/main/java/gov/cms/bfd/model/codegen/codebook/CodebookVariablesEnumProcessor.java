@@ -4,6 +4,7 @@ import com.google.auto.service.AutoService;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.html.HtmlEscapers;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
@@ -12,6 +13,9 @@ import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeSpec.Builder;
 import gov.cms.bfd.model.codebook.model.CcwCodebookInterface;
 import gov.cms.bfd.model.codebook.model.Codebook;
+import gov.cms.bfd.model.codebook.model.CodedValues;
+import gov.cms.bfd.model.codebook.model.Value;
+import gov.cms.bfd.model.codebook.model.ValueGroup;
 import gov.cms.bfd.model.codebook.model.Variable;
 import gov.cms.bfd.model.codebook.unmarshall.CodebookVariableReader;
 import gov.cms.bfd.model.codegen.RifLayoutProcessingException;
@@ -23,7 +27,10 @@ import java.io.StringWriter;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -157,7 +164,7 @@ public class CodebookVariablesEnumProcessor extends AbstractProcessor {
        * we should HTML-escape everything, but I only bothered with the fields that
        * were actually causing problems, such as descriptions.)
        */
-      Builder variableEnumBuilder = TypeSpec.anonymousClassBuilder("");
+      Builder variableEnumBuilder = TypeSpec.anonymousClassBuilder("$S", variable.getLabel());
       variableEnumBuilder.addJavadoc(
           "<p>The {@code $L} CCW variable has the following properties (taken from its codebook PDF at"
               + " <a href=\"https://www.ccwdata.org/web/guest/data-dictionaries\">CCW"
@@ -203,19 +210,70 @@ public class CodebookVariablesEnumProcessor extends AbstractProcessor {
       variablesEnumType.addEnumConstant(variable.getId(), variableEnumBuilder.build());
     }
 
+    /*
+     * The labels are compiled into the constants, so that coding a value never needs the full
+     * Variable metadata.
+     */
     variablesEnumType.addField(
-        FieldSpec.builder(
-                ParameterizedTypeName.get(Map.class, String.class, Variable.class),
-                "VARIABLES_BY_ID",
-                Modifier.PRIVATE,
-                Modifier.STATIC,
-                Modifier.FINAL)
-            .initializer("$T.buildVariablesMappedById()", CodebookVariableReader.class)
+        FieldSpec.builder(String.class, "label", Modifier.PRIVATE, Modifier.FINAL)
+            .addJavadoc("The label of the {@link $T}.\n", Variable.class)
+            .build());
+    variablesEnumType.addMethod(
+        MethodSpec.constructorBuilder()
+            .addParameter(String.class, "label")
+            .addStatement("this.label = label")
+            .addJavadoc(
+                "Enum constant constructor.\n\n@param label the label of the {@link $T}\n",
+                Variable.class)
+            .build());
+    variablesEnumType.addMethod(
+        MethodSpec.methodBuilder("getId")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addStatement("return this.name()")
+            .returns(String.class)
+            .addJavadoc(
+                "@return the {@link $T#getId()} of this {@link $T} constant\n",
+                Variable.class,
+                variableEnumName)
+            .build());
+    variablesEnumType.addMethod(
+        MethodSpec.methodBuilder("getLabel")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addStatement("return this.label")
+            .returns(String.class)
+            .addJavadoc(
+                "@return the {@link $T#getLabel()} of this {@link $T} constant\n",
+                Variable.class,
+                variableEnumName)
+            .build());
+
+    /*
+     * The rest of the Variable metadata is rarely needed, so it's parsed from the codebook XML on
+     * first use rather than when the enum is initialized.
+     */
+    variablesEnumType.addType(
+        TypeSpec.classBuilder("VariablesHolder")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addJavadoc(
+                "Holds the parsed {@link $T}s, which are only loaded when first needed.\n",
+                Variable.class)
+            .addField(
+                FieldSpec.builder(
+                        ParameterizedTypeName.get(Map.class, String.class, Variable.class),
+                        "VARIABLES_BY_ID",
+                        Modifier.PRIVATE,
+                        Modifier.STATIC,
+                        Modifier.FINAL)
+                    .addJavadoc("The parsed {@link $T}s, keyed by id.\n", Variable.class)
+                    .initializer("$T.buildVariablesMappedById()", CodebookVariableReader.class)
+                    .build())
             .build());
     variablesEnumType.addMethod(
         MethodSpec.methodBuilder("getVariable")
             .addModifiers(Modifier.PUBLIC)
-            .addStatement("return VARIABLES_BY_ID.get(this.name())")
+            .addStatement("return VariablesHolder.VARIABLES_BY_ID.get(this.name())")
             .returns(Variable.class)
             .addJavadoc(
                 "@return the {@link $T} data (parsed from a codebook PDF) for this {@link $T} constant\n",
@@ -223,12 +281,102 @@ public class CodebookVariablesEnumProcessor extends AbstractProcessor {
                 variableEnumName)
             .build());
 
+    addCodedValues(variablesEnumType, variableEnumName, variablesById.values());
+
     TypeSpec columnEnumFinal = variablesEnumType.build();
     JavaFile columnsEnumFile =
         JavaFile.builder(annotatedPackage.getQualifiedName().toString(), columnEnumFinal).build();
     columnsEnumFile.writeTo(processingEnv.getFiler());
   }
 
+  /**
+   * Adds the {@link CodedValues} of each coded {@link Variable} to the generated enum, so that code
+   * descriptions can be looked up without parsing the codebooks at runtime. Each {@link Variable}
+   * gets its own factory method to keep the generated methods well under the JVM's method size
+   * limit.
+   *
+   * @param variablesEnumType the enum being generated
+   * @param variableEnumName the name of the enum being generated
+   * @param variables the {@link Variable}s that the enum has constants for
+   */
+  private void addCodedValues(
+      TypeSpec.Builder variablesEnumType,
+      ClassName variableEnumName,
+      Collection<Variable> variables) {
+    MethodSpec.Builder buildCodedValues =
+        MethodSpec.methodBuilder("buildCodedValues")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .returns(
+                ParameterizedTypeName.get(
+                    ClassName.get(Map.class), variableEnumName, ClassName.get(CodedValues.class)))
+            .addJavadoc(
+                "@return the {@link $T} of every coded {@link $T} constant\n",
+                CodedValues.class,
+                variableEnumName)
+            .addStatement(
+                "$T<$T, $T> codedValues = new $T<>($T.class)",
+                Map.class,
+                variableEnumName,
+                CodedValues.class,
+                EnumMap.class,
+                variableEnumName);
+
+    for (Variable variable : variables) {
+      if (!variable.getValueGroups().isPresent()) {
+        continue;
+      }
+
+      List<String> codesAndDescriptions = new ArrayList<>();
+      for (ValueGroup valueGroup : variable.getValueGroups().get()) {
+        for (Value value : valueGroup.getValues()) {
+          codesAndDescriptions.add(value.getCode());
+          codesAndDescriptions.add(value.getDescription());
+        }
+      }
+      CodeBlock arguments =
+          codesAndDescriptions.stream()
+              .map(s -> CodeBlock.of("$S", s))
+              .collect(CodeBlock.joining(",\n"));
+
+      String factoryName = "codedValuesOf" + variable.getId();
+      variablesEnumType.addMethod(
+          MethodSpec.methodBuilder(factoryName)
+              .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+              .returns(CodedValues.class)
+              .addJavadoc(
+                  "@return the {@link $T} of {@link #$L}\n", CodedValues.class, variable.getId())
+              .addStatement("return $T.of(\n$>$>$L$<$<)", CodedValues.class, arguments)
+              .build());
+      buildCodedValues.addStatement("codedValues.put($L, $L())", variable.getId(), factoryName);
+    }
+    buildCodedValues.addStatement("return codedValues");
+    variablesEnumType.addMethod(buildCodedValues.build());
+
+    variablesEnumType.addField(
+        FieldSpec.builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(Map.class), variableEnumName, ClassName.get(CodedValues.class)),
+                "CODED_VALUES",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL)
+            .addJavadoc(
+                "The {@link $T} of every coded constant, compiled from the codebooks at build time.\n",
+                CodedValues.class)
+            .initializer("buildCodedValues()")
+            .build());
+    variablesEnumType.addMethod(
+        MethodSpec.methodBuilder("getCodedValues")
+            .addModifiers(Modifier.PUBLIC)
+            .addStatement("return CODED_VALUES.getOrDefault(this, $T.NONE)", CodedValues.class)
+            .returns(CodedValues.class)
+            .addJavadoc(
+                "@return the {@link $T} of this {@link $T} constant\n",
+                CodedValues.class,
+                variableEnumName)
+            .build());
+  }
+
   /**
    * Reports the specified log message.
    *
@@ -0,0 +1,6 @@
+-- Adds a digest of the materially relevant content of each RDA claim so that the pipeline
+-- can recognize changes that do not alter a claim and skip rewriting the claim and its
+-- child records. Existing claims have no digest and will be rewritten by their next change.
+
+ALTER TABLE rda.fiss_claims ADD COLUMN content_digest varchar(44);
+ALTER TABLE rda.mcs_claims ADD COLUMN content_digest varchar(44);
@@ -0,0 +1,7 @@
+-- Adds a bit mask of the claim types that each beneficiary has claims for. The bits match
+-- those returned by the check_claims_mask function (see V111). The pipeline sets the bit of
+-- a claim type whenever it loads claims of that type for a beneficiary that has a mask, and
+-- computes missing masks when its POPULATE_CLAIM_AVAILABILITY option is enabled. A NULL mask
+-- means unknown, in which case the server falls back to check_claims_mask.
+
+ALTER TABLE beneficiaries ADD COLUMN claim_availability integer;
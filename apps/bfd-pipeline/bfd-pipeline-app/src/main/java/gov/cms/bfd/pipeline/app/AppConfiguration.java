@@ -125,6 +125,13 @@ public final class AppConfiguration extends BaseAppConfiguration {
   public static final String ENV_VAR_KEY_RIF_FILTERING_NON_NULL_AND_NON_2023_BENES =
       "FILTERING_NON_NULL_AND_NON_2023_BENES";
 
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * LoadAppOptions#isPopulatingClaimAvailability()} value.
+   */
+  public static final String ENV_VAR_KEY_RIF_POPULATE_CLAIM_AVAILABILITY =
+      "POPULATE_CLAIM_AVAILABILITY";
+
   /**
    * The name of the environment variable that should be used to provide the number of {@link
    * RifRecordEvent}s that will be included in each processing batch. Note that larger batch sizes
@@ -287,6 +294,28 @@ public final class AppConfiguration extends BaseAppConfiguration {
    */
   public static final String ENV_VAR_KEY_RDA_VERSION = "RDA_JOB_RDA_VERSION";
 
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #getRdaLoadOptions()} {@link AbstractRdaLoadJob.Config#getBackfillShards()} value. Values
+   * greater than one cause any backlog of claims to be loaded using that many parallel streams.
+   */
+  public static final String ENV_VAR_KEY_RDA_JOB_BACKFILL_SHARDS = "RDA_JOB_BACKFILL_SHARDS";
+
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #getRdaLoadOptions()} {@link AbstractRdaLoadJob.Config#getBackfillMinShardSize()} value.
+   */
+  public static final String ENV_VAR_KEY_RDA_JOB_BACKFILL_MIN_SHARD_SIZE =
+      "RDA_JOB_BACKFILL_MIN_SHARD_SIZE";
+
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #getRdaLoadOptions()} {@link AbstractRdaLoadJob.Config#isSkipUnchangedClaims()} value. Enabled
+   * unless set to false.
+   */
+  public static final String ENV_VAR_KEY_RDA_JOB_SKIP_UNCHANGED_CLAIMS =
+      "RDA_JOB_SKIP_UNCHANGED_CLAIMS";
+
   /**
    * The name of the environment variable that should be used to provide the {@link
    * gov.cms.bfd.pipeline.rda.grpc.RdaServerJob.Config.ServerMode} value for the in-process RDA API
@@ -393,6 +422,7 @@ public final class AppConfiguration extends BaseAppConfiguration {
       ImmutableMap.<String, String>builder()
           .put(ENV_VAR_KEY_HICN_HASH_CACHE_SIZE, "100")
           .put(ENV_VAR_KEY_RIF_FILTERING_NON_NULL_AND_NON_2023_BENES, "true")
+          .put(ENV_VAR_KEY_RIF_POPULATE_CLAIM_AVAILABILITY, "false")
           .put(ENV_VAR_KEY_RIF_JOB_BATCH_SIZE, "25")
           .put(ENV_VAR_KEY_RIF_JOB_QUEUE_SIZE_MULTIPLE, "2")
           .put(ENV_VAR_KEY_RDA_JOB_INTERVAL_SECONDS, "300")
@@ -492,6 +522,8 @@ public final class AppConfiguration extends BaseAppConfiguration {
     final boolean idempotencyRequired = config.booleanValue(ENV_VAR_KEY_IDEMPOTENCY_REQUIRED);
     final boolean filteringNonNullAndNon2023Benes =
         config.booleanValue(ENV_VAR_KEY_RIF_FILTERING_NON_NULL_AND_NON_2023_BENES);
+    final boolean populatingClaimAvailability =
+        config.booleanValue(ENV_VAR_KEY_RIF_POPULATE_CLAIM_AVAILABILITY);
 
     final var benePerformanceSettings = loadBeneficiaryPerformanceSettings(config);
     final var claimPerformanceSettings =
@@ -513,6 +545,7 @@ public final class AppConfiguration extends BaseAppConfiguration {
                 .build(),
             idempotencyRequired,
             filteringNonNullAndNon2023Benes,
+            populatingClaimAvailability,
             benePerformanceSettings,
             claimPerformanceSettings);
 
@@ -668,6 +701,12 @@ public final class AppConfiguration extends BaseAppConfiguration {
         .map(seq -> Math.max(1L, seq))
         .ifPresent(jobConfig::startingMcsSeqNum);
     config.booleanOption(ENV_VAR_KEY_PROCESS_DLQ).ifPresent(jobConfig::processDLQ);
+    config.intOption(ENV_VAR_KEY_RDA_JOB_BACKFILL_SHARDS).ifPresent(jobConfig::backfillShards);
+    config
+        .longOption(ENV_VAR_KEY_RDA_JOB_BACKFILL_MIN_SHARD_SIZE)
+        .ifPresent(jobConfig::backfillMinShardSize);
+    jobConfig.skipUnchangedClaims(
+        config.booleanOption(ENV_VAR_KEY_RDA_JOB_SKIP_UNCHANGED_CLAIMS).orElse(true));
     // Default to the hardcoded RDA version in RdaService, restricted to major version
     jobConfig.rdaVersion(
         RdaVersion.builder()
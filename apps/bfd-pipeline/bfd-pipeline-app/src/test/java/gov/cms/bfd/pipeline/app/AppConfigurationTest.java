@@ -13,9 +13,12 @@ import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_GRPC_MAX
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_GRPC_PORT;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_GRPC_SECONDS_BEFORE_CONNECTION_DROP;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_GRPC_SERVER_TYPE;
+import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_BACKFILL_MIN_SHARD_SIZE;
+import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_BACKFILL_SHARDS;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_BATCH_SIZE;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_ERROR_EXPIRE_DAYS;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_INTERVAL_SECONDS;
+import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_SKIP_UNCHANGED_CLAIMS;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_STARTING_FISS_SEQ_NUM;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_STARTING_MCS_SEQ_NUM;
 import static gov.cms.bfd.pipeline.app.AppConfiguration.ENV_VAR_KEY_RDA_JOB_WRITE_THREADS;
@@ -82,6 +85,7 @@ public class AppConfigurationTest {
     envVars.put(AppConfiguration.ENV_VAR_KEY_DATABASE_PASSWORD, "some_password");
     envVars.put(AppConfiguration.ENV_VAR_KEY_LOADER_THREADS, "42");
     envVars.put(AppConfiguration.ENV_VAR_KEY_IDEMPOTENCY_REQUIRED, "true");
+    envVars.put(AppConfiguration.ENV_VAR_KEY_RIF_POPULATE_CLAIM_AVAILABILITY, "true");
     envVars.put(AppConfiguration.ENV_VAR_KEY_S3_ENDPOINT_URI, "http://localhost:999999");
     envVars.put(AppConfiguration.ENV_VAR_KEY_S3_ACCESS_KEY, "unreal-access-key");
     envVars.put(AppConfiguration.ENV_VAR_KEY_S3_SECRET_KEY, "unreal-secret-key");
@@ -137,6 +141,14 @@ public class AppConfigurationTest {
     assertEquals(
         envVars.get(AppConfiguration.ENV_VAR_KEY_IDEMPOTENCY_REQUIRED),
         "" + testAppConfig.getCcwRifLoadOptions().get().getLoadOptions().isIdempotencyRequired());
+    assertEquals(
+        envVars.get(AppConfiguration.ENV_VAR_KEY_RIF_POPULATE_CLAIM_AVAILABILITY),
+        ""
+            + testAppConfig
+                .getCcwRifLoadOptions()
+                .get()
+                .getLoadOptions()
+                .isPopulatingClaimAvailability());
     assertEquals(
         S3ClientConfig.s3Builder()
             .endpointOverride(URI.create(envVars.get(AppConfiguration.ENV_VAR_KEY_S3_ENDPOINT_URI)))
@@ -287,6 +299,15 @@ public class AppConfigurationTest {
         RdaVersion.builder().versionString("^" + RdaService.RDA_PROTO_VERSION).build(),
         jobConfig.getRdaVersion());
     assertEquals(AbstractRdaLoadJob.SinkTypePreference.NONE, jobConfig.getSinkTypePreference());
+    assertEquals(false, jobConfig.isBackfillEnabled());
+    assertEquals(
+        AbstractRdaLoadJob.DEFAULT_BACKFILL_MIN_SHARD_SIZE, jobConfig.getBackfillMinShardSize());
+    assertEquals(true, jobConfig.isSkipUnchangedClaims());
+
+    // verify the unchanged claim check can be disabled
+    settingsMap.put(ENV_VAR_KEY_RDA_JOB_SKIP_UNCHANGED_CLAIMS, "false");
+    jobConfig = AppConfiguration.loadRdaLoadJobConfigOptions(configLoader);
+    assertEquals(false, jobConfig.isSkipUnchangedClaims());
 
     // verify providing an explicit RDA version string loads that version
     settingsMap.put(ENV_VAR_KEY_RDA_VERSION, "^1.2.3");
@@ -306,6 +327,16 @@ public class AppConfigurationTest {
     jobConfig = AppConfiguration.loadRdaLoadJobConfigOptions(configLoader);
     assertEquals(Optional.of(2L), jobConfig.getStartingFissSeqNum());
     assertEquals(Optional.of(10L), jobConfig.getStartingMcsSeqNum());
+
+    // verify backfill settings are loaded when no starting sequence numbers are present
+    settingsMap.remove(ENV_VAR_KEY_RDA_JOB_STARTING_FISS_SEQ_NUM);
+    settingsMap.remove(ENV_VAR_KEY_RDA_JOB_STARTING_MCS_SEQ_NUM);
+    settingsMap.put(ENV_VAR_KEY_RDA_JOB_BACKFILL_SHARDS, "8");
+    settingsMap.put(ENV_VAR_KEY_RDA_JOB_BACKFILL_MIN_SHARD_SIZE, "5000");
+    jobConfig = AppConfiguration.loadRdaLoadJobConfigOptions(configLoader);
+    assertEquals(8, jobConfig.getBackfillShards());
+    assertEquals(5000L, jobConfig.getBackfillMinShardSize());
+    assertEquals(true, jobConfig.isBackfillEnabled());
   }
 
   /**
@@ -36,6 +36,7 @@ public final class CcwRifLoadTestUtils {
         new IdHasher.Config(HICN_HASH_ITERATIONS, HICN_HASH_PEPPER),
         IDEMPOTENCY_REQUIRED,
         false,
+        true,
         new LoadAppOptions.PerformanceSettings(
             LoadAppOptions.DEFAULT_LOADER_THREADS,
             DEFAULT_LOAD_BATCH_SIZE,
@@ -75,6 +76,7 @@ public final class CcwRifLoadTestUtils {
         new IdHasher.Config(HICN_HASH_ITERATIONS, HICN_HASH_PEPPER),
         idempotencyRequired,
         filterNon2023benes,
+        true,
         new LoadAppOptions.PerformanceSettings(
             LoadAppOptions.DEFAULT_LOADER_THREADS,
             DEFAULT_LOAD_BATCH_SIZE,
@@ -96,6 +98,7 @@ public final class CcwRifLoadTestUtils {
         new IdHasher.Config(HICN_HASH_ITERATIONS, HICN_HASH_PEPPER),
         IDEMPOTENCY_REQUIRED,
         false,
+        true,
         new LoadAppOptions.PerformanceSettings(
             LoadAppOptions.DEFAULT_LOADER_THREADS, batchSize, DEFAULT_QUEUE_SIZE_MULTIPLE),
         new LoadAppOptions.PerformanceSettings(
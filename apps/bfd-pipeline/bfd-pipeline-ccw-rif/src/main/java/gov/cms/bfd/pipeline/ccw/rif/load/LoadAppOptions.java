@@ -41,6 +41,13 @@ public final class LoadAppOptions {
    */
   @Getter private final boolean filteringNonNullAndNon2023Benes;
 
+  /**
+   * Whether the loader computes the {@code beneficiaries.claim_availability} mask of beneficiaries
+   * that don't have one yet when it loads their claims. Masks that already exist are always kept up
+   * to date.
+   */
+  @Getter private final boolean populatingClaimAvailability;
+
   /** Settings used for loading beneficiary data. */
   @Getter private final PerformanceSettings beneficiaryPerformanceSettings;
 
@@ -53,6 +60,7 @@ public final class LoadAppOptions {
    * @param idHasherConfig the value to use for {@link #idHasherConfig}
    * @param idempotencyRequired the value to use for {@link #idempotencyRequired}
    * @param filterNon2023Benes the filter non 2023 benes
+   * @param populatingClaimAvailability the value to use for {@link #populatingClaimAvailability}
    * @param beneficiaryPerformanceSettings performance settings used for beneficiary records
    * @param claimPerformanceSettings performance settings used for claim records
    */
@@ -60,12 +68,14 @@ public final class LoadAppOptions {
       IdHasher.Config idHasherConfig,
       boolean idempotencyRequired,
       boolean filterNon2023Benes,
+      boolean populatingClaimAvailability,
       PerformanceSettings beneficiaryPerformanceSettings,
       PerformanceSettings claimPerformanceSettings) {
 
     this.idHasherConfig = idHasherConfig;
     this.idempotencyRequired = idempotencyRequired;
     this.filteringNonNullAndNon2023Benes = filterNon2023Benes;
+    this.populatingClaimAvailability = populatingClaimAvailability;
     this.beneficiaryPerformanceSettings = beneficiaryPerformanceSettings;
     this.claimPerformanceSettings = claimPerformanceSettings;
   }
@@ -81,6 +91,8 @@ public final class LoadAppOptions {
     builder.append(idempotencyRequired);
     builder.append(", filteringNonNullAndNon2023Benes=");
     builder.append(filteringNonNullAndNon2023Benes);
+    builder.append(", populatingClaimAvailability=");
+    builder.append(populatingClaimAvailability);
     builder.append(", beneficiaryPerformanceSettings=");
     builder.append(beneficiaryPerformanceSettings);
     builder.append(", claimPerformanceSettings=");
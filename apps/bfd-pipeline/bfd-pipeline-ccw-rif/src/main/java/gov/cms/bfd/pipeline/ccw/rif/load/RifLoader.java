@@ -102,6 +102,39 @@ public final class RifLoader {
   /** The maximum amount of time in hours we will wait for a job to complete loading its batches. */
   private final int MAX_BATCH_WAIT_TIME_HOURS = 72;
 
+  /**
+   * The bit in the {@code beneficiaries.claim_availability} mask for each claim {@link
+   * RifFileType}. These must match the bits returned by the {@code check_claims_mask} database
+   * function.
+   */
+  private static final Map<RifFileType, Integer> CLAIM_AVAILABILITY_BITS =
+      Map.of(
+          RifFileType.CARRIER, 1,
+          RifFileType.INPATIENT, 2,
+          RifFileType.OUTPATIENT, 4,
+          RifFileType.SNF, 8,
+          RifFileType.DME, 16,
+          RifFileType.HHA, 32,
+          RifFileType.HOSPICE, 64,
+          RifFileType.PDE, 128);
+
+  /**
+   * Computes the {@code claim_availability} mask of beneficiaries that don't have one yet. Used
+   * only when {@link LoadAppOptions#isPopulatingClaimAvailability()} is enabled.
+   */
+  private static final String POPULATE_CLAIM_AVAILABILITY_SQL =
+      "UPDATE beneficiaries SET claim_availability = check_claims_mask(bene_id)"
+          + " WHERE bene_id IN (:beneIds) AND claim_availability IS NULL";
+
+  /**
+   * Adds a claim type's bit to the {@code claim_availability} mask of beneficiaries that have a
+   * mask without it. Beneficiaries without a mask are left alone. Uses arithmetic rather than
+   * bitwise operators since those differ between PostgreSQL and HSQL.
+   */
+  private static final String SET_CLAIM_AVAILABILITY_BIT_SQL =
+      "UPDATE beneficiaries SET claim_availability = claim_availability + :bit"
+          + " WHERE bene_id IN (:beneIds) AND MOD(claim_availability / :bit, 2) = 0";
+
   /**
    * Constructs a new {@link RifLoader} instance.
    *
@@ -505,9 +538,56 @@ public final class RifLoader {
     LoadedBatch loadedBatch = loadedBatchBuilder.build();
     entityManager.persist(loadedBatch);
 
+    Integer claimAvailabilityBit = CLAIM_AVAILABILITY_BITS.get(rifFileType);
+    if (claimAvailabilityBit != null) {
+      Timer.Context timerClaimAvailability =
+          fileEventMetrics
+              .timer(MetricRegistry.name(getClass().getSimpleName(), "claimAvailabilityUpdates"))
+              .time();
+      updateClaimAvailability(entityManager, claimAvailabilityBit, recordsBatch);
+      timerClaimAvailability.close();
+    }
+
     return loadResults;
   }
 
+  /**
+   * Keeps the {@code beneficiaries.claim_availability} mask of the beneficiaries in a batch of
+   * claims up to date. The server reads this mask instead of probing every claim table, so a mask
+   * must never be missing the bit of a claim type that the beneficiary has claims for. A {@code
+   * NULL} mask means unknown and makes the server fall back to probing the claim tables.
+   *
+   * <p>Beneficiaries are updated in ascending id order so that concurrent batches lock their rows
+   * in a consistent order.
+   *
+   * @param entityManager the {@link EntityManager} for the current transaction
+   * @param claimAvailabilityBit the mask bit of the batch's claim type
+   * @param recordsBatch the claim {@link RifRecordEvent}s that were just loaded
+   */
+  private void updateClaimAvailability(
+      EntityManager entityManager, int claimAvailabilityBit, List<RifRecordEvent<?>> recordsBatch) {
+    List<Long> beneIds =
+        recordsBatch.stream()
+            .map(RifRecordEvent::getBeneficiaryId)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+
+    // The claims must be written before check_claims_mask can see them.
+    entityManager.flush();
+    if (options.isPopulatingClaimAvailability()) {
+      entityManager
+          .createNativeQuery(POPULATE_CLAIM_AVAILABILITY_SQL)
+          .setParameter("beneIds", beneIds)
+          .executeUpdate();
+    }
+    entityManager
+        .createNativeQuery(SET_CLAIM_AVAILABILITY_BIT_SQL)
+        .setParameter("bit", claimAvailabilityBit)
+        .setParameter("beneIds", beneIds)
+        .executeUpdate();
+  }
+
   /**
    * Checks if the record is a beneficiary with a non-2023 year, the flag to filter items is on, and
    * has a non-{@code null} enrollment reference year. This is to handle special filtering while CCW
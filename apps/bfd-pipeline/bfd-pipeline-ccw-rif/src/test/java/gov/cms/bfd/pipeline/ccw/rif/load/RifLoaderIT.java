@@ -110,6 +110,35 @@ public final class RifLoaderIT {
     validateBeneficiaryAndSkippedCountsInDatabase(1, 0);
   }
 
+  /**
+   * Runs {@link RifLoader} against the {@link StaticRifResourceGroup#SAMPLE_A} data and verifies
+   * that the beneficiary's {@code claim_availability} mask matches the one computed by the {@code
+   * check_claims_mask} database function, which has a bit for each of the sample's claim types.
+   */
+  @Test
+  public void loadSampleAMaintainsClaimAvailability() {
+    loadSample(Arrays.asList(StaticRifResourceGroup.SAMPLE_A.getResources()));
+
+    EntityManagerFactory entityManagerFactory =
+        PipelineTestUtils.get().getPipelineApplicationState().getEntityManagerFactory();
+    EntityManager entityManager = null;
+    try {
+      entityManager = entityManagerFactory.createEntityManager();
+      Object[] masks =
+          (Object[])
+              entityManager
+                  .createNativeQuery(
+                      "SELECT claim_availability, check_claims_mask(bene_id) FROM beneficiaries")
+                  .getSingleResult();
+      assertEquals(255, ((Number) masks[1]).intValue());
+      assertEquals(((Number) masks[1]).intValue(), ((Number) masks[0]).intValue());
+    } finally {
+      if (entityManager != null) {
+        entityManager.close();
+      }
+    }
+  }
+
   /**
    * Runs {@link RifLoader} against the modified {@link StaticRifResourceGroup#SAMPLE_A} data for an
    * <code>UPDATE</code> on a {@link Beneficiary} record that has a single file with multiple
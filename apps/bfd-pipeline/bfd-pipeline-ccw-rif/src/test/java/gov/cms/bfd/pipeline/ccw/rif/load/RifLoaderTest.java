@@ -30,6 +30,7 @@ public final class RifLoaderTest {
             new IdHasher.Config(1000, "nottherealpepper".getBytes(StandardCharsets.UTF_8)),
             options.isIdempotencyRequired(),
             false,
+            false,
             new LoadAppOptions.PerformanceSettings(
                 options.getBeneficiaryPerformanceSettings().getLoaderThreads(), 100, 3),
             new LoadAppOptions.PerformanceSettings(
@@ -62,6 +63,7 @@ public final class RifLoaderTest {
             new IdHasher.Config(1000, "nottherealpepper".getBytes(StandardCharsets.UTF_8)),
             options.isIdempotencyRequired(),
             false,
+            false,
             new LoadAppOptions.PerformanceSettings(
                 options.getBeneficiaryPerformanceSettings().getLoaderThreads(), 100, 3),
             new LoadAppOptions.PerformanceSettings(
@@ -7,7 +7,9 @@ import com.zaxxer.hikari.HikariDataSource;
 import gov.cms.bfd.pipeline.rda.grpc.AbstractRdaLoadJob;
 import gov.cms.bfd.pipeline.rda.grpc.RdaLoadOptions;
 import gov.cms.bfd.pipeline.rda.grpc.RdaServerJob;
+import gov.cms.bfd.pipeline.rda.grpc.server.RdaMessageSourceFactory;
 import gov.cms.bfd.pipeline.rda.grpc.server.RdaService;
+import gov.cms.bfd.pipeline.rda.grpc.sink.bulk.RdaBulkLoader;
 import gov.cms.bfd.pipeline.rda.grpc.source.RdaSourceConfig;
 import gov.cms.bfd.pipeline.rda.grpc.source.RdaVersion;
 import gov.cms.bfd.pipeline.sharedutils.IdHasher;
@@ -35,6 +37,10 @@ import org.slf4j.LoggerFactory;
  *   <li>file: path to a properties file containing configuration settings
  *   <li>claimType: either fiss or mcs to specify type of claims to download
  * </ol>
+ *
+ * <p>When the {@code bulk.inputFile} setting is present the program does not call an RDA API
+ * server. Instead it reads claims from the NDJSON or binary capture file and writes them to the
+ * database using a {@link RdaBulkLoader}.
  */
 public class DirectRdaLoadApp {
   /**
@@ -75,6 +81,18 @@ public class DirectRdaLoadApp {
             pooledDataSource,
             PipelineApplicationState.RDA_PERSISTENCE_UNIT_NAME,
             Clock.systemUTC())) {
+      final Optional<File> bulkInputFile = options.readableFileOption("bulk.inputFile");
+      if (bulkInputFile.isPresent()) {
+        final RdaBulkLoader.Config bulkConfig =
+            readBulkLoadConfig(options, jobConfig.getJobConfig().getWriteThreads());
+        if (!runBulkLoad(jobConfig, appState, claimType, bulkInputFile.get(), bulkConfig)) {
+          System.err.printf(
+              "error: invalid claim type: '%s' expected 'fiss' or 'mcs'%n", claimType);
+          System.exit(1);
+        }
+        reporter.report();
+        return;
+      }
       final Optional<PipelineJob> job = createPipelineJob(jobConfig, appState, claimType);
       if (!job.isPresent()) {
         System.err.printf("error: invalid claim type: '%s' expected 'fiss' or 'mcs'%n", claimType);
@@ -109,6 +127,78 @@ public class DirectRdaLoadApp {
     }
   }
 
+  /**
+   * Loads all claims from the input file using a {@link RdaBulkLoader} for the appropriate claim
+   * type.
+   *
+   * @param jobConfig the config to use
+   * @param appState sets the state for the pipeline
+   * @param claimType whether to use fiss or mcs claims
+   * @param inputFile NDJSON or binary capture file containing the claims
+   * @param bulkConfig settings for the loader
+   * @return false if the claim type is invalid
+   * @throws Exception if the load fails
+   */
+  private static boolean runBulkLoad(
+      RdaLoadOptions jobConfig,
+      PipelineApplicationState appState,
+      String claimType,
+      File inputFile,
+      RdaBulkLoader.Config bulkConfig)
+      throws Exception {
+    final var mbiCache = jobConfig.createComputedMbiCache(appState);
+    final RdaBulkLoader.Result result;
+    switch (claimType.toLowerCase()) {
+      case "fiss":
+        try (var loader = jobConfig.createFissBulkLoader(appState, mbiCache, bulkConfig);
+            var factory =
+                RdaMessageSourceFactory.Config.builder()
+                    .fissClaimFile(inputFile)
+                    .build()
+                    .createMessageSourceFactory();
+            var source = factory.createFissMessageSource(0)) {
+          result = loader.load(source);
+        }
+        break;
+      case "mcs":
+        try (var loader = jobConfig.createMcsBulkLoader(appState, mbiCache, bulkConfig);
+            var factory =
+                RdaMessageSourceFactory.Config.builder()
+                    .mcsClaimFile(inputFile)
+                    .build()
+                    .createMessageSourceFactory();
+            var source = factory.createMcsMessageSource(0)) {
+          result = loader.load(source);
+        }
+        break;
+      default:
+        return false;
+    }
+    System.out.printf(
+        "bulk load complete: messages=%d staged=%d merged=%d lastSeq=%d%n",
+        result.getMessagesRead(),
+        result.getClaimsStaged(),
+        result.getClaimsMerged(),
+        result.getLastSequenceNumber());
+    return true;
+  }
+
+  /**
+   * Reads the settings for a bulk load from the config file.
+   *
+   * @param options the config options to use
+   * @param threadCount default number of threads to use
+   * @return the bulk load settings
+   */
+  private static RdaBulkLoader.Config readBulkLoadConfig(ConfigLoader options, int threadCount) {
+    return RdaBulkLoader.Config.builder()
+        .threads(options.intValue("bulk.threads", threadCount))
+        .batchSize(options.intValue("bulk.batchSize", 1_000))
+        .merge(options.booleanValue("bulk.merge", false))
+        .apiVersion(options.stringValue("bulk.apiVersion", RdaService.RDA_PROTO_VERSION))
+        .build();
+  }
+
   /**
    * This sets up the database options of db url, user, password, and max connections.
    *
@@ -140,6 +230,7 @@ public class DirectRdaLoadApp {
             .runInterval(Duration.ofDays(1))
             .batchSize(options.intValue("job.batchSize", 1))
             .writeThreads(options.intValue("job.writeThreads", 1))
+            .skipUnchangedClaims(options.booleanValue("job.skipUnchangedClaims", true))
             .rdaVersion(
                 RdaVersion.builder()
                     .versionString(
@@ -148,6 +239,8 @@ public class DirectRdaLoadApp {
             .sinkTypePreference(AbstractRdaLoadJob.SinkTypePreference.NONE);
     options.longOption("job.startingFissSeqNum").ifPresent(jobConfig::startingFissSeqNum);
     options.longOption("job.startingMcsSeqNum").ifPresent(jobConfig::startingMcsSeqNum);
+    options.intOption("job.backfillShards").ifPresent(jobConfig::backfillShards);
+    options.longOption("job.backfillMinShardSize").ifPresent(jobConfig::backfillMinShardSize);
     final RdaSourceConfig grpcConfig =
         RdaSourceConfig.builder()
             .serverType(RdaSourceConfig.ServerType.Remote)
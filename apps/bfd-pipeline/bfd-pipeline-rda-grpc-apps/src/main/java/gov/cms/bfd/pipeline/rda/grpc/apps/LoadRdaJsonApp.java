@@ -269,8 +269,8 @@ public class LoadRdaJsonApp {
      */
     private RdaMessageSourceFactory.Config createMessageSourceFactoryConfig() {
       return RdaMessageSourceFactory.Config.builder()
-          .fissClaimJsonFile(fissFile.orElse(null))
-          .mcsClaimJsonFile(mcsFile.orElse(null))
+          .fissClaimFile(fissFile.orElse(null))
+          .mcsClaimFile(mcsFile.orElse(null))
           .s3Bucket(s3Bucket.orElse(null))
           .s3ClientConfig(S3ClientConfig.s3Builder().region(s3Region.orElse(null)).build())
           .s3Directory(s3Directory.orElse(null))
@@ -0,0 +1,210 @@
+package gov.cms.bfd.pipeline.rda.grpc.apps;
+
+import gov.cms.bfd.pipeline.rda.grpc.server.MessageSource;
+import gov.cms.bfd.pipeline.rda.grpc.server.RandomClaimGeneratorConfig;
+import gov.cms.bfd.pipeline.rda.grpc.server.RdaMessageSourceFactory;
+import gov.cms.bfd.pipeline.rda.grpc.server.RdaRandomMessageSourceFactory;
+import gov.cms.bfd.pipeline.rda.grpc.server.RdaServer;
+import gov.cms.bfd.pipeline.rda.grpc.server.RdaService;
+import gov.cms.bfd.sharedutils.config.ConfigLoader;
+import gov.cms.mpsm.rda.v1.ClaimRequest;
+import gov.cms.mpsm.rda.v1.RDAServiceGrpc;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.ClientCalls;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures how quickly the mock RDA API server can produce random claims. Each configured scenario
+ * generates the same number of claims and reports the elapsed time and claims per second. The
+ * scenarios are:
+ *
+ * <ul>
+ *   <li>sequential: claims generated one at a time by the consuming thread
+ *   <li>parallel: claims generated by a pool of worker threads
+ *   <li>server: claims generated by a pool of worker threads and streamed to a client through an
+ *       in-process gRPC server
+ * </ul>
+ *
+ * <p>The parallel and server scenarios are run twice when caching is enabled so that the effect of
+ * the cache can be seen in the second run.
+ */
+@Slf4j
+public class RandomClaimBenchmarkApp {
+  /** Enum to determine whether to generate FISS or MCS claims. */
+  private enum ClaimType {
+    /** Fiss claims. */
+    FISS,
+    /** Mcs claims. */
+    MCS
+  }
+
+  /**
+   * Runs the benchmark. Configuration is controlled by command line arguments. Each argument
+   * specifies one setting using the format {@code name:value}. Valid arguments are:
+   *
+   * <ul>
+   *   <li>type:FISS|MCS the type of claims to generate (default FISS)
+   *   <li>count:number the number of claims to generate in each scenario (default 100000)
+   *   <li>seed:number seed for the random claim generator (default 42)
+   *   <li>threads:number number of generator threads (default number of processors)
+   *   <li>batchSize:number number of claims per generator batch (default 1000)
+   *   <li>cachedBatches:number number of batches to cache (default 0)
+   * </ul>
+   *
+   * @param args the input arguments
+   * @throws Exception any exception thrown during runtime
+   */
+  public static void main(String[] args) throws Exception {
+    final ConfigLoader options =
+        ConfigLoader.builder().addKeyValueCommandLineArguments(args).build();
+    final ClaimType claimType = options.enumOption("type", ClaimType.class).orElse(ClaimType.FISS);
+    final int count = options.intValue("count", 100_000);
+    final RandomClaimGeneratorConfig sequentialConfig =
+        RandomClaimGeneratorConfig.builder()
+            .seed(options.longOption("seed").orElse(42L))
+            .maxToSend(count)
+            .build();
+    final RandomClaimGeneratorConfig parallelConfig =
+        sequentialConfig.toBuilder()
+            .generatorThreads(
+                options.intValue("threads", Runtime.getRuntime().availableProcessors()))
+            .generatorBatchSize(options.intValue("batchSize", 1_000))
+            .generatorCachedBatches(options.intValue("cachedBatches", 0))
+            .build();
+    final int runs = parallelConfig.getGeneratorCachedBatches() > 0 ? 2 : 1;
+    log.info(
+        "benchmarking {} {} claims: threads={} batchSize={} cachedBatches={}",
+        count,
+        claimType,
+        parallelConfig.getGeneratorThreads(),
+        parallelConfig.getGeneratorBatchSize(),
+        parallelConfig.getGeneratorCachedBatches());
+
+    try (var factory = createFactory(sequentialConfig)) {
+      runScenario("sequential", count, () -> drain(createSource(factory, claimType)));
+    }
+    try (var factory = createFactory(parallelConfig)) {
+      for (int run = 1; run <= runs; ++run) {
+        runScenario("parallel", count, () -> drain(createSource(factory, claimType)));
+      }
+    }
+    final var serverConfig =
+        RdaServer.InProcessConfig.builder()
+            .serverName(RandomClaimBenchmarkApp.class.getName())
+            .serviceConfig(
+                RdaMessageSourceFactory.Config.builder().randomClaimConfig(parallelConfig).build())
+            .build();
+    serverConfig.runWithChannelParam(
+        channel -> {
+          for (int run = 1; run <= runs; ++run) {
+            runScenario("server", count, () -> drain(channel, claimType));
+          }
+        });
+  }
+
+  /**
+   * Creates a factory that generates random claims using the given settings.
+   *
+   * @param config the settings
+   * @return the factory
+   */
+  private static RdaRandomMessageSourceFactory createFactory(RandomClaimGeneratorConfig config) {
+    return new RdaRandomMessageSourceFactory(RdaService.Version.builder().build(), config);
+  }
+
+  /**
+   * Creates a source of the appropriate type of claims starting from the first sequence number.
+   *
+   * @param factory used to create the source
+   * @param claimType type of claims to generate
+   * @return the source
+   * @throws Exception if the source could not be created
+   */
+  private static MessageSource<?> createSource(
+      RdaRandomMessageSourceFactory factory, ClaimType claimType) throws Exception {
+    return claimType == ClaimType.FISS
+        ? factory.createFissMessageSource(0)
+        : factory.createMcsMessageSource(0);
+  }
+
+  /**
+   * Reads every message from the source and then closes it.
+   *
+   * @param source the source to drain
+   * @return the number of messages read
+   * @throws Exception if reading fails
+   */
+  private static long drain(MessageSource<?> source) throws Exception {
+    long received = 0;
+    try (source) {
+      while (source.hasNext()) {
+        source.next();
+        received += 1;
+      }
+    }
+    return received;
+  }
+
+  /**
+   * Calls the server to stream every available claim and counts the claims received.
+   *
+   * @param channel connection to the server
+   * @param claimType type of claims to request
+   * @return the number of messages read
+   */
+  private static long drain(ManagedChannel channel, ClaimType claimType) {
+    final MethodDescriptor<ClaimRequest, ?> method =
+        claimType == ClaimType.FISS
+            ? RDAServiceGrpc.getGetFissClaimsMethod()
+            : RDAServiceGrpc.getGetMcsClaimsMethod();
+    final Iterator<?> results =
+        ClientCalls.blockingServerStreamingCall(
+            channel, method, CallOptions.DEFAULT, ClaimRequest.newBuilder().setSince(0).build());
+    long received = 0;
+    while (results.hasNext()) {
+      results.next();
+      received += 1;
+    }
+    return received;
+  }
+
+  /**
+   * Runs a scenario and logs its throughput.
+   *
+   * @param name name of the scenario
+   * @param expected number of messages the scenario should produce
+   * @param scenario the scenario to run
+   * @throws Exception if the scenario fails
+   */
+  private static void runScenario(String name, int expected, Scenario scenario) throws Exception {
+    final long startNanos = System.nanoTime();
+    final long received = scenario.run();
+    final long elapsedMillis =
+        Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    if (received != expected) {
+      log.warn("{}: expected {} claims but received {}", name, expected, received);
+    }
+    log.info(
+        "{}: {} claims in {} ms ({} claims/second)",
+        name,
+        received,
+        elapsedMillis,
+        received * 1000 / elapsedMillis);
+  }
+
+  /** A single benchmark scenario. */
+  @FunctionalInterface
+  private interface Scenario {
+    /**
+     * Runs the scenario.
+     *
+     * @return number of messages produced
+     * @throws Exception if the scenario fails
+     */
+    long run() throws Exception;
+  }
+}
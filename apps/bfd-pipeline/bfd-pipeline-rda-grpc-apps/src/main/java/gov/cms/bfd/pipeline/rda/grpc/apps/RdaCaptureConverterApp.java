@@ -0,0 +1,146 @@
+package gov.cms.bfd.pipeline.rda.grpc.apps;
+
+import com.google.common.io.Files;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import gov.cms.bfd.pipeline.rda.grpc.server.JsonMessageSource;
+import gov.cms.bfd.pipeline.rda.grpc.server.MessageSource;
+import gov.cms.bfd.pipeline.rda.grpc.server.ProtobufCaptureFile;
+import gov.cms.bfd.pipeline.rda.grpc.server.ProtobufCaptureMessageSource;
+import gov.cms.bfd.pipeline.rda.grpc.server.ProtobufCaptureWriter;
+import gov.cms.bfd.sharedutils.config.ConfigLoader;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts RDA API claim data between NDJSON files and binary capture files (see {@link
+ * ProtobufCaptureFile}). The direction of the conversion is determined by the name of the input
+ * file. Input files whose names end with {@link ProtobufCaptureFile#FILE_SUFFIX} are converted to
+ * NDJSON and all other input files are treated as NDJSON and converted to binary capture files.
+ */
+@Slf4j
+public class RdaCaptureConverterApp {
+  /** Enum to determine whether the files contain FISS or MCS claims. */
+  private enum ClaimType {
+    /** Fiss claims. */
+    FISS,
+    /** Mcs claims. */
+    MCS
+  }
+
+  /**
+   * Converts a single file. Configuration is controlled by command line arguments. Each argument
+   * specifies one setting using the format {@code name:value}. Valid arguments are:
+   *
+   * <ul>
+   *   <li>type:FISS|MCS the type of claims contained in the input file
+   *   <li>input:filename the file to convert
+   *   <li>output:filename the file to create (overwritten if it exists)
+   *   <li>blockSize:number the number of claims per block when writing a binary capture file
+   * </ul>
+   *
+   * @param args the input arguments
+   * @throws Exception any exception thrown during runtime
+   */
+  public static void main(String[] args) throws Exception {
+    final ConfigLoader config =
+        ConfigLoader.builder().addKeyValueCommandLineArguments(args).build();
+    final ClaimType claimType = config.enumValue("type", ClaimType.class);
+    final File inputFile = config.readableFile("input");
+    final File outputFile = config.writeableFile("output");
+    final int blockSize =
+        config.intValue("blockSize", ProtobufCaptureFile.DEFAULT_MESSAGES_PER_BLOCK);
+    final boolean toJson = ProtobufCaptureFile.isCaptureFileName(inputFile.getName());
+    log.info(
+        "converting {} claims from {} to {}: input={} output={}",
+        claimType,
+        toJson ? "binary" : "NDJSON",
+        toJson ? "NDJSON" : "binary",
+        inputFile,
+        outputFile);
+    final int count;
+    if (claimType == ClaimType.FISS) {
+      count =
+          toJson
+              ? convertToJson(inputFile, outputFile, ProtobufCaptureFile.Codec.FISS)
+              : convertToCapture(
+                  inputFile,
+                  outputFile,
+                  JsonMessageSource.fissParser(),
+                  ProtobufCaptureFile.Codec.FISS,
+                  blockSize);
+    } else {
+      count =
+          toJson
+              ? convertToJson(inputFile, outputFile, ProtobufCaptureFile.Codec.MCS)
+              : convertToCapture(
+                  inputFile,
+                  outputFile,
+                  JsonMessageSource.mcsParser(),
+                  ProtobufCaptureFile.Codec.MCS,
+                  blockSize);
+    }
+    log.info("converted {} claims", count);
+  }
+
+  /**
+   * Reads every claim from a NDJSON file and writes them to a binary capture file.
+   *
+   * @param inputFile the NDJSON file
+   * @param outputFile the capture file
+   * @param parser used to parse the NDJSON
+   * @param codec used to write the capture file
+   * @param blockSize number of claims per block in the capture file
+   * @param <T> the type of claim messages
+   * @return the number of claims converted
+   * @throws Exception if reading or writing fails
+   */
+  private static <T extends Message> int convertToCapture(
+      File inputFile,
+      File outputFile,
+      JsonMessageSource.Parser<T> parser,
+      ProtobufCaptureFile.Codec<T> codec,
+      int blockSize)
+      throws Exception {
+    int count = 0;
+    try (MessageSource<T> input = new JsonMessageSource<>(inputFile, parser);
+        ProtobufCaptureWriter<T> output =
+            new ProtobufCaptureWriter<>(
+                new BufferedOutputStream(new FileOutputStream(outputFile)), codec, blockSize)) {
+      while (input.hasNext()) {
+        output.write(input.next());
+        count += 1;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reads every claim from a binary capture file and writes them to a NDJSON file.
+   *
+   * @param inputFile the capture file
+   * @param outputFile the NDJSON file
+   * @param codec used to read the capture file
+   * @param <T> the type of claim messages
+   * @return the number of claims converted
+   * @throws Exception if reading or writing fails
+   */
+  private static <T extends Message> int convertToJson(
+      File inputFile, File outputFile, ProtobufCaptureFile.Codec<T> codec) throws Exception {
+    final JsonFormat.Printer printer = JsonFormat.printer().omittingInsignificantWhitespace();
+    int count = 0;
+    try (MessageSource<T> input =
+            new ProtobufCaptureMessageSource<>(Files.asByteSource(inputFile), codec);
+        PrintWriter output = new PrintWriter(new FileWriter(outputFile))) {
+      while (input.hasNext()) {
+        output.println(printer.print(input.next()));
+        count += 1;
+      }
+    }
+    return count;
+  }
+}
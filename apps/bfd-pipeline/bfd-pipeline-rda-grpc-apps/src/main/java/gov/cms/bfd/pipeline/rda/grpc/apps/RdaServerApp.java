@@ -72,12 +72,15 @@ public class RdaServerApp {
               .maxUniqueClaimIds(config.intOption("random.max.claimId").orElse(0))
               .useTimestampForErrorSeed(true)
               .maxToSend(config.intValue("maxToSend", 5_000))
+              .generatorThreads(config.intOption("random.threads").orElse(0))
+              .generatorBatchSize(config.intOption("random.batchSize").orElse(1_000))
+              .generatorCachedBatches(config.intOption("random.cachedBatches").orElse(0))
               .build();
       final var messageSourceFactoryConfig =
           RdaMessageSourceFactory.Config.builder()
               .randomClaimConfig(randomClaimConfig)
-              .fissClaimJsonFile(config.readableFileOption("file.fiss").orElse(null))
-              .mcsClaimJsonFile(config.readableFileOption("file.mcs").orElse(null))
+              .fissClaimFile(config.readableFileOption("file.fiss").orElse(null))
+              .mcsClaimFile(config.readableFileOption("file.mcs").orElse(null))
               .s3Bucket(config.stringOption("s3.bucket").orElse(null))
               .s3ClientConfig(
                   S3ClientConfig.s3Builder()
@@ -1,9 +1,12 @@
 package gov.cms.bfd.pipeline.rda.grpc.apps;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
 import com.google.protobuf.MessageOrBuilder;
 import com.google.protobuf.util.JsonFormat;
 import gov.cms.bfd.pipeline.rda.grpc.RdaChange;
+import gov.cms.bfd.pipeline.rda.grpc.server.ProtobufCaptureFile;
+import gov.cms.bfd.pipeline.rda.grpc.server.ProtobufCaptureWriter;
 import gov.cms.bfd.pipeline.rda.grpc.source.GrpcResponseStream;
 import gov.cms.bfd.pipeline.rda.grpc.source.RdaSourceConfig;
 import gov.cms.bfd.sharedutils.config.ConfigLoader;
@@ -14,36 +17,71 @@ import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.MethodDescriptor;
 import io.grpc.stub.ClientCalls;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.Duration;
 import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
-/** Opens the stream and prints out claims for Fiss and Mcs into a json file. */
+/**
+ * Opens the stream and prints out claims for Fiss and Mcs into a json file or a binary capture
+ * file.
+ */
 public class StoreRdaJsonApp<T extends MessageOrBuilder> {
   /** Enum to determine whether to ushe FISS or MCS service. */
   private enum ClaimType {
     /** Get Fiss claims. */
-    FISS(RDAServiceGrpc::getGetFissClaimsMethod),
+    FISS(RDAServiceGrpc::getGetFissClaimsMethod, ProtobufCaptureFile.Codec.FISS),
     /** Get Mcs claims. */
-    MCS(RDAServiceGrpc::getGetMcsClaimsMethod);
+    MCS(RDAServiceGrpc::getGetMcsClaimsMethod, ProtobufCaptureFile.Codec.MCS);
 
     /** Represents a supplier of the results. */
     private final Supplier<MethodDescriptor<ClaimRequest, ? extends MessageOrBuilder>> methodSource;
 
+    /** Used to write claims to a binary capture file. */
+    private final ProtobufCaptureFile.Codec<? extends Message> codec;
+
     /**
      * Constructor for ClaimType.
      *
      * @param methodSource sets the source to either Fiss or Mcs
+     * @param codec used to write claims to a binary capture file
      */
-    ClaimType(Supplier<MethodDescriptor<ClaimRequest, ? extends MessageOrBuilder>> methodSource) {
+    ClaimType(
+        Supplier<MethodDescriptor<ClaimRequest, ? extends MessageOrBuilder>> methodSource,
+        ProtobufCaptureFile.Codec<? extends Message> codec) {
       this.methodSource = methodSource;
+      this.codec = codec;
     }
   }
 
+  /** Enum to determine the format of the output file. */
+  private enum OutputFormat {
+    /** One JSON object per line (NDJSON). */
+    JSON,
+    /** Indexed binary capture file. See {@link ProtobufCaptureFile}. */
+    BINARY
+  }
+
+  /** Writes claims to the output file in a particular format. */
+  private interface ClaimWriter extends AutoCloseable {
+    /**
+     * Writes one claim to the output file.
+     *
+     * @param change the claim to write
+     * @throws IOException if writing fails
+     */
+    void write(MessageOrBuilder change) throws IOException;
+
+    @Override
+    void close() throws IOException;
+  }
+
   /**
    * Sets up the config parameters and converts the Fiss and Mcs claims results into json and puts
    * it into the output file.
@@ -63,15 +101,13 @@ public class StoreRdaJsonApp<T extends MessageOrBuilder> {
     final ManagedChannel channel = createChannel(config);
     try (var results = callService(config, channel)) {
       int received = 0;
-      try (PrintWriter output = new PrintWriter(new FileWriter(config.outputFile))) {
+      try (ClaimWriter output = createClaimWriter(config)) {
         while (received < config.maxToReceive && results.hasNext()) {
           final MessageOrBuilder change = results.next();
-          final String json = convertToJson(change);
-          output.println(json);
-          output.flush();
+          output.write(change);
           received += 1;
           if (received < 100 || received % 100 == 0) {
-            System.out.printf("%d: %s%n", received, json);
+            System.out.printf("%d: %s%n", received, convertToJson(change));
           }
         }
       }
@@ -84,6 +120,61 @@ public class StoreRdaJsonApp<T extends MessageOrBuilder> {
     }
   }
 
+  /**
+   * Creates a {@link ClaimWriter} that writes claims to the output file in the configured format.
+   *
+   * @param config is for the config values
+   * @return the writer
+   * @throws IOException if the output file could not be created
+   */
+  private static ClaimWriter createClaimWriter(Config config) throws IOException {
+    if (config.outputFormat == OutputFormat.BINARY) {
+      return createCaptureWriter(config.claimType.codec, config.outputFile);
+    }
+    final PrintWriter output = new PrintWriter(new FileWriter(config.outputFile));
+    return new ClaimWriter() {
+      @Override
+      public void write(MessageOrBuilder change) throws IOException {
+        output.println(convertToJson(change));
+        output.flush();
+      }
+
+      @Override
+      public void close() {
+        output.close();
+      }
+    };
+  }
+
+  /**
+   * Creates a {@link ClaimWriter} that writes claims to a binary capture file.
+   *
+   * @param codec used to extract sequence numbers from the claims
+   * @param outputFile the file to write
+   * @param <M> the type of claim messages
+   * @return the writer
+   * @throws IOException if the output file could not be created
+   */
+  private static <M extends Message> ClaimWriter createCaptureWriter(
+      ProtobufCaptureFile.Codec<M> codec, File outputFile) throws IOException {
+    final ProtobufCaptureWriter<M> output =
+        new ProtobufCaptureWriter<>(
+            new BufferedOutputStream(new FileOutputStream(outputFile)), codec);
+    return new ClaimWriter() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void write(MessageOrBuilder change) throws IOException {
+        // The ClaimType determines both the RPC method and the codec so they always agree.
+        output.write((M) change);
+      }
+
+      @Override
+      public void close() throws IOException {
+        output.close();
+      }
+    };
+  }
+
   /**
    * Creates the appropriate channel to be used.
    *
@@ -141,6 +232,8 @@ public class StoreRdaJsonApp<T extends MessageOrBuilder> {
     private final int maxToReceive;
     /** The output file to use. */
     private final File outputFile;
+    /** The format of the output file. */
+    private final OutputFormat outputFormat;
     /** The starting sequence number to process. */
     private final long startingSequenceNumber;
 
@@ -153,6 +246,8 @@ public class StoreRdaJsonApp<T extends MessageOrBuilder> {
       claimType = options.enumValue("output.type", ClaimType.class);
       maxToReceive = options.intValue("output.maxCount", Integer.MAX_VALUE);
       outputFile = options.writeableFile("output.file");
+      outputFormat =
+          options.enumOption("output.format", OutputFormat.class).orElse(OutputFormat.JSON);
       startingSequenceNumber = options.longOption("output.seq").orElse(RdaChange.MIN_SEQUENCE_NUM);
       grpcConfig =
           RdaSourceConfig.builder()
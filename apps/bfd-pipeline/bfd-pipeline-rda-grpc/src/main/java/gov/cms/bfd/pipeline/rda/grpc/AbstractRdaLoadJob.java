@@ -51,13 +51,23 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
     /** Asynchronous sink without automatic progress updates. */
     ASYNCHRONOUS,
     /** Synchronous sink without automatic progress updates. */
-    PRE_PROCESSOR
+    PRE_PROCESSOR,
+    /**
+     * Synchronous sink without automatic progress updates that never replaces a claim with an older
+     * change.
+     */
+    BACKFILL
   }
 
+  /** Default value for {@link Config#backfillMinShardSize} when none has been configured. */
+  public static final long DEFAULT_BACKFILL_MIN_SHARD_SIZE = 100_000L;
+
   /** The job configuration. */
   private final Config config;
   /** Factory for creating pre-job tasks. */
   private final Callable<RdaSource<TResponse, TClaim>> preJobTaskFactory;
+  /** Factory for the RDA source used to backfill historical claims in parallel. */
+  private final Callable<RdaSource<TResponse, TClaim>> backfillSourceFactory;
   /** Factory for the RDA source. */
   private final Callable<RdaSource<TResponse, TClaim>> sourceFactory;
   /** Factory for the RDA sink. */
@@ -78,6 +88,7 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
    *
    * @param config the configuration for this job
    * @param preJobTaskFactory the pre job task factory
+   * @param backfillSourceFactory the backfill source factory
    * @param sourceFactory the source factory
    * @param sinkFactory the sink factory
    * @param appMetrics the app metrics
@@ -86,12 +97,14 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
   AbstractRdaLoadJob(
       Config config,
       Callable<RdaSource<TResponse, TClaim>> preJobTaskFactory,
+      Callable<RdaSource<TResponse, TClaim>> backfillSourceFactory,
       Callable<RdaSource<TResponse, TClaim>> sourceFactory,
       ThrowingFunction<RdaSink<TResponse, TClaim>, SinkTypePreference, Exception> sinkFactory,
       MeterRegistry appMetrics,
       Logger logger) {
     this.config = Preconditions.checkNotNull(config);
     this.preJobTaskFactory = Preconditions.checkNotNull(preJobTaskFactory);
+    this.backfillSourceFactory = Preconditions.checkNotNull(backfillSourceFactory);
     this.sourceFactory = Preconditions.checkNotNull(sourceFactory);
     this.sinkFactory = Preconditions.checkNotNull(sinkFactory);
     this.logger = logger;
@@ -117,6 +130,9 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
       int processedCount = 0;
       try {
         processedCount += executePreJobTasks();
+        if (config.isBackfillEnabled()) {
+          processedCount += executeBackfill();
+        }
         processedCount += callRdaServiceAndStoreRecords();
       } catch (ProcessingException ex) {
         processedCount += ex.getProcessedCount();
@@ -165,6 +181,29 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
     }
   }
 
+  /**
+   * Executes the {@link #backfillSourceFactory} to load any backlog of claims in parallel before
+   * the normal stream is started. Any {@link ProcessingException}s are passed through unchanged but
+   * any other exceptions are wrapped in a {@link ProcessingException}.
+   *
+   * @throws ProcessingException if the backfill throws an exception
+   * @return number of claims processed by the backfill
+   */
+  int executeBackfill() throws ProcessingException {
+    try {
+      try (RdaSource<TResponse, TClaim> source = backfillSourceFactory.call();
+          RdaSink<TResponse, TClaim> sink = sinkFactory.apply(SinkTypePreference.BACKFILL)) {
+        return source.retrieveAndProcessObjects(config.getBatchSize(), sink);
+      }
+    } catch (ProcessingException ex) {
+      logger.error("backfill aborted by an exception: message={}", ex.getMessage(), ex);
+      throw ex;
+    } catch (Exception ex) {
+      logger.error("backfill aborted by an exception: message={}", ex.getMessage(), ex);
+      throw new ProcessingException(ex, 0);
+    }
+  }
+
   /**
    * Invokes the RdaSource and RdaSink objects to download data from the RDA API and store it into
    * the database.
@@ -277,6 +316,24 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
     /** Indicates the RDA Version (range) that the job is allows to process. */
     @Getter private final RdaVersion rdaVersion;
 
+    /**
+     * Maximum number of parallel streams used to load the backlog of claims before streaming
+     * normally. Values less than two disable the backfill entirely.
+     */
+    @Getter private final int backfillShards;
+
+    /**
+     * Smallest number of sequence numbers assigned to each backfill stream. Keeps small backlogs
+     * from being split into many tiny streams.
+     */
+    @Getter private final long backfillMinShardSize;
+
+    /**
+     * Determines if sinks compare a digest of each claim with the one stored in the database and
+     * only advance the sequence number of claims whose content has not changed.
+     */
+    @Getter private final boolean skipUnchangedClaims;
+
     /**
      * Instantiates a new config.
      *
@@ -288,6 +345,9 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
      * @param processDLQ if the job should process the DLQ
      * @param sinkTypePreference The {@link SinkTypePreference} to use for created jobs
      * @param rdaVersion The required {@link RdaVersion} in order to ingest data
+     * @param backfillShards maximum number of parallel backfill streams
+     * @param backfillMinShardSize minimum number of sequence numbers per backfill stream
+     * @param skipUnchangedClaims if sinks should skip rewriting claims whose content is unchanged
      */
     @Builder
     private Config(
@@ -298,7 +358,10 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
         @Nullable Long startingMcsSeqNum,
         boolean processDLQ,
         SinkTypePreference sinkTypePreference,
-        RdaVersion rdaVersion) {
+        RdaVersion rdaVersion,
+        int backfillShards,
+        long backfillMinShardSize,
+        boolean skipUnchangedClaims) {
       this.runInterval = Preconditions.checkNotNull(runInterval);
       this.batchSize = batchSize;
       this.writeThreads = writeThreads == 0 ? 1 : writeThreads;
@@ -307,11 +370,31 @@ public abstract class AbstractRdaLoadJob<TResponse, TClaim> implements PipelineJ
       this.processDLQ = processDLQ;
       this.sinkTypePreference = sinkTypePreference;
       this.rdaVersion = rdaVersion;
+      this.backfillShards = backfillShards;
+      this.backfillMinShardSize =
+          backfillMinShardSize == 0 ? DEFAULT_BACKFILL_MIN_SHARD_SIZE : backfillMinShardSize;
+      this.skipUnchangedClaims = skipUnchangedClaims;
       Preconditions.checkArgument(
           runInterval.toMillis() >= 1_000, "runInterval less than 1s: %s", runInterval);
       Preconditions.checkArgument(
           this.writeThreads >= 1, "writeThreads less than 1: %s", writeThreads);
       Preconditions.checkArgument(batchSize >= 1, "batchSize less than 1: %s", batchSize);
+      Preconditions.checkArgument(
+          this.backfillMinShardSize >= 1,
+          "backfillMinShardSize less than 1: %s",
+          backfillMinShardSize);
+      Preconditions.checkArgument(
+          !isBackfillEnabled() || (startingFissSeqNum == null && startingMcsSeqNum == null),
+          "backfill can not be combined with a hard coded starting sequence number");
+    }
+
+    /**
+     * Returns true if the job has been configured to backfill the claim history in parallel.
+     *
+     * @return true if backfill is enabled
+     */
+    public boolean isBackfillEnabled() {
+      return backfillShards > 1;
     }
 
     /**
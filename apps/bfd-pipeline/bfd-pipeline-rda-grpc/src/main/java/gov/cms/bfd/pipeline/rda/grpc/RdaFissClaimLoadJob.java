@@ -22,6 +22,7 @@ public class RdaFissClaimLoadJob
    *
    * @param config the configuration for this job
    * @param preJobTaskFactory the pre job task factory
+   * @param backfillSourceFactory the backfill source factory
    * @param sourceFactory the source factory
    * @param sinkFactory the sink factory
    * @param appMetrics the app metrics
@@ -29,11 +30,19 @@ public class RdaFissClaimLoadJob
   public RdaFissClaimLoadJob(
       Config config,
       Callable<RdaSource<FissClaimChange, RdaChange<RdaFissClaim>>> preJobTaskFactory,
+      Callable<RdaSource<FissClaimChange, RdaChange<RdaFissClaim>>> backfillSourceFactory,
       Callable<RdaSource<FissClaimChange, RdaChange<RdaFissClaim>>> sourceFactory,
       ThrowingFunction<
               RdaSink<FissClaimChange, RdaChange<RdaFissClaim>>, SinkTypePreference, Exception>
           sinkFactory,
       MeterRegistry appMetrics) {
-    super(config, preJobTaskFactory, sourceFactory, sinkFactory, appMetrics, LOGGER);
+    super(
+        config,
+        preJobTaskFactory,
+        backfillSourceFactory,
+        sourceFactory,
+        sinkFactory,
+        appMetrics,
+        LOGGER);
   }
 }
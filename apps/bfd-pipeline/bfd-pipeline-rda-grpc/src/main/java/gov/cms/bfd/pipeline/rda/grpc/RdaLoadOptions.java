@@ -1,12 +1,15 @@
 package gov.cms.bfd.pipeline.rda.grpc;
 
 import com.google.common.base.Preconditions;
+import gov.cms.bfd.model.rda.RdaApiProgress;
 import gov.cms.bfd.model.rda.RdaFissClaim;
 import gov.cms.bfd.model.rda.RdaMcsClaim;
+import gov.cms.bfd.pipeline.rda.grpc.sink.bulk.RdaBulkLoader;
 import gov.cms.bfd.pipeline.rda.grpc.sink.concurrent.ConcurrentRdaSink;
 import gov.cms.bfd.pipeline.rda.grpc.sink.direct.FissClaimRdaSink;
 import gov.cms.bfd.pipeline.rda.grpc.sink.direct.MbiCache;
 import gov.cms.bfd.pipeline.rda.grpc.sink.direct.McsClaimRdaSink;
+import gov.cms.bfd.pipeline.rda.grpc.source.BackfillGrpcRdaSource;
 import gov.cms.bfd.pipeline.rda.grpc.source.DLQGrpcRdaSource;
 import gov.cms.bfd.pipeline.rda.grpc.source.FissClaimStreamCaller;
 import gov.cms.bfd.pipeline.rda.grpc.source.FissClaimTransformer;
@@ -138,9 +141,20 @@ public class RdaLoadOptions {
       preJobTaskFactory = EmptyRdaSource::new;
     }
 
+    final var sinkFactory = createFissSinkFactory(appState, mbiCache);
     return new RdaFissClaimLoadJob(
         jobConfig,
         preJobTaskFactory,
+        () ->
+            new BackfillGrpcRdaSource<>(
+                rdaSourceConfig,
+                new FissClaimStreamCaller(),
+                appState.getMeters(),
+                "fiss",
+                jobConfig.getRdaVersion(),
+                jobConfig.getBackfillShards(),
+                jobConfig.getBackfillMinShardSize(),
+                () -> sinkFactory.apply(AbstractRdaLoadJob.SinkTypePreference.BACKFILL)),
         () ->
             new StandardGrpcRdaSource<>(
                 rdaSourceConfig,
@@ -149,7 +163,7 @@ public class RdaLoadOptions {
                 "fiss",
                 jobConfig.getStartingFissSeqNum(),
                 jobConfig.getRdaVersion()),
-        createFissSinkFactory(appState, mbiCache),
+        sinkFactory,
         appState.getMeters());
   }
 
@@ -170,9 +184,17 @@ public class RdaLoadOptions {
       FissClaimTransformer transformer = new FissClaimTransformer(appState.getClock(), mbiCache);
 
       if (sinkTypePreference == AbstractRdaLoadJob.SinkTypePreference.SYNCHRONOUS) {
-        sink = new FissClaimRdaSink(appState, transformer, true, errorLimit);
+        sink =
+            new FissClaimRdaSink(
+                appState, transformer, true, false, jobConfig.isSkipUnchangedClaims(), errorLimit);
       } else if (sinkTypePreference == AbstractRdaLoadJob.SinkTypePreference.PRE_PROCESSOR) {
-        sink = new FissClaimRdaSink(appState, transformer, false, errorLimit);
+        sink =
+            new FissClaimRdaSink(
+                appState, transformer, false, false, jobConfig.isSkipUnchangedClaims(), errorLimit);
+      } else if (sinkTypePreference == AbstractRdaLoadJob.SinkTypePreference.BACKFILL) {
+        sink =
+            new FissClaimRdaSink(
+                appState, transformer, false, true, jobConfig.isSkipUnchangedClaims(), errorLimit);
       } else {
         sink =
             ConcurrentRdaSink.createSink(
@@ -180,7 +202,12 @@ public class RdaLoadOptions {
                 jobConfig.getBatchSize(),
                 autoUpdateSequenceNumbers ->
                     new FissClaimRdaSink(
-                        appState, transformer, autoUpdateSequenceNumbers, errorLimit));
+                        appState,
+                        transformer,
+                        autoUpdateSequenceNumbers,
+                        false,
+                        jobConfig.isSkipUnchangedClaims(),
+                        errorLimit));
       }
 
       return sink;
@@ -213,9 +240,20 @@ public class RdaLoadOptions {
       preJobTaskFactory = EmptyRdaSource::new;
     }
 
+    final var sinkFactory = createMcsSinkFactory(appState, mbiCache);
     return new RdaMcsClaimLoadJob(
         jobConfig,
         preJobTaskFactory,
+        () ->
+            new BackfillGrpcRdaSource<>(
+                rdaSourceConfig,
+                new McsClaimStreamCaller(),
+                appState.getMeters(),
+                "mcs",
+                jobConfig.getRdaVersion(),
+                jobConfig.getBackfillShards(),
+                jobConfig.getBackfillMinShardSize(),
+                () -> sinkFactory.apply(AbstractRdaLoadJob.SinkTypePreference.BACKFILL)),
         () ->
             new StandardGrpcRdaSource<>(
                 rdaSourceConfig,
@@ -224,10 +262,68 @@ public class RdaLoadOptions {
                 "mcs",
                 jobConfig.getStartingMcsSeqNum(),
                 jobConfig.getRdaVersion()),
-        createMcsSinkFactory(appState, mbiCache),
+        sinkFactory,
         appState.getMeters());
   }
 
+  /**
+   * Creates a {@link RdaBulkLoader} that loads FISS claims using the same transformation logic as
+   * the normal pipeline.
+   *
+   * @param appState the shared {@link PipelineApplicationState}
+   * @param mbiCache the shared {@link MbiCache}
+   * @param bulkConfig settings controlling the load
+   * @return the loader
+   */
+  public RdaBulkLoader<FissClaimChange, RdaFissClaim> createFissBulkLoader(
+      PipelineApplicationState appState, MbiCache mbiCache, RdaBulkLoader.Config bulkConfig) {
+    final FissClaimRdaSink sink =
+        new FissClaimRdaSink(
+            appState,
+            new FissClaimTransformer(appState.getClock(), mbiCache),
+            false,
+            false,
+            jobConfig.isSkipUnchangedClaims(),
+            errorLimit);
+    return new RdaBulkLoader<>(
+        appState.getPooledDataSource(),
+        sink,
+        sink::createMetaData,
+        RdaFissClaim.class,
+        RdaApiProgress.ClaimType.FISS,
+        bulkConfig,
+        appState.getClock());
+  }
+
+  /**
+   * Creates a {@link RdaBulkLoader} that loads MCS claims using the same transformation logic as
+   * the normal pipeline.
+   *
+   * @param appState the shared {@link PipelineApplicationState}
+   * @param mbiCache the shared {@link MbiCache}
+   * @param bulkConfig settings controlling the load
+   * @return the loader
+   */
+  public RdaBulkLoader<McsClaimChange, RdaMcsClaim> createMcsBulkLoader(
+      PipelineApplicationState appState, MbiCache mbiCache, RdaBulkLoader.Config bulkConfig) {
+    final McsClaimRdaSink sink =
+        new McsClaimRdaSink(
+            appState,
+            new McsClaimTransformer(appState.getClock(), mbiCache),
+            false,
+            false,
+            jobConfig.isSkipUnchangedClaims(),
+            errorLimit);
+    return new RdaBulkLoader<>(
+        appState.getPooledDataSource(),
+        sink,
+        sink::createMetaData,
+        RdaMcsClaim.class,
+        RdaApiProgress.ClaimType.MCS,
+        bulkConfig,
+        appState.getClock());
+  }
+
   /**
    * Helper method to define an MCS sink factory.
    *
@@ -245,9 +341,17 @@ public class RdaLoadOptions {
       McsClaimTransformer transformer = new McsClaimTransformer(appState.getClock(), mbiCache);
 
       if (sinkTypePreference == AbstractRdaLoadJob.SinkTypePreference.SYNCHRONOUS) {
-        sink = new McsClaimRdaSink(appState, transformer, true, errorLimit);
+        sink =
+            new McsClaimRdaSink(
+                appState, transformer, true, false, jobConfig.isSkipUnchangedClaims(), errorLimit);
       } else if (sinkTypePreference == AbstractRdaLoadJob.SinkTypePreference.PRE_PROCESSOR) {
-        sink = new McsClaimRdaSink(appState, transformer, false, errorLimit);
+        sink =
+            new McsClaimRdaSink(
+                appState, transformer, false, false, jobConfig.isSkipUnchangedClaims(), errorLimit);
+      } else if (sinkTypePreference == AbstractRdaLoadJob.SinkTypePreference.BACKFILL) {
+        sink =
+            new McsClaimRdaSink(
+                appState, transformer, false, true, jobConfig.isSkipUnchangedClaims(), errorLimit);
       } else {
         sink =
             ConcurrentRdaSink.createSink(
@@ -255,7 +359,12 @@ public class RdaLoadOptions {
                 jobConfig.getBatchSize(),
                 autoUpdateSequenceNumbers ->
                     new McsClaimRdaSink(
-                        appState, transformer, autoUpdateSequenceNumbers, errorLimit));
+                        appState,
+                        transformer,
+                        autoUpdateSequenceNumbers,
+                        false,
+                        jobConfig.isSkipUnchangedClaims(),
+                        errorLimit));
       }
 
       return sink;
@@ -21,6 +21,7 @@ public class RdaMcsClaimLoadJob extends AbstractRdaLoadJob<McsClaimChange, RdaCh
    *
    * @param config the configuration for this job
    * @param preJobTaskFactory the pre job task factory
+   * @param backfillSourceFactory the backfill source factory
    * @param sourceFactory the source factory
    * @param sinkFactory the sink factory
    * @param appMetrics the app metrics
@@ -28,11 +29,19 @@ public class RdaMcsClaimLoadJob extends AbstractRdaLoadJob<McsClaimChange, RdaCh
   public RdaMcsClaimLoadJob(
       Config config,
       Callable<RdaSource<McsClaimChange, RdaChange<RdaMcsClaim>>> preJobTaskFactory,
+      Callable<RdaSource<McsClaimChange, RdaChange<RdaMcsClaim>>> backfillSourceFactory,
       Callable<RdaSource<McsClaimChange, RdaChange<RdaMcsClaim>>> sourceFactory,
       ThrowingFunction<
               RdaSink<McsClaimChange, RdaChange<RdaMcsClaim>>, SinkTypePreference, Exception>
           sinkFactory,
       MeterRegistry appMetrics) {
-    super(config, preJobTaskFactory, sourceFactory, sinkFactory, appMetrics, LOGGER);
+    super(
+        config,
+        preJobTaskFactory,
+        backfillSourceFactory,
+        sourceFactory,
+        sinkFactory,
+        appMetrics,
+        LOGGER);
   }
 }
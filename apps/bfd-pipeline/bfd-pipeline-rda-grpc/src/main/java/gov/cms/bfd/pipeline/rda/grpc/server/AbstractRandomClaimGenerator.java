@@ -6,10 +6,8 @@ import java.time.Clock;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.Random;
 import java.util.Stack;
-import java.util.stream.Collectors;
 
 /**
  * The base class provides common functionality used by the FISS and MCS claim generators to create
@@ -35,15 +33,20 @@ abstract class AbstractRandomClaimGenerator<T> {
   private static final String ALNUM = ALPHA + DIGIT;
   /** The maximum number of days in the past that a random date value can be generated for. */
   private static final int MAX_DAYS_AGO = 180;
+  /**
+   * Spreads sequence numbers across the seed space when seeding the error generation {@link Random}
+   * since adjacent seeds produce correlated first values.
+   */
+  private static final long ERROR_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
 
   /** Our configuration settings. */
   private final RandomClaimGeneratorConfig config;
 
   /**
-   * Plain {@link Random} used to generate random number for deciding whether to insert an invalid
-   * field into a generated claim.
+   * Combined with the sequence number to seed the {@link Random} used to decide whether to insert
+   * an invalid field into a generated claim.
    */
-  private final Random errorGenerationRandom;
+  private final long errorGenerationSeed;
 
   /** The sequence number of the generated claim, which regulates randomness between claims. */
   private long sequence;
@@ -55,6 +58,9 @@ abstract class AbstractRandomClaimGenerator<T> {
    * different random, but stable, value. The path is used along with the {@link
    * RandomClaimGeneratorConfig#seed} and {@link #sequence} to seed the {@link Random} object used
    * to generate field values.
+   *
+   * <p>Each entry holds the complete path (all layers joined with periods) so that the current path
+   * is always available from the top of the stack without joining the layers for every value.
    */
   private final Stack<String> path;
 
@@ -65,7 +71,7 @@ abstract class AbstractRandomClaimGenerator<T> {
    */
   AbstractRandomClaimGenerator(RandomClaimGeneratorConfig config) {
     this.config = config;
-    errorGenerationRandom = new Random(config.getRandomErrorSeed());
+    errorGenerationSeed = config.getRandomErrorSeed();
     sequence = 1;
     path = new Stack<>();
   }
@@ -125,6 +131,24 @@ abstract class AbstractRandomClaimGenerator<T> {
     return randomClaim;
   }
 
+  /**
+   * Generates the random claim for a specific sequence number. Every value in the claim is derived
+   * from our configuration and the sequence number so the same claim is produced regardless of
+   * which claims (if any) were generated before it. This allows callers to jump directly to any
+   * sequence number or to generate different ranges of claims in parallel using one generator per
+   * thread.
+   *
+   * <p>Leaves this generator positioned so that {@link #randomClaim()} will produce the claim for
+   * the following sequence number.
+   *
+   * @param sequenceNumber the sequence number of the claim to generate
+   * @return The generated claim.
+   */
+  public T randomClaim(long sequenceNumber) {
+    sequence = sequenceNumber;
+    return randomClaim();
+  }
+
   /**
    * Implementation defined logic for creating a random claim.
    *
@@ -139,8 +163,13 @@ abstract class AbstractRandomClaimGenerator<T> {
    * @return true if current claim should have a transformation error added to it
    */
   protected boolean shouldInsertErrorIntoCurrentClaim() {
-    return config.getRandomErrorRate() > 0
-        && errorGenerationRandom.nextInt(config.getRandomErrorRate()) == 0;
+    if (config.getRandomErrorRate() <= 0) {
+      return false;
+    }
+    // Seeded per claim (rather than drawing from one long lived Random) so that the decision does
+    // not depend on how many claims were generated before this one.
+    final Random random = new Random(errorGenerationSeed + ERROR_SEED_MULTIPLIER * sequence);
+    return random.nextInt(config.getRandomErrorRate()) == 0;
   }
 
   /**
@@ -287,8 +316,7 @@ abstract class AbstractRandomClaimGenerator<T> {
    */
   private RandomValueContext createContext(String prefix) {
     String prefixString = prefix != null && !prefix.isBlank() ? prefix + "." : "";
-    String propertyPath =
-        prefixString + path.stream().filter(Objects::nonNull).collect(Collectors.joining("."));
+    String propertyPath = prefixString + (path.isEmpty() ? "" : path.peek());
     return new RandomValueContext(config.getSeed() + sequence + propertyPath.hashCode());
   }
 
@@ -302,7 +330,7 @@ abstract class AbstractRandomClaimGenerator<T> {
    */
   private PathLayer addLayer(String propertyName) {
     if (propertyName != null && !propertyName.isBlank()) {
-      path.push(propertyName);
+      path.push(path.isEmpty() ? propertyName : path.peek() + "." + propertyName);
       return path::pop;
     }
 
@@ -0,0 +1,237 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.Message;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Generates random messages using a pool of threads so that a mock RDA API server can produce
+ * messages much faster than a single thread could. Relies on the fact that the random claim
+ * generators produce the same message for a given sequence number no matter what order messages are
+ * generated in.
+ *
+ * <p>Messages are generated in fixed size batches. Each {@link MessageSource} created by this
+ * object keeps a number of batches in progress ahead of the one currently being consumed so that
+ * generation overlaps with sending. Optionally a number of completed batches can be retained in a
+ * cache shared by all message sources so that clients requesting the same range of sequence numbers
+ * do not cause those messages to be generated again. Since each message's serialized size is
+ * computed (and memoized by protobuf) on the worker thread the thread sending the message has less
+ * work to do as well.
+ *
+ * <p>Sequence numbers start at one and end at {@link RandomClaimGeneratorConfig#maxToSend} to match
+ * {@link RandomFissClaimSource} and {@link RandomMcsClaimSource}.
+ *
+ * @param <T> the message type
+ */
+@ThreadSafe
+public class ParallelRandomMessageGenerator<T extends Message> {
+  /** Threads used to generate messages. Shared with other generators and not owned by us. */
+  private final ExecutorService executor;
+  /** One generator function per worker thread since the underlying generators are not shared. */
+  private final ThreadLocal<LongFunction<T>> generators;
+  /** Number of messages in each batch. */
+  private final int batchSize;
+  /** Number of batches each message source keeps in progress. */
+  private final int readAheadBatches;
+  /** Highest sequence number that will be generated. */
+  private final long lastSequenceNumber;
+  /** Completed (or in progress) batches indexed by batch number. Null if caching is disabled. */
+  @Nullable private final Cache<Long, Future<List<T>>> cache;
+
+  /**
+   * Creates an instance using the provided settings.
+   *
+   * @param executor threads used to generate messages
+   * @param generatorFactory called once per worker thread to create a function that generates the
+   *     message for any given sequence number
+   * @param config provides the number of threads, batch size, cache size, and last sequence number
+   */
+  public ParallelRandomMessageGenerator(
+      ExecutorService executor,
+      Supplier<LongFunction<T>> generatorFactory,
+      RandomClaimGeneratorConfig config) {
+    Preconditions.checkArgument(
+        config.getGeneratorBatchSize() > 0,
+        "generatorBatchSize must be positive: %s",
+        config.getGeneratorBatchSize());
+    this.executor = executor;
+    generators = ThreadLocal.withInitial(generatorFactory);
+    batchSize = config.getGeneratorBatchSize();
+    readAheadBatches = Math.max(2, 2 * config.getGeneratorThreads());
+    lastSequenceNumber = Math.max(0, config.getMaxToSend());
+    cache =
+        config.getGeneratorCachedBatches() > 0
+            ? CacheBuilder.newBuilder().maximumSize(config.getGeneratorCachedBatches()).build()
+            : null;
+  }
+
+  /**
+   * Creates an {@link ExecutorService} suitable for use by one or more instances of this class. The
+   * threads are daemon threads so that an abandoned server does not prevent the JVM from exiting.
+   *
+   * @param threads number of threads in the pool
+   * @return the executor
+   */
+  public static ExecutorService createExecutor(int threads) {
+    return Executors.newFixedThreadPool(
+        threads,
+        new ThreadFactoryBuilder()
+            .setNameFormat("RandomClaimGenerator-%d")
+            .setDaemon(true)
+            .build());
+  }
+
+  /**
+   * Creates a {@link MessageSource} that returns messages starting at the specified sequence
+   * number. Skipping ahead is a constant time operation.
+   *
+   * @param startingSequenceNumber first sequence number desired by the caller
+   * @return the source
+   */
+  public MessageSource<T> createMessageSource(long startingSequenceNumber) {
+    return new Source().skipTo(startingSequenceNumber);
+  }
+
+  /**
+   * Computes the batch number of the batch containing the specified sequence number.
+   *
+   * @param sequenceNumber the sequence number (one or higher)
+   * @return the batch number
+   */
+  private long batchNumberOf(long sequenceNumber) {
+    return (sequenceNumber - 1) / batchSize;
+  }
+
+  /**
+   * Computes the first sequence number in the specified batch.
+   *
+   * @param batchNumber the batch number
+   * @return the first sequence number
+   */
+  private long firstSequenceNumberOf(long batchNumber) {
+    return 1 + batchNumber * batchSize;
+  }
+
+  /**
+   * Gets the (possibly still running) generation task for the specified batch. Uses the cache if
+   * caching is enabled. Otherwise submits a new task.
+   *
+   * @param batchNumber the batch number
+   * @return the task
+   * @throws ExecutionException if the cache could not add the task
+   */
+  private Future<List<T>> getBatch(long batchNumber) throws ExecutionException {
+    if (cache == null) {
+      return executor.submit(() -> generateBatch(batchNumber));
+    } else {
+      return cache.get(batchNumber, () -> executor.submit(() -> generateBatch(batchNumber)));
+    }
+  }
+
+  /**
+   * Generates all messages in the specified batch. Called by worker threads.
+   *
+   * @param batchNumber the batch number
+   * @return the messages in sequence number order
+   */
+  private List<T> generateBatch(long batchNumber) {
+    final LongFunction<T> generator = generators.get();
+    final long first = firstSequenceNumberOf(batchNumber);
+    final long last = Math.min(lastSequenceNumber, first + batchSize - 1);
+    final List<T> messages = new ArrayList<>((int) Math.max(0, last - first + 1));
+    for (long sequenceNumber = first; sequenceNumber <= last; ++sequenceNumber) {
+      final T message = generator.apply(sequenceNumber);
+      message.getSerializedSize();
+      messages.add(message);
+    }
+    return messages;
+  }
+
+  /**
+   * {@link MessageSource} implementation that consumes batches in order while keeping later batches
+   * in progress.
+   */
+  private class Source implements MessageSource<T> {
+    /** Batches currently in progress, starting with the one containing {@link #nextSequence}. */
+    private final ArrayDeque<Future<List<T>>> pending = new ArrayDeque<>();
+    /** Batch number of the first batch in {@link #pending}. */
+    private long pendingFirstBatch;
+    /** Sequence number of the next message to return. */
+    private long nextSequence = 1;
+
+    @Override
+    public MessageSource<T> skipTo(long startingSequenceNumber) {
+      nextSequence = Math.max(nextSequence, startingSequenceNumber);
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextSequence <= lastSequenceNumber;
+    }
+
+    @Override
+    public T next() throws Exception {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final long batchNumber = batchNumberOf(nextSequence);
+      fillPending(batchNumber);
+      final List<T> batch = pending.getFirst().get();
+      final T message = batch.get((int) (nextSequence - firstSequenceNumberOf(batchNumber)));
+      nextSequence += 1;
+      return message;
+    }
+
+    /**
+     * Cancels any batches still in progress unless they are cached for use by other sources.
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+      if (cache == null) {
+        pending.forEach(batch -> batch.cancel(false));
+      }
+      pending.clear();
+    }
+
+    /**
+     * Discards batches before the specified one and then starts enough batches to fill our read
+     * ahead allowance.
+     *
+     * @param batchNumber batch containing the next message to return
+     * @throws ExecutionException if a batch could not be started
+     */
+    private void fillPending(long batchNumber) throws ExecutionException {
+      while (!pending.isEmpty() && pendingFirstBatch < batchNumber) {
+        final Future<List<T>> discarded = pending.removeFirst();
+        if (cache == null) {
+          discarded.cancel(false);
+        }
+        pendingFirstBatch += 1;
+      }
+      if (pending.isEmpty()) {
+        pendingFirstBatch = batchNumber;
+      }
+      final long lastBatchNumber = batchNumberOf(lastSequenceNumber);
+      while (pending.size() < readAheadBatches
+          && pendingFirstBatch + pending.size() <= lastBatchNumber) {
+        pending.addLast(getBatch(pendingFirstBatch + pending.size()));
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import com.google.common.io.ByteSource;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import gov.cms.mpsm.rda.v1.FissClaimChange;
+import gov.cms.mpsm.rda.v1.McsClaimChange;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Defines the layout of binary RDA capture files and provides methods shared by {@link
+ * ProtobufCaptureWriter} and {@link ProtobufCaptureMessageSource}.
+ *
+ * <p>A capture file contains the same messages as a NDJSON capture but stores them in a form that
+ * is much cheaper to read. Messages are written using the protobuf length delimited format and
+ * grouped into blocks. Each block is compressed independently using gzip. A sparse index containing
+ * one entry per block follows the last block. The index allows a reader to locate the block
+ * containing any sequence number using a binary search and to begin decompressing at that block
+ * without reading any of the blocks before it.
+ *
+ * <p>The file layout is:
+ *
+ * <ul>
+ *   <li>Zero or more gzip compressed blocks of length delimited messages.
+ *   <li>One index entry per block: first sequence number (long), last sequence number (long), file
+ *       offset of block (long), and number of messages in block (int).
+ *   <li>Number of index entries (int).
+ *   <li>The {@link #MAGIC} value (long) identifying the file as a capture file.
+ * </ul>
+ *
+ * <p>Messages must be written in increasing sequence number order for seeks to work properly. All
+ * numbers are written in big endian order.
+ */
+public final class ProtobufCaptureFile {
+  /** Simple file name suffix used for capture files. */
+  public static final String FILE_SUFFIX = "rdapb";
+
+  /** Value written at the end of every capture file. Spells {@code RDAPB001} in ASCII. */
+  static final long MAGIC = 0x5244415042303031L;
+
+  /** Number of bytes in the fixed size portion of the trailer (entry count and magic). */
+  static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES;
+
+  /** Number of bytes in each index entry. */
+  static final int INDEX_ENTRY_BYTES = 3 * Long.BYTES + Integer.BYTES;
+
+  /** Default number of messages written to each compressed block. */
+  public static final int DEFAULT_MESSAGES_PER_BLOCK = 1_000;
+
+  /** Prevents instantiation of utility class. */
+  private ProtobufCaptureFile() {}
+
+  /**
+   * Determines if a file name appears to refer to a capture file based on its suffix. Capture files
+   * are already compressed block by block. Compressing one as a whole gains nothing and forces
+   * every seek to decompress the file from its beginning, so such files are rejected rather than
+   * read.
+   *
+   * @param fileName the file name to check
+   * @return true if the file name ends with {@link #FILE_SUFFIX}
+   * @throws IllegalArgumentException if the file name ends with {@link #FILE_SUFFIX} followed by
+   *     {@code .gz}
+   */
+  public static boolean isCaptureFileName(String fileName) {
+    final String lowerName = fileName.toLowerCase();
+    if (lowerName.endsWith("." + FILE_SUFFIX + ".gz")) {
+      throw new IllegalArgumentException(
+          "capture files must not be gzip compressed as a whole: " + fileName);
+    }
+    return lowerName.endsWith("." + FILE_SUFFIX);
+  }
+
+  /**
+   * Reads the index from the end of a capture file. Only the trailer bytes are read so this is
+   * inexpensive for file backed {@link ByteSource}s. A zero length source is treated as a capture
+   * file containing no messages so that {@link ByteSource#empty} can be used as a placeholder.
+   *
+   * @param source the capture file
+   * @return the index entries in file order
+   * @throws IOException if the file could not be read or is not a valid capture file
+   */
+  public static List<IndexEntry> readIndex(ByteSource source) throws IOException {
+    final long fileSize = source.size();
+    if (fileSize == 0) {
+      return List.of();
+    }
+    if (fileSize < TRAILER_BYTES) {
+      throw new IOException("file too small to be a capture file: size=" + fileSize);
+    }
+    final int entryCount;
+    try (DataInputStream in =
+        new DataInputStream(source.slice(fileSize - TRAILER_BYTES, TRAILER_BYTES).openStream())) {
+      entryCount = in.readInt();
+      if (in.readLong() != MAGIC) {
+        throw new IOException("file is not a capture file: invalid magic number");
+      }
+    }
+    final long indexBytes = (long) entryCount * INDEX_ENTRY_BYTES;
+    final long indexStart = fileSize - TRAILER_BYTES - indexBytes;
+    if (entryCount < 0 || indexStart < 0) {
+      throw new IOException("capture file index is corrupt: entryCount=" + entryCount);
+    }
+    final List<IndexEntry> entries = new ArrayList<>(entryCount);
+    try (DataInputStream in =
+        new DataInputStream(source.slice(indexStart, indexBytes).openBufferedStream())) {
+      for (int i = 0; i < entryCount; ++i) {
+        entries.add(new IndexEntry(in.readLong(), in.readLong(), in.readLong(), in.readInt()));
+      }
+    }
+    return Collections.unmodifiableList(entries);
+  }
+
+  /**
+   * Writes the index and trailer to the end of a capture file.
+   *
+   * @param out stream positioned after the last block
+   * @param entries the index entries in file order
+   * @throws IOException if writing fails
+   */
+  static void writeIndex(DataOutputStream out, List<IndexEntry> entries) throws IOException {
+    for (IndexEntry entry : entries) {
+      out.writeLong(entry.getFirstSequenceNumber());
+      out.writeLong(entry.getLastSequenceNumber());
+      out.writeLong(entry.getOffset());
+      out.writeInt(entry.getMessageCount());
+    }
+    out.writeInt(entries.size());
+    out.writeLong(MAGIC);
+  }
+
+  /**
+   * Finds the first block that could contain a message with the given sequence number or any higher
+   * sequence number.
+   *
+   * @param entries the index entries in file order
+   * @param sequenceNumber the desired sequence number
+   * @return index of the block or {@code entries.size()} if all blocks are below the sequence
+   *     number
+   */
+  static int findBlock(List<IndexEntry> entries, long sequenceNumber) {
+    int low = 0;
+    int high = entries.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (entries.get(mid).getLastSequenceNumber() < sequenceNumber) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** One entry in the sparse index. Describes a single compressed block of messages. */
+  @Value
+  public static class IndexEntry {
+    /** Sequence number of the first message in the block. */
+    long firstSequenceNumber;
+    /** Sequence number of the last message in the block. */
+    long lastSequenceNumber;
+    /** Offset of the start of the block from the beginning of the file. */
+    long offset;
+    /** Number of messages in the block. */
+    int messageCount;
+  }
+
+  /**
+   * Knows how to parse a particular message type and extract its sequence number.
+   *
+   * @param <T> the message type
+   */
+  @AllArgsConstructor
+  @Getter
+  public static class Codec<T extends Message> {
+    /** Codec for {@link FissClaimChange} messages. */
+    public static final Codec<FissClaimChange> FISS =
+        new Codec<>(FissClaimChange.parser(), FissClaimChange::getSeq);
+
+    /** Codec for {@link McsClaimChange} messages. */
+    public static final Codec<McsClaimChange> MCS =
+        new Codec<>(McsClaimChange.parser(), McsClaimChange::getSeq);
+
+    /** Parses messages from their binary form. */
+    private final Parser<T> parser;
+    /** Extracts the sequence number from a message. */
+    private final ToLongFunction<T> sequenceNumberGetter;
+
+    /**
+     * Reads one length delimited message from the stream.
+     *
+     * @param in the stream to read from
+     * @return the message or null if the stream is at its end
+     * @throws IOException if the message could not be read
+     */
+    public T readDelimited(InputStream in) throws IOException {
+      return parser.parseDelimitedFrom(in);
+    }
+
+    /**
+     * Extracts the sequence number from a message.
+     *
+     * @param message the message
+     * @return its sequence number
+     */
+    public long sequenceNumberOf(T message) {
+      return sequenceNumberGetter.applyAsLong(message);
+    }
+  }
+}
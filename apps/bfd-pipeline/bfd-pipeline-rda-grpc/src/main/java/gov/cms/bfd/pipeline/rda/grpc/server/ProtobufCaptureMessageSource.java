@@ -0,0 +1,185 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import com.google.common.io.ByteSource;
+import com.google.protobuf.Message;
+import gov.cms.bfd.pipeline.rda.grpc.RdaChange;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A {@link MessageSource} implementation that produces messages from a binary capture file written
+ * by {@link ProtobufCaptureWriter}. Messages are parsed directly from their binary form which
+ * avoids the cost of parsing JSON. The file's index is used by {@link #skipTo} to jump directly to
+ * the block containing the desired sequence number so that only that block needs to be decompressed
+ * and scanned.
+ *
+ * @param <T> the message type
+ */
+public class ProtobufCaptureMessageSource<T extends Message> implements MessageSource<T> {
+  /** The capture file. */
+  private final ByteSource source;
+  /** Parses messages and extracts their sequence numbers. */
+  private final ProtobufCaptureFile.Codec<T> codec;
+  /** The index read from the end of the file. */
+  private final List<ProtobufCaptureFile.IndexEntry> entries;
+  /** Offset of the first byte after the last block. Used to compute the size of the last block. */
+  private final long endOfBlocks;
+  /** Index of the block currently being read. Equals size of {@link #entries} once exhausted. */
+  private int blockIndex;
+  /** Number of messages remaining to be read from the current block. */
+  private int remainingInBlock;
+  /** Stream for reading the current block. Null if no block is open. */
+  private InputStream blockStream;
+  /** The next message to return. */
+  private T nextMessage;
+
+  /**
+   * Produce a source that reads messages from the provided capture file. Only the index is read by
+   * the constructor.
+   *
+   * @param source the capture file
+   * @param codec used to parse messages from the file
+   * @throws IOException if the file could not be read or is not a valid capture file
+   */
+  public ProtobufCaptureMessageSource(ByteSource source, ProtobufCaptureFile.Codec<T> codec)
+      throws IOException {
+    this.source = source;
+    this.codec = codec;
+    entries = ProtobufCaptureFile.readIndex(source);
+    endOfBlocks =
+        entries.isEmpty()
+            ? 0
+            : source.size()
+                - ProtobufCaptureFile.TRAILER_BYTES
+                - (long) entries.size() * ProtobufCaptureFile.INDEX_ENTRY_BYTES;
+    blockIndex = -1;
+  }
+
+  /**
+   * Computes the range of sequence numbers contained in a capture file using only its index. An
+   * empty file produces a range with both bounds set to {@link RdaChange#MIN_SEQUENCE_NUM} to match
+   * {@link RdaMessageSourceFactory#scanSequenceNumberRange}.
+   *
+   * @param source the capture file
+   * @return the range of sequence numbers in the file
+   * @throws IOException if the file could not be read or is not a valid capture file
+   */
+  public static ClaimSequenceNumberRange readSequenceNumberRange(ByteSource source)
+      throws IOException {
+    final var entries = ProtobufCaptureFile.readIndex(source);
+    final var range = ClaimSequenceNumberRange.newBuilder();
+    if (entries.isEmpty()) {
+      range.setLower(RdaChange.MIN_SEQUENCE_NUM).setUpper(RdaChange.MIN_SEQUENCE_NUM);
+    } else {
+      range
+          .setLower(entries.get(0).getFirstSequenceNumber())
+          .setUpper(entries.get(entries.size() - 1).getLastSequenceNumber());
+    }
+    return range.build();
+  }
+
+  /**
+   * Uses the index to position the source at the first block that could contain the desired
+   * sequence number and then reads forward within that block until a message with a sequence number
+   * at least as large as the desired one is found. Never moves backwards.
+   *
+   * <p>{@inheritDoc}
+   */
+  @Override
+  public MessageSource<T> skipTo(long startingSequenceNumber) throws Exception {
+    final int targetBlock = ProtobufCaptureFile.findBlock(entries, startingSequenceNumber);
+    if (targetBlock > blockIndex) {
+      nextMessage = null;
+      openBlock(targetBlock);
+    }
+    while (hasNext() && codec.sequenceNumberOf(nextMessage) < startingSequenceNumber) {
+      next();
+    }
+    return this;
+  }
+
+  @Override
+  public boolean hasNext() throws Exception {
+    return advance();
+  }
+
+  @Override
+  public T next() throws Exception {
+    if (!advance()) {
+      throw new NoSuchElementException();
+    }
+    final var answer = nextMessage;
+    nextMessage = null;
+    return answer;
+  }
+
+  @Override
+  public void close() throws Exception {
+    closeBlock();
+    blockIndex = entries.size();
+  }
+
+  /**
+   * Reads the next message if we don't already have one, moving on to the next block whenever the
+   * current one has been exhausted.
+   *
+   * @return true if a message is available
+   * @throws IOException if reading fails
+   */
+  private boolean advance() throws IOException {
+    while (nextMessage == null && blockIndex < entries.size()) {
+      if (remainingInBlock > 0) {
+        nextMessage = codec.readDelimited(blockStream);
+        if (nextMessage == null) {
+          throw new IOException(
+              String.format(
+                  "capture file block ended early: block=%d missing=%d",
+                  blockIndex, remainingInBlock));
+        }
+        remainingInBlock -= 1;
+      } else {
+        openBlock(blockIndex + 1);
+      }
+    }
+    return nextMessage != null;
+  }
+
+  /**
+   * Closes the current block (if any) and opens the specified block for reading. Passing an index
+   * past the last block leaves the source exhausted.
+   *
+   * @param index index of the block to open
+   * @throws IOException if the block could not be opened
+   */
+  private void openBlock(int index) throws IOException {
+    closeBlock();
+    blockIndex = index;
+    if (index < entries.size()) {
+      final var entry = entries.get(index);
+      final long end =
+          index + 1 < entries.size() ? entries.get(index + 1).getOffset() : endOfBlocks;
+      blockStream =
+          new GZIPInputStream(
+              source.slice(entry.getOffset(), end - entry.getOffset()).openBufferedStream());
+      remainingInBlock = entry.getMessageCount();
+    }
+  }
+
+  /**
+   * Closes the stream for the current block if one is open.
+   *
+   * @throws IOException if closing the stream fails
+   */
+  private void closeBlock() throws IOException {
+    remainingInBlock = 0;
+    if (blockStream != null) {
+      final var stream = blockStream;
+      blockStream = null;
+      stream.close();
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CountingOutputStream;
+import com.google.protobuf.Message;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes messages to a binary capture file in the format described by {@link ProtobufCaptureFile}.
+ * Messages are buffered in memory until a full block has been collected and the block is then
+ * compressed and written to the output stream. The index is written when the writer is closed so a
+ * file is only valid once {@link #close} has been called.
+ *
+ * @param <T> the message type
+ */
+public class ProtobufCaptureWriter<T extends Message> implements AutoCloseable {
+  /** Receives the file data and tracks the current file offset. */
+  private final CountingOutputStream out;
+  /** Used to extract sequence numbers from messages. */
+  private final ProtobufCaptureFile.Codec<T> codec;
+  /** Maximum number of messages in each block. */
+  private final int messagesPerBlock;
+  /** Index entries for every block written so far. */
+  private final List<ProtobufCaptureFile.IndexEntry> entries;
+  /** Holds the uncompressed bytes of the current block. */
+  private final ByteArrayOutputStream block;
+  /** Number of messages in the current block. */
+  private int blockMessageCount;
+  /** Sequence number of the first message in the current block. */
+  private long blockFirstSequenceNumber;
+  /** Sequence number of the most recently written message. */
+  private long lastSequenceNumber;
+  /** Set once the writer has been closed. */
+  private boolean closed;
+
+  /**
+   * Creates a writer using {@link ProtobufCaptureFile#DEFAULT_MESSAGES_PER_BLOCK} messages per
+   * block.
+   *
+   * @param out the stream to write to, closed when this writer is closed
+   * @param codec used to extract sequence numbers from messages
+   */
+  public ProtobufCaptureWriter(OutputStream out, ProtobufCaptureFile.Codec<T> codec) {
+    this(out, codec, ProtobufCaptureFile.DEFAULT_MESSAGES_PER_BLOCK);
+  }
+
+  /**
+   * Creates a writer using the specified number of messages per block. Smaller blocks make seeks
+   * faster at the expense of compression ratio and index size.
+   *
+   * @param out the stream to write to, closed when this writer is closed
+   * @param codec used to extract sequence numbers from messages
+   * @param messagesPerBlock maximum number of messages in each block
+   */
+  public ProtobufCaptureWriter(
+      OutputStream out, ProtobufCaptureFile.Codec<T> codec, int messagesPerBlock) {
+    Preconditions.checkArgument(
+        messagesPerBlock >= 1, "messagesPerBlock less than 1: %s", messagesPerBlock);
+    this.out = new CountingOutputStream(out);
+    this.codec = codec;
+    this.messagesPerBlock = messagesPerBlock;
+    entries = new ArrayList<>();
+    block = new ByteArrayOutputStream();
+    lastSequenceNumber = Long.MIN_VALUE;
+  }
+
+  /**
+   * Adds a message to the file. Messages must be written in increasing sequence number order.
+   *
+   * @param message the message to write
+   * @throws IOException if writing fails
+   * @throws IllegalArgumentException if the sequence number is lower than the previous one
+   */
+  public void write(T message) throws IOException {
+    Preconditions.checkState(!closed, "writer has been closed");
+    final long sequenceNumber = codec.sequenceNumberOf(message);
+    Preconditions.checkArgument(
+        sequenceNumber >= lastSequenceNumber,
+        "sequence number out of order: previous=%s current=%s",
+        lastSequenceNumber,
+        sequenceNumber);
+    if (blockMessageCount == 0) {
+      blockFirstSequenceNumber = sequenceNumber;
+    }
+    message.writeDelimitedTo(block);
+    blockMessageCount += 1;
+    lastSequenceNumber = sequenceNumber;
+    if (blockMessageCount >= messagesPerBlock) {
+      flushBlock();
+    }
+  }
+
+  /**
+   * Writes any partial block followed by the index and closes the output stream.
+   *
+   * @throws IOException if writing fails
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      try {
+        flushBlock();
+        final DataOutputStream data = new DataOutputStream(out);
+        ProtobufCaptureFile.writeIndex(data, entries);
+        data.flush();
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Compresses the current block (if it contains any messages), writes it to the output stream, and
+   * records its index entry.
+   *
+   * @throws IOException if writing fails
+   */
+  private void flushBlock() throws IOException {
+    if (blockMessageCount > 0) {
+      final long offset = out.getCount();
+      final GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out));
+      block.writeTo(gzip);
+      gzip.close();
+      entries.add(
+          new ProtobufCaptureFile.IndexEntry(
+              blockFirstSequenceNumber, lastSequenceNumber, offset, blockMessageCount));
+      block.reset();
+      blockMessageCount = 0;
+    }
+  }
+
+  /**
+   * Allows each block's {@link GZIPOutputStream} to be closed (releasing its native resources)
+   * without closing the underlying file.
+   */
+  private static class NonClosingOutputStream extends OutputStream {
+    /** The stream to write to. */
+    private final OutputStream out;
+
+    /**
+     * Creates an instance that writes to the given stream.
+     *
+     * @param out the stream to write to
+     */
+    private NonClosingOutputStream(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    /** Flushes the underlying stream but does not close it. */
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
@@ -47,6 +47,22 @@ public class RandomClaimGeneratorConfig {
   /** Maximum number of claims to return when using random generator as a message source. */
   @Builder.Default private final int maxToSend = Integer.MAX_VALUE;
 
+  /**
+   * When positive this number of threads are used to generate claims in parallel (see {@link
+   * ParallelRandomMessageGenerator}). Otherwise claims are generated one at a time by the thread
+   * sending them to the client.
+   */
+  private final int generatorThreads;
+
+  /** Number of claims generated together as a single unit of work when using parallel threads. */
+  @Builder.Default private final int generatorBatchSize = 1_000;
+
+  /**
+   * Number of batches of generated claims to retain in memory for reuse by later clients when using
+   * parallel threads. Zero disables caching.
+   */
+  private final int generatorCachedBatches;
+
   /**
    * Gets the appropriate seed value for the random error generation feature. Uses either {@link
    * #seed} or the current time as seed value depending on the {@link #useTimestampForErrorSeed}
@@ -61,10 +61,22 @@ public class RandomFissClaimSource implements MessageSource<FissClaimChange> {
       throw new NoSuchElementException();
     }
     sent += 1;
+    return createChange(generator.getPreviousSequenceNumber() + 1);
+  }
 
+  /**
+   * Creates the change with the specified sequence number. The claim in the change depends only on
+   * our configuration and the sequence number so this can be used to generate changes in any order.
+   * Intended for callers that track sequence numbers themselves (such as {@link
+   * ParallelRandomMessageGenerator}) so calls should not be mixed with calls to {@link #next}.
+   *
+   * @param sequenceNumber the sequence number of the change to create
+   * @return the change
+   */
+  public FissClaimChange createChange(long sequenceNumber) {
     final Timestamp timestamp =
         Timestamp.newBuilder().setSeconds(clock.instant().getEpochSecond()).build();
-    final var claim = generator.randomClaim();
+    final var claim = generator.randomClaim(sequenceNumber);
     final var source =
         RecordSource.newBuilder()
             .setPhase("P1")
@@ -76,7 +88,7 @@ public class RandomFissClaimSource implements MessageSource<FissClaimChange> {
         FissClaimChange.newBuilder()
             .setTimestamp(timestamp)
             .setChangeType(ChangeType.CHANGE_TYPE_UPDATE)
-            .setSeq(generator.getPreviousSequenceNumber())
+            .setSeq(sequenceNumber)
             .setRdaClaimKey(claim.getRdaClaimKey())
             .setDcn(claim.getDcn())
             .setIntermediaryNb(claim.getIntermediaryNb())
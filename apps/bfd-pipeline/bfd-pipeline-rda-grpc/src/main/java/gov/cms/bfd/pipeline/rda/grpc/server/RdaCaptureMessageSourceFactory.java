@@ -0,0 +1,55 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import com.google.common.io.ByteSource;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
+import gov.cms.mpsm.rda.v1.FissClaimChange;
+import gov.cms.mpsm.rda.v1.McsClaimChange;
+import lombok.AllArgsConstructor;
+
+/**
+ * Implementation of {@link RdaMessageSourceFactory} that uses predefined value for version and
+ * reads claims from predefined {@link ByteSource}s containing binary capture data. Since the
+ * capture files are indexed both the starting position of each message source and the sequence
+ * number ranges are determined without reading the files from the beginning.
+ */
+@AllArgsConstructor
+public class RdaCaptureMessageSourceFactory implements RdaMessageSourceFactory {
+  /** The version returned by {@link RdaService#getVersion}. */
+  private final RdaService.Version version;
+  /** Capture data containing FISS claims. */
+  private final ByteSource fissCapture;
+  /** Capture data containing MCS claims. */
+  private final ByteSource mcsCapture;
+
+  @Override
+  public RdaService.Version getVersion() {
+    return version;
+  }
+
+  @Override
+  public MessageSource<FissClaimChange> createFissMessageSource(long startingSequenceNumber)
+      throws Exception {
+    return new ProtobufCaptureMessageSource<>(fissCapture, ProtobufCaptureFile.Codec.FISS)
+        .skipTo(startingSequenceNumber);
+  }
+
+  @Override
+  public MessageSource<McsClaimChange> createMcsMessageSource(long startingSequenceNumber)
+      throws Exception {
+    return new ProtobufCaptureMessageSource<>(mcsCapture, ProtobufCaptureFile.Codec.MCS)
+        .skipTo(startingSequenceNumber);
+  }
+
+  @Override
+  public ClaimSequenceNumberRange getFissSequenceNumberRange() throws Exception {
+    return ProtobufCaptureMessageSource.readSequenceNumberRange(fissCapture);
+  }
+
+  @Override
+  public ClaimSequenceNumberRange getMcsSequenceNumberRange() throws Exception {
+    return ProtobufCaptureMessageSource.readSequenceNumberRange(mcsCapture);
+  }
+
+  @Override
+  public void close() throws Exception {}
+}
@@ -1,5 +1,6 @@
 package gov.cms.bfd.pipeline.rda.grpc.server;
 
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.FissClaimChange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import java.io.IOException;
@@ -61,6 +62,16 @@ public class RdaExceptionMessageSourceFactory implements RdaMessageSourceFactory
         IOException::new);
   }
 
+  @Override
+  public ClaimSequenceNumberRange getFissSequenceNumberRange() throws Exception {
+    return realFactory.getFissSequenceNumberRange();
+  }
+
+  @Override
+  public ClaimSequenceNumberRange getMcsSequenceNumberRange() throws Exception {
+    return realFactory.getMcsSequenceNumberRange();
+  }
+
   @Override
   public void close() throws Exception {
     realFactory.close();
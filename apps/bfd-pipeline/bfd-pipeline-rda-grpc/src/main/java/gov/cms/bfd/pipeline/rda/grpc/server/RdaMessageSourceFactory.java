@@ -4,17 +4,21 @@ import static gov.cms.bfd.pipeline.rda.grpc.server.RdaService.RDA_PROTO_VERSION;
 import static java.lang.String.format;
 
 import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
 import com.google.common.io.CharSource;
 import com.google.common.io.Files;
+import gov.cms.bfd.pipeline.rda.grpc.RdaChange;
 import gov.cms.bfd.pipeline.sharedutils.s3.AwsS3ClientFactory;
 import gov.cms.bfd.pipeline.sharedutils.s3.S3ClientConfig;
 import gov.cms.bfd.pipeline.sharedutils.s3.S3ClientFactory;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.FissClaimChange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.ToLongFunction;
 import javax.annotation.Nullable;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
@@ -51,6 +55,62 @@ public interface RdaMessageSourceFactory extends AutoCloseable {
   MessageSource<McsClaimChange> createMcsMessageSource(long startingSequenceNumber)
       throws Exception;
 
+  /**
+   * Called by {@link RdaService#getFissClaimsSequenceNumberRange} to get the range of sequence
+   * numbers that {@link #createFissMessageSource} can serve. The default implementation reads every
+   * available message so implementations that know their range in advance should override it.
+   *
+   * @return the range of available sequence numbers
+   * @throws Exception pass through any thrown while reading the claim source
+   */
+  default ClaimSequenceNumberRange getFissSequenceNumberRange() throws Exception {
+    try (MessageSource<FissClaimChange> source =
+        createFissMessageSource(RdaChange.MIN_SEQUENCE_NUM)) {
+      return scanSequenceNumberRange(source, FissClaimChange::getSeq);
+    }
+  }
+
+  /**
+   * Called by {@link RdaService#getMcsClaimsSequenceNumberRange} to get the range of sequence
+   * numbers that {@link #createMcsMessageSource} can serve. The default implementation reads every
+   * available message so implementations that know their range in advance should override it.
+   *
+   * @return the range of available sequence numbers
+   * @throws Exception pass through any thrown while reading the claim source
+   */
+  default ClaimSequenceNumberRange getMcsSequenceNumberRange() throws Exception {
+    try (MessageSource<McsClaimChange> source =
+        createMcsMessageSource(RdaChange.MIN_SEQUENCE_NUM)) {
+      return scanSequenceNumberRange(source, McsClaimChange::getSeq);
+    }
+  }
+
+  /**
+   * Reads all remaining messages from a {@link MessageSource} and returns the lowest and highest
+   * sequence numbers seen. An empty source produces a range with both bounds set to {@link
+   * RdaChange#MIN_SEQUENCE_NUM}.
+   *
+   * @param source the source to read
+   * @param sequenceNumberGetter used to extract the sequence number from a message
+   * @param <T> the type of message
+   * @return the range of sequence numbers in the source
+   * @throws Exception pass through any thrown while reading the claim source
+   */
+  static <T> ClaimSequenceNumberRange scanSequenceNumberRange(
+      MessageSource<T> source, ToLongFunction<T> sequenceNumberGetter) throws Exception {
+    long lower = Long.MAX_VALUE;
+    long upper = Long.MIN_VALUE;
+    while (source.hasNext()) {
+      final long sequenceNumber = sequenceNumberGetter.applyAsLong(source.next());
+      lower = Math.min(lower, sequenceNumber);
+      upper = Math.max(upper, sequenceNumber);
+    }
+    if (lower > upper) {
+      lower = upper = RdaChange.MIN_SEQUENCE_NUM;
+    }
+    return ClaimSequenceNumberRange.newBuilder().setLower(lower).setUpper(upper).build();
+  }
+
   /**
    * Object that can produce a particular instance of {@link RdaMessageSourceFactory} on demand
    * based on a flexible set of possible sources of data.
@@ -69,6 +129,10 @@ public interface RdaMessageSourceFactory extends AutoCloseable {
     @Nullable private final CharSource fissClaimJson;
     /** NDJSON mcs claim data for the RDI Server. */
     @Nullable private final CharSource mcsClaimJson;
+    /** Binary capture fiss claim data for the RDA Server. */
+    @Nullable private final ByteSource fissClaimCapture;
+    /** Binary capture mcs claim data for the RDA Server. */
+    @Nullable private final ByteSource mcsClaimCapture;
     /** Name of our S3 bucket. */
     @Nullable private final String s3Bucket;
     /** Optional directory name within our S3 bucket. */
@@ -87,7 +151,8 @@ public interface RdaMessageSourceFactory extends AutoCloseable {
     /**
      * Creates an instance based on which set of configuration values have been provided when
      * building this config. Possible instances are (in priority and based on which options were
-     * provided): {@link RdaJsonMessageSourceFactory} using provided NDJSON data, {@link
+     * provided): {@link RdaCaptureMessageSourceFactory} using provided binary capture data, {@link
+     * RdaJsonMessageSourceFactory} using provided NDJSON data, {@link
      * RdaS3JsonMessageSourceFactory} using an S3 bucket, or {@link RdaRandomMessageSourceFactory}
      * if no other options applied. Optionally (if {@link #throwExceptionAfterCount} is positive)
      * wraps factory in a {@link RdaExceptionMessageSourceFactory}.
@@ -97,7 +162,9 @@ public interface RdaMessageSourceFactory extends AutoCloseable {
      */
     public RdaMessageSourceFactory createMessageSourceFactory() throws Exception {
       RdaMessageSourceFactory factory;
-      if (fissClaimJson != null || mcsClaimJson != null) {
+      if (fissClaimCapture != null || mcsClaimCapture != null) {
+        factory = createCaptureMessageSourceFactory();
+      } else if (fissClaimJson != null || mcsClaimJson != null) {
         factory = createJsonMessageSourceFactory();
       } else if (s3Bucket != null) {
         factory = createS3MessageSourceFactory();
@@ -126,6 +193,22 @@ public interface RdaMessageSourceFactory extends AutoCloseable {
       return new RdaJsonMessageSourceFactory(version, fissJson, mcsJson);
     }
 
+    /**
+     * Creates {@link RdaCaptureMessageSourceFactory} using provided binary capture data sources.
+     *
+     * @return the instance
+     */
+    private RdaMessageSourceFactory createCaptureMessageSourceFactory() {
+      final RdaService.Version version =
+          this.version != null ? this.version : RdaService.Version.builder().build();
+      ByteSource fissCapture = fissClaimCapture != null ? fissClaimCapture : ByteSource.empty();
+      ByteSource mcsCapture = mcsClaimCapture != null ? mcsClaimCapture : ByteSource.empty();
+      log.info(
+          "serving claims using {} with data from files",
+          RdaCaptureMessageSourceFactory.class.getSimpleName());
+      return new RdaCaptureMessageSourceFactory(version, fissCapture, mcsCapture);
+    }
+
     /**
      * Creates {@link RdaS3JsonMessageSourceFactory} using provided S3 bucket information.
      *
@@ -232,6 +315,42 @@ public interface RdaMessageSourceFactory extends AutoCloseable {
         }
         return this;
       }
+
+      /**
+       * Optionally add a {@link File} as a source of FISS claim data. Files whose names end with
+       * {@link ProtobufCaptureFile#FILE_SUFFIX} are read as binary capture files. All others are
+       * read as UTF-8 encoded NDJSON. The argument can be null so that this can be called when a
+       * file may or may not be available.
+       *
+       * @param file null or a valid {@link File} containing capture or ndjson data
+       * @return this builder
+       * @throws IllegalArgumentException if the file is a gzip compressed capture file
+       */
+      public ConfigBuilder fissClaimFile(@Nullable File file) {
+        if (file != null && ProtobufCaptureFile.isCaptureFileName(file.getName())) {
+          return fissClaimCapture(Files.asByteSource(file));
+        } else {
+          return fissClaimJsonFile(file);
+        }
+      }
+
+      /**
+       * Optionally add a {@link File} as a source of MCS claim data. Files whose names end with
+       * {@link ProtobufCaptureFile#FILE_SUFFIX} are read as binary capture files. All others are
+       * read as UTF-8 encoded NDJSON. The argument can be null so that this can be called when a
+       * file may or may not be available.
+       *
+       * @param file null or a valid {@link File} containing capture or ndjson data
+       * @return this builder
+       * @throws IllegalArgumentException if the file is a gzip compressed capture file
+       */
+      public ConfigBuilder mcsClaimFile(@Nullable File file) {
+        if (file != null && ProtobufCaptureFile.isCaptureFileName(file.getName())) {
+          return mcsClaimCapture(Files.asByteSource(file));
+        } else {
+          return mcsClaimJsonFile(file);
+        }
+      }
     }
   }
 }
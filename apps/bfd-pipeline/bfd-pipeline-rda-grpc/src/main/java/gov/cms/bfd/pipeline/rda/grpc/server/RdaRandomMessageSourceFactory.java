@@ -1,19 +1,53 @@
 package gov.cms.bfd.pipeline.rda.grpc.server;
 
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.FissClaimChange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
-import lombok.AllArgsConstructor;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link RdaMessageSourceFactory} that uses predefined value for version and
- * produces random claims on demand.
+ * produces random claims on demand. When {@link RandomClaimGeneratorConfig#generatorThreads} is
+ * positive claims are generated in parallel using {@link ParallelRandomMessageGenerator}. Otherwise
+ * they are generated one at a time as they are sent.
  */
-@AllArgsConstructor
 public class RdaRandomMessageSourceFactory implements RdaMessageSourceFactory {
   /** The version returned by {@link RdaService#getVersion}. */
   private final RdaService.Version version;
   /** Source of records for {@link RdaService#getFissClaims} and {@link RdaService#getMcsClaims}. */
   private final RandomClaimGeneratorConfig config;
+  /** Threads used for parallel generation. Null if parallel generation is disabled. */
+  @Nullable private final ExecutorService executor;
+  /** Parallel generator for FISS claims. Null if parallel generation is disabled. */
+  @Nullable private final ParallelRandomMessageGenerator<FissClaimChange> fissGenerator;
+  /** Parallel generator for MCS claims. Null if parallel generation is disabled. */
+  @Nullable private final ParallelRandomMessageGenerator<McsClaimChange> mcsGenerator;
+
+  /**
+   * Creates an instance using the provided settings.
+   *
+   * @param version the version returned by {@link RdaService#getVersion}
+   * @param config settings used to generate claims
+   */
+  public RdaRandomMessageSourceFactory(
+      RdaService.Version version, RandomClaimGeneratorConfig config) {
+    this.version = version;
+    this.config = config;
+    if (config.getGeneratorThreads() > 0) {
+      executor = ParallelRandomMessageGenerator.createExecutor(config.getGeneratorThreads());
+      fissGenerator =
+          new ParallelRandomMessageGenerator<>(
+              executor, () -> new RandomFissClaimSource(config)::createChange, config);
+      mcsGenerator =
+          new ParallelRandomMessageGenerator<>(
+              executor, () -> new RandomMcsClaimSource(config)::createChange, config);
+    } else {
+      executor = null;
+      fissGenerator = null;
+      mcsGenerator = null;
+    }
+  }
 
   @Override
   public RdaService.Version getVersion() {
@@ -22,14 +56,66 @@ public class RdaRandomMessageSourceFactory implements RdaMessageSourceFactory {
 
   @Override
   public MessageSource<FissClaimChange> createFissMessageSource(long startingSequenceNumber) {
+    if (fissGenerator != null) {
+      return fissGenerator.createMessageSource(startingSequenceNumber);
+    }
     return new RandomFissClaimSource(config).skipTo(startingSequenceNumber);
   }
 
   @Override
   public MessageSource<McsClaimChange> createMcsMessageSource(long startingSequenceNumber) {
+    if (mcsGenerator != null) {
+      return mcsGenerator.createMessageSource(startingSequenceNumber);
+    }
     return new RandomMcsClaimSource(config).skipTo(startingSequenceNumber);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Random claims are numbered consecutively starting at one so the range can be computed
+   * directly from the configuration without generating any claims.
+   */
+  @Override
+  public ClaimSequenceNumberRange getFissSequenceNumberRange() {
+    return createSequenceNumberRange();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Random claims are numbered consecutively starting at one so the range can be computed
+   * directly from the configuration without generating any claims.
+   */
   @Override
-  public void close() throws Exception {}
+  public ClaimSequenceNumberRange getMcsSequenceNumberRange() {
+    return createSequenceNumberRange();
+  }
+
+  /**
+   * Shuts down our generator threads if we have any. {@inheritDoc}
+   *
+   * @throws Exception pass through
+   */
+  @Override
+  public void close() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates the range of sequence numbers produced by our random claim sources. Mirrors {@link
+   * RdaMessageSourceFactory#scanSequenceNumberRange} by returning an all zero range when no claims
+   * would be sent.
+   *
+   * @return the range
+   */
+  private ClaimSequenceNumberRange createSequenceNumberRange() {
+    final long maxToSend = config.getMaxToSend();
+    return ClaimSequenceNumberRange.newBuilder()
+        .setLower(maxToSend > 0 ? 1 : 0)
+        .setUpper(Math.max(0, maxToSend))
+        .build();
+  }
 }
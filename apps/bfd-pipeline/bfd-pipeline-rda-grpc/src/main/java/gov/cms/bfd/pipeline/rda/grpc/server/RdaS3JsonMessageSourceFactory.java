@@ -1,15 +1,19 @@
 package gov.cms.bfd.pipeline.rda.grpc.server;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.Message;
 import gov.cms.mpsm.rda.v1.FissClaimChange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Uses an {@link S3DirectoryDao} client and a bucket name to simplify creation of {@link
- * MessageSource}s that read FISS or MCS claims from the bucket.
+ * MessageSource}s that read FISS or MCS claims from the bucket. Objects can contain either NDJSON
+ * data or binary capture data (see {@link ProtobufCaptureFile}). The format of each object is
+ * determined by its suffix.
  */
 @Slf4j
 public class RdaS3JsonMessageSourceFactory implements RdaMessageSourceFactory {
@@ -19,6 +23,9 @@ public class RdaS3JsonMessageSourceFactory implements RdaMessageSourceFactory {
   public static final String MCS_PREFIX = "mcs";
   /** S3 suffix for files. */
   private static final String FILE_SUFFIX = "ndjson";
+  /** All S3 suffixes that we recognize. */
+  private static final List<String> FILE_SUFFIXES =
+      List.of(FILE_SUFFIX, ProtobufCaptureFile.FILE_SUFFIX);
 
   /** Used to access data from S3 bucket. */
   private final S3DirectoryDao s3Dao;
@@ -42,10 +49,10 @@ public class RdaS3JsonMessageSourceFactory implements RdaMessageSourceFactory {
     this.s3Dao = s3Dao;
     fissFactory =
         new S3BucketMessageSourceFactory<>(
-            s3Dao, FISS_PREFIX, FILE_SUFFIX, this::readFissClaimChanges);
+            s3Dao, FISS_PREFIX, FILE_SUFFIXES, this::readFissClaimChanges);
     mcsFactory =
         new S3BucketMessageSourceFactory<>(
-            s3Dao, MCS_PREFIX, FILE_SUFFIX, this::readMcsClaimChanges);
+            s3Dao, MCS_PREFIX, FILE_SUFFIXES, this::readMcsClaimChanges);
   }
 
   @Override
@@ -99,21 +106,25 @@ public class RdaS3JsonMessageSourceFactory implements RdaMessageSourceFactory {
    * Creates a {@link MessageSource} that reads {@link FissClaimChange} from an object in the
    * bucket.
    *
-   * @param ndjsonObjectKey identifies the object containing our NDJSON data
+   * @param objectKey identifies the object containing our NDJSON or capture data
    * @return a MessageSource that reads and parses the data
    */
-  private MessageSource<FissClaimChange> readFissClaimChanges(String ndjsonObjectKey) {
-    return createMessageSource(ndjsonObjectKey, JsonMessageSource.fissParser());
+  private MessageSource<FissClaimChange> readFissClaimChanges(String objectKey) {
+    return ProtobufCaptureFile.isCaptureFileName(objectKey)
+        ? createCaptureMessageSource(objectKey, ProtobufCaptureFile.Codec.FISS)
+        : createMessageSource(objectKey, JsonMessageSource.fissParser());
   }
 
   /**
    * Creates a {@link MessageSource} that reads {@link McsClaimChange} from an object in the bucket.
    *
-   * @param ndjsonObjectKey identifies the object containing our NDJSON data
+   * @param objectKey identifies the object containing our NDJSON or capture data
    * @return a MessageSource that reads and parses the data
    */
-  private MessageSource<McsClaimChange> readMcsClaimChanges(String ndjsonObjectKey) {
-    return createMessageSource(ndjsonObjectKey, JsonMessageSource.mcsParser());
+  private MessageSource<McsClaimChange> readMcsClaimChanges(String objectKey) {
+    return ProtobufCaptureFile.isCaptureFileName(objectKey)
+        ? createCaptureMessageSource(objectKey, ProtobufCaptureFile.Codec.MCS)
+        : createMessageSource(objectKey, JsonMessageSource.mcsParser());
   }
 
   /**
@@ -140,4 +151,28 @@ public class RdaS3JsonMessageSourceFactory implements RdaMessageSourceFactory {
           ex);
     }
   }
+
+  /**
+   * Creates a message source from the binary capture object with the specified key.
+   *
+   * @param <T> the type parameter
+   * @param captureObjectKey the key of the object to read
+   * @param codec used to parse messages in the object
+   * @return a message source that reads the object
+   */
+  private <T extends Message> MessageSource<T> createCaptureMessageSource(
+      String captureObjectKey, ProtobufCaptureFile.Codec<T> codec) {
+    log.info(
+        "creating ProtobufCaptureMessageSource from S3: bucket={} key={}",
+        s3Dao.getS3BucketName(),
+        captureObjectKey);
+    try {
+      final var byteSource = s3Dao.downloadFile(captureObjectKey);
+      return new ProtobufCaptureMessageSource<>(byteSource, codec);
+    } catch (IOException ex) {
+      throw new RuntimeException(
+          String.format("error while downloading file from S3 bucket: key=%s", captureObjectKey),
+          ex);
+    }
+  }
 }
@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.Empty;
 import gov.cms.mpsm.rda.v1.ApiVersion;
 import gov.cms.mpsm.rda.v1.ClaimRequest;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.FissClaimChange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import gov.cms.mpsm.rda.v1.RDAServiceGrpc;
@@ -108,6 +109,38 @@ public class RdaService extends RDAServiceGrpc.RDAServiceImplBase {
     return new Responder<>(observer, source);
   }
 
+  @Override
+  public void getFissClaimsSequenceNumberRange(
+      Empty request, StreamObserver<ClaimSequenceNumberRange> responseObserver) {
+    try {
+      final ClaimSequenceNumberRange range = messageSourceFactory.getFissSequenceNumberRange();
+      LOGGER.info(
+          "getFissClaimsSequenceNumberRange called: lower={} upper={}",
+          range.getLower(),
+          range.getUpper());
+      responseObserver.onNext(range);
+      responseObserver.onCompleted();
+    } catch (Exception ex) {
+      responseObserver.onError(Status.fromThrowable(ex).asException());
+    }
+  }
+
+  @Override
+  public void getMcsClaimsSequenceNumberRange(
+      Empty request, StreamObserver<ClaimSequenceNumberRange> responseObserver) {
+    try {
+      final ClaimSequenceNumberRange range = messageSourceFactory.getMcsSequenceNumberRange();
+      LOGGER.info(
+          "getMcsClaimsSequenceNumberRange called: lower={} upper={}",
+          range.getLower(),
+          range.getUpper());
+      responseObserver.onNext(range);
+      responseObserver.onCompleted();
+    } catch (Exception ex) {
+      responseObserver.onError(Status.fromThrowable(ex).asException());
+    }
+  }
+
   /**
    * Class for returning responses to requests.
    *
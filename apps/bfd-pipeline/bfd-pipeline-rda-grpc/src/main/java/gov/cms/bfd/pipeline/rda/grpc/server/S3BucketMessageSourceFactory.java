@@ -54,11 +54,32 @@ public class S3BucketMessageSourceFactory<T> {
       String filePrefix,
       String fileSuffix,
       Function<String, MessageSource<T>> s3ObjectParser) {
+    this(s3Dao, filePrefix, List.of(fileSuffix), s3ObjectParser);
+  }
+
+  /**
+   * Instantiates a new S3 bucket message source factory that accepts files having any of several
+   * suffixes. This allows files in different formats to be mixed in the same bucket. The parser is
+   * responsible for choosing how to read each file based on its key.
+   *
+   * @param s3Dao used to access data from S3 bucket
+   * @param filePrefix the file prefix
+   * @param fileSuffixes the acceptable file suffixes
+   * @param s3ObjectParser used to turn S3 object keys into {@link MessageSource}s
+   */
+  public S3BucketMessageSourceFactory(
+      S3DirectoryDao s3Dao,
+      String filePrefix,
+      List<String> fileSuffixes,
+      Function<String, MessageSource<T>> s3ObjectParser) {
     this.s3Dao = s3Dao;
     this.s3ObjectParser = s3ObjectParser;
+    // Capture files are compressed block by block and can't be read efficiently once gzipped.
     matchPattern =
         Pattern.compile(
-            String.format("^%s(-(\\d+)-(\\d+))?\\.%s(\\.gz)?$", filePrefix, fileSuffix),
+            String.format(
+                "^%s(-(\\d+)-(\\d+))?\\.(?:%s)((?<!\\.%s)\\.gz)?$",
+                filePrefix, String.join("|", fileSuffixes), ProtobufCaptureFile.FILE_SUFFIX),
             Pattern.CASE_INSENSITIVE);
   }
 
@@ -0,0 +1,337 @@
+package gov.cms.bfd.pipeline.rda.grpc.sink.bulk;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.Table;
+import lombok.Getter;
+
+/**
+ * Describes how to write instances of a JPA entity class as rows of PostgreSQL {@code COPY} CSV
+ * data. The table and column names are taken from the same JPA annotations that hibernate uses so
+ * that rows written using {@code COPY} are identical to those written using {@code merge()}.
+ *
+ * <p>Only fields annotated with {@link Column} or {@link JoinColumn} are written. Collections of
+ * child entities are written separately using their own {@link CopyTable}.
+ */
+public class CopyTable {
+  /** Name of the schema containing the table. */
+  @Getter private final String schema;
+  /** Name of the table without any schema prefix. */
+  @Getter private final String tableName;
+  /** The columns in the order they are written. */
+  private final List<CopyColumn> columns;
+
+  /**
+   * Creates an instance by examining the annotations of the given entity class.
+   *
+   * @param entityClass the JPA entity class
+   */
+  public CopyTable(Class<?> entityClass) {
+    final Table table = entityClass.getAnnotation(Table.class);
+    Preconditions.checkArgument(
+        table != null, "entity class has no @Table annotation: %s", entityClass.getName());
+    schema = table.schema();
+    tableName = table.name();
+    final ImmutableList.Builder<CopyColumn> columns = ImmutableList.builder();
+    for (Field field : entityClass.getDeclaredFields()) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      final Column column = field.getAnnotation(Column.class);
+      final JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+      if (column != null) {
+        columns.add(new CopyColumn(column.name(), field, createValueFormatter(field)));
+      } else if (joinColumn != null) {
+        final Field targetId = findIdField(field.getType());
+        final ValueFormatter targetFormatter = createValueFormatter(targetId);
+        targetId.setAccessible(true);
+        columns.add(
+            new CopyColumn(
+                joinColumn.name(), field, target -> targetFormatter.format(targetId.get(target))));
+      }
+    }
+    this.columns = columns.build();
+    Preconditions.checkArgument(
+        !this.columns.isEmpty(), "entity class has no columns: %s", entityClass.getName());
+  }
+
+  /**
+   * Creates an instance with the given table name and columns. Used by {@link #withoutFields}.
+   *
+   * @param schema name of the schema containing the table
+   * @param tableName name of the table without any schema prefix
+   * @param columns the columns in the order they are written
+   */
+  private CopyTable(String schema, String tableName, List<CopyColumn> columns) {
+    this.schema = schema;
+    this.tableName = tableName;
+    this.columns = columns;
+  }
+
+  /**
+   * Creates a copy of this table that omits the columns mapped to any of the named fields. Useful
+   * when rows are written to compare entity content rather than to load them into the database.
+   *
+   * @param fieldNames names of the fields to omit, names that do not match a field are ignored
+   * @return the new table
+   */
+  public CopyTable withoutFields(Set<String> fieldNames) {
+    return new CopyTable(
+        schema,
+        tableName,
+        columns.stream()
+            .filter(column -> !fieldNames.contains(column.getField().getName()))
+            .collect(ImmutableList.toImmutableList()));
+  }
+
+  /**
+   * Gets the schema qualified name of the table.
+   *
+   * @return the qualified name
+   */
+  public String getQualifiedName() {
+    return qualify(tableName);
+  }
+
+  /**
+   * Prefixes the given table name with our schema (if we have one).
+   *
+   * @param name the unqualified table name
+   * @return the qualified name
+   */
+  public String qualify(String name) {
+    return schema.isEmpty() ? name : schema + "." + name;
+  }
+
+  /**
+   * Gets the names of all columns in the order they are written by {@link #appendRow}.
+   *
+   * @return the column names
+   */
+  public List<String> getColumnNames() {
+    return columns.stream().map(CopyColumn::getName).collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Gets the name of the column mapped to the named field of the entity class.
+   *
+   * @param fieldName name of the field
+   * @return the column name
+   * @throws IllegalArgumentException if no column is mapped to the field
+   */
+  public String getColumnNameForField(String fieldName) {
+    return columns.stream()
+        .filter(column -> column.getField().getName().equals(fieldName))
+        .map(CopyColumn::getName)
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    String.format("no column for field %s in %s", fieldName, tableName)));
+  }
+
+  /**
+   * Creates a comma separated list of our column names suitable for use in SQL statements.
+   *
+   * @param alias optional table alias to prefix each column name with, ignored if empty
+   * @return the column list
+   */
+  public String columnList(String alias) {
+    final String prefix = alias.isEmpty() ? "" : alias + ".";
+    return columns.stream()
+        .map(column -> prefix + column.getName())
+        .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Creates a {@code COPY} statement that reads CSV rows written by {@link #appendRow} into the
+   * named table. Any extra columns must have values passed to {@link #appendRow}.
+   *
+   * @param qualifiedTableName table to copy the rows into
+   * @param extraColumns names of columns appended to each row after our own columns
+   * @return the SQL statement
+   */
+  public String copySql(String qualifiedTableName, String... extraColumns) {
+    final StringBuilder sql =
+        new StringBuilder("COPY ").append(qualifiedTableName).append(" (").append(columnList(""));
+    for (String extraColumn : extraColumns) {
+      sql.append(", ").append(extraColumn);
+    }
+    return sql.append(") FROM STDIN WITH (FORMAT csv)").toString();
+  }
+
+  /**
+   * Appends a single CSV row containing the column values of the entity followed by the extra
+   * values (if any). Null values are written as empty unquoted fields and all other values are
+   * quoted so that PostgreSQL can distinguish null from empty strings.
+   *
+   * @param out receives the row
+   * @param entity the entity to write
+   * @param extraValues values for extra columns passed to {@link #copySql}
+   */
+  public void appendRow(StringBuilder out, Object entity, Object... extraValues) {
+    boolean first = true;
+    for (CopyColumn column : columns) {
+      if (!first) {
+        out.append(',');
+      }
+      appendValue(out, column.getValue(entity));
+      first = false;
+    }
+    for (Object extraValue : extraValues) {
+      out.append(',');
+      appendValue(out, extraValue == null ? null : formatValue(extraValue));
+    }
+    out.append('\n');
+  }
+
+  /**
+   * Appends a single CSV field to the buffer.
+   *
+   * @param out receives the field
+   * @param value the value, null if the column is null
+   */
+  private static void appendValue(StringBuilder out, String value) {
+    if (value != null) {
+      out.append('"');
+      for (int i = 0; i < value.length(); ++i) {
+        final char ch = value.charAt(i);
+        if (ch == '"') {
+          out.append('"');
+        }
+        out.append(ch);
+      }
+      out.append('"');
+    }
+  }
+
+  /**
+   * Finds the single {@link Id} field of an entity class.
+   *
+   * @param entityClass the entity class
+   * @return the field
+   * @throws IllegalArgumentException if there is not exactly one id field
+   */
+  private static Field findIdField(Class<?> entityClass) {
+    final List<Field> idFields =
+        List.of(entityClass.getDeclaredFields()).stream()
+            .filter(field -> field.isAnnotationPresent(Id.class))
+            .collect(Collectors.toList());
+    Preconditions.checkArgument(
+        idFields.size() == 1,
+        "joined entity class must have exactly one @Id field: %s",
+        entityClass.getName());
+    return idFields.get(0);
+  }
+
+  /**
+   * Creates a {@link ValueFormatter} that converts values of the field into the string
+   * representation expected by PostgreSQL. Honors {@link Enumerated} and {@link Convert}
+   * annotations on the field.
+   *
+   * @param field the field
+   * @return the formatter
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static ValueFormatter createValueFormatter(Field field) {
+    final Enumerated enumerated = field.getAnnotation(Enumerated.class);
+    final Convert convert = field.getAnnotation(Convert.class);
+    if (convert != null) {
+      final AttributeConverter converter;
+      try {
+        converter = (AttributeConverter) convert.converter().getConstructor().newInstance();
+      } catch (ReflectiveOperationException ex) {
+        throw new IllegalArgumentException(
+            "unable to create converter for field " + field.getName(), ex);
+      }
+      return value -> formatValue(converter.convertToDatabaseColumn(value));
+    } else if (enumerated != null && enumerated.value() == EnumType.ORDINAL) {
+      return value -> value == null ? null : String.valueOf(((Enum<?>) value).ordinal());
+    } else {
+      return CopyTable::formatValue;
+    }
+  }
+
+  /**
+   * Converts a simple value into the string representation expected by PostgreSQL.
+   *
+   * @param value the value (possibly null)
+   * @return the string or null if value is null
+   */
+  private static String formatValue(Object value) {
+    if (value == null) {
+      return null;
+    } else if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    } else if (value instanceof Enum<?>) {
+      return ((Enum<?>) value).name();
+    } else {
+      return value.toString();
+    }
+  }
+
+  /** Converts a field value into a string for a CSV row. */
+  @FunctionalInterface
+  private interface ValueFormatter {
+    /**
+     * Converts the value into a string.
+     *
+     * @param value the value (possibly null)
+     * @return the string or null if value is null
+     * @throws ReflectiveOperationException if a nested field could not be read
+     */
+    String format(Object value) throws ReflectiveOperationException;
+  }
+
+  /** A single column of the table. */
+  private static class CopyColumn {
+    /** Name of the column in the database. */
+    @Getter private final String name;
+    /** Field of the entity containing the value. */
+    @Getter private final Field field;
+    /** Converts the field's value into a string. */
+    private final ValueFormatter formatter;
+
+    /**
+     * Creates an instance.
+     *
+     * @param name name of the column
+     * @param field field containing the value
+     * @param formatter converts the value into a string
+     */
+    private CopyColumn(String name, Field field, ValueFormatter formatter) {
+      this.name = name;
+      this.field = field;
+      this.formatter = formatter;
+      field.setAccessible(true);
+    }
+
+    /**
+     * Reads the field from the entity and converts its value into a string.
+     *
+     * @param entity the entity
+     * @return the string or null if the value is null
+     */
+    private String getValue(Object entity) {
+      try {
+        final Object value = field.get(entity);
+        return value == null ? null : formatter.format(value);
+      } catch (ReflectiveOperationException ex) {
+        throw new IllegalStateException("unable to read field " + field.getName(), ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,641 @@
+package gov.cms.bfd.pipeline.rda.grpc.sink.bulk;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gov.cms.bfd.model.rda.RdaApiProgress;
+import gov.cms.bfd.model.rda.RdaClaimMessageMetaData;
+import gov.cms.bfd.pipeline.rda.grpc.ProcessingException;
+import gov.cms.bfd.pipeline.rda.grpc.RdaChange;
+import gov.cms.bfd.pipeline.rda.grpc.RdaSink;
+import gov.cms.bfd.pipeline.rda.grpc.server.MessageSource;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.persistence.Id;
+import javax.persistence.OneToMany;
+import javax.sql.DataSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Loads a large number of RDA API messages (generally from a capture file) into an otherwise idle
+ * PostgreSQL database much faster than the normal streaming pipeline can. Intended for initial
+ * loads that would take days using the per-batch {@code merge()} logic of the normal sinks.
+ *
+ * <p>The load happens in two phases:
+ *
+ * <ol>
+ *   <li>Messages are transformed into claims by a pool of threads using the same {@link RdaSink}
+ *       logic as the normal pipeline. Each thread writes its claims, child records, and meta data
+ *       to unlogged staging tables using PostgreSQL's {@code COPY} command. Staging tables have no
+ *       indexes or constraints so every version of every claim can be written without conflicts.
+ *   <li>A single transaction selects the latest staged version of each claim, skips any that are
+ *       older than the version already in the target table, replaces the target claims and their
+ *       children with the staged ones, and records the highest sequence number in {@link
+ *       RdaApiProgress}. Since this happens exactly once the progress table only changes if the
+ *       entire load succeeds.
+ * </ol>
+ *
+ * <p>By default the load refuses to run if the target claim table contains any claims. Setting
+ * {@link Config#merge} allows the staged claims to be merged into an existing table instead.
+ *
+ * <p>Staging tables are dropped at the start of every load so any left behind by a failed load are
+ * cleaned up automatically.
+ *
+ * @param <TMessage> type of RDA API messages being loaded
+ * @param <TClaim> type of entity objects written to the database
+ */
+@Slf4j
+public class RdaBulkLoader<TMessage, TClaim> implements AutoCloseable {
+  /** Prefix added to the name of each target table to create the name of its staging table. */
+  @VisibleForTesting static final String STAGING_TABLE_PREFIX = "bulk_";
+
+  /**
+   * Name of the extra column added to child staging tables to identify which version of the parent
+   * claim each child record belongs to.
+   */
+  @VisibleForTesting static final String STAGED_SEQUENCE_NUMBER_COLUMN = "bulk_sequence_number";
+
+  /** Name of the claim field holding its sequence number. */
+  private static final String SEQUENCE_NUMBER_FIELD = "sequenceNumber";
+
+  /** Source of database connections. Connections must be to a PostgreSQL database. */
+  private final DataSource dataSource;
+
+  /** Used to validate and transform messages just as the normal pipeline would. */
+  private final RdaSink<TMessage, RdaChange<TClaim>> sink;
+
+  /** Creates the meta data record for each change. */
+  private final Function<RdaChange<TClaim>, RdaClaimMessageMetaData> metaDataFactory;
+
+  /** Type of claims being loaded. Used to update {@link RdaApiProgress}. */
+  private final RdaApiProgress.ClaimType claimType;
+
+  /** Settings controlling the load. */
+  private final Config config;
+
+  /** Used to create the timestamp in {@link RdaApiProgress}. */
+  private final Clock clock;
+
+  /** Layout of the claim table. */
+  private final CopyTable claimTable;
+
+  /** Column in the claim table that holds the claim id. */
+  private final String claimIdColumn;
+
+  /** Column in the claim table that holds the sequence number. */
+  private final String sequenceNumberColumn;
+
+  /** Layouts of the tables holding child records of each claim. */
+  private final List<ChildTable> childTables;
+
+  /** Layout of the meta data table. */
+  private final CopyTable metaDataTable;
+
+  /**
+   * Creates an instance. The sink is used only to validate and transform messages so it should not
+   * automatically update sequence numbers. The sink is owned by this object and closed by {@link
+   * #close}.
+   *
+   * @param dataSource source of connections to a PostgreSQL database
+   * @param sink used to transform messages into claims
+   * @param metaDataFactory creates the meta data record for each change
+   * @param claimClass entity class of the claims
+   * @param claimType type of claims being loaded
+   * @param config settings controlling the load
+   * @param clock used to create the timestamp in {@link RdaApiProgress}
+   */
+  public RdaBulkLoader(
+      DataSource dataSource,
+      RdaSink<TMessage, RdaChange<TClaim>> sink,
+      Function<RdaChange<TClaim>, RdaClaimMessageMetaData> metaDataFactory,
+      Class<TClaim> claimClass,
+      RdaApiProgress.ClaimType claimType,
+      Config config,
+      Clock clock) {
+    Preconditions.checkArgument(config.getThreads() > 0, "threads must be positive");
+    Preconditions.checkArgument(config.getBatchSize() > 0, "batchSize must be positive");
+    this.dataSource = dataSource;
+    this.sink = sink;
+    this.metaDataFactory = metaDataFactory;
+    this.claimType = claimType;
+    this.config = config;
+    this.clock = clock;
+    claimTable = new CopyTable(claimClass);
+    claimIdColumn = claimTable.getColumnNameForField(findIdField(claimClass).getName());
+    sequenceNumberColumn = claimTable.getColumnNameForField(SEQUENCE_NUMBER_FIELD);
+    childTables = findChildTables(claimClass);
+    metaDataTable = new CopyTable(RdaClaimMessageMetaData.class);
+  }
+
+  /**
+   * Reads every message from the source, stages the resulting claims, and then merges them into the
+   * target tables.
+   *
+   * @param source provides the messages to load
+   * @return summary of the work performed
+   * @throws ProcessingException if the target table is not empty and merge was not requested or if
+   *     any message could not be transformed or written
+   */
+  public Result load(MessageSource<TMessage> source) throws ProcessingException {
+    try {
+      try (Connection connection = dataSource.getConnection()) {
+        if (!config.isMerge() && !isTargetEmpty(connection)) {
+          throw new IllegalStateException(
+              String.format(
+                  "refusing to bulk load into non-empty table %s without merge",
+                  claimTable.getQualifiedName()));
+        }
+        createStagingTables(connection);
+      }
+      final Result staged = stageMessages(source);
+      log.info(
+          "staged claims: type={} messages={} claims={} lastSeq={}",
+          claimType,
+          staged.getMessagesRead(),
+          staged.getClaimsStaged(),
+          staged.getLastSequenceNumber());
+      final int merged = mergeStagedClaims(staged.getLastSequenceNumber());
+      log.info("merged claims: type={} claims={}", claimType, merged);
+      try (Connection connection = dataSource.getConnection()) {
+        dropStagingTables(connection);
+      }
+      return new Result(
+          staged.getMessagesRead(),
+          staged.getClaimsStaged(),
+          merged,
+          staged.getLastSequenceNumber());
+    } catch (ProcessingException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new ProcessingException(ex, 0);
+    }
+  }
+
+  /**
+   * Closes the sink used to transform messages. {@inheritDoc}
+   *
+   * @throws Exception if the sink could not be closed
+   */
+  @Override
+  public void close() throws Exception {
+    sink.close();
+  }
+
+  /**
+   * Reads every message from the source and hands them off in batches to worker threads to be
+   * transformed and written to the staging tables. The number of batches in progress is limited so
+   * that memory use remains constant no matter how large the source is.
+   *
+   * @param source provides the messages to load
+   * @return summary of the messages read and claims staged
+   * @throws Exception if reading or staging fails
+   */
+  private Result stageMessages(MessageSource<TMessage> source) throws Exception {
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            config.getThreads(),
+            new ThreadFactoryBuilder()
+                .setNameFormat("RdaBulkLoader-" + claimType + "-%d")
+                .setDaemon(true)
+                .build());
+    final ArrayDeque<Future<Integer>> pending = new ArrayDeque<>();
+    final int maxPending = 2 * config.getThreads();
+    long messagesRead = 0;
+    long claimsStaged = 0;
+    long lastSequenceNumber = 0;
+    try {
+      List<TMessage> batch = new ArrayList<>(config.getBatchSize());
+      while (source.hasNext()) {
+        final TMessage message = source.next();
+        messagesRead += 1;
+        lastSequenceNumber = Math.max(lastSequenceNumber, sink.getSequenceNumberForObject(message));
+        if (sink.isDeleteMessage(message) || !sink.isValidMessage(message)) {
+          continue;
+        }
+        batch.add(message);
+        if (batch.size() == config.getBatchSize()) {
+          final List<TMessage> messages = batch;
+          pending.addLast(executor.submit(() -> stageBatch(messages)));
+          batch = new ArrayList<>(config.getBatchSize());
+        }
+        while (pending.size() >= maxPending) {
+          claimsStaged += pending.removeFirst().get();
+        }
+      }
+      if (!batch.isEmpty()) {
+        final List<TMessage> messages = batch;
+        pending.addLast(executor.submit(() -> stageBatch(messages)));
+      }
+      while (!pending.isEmpty()) {
+        claimsStaged += pending.removeFirst().get();
+      }
+    } finally {
+      pending.forEach(future -> future.cancel(true));
+      executor.shutdownNow();
+    }
+    return new Result(messagesRead, claimsStaged, 0, lastSequenceNumber);
+  }
+
+  /**
+   * Transforms a batch of messages and writes the claims, their child records, and their meta data
+   * to the staging tables in a single transaction. Called by worker threads.
+   *
+   * @param messages the messages to stage
+   * @return number of claims staged
+   * @throws Exception if transforming or writing fails
+   */
+  private int stageBatch(List<TMessage> messages) throws Exception {
+    final List<RdaChange<TClaim>> changes = new ArrayList<>(messages.size());
+    for (TMessage message : messages) {
+      final Optional<RdaChange<TClaim>> change =
+          sink.transformMessage(config.getApiVersion(), message);
+      change.ifPresent(changes::add);
+    }
+    if (changes.isEmpty()) {
+      return 0;
+    }
+    final StringBuilder claimRows = new StringBuilder();
+    final List<StringBuilder> childRows = new ArrayList<>(childTables.size());
+    childTables.forEach(childTable -> childRows.add(new StringBuilder()));
+    final StringBuilder metaDataRows = new StringBuilder();
+    for (RdaChange<TClaim> change : changes) {
+      final TClaim claim = change.getClaim();
+      claimTable.appendRow(claimRows, claim);
+      for (int i = 0; i < childTables.size(); ++i) {
+        final ChildTable childTable = childTables.get(i);
+        for (Object child : childTable.getChildren(claim)) {
+          childTable.getTable().appendRow(childRows.get(i), child, change.getSequenceNumber());
+        }
+      }
+      metaDataTable.appendRow(metaDataRows, metaDataFactory.apply(change));
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+      copyManager.copyIn(
+          claimTable.copySql(stagingName(claimTable)), new StringReader(claimRows.toString()));
+      for (int i = 0; i < childTables.size(); ++i) {
+        final CopyTable table = childTables.get(i).getTable();
+        copyManager.copyIn(
+            table.copySql(stagingName(table), STAGED_SEQUENCE_NUMBER_COLUMN),
+            new StringReader(childRows.get(i).toString()));
+      }
+      copyManager.copyIn(
+          metaDataTable.copySql(stagingName(metaDataTable)),
+          new StringReader(metaDataRows.toString()));
+      connection.commit();
+    }
+    return changes.size();
+  }
+
+  /**
+   * Merges the staged claims into the target tables in a single transaction. The claim table is
+   * locked for the duration so that no other process can write claims while the merge is running.
+   *
+   * @param lastSequenceNumber highest sequence number read from the source
+   * @return number of claims written to the target claim table
+   * @throws SQLException if the merge fails
+   */
+  private int mergeStagedClaims(long lastSequenceNumber) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(
+            String.format("LOCK TABLE %s IN EXCLUSIVE MODE", claimTable.getQualifiedName()));
+        if (!config.isMerge() && !isTargetEmpty(connection)) {
+          throw new IllegalStateException(
+              String.format(
+                  "table %s was written to during bulk load", claimTable.getQualifiedName()));
+        }
+        for (String sql : createMergeStatements()) {
+          log.debug("executing: {}", sql);
+          statement.execute(sql);
+        }
+        final int merged;
+        try (ResultSet results =
+            statement.executeQuery(String.format("SELECT count(*) FROM %s", latestTableName()))) {
+          results.next();
+          merged = results.getInt(1);
+        }
+        updateProgress(connection, lastSequenceNumber);
+        connection.commit();
+        return merged;
+      } catch (SQLException | RuntimeException ex) {
+        connection.rollback();
+        throw ex;
+      }
+    }
+  }
+
+  /**
+   * Creates the SQL statements that merge the staged claims into the target tables. The latest
+   * version of each staged claim is copied into a separate table and any that are older than the
+   * claim already in the target table are removed from it. The remaining claims and their children
+   * then replace any existing versions in the target tables.
+   *
+   * @return the statements in the order they must be executed
+   */
+  @VisibleForTesting
+  List<String> createMergeStatements() {
+    final String target = claimTable.getQualifiedName();
+    final String staged = stagingName(claimTable);
+    final String latest = latestTableName();
+    final ImmutableList.Builder<String> sql = ImmutableList.builder();
+    sql.add(String.format("ANALYZE %s", staged));
+    sql.add(
+        String.format(
+            "CREATE UNLOGGED TABLE %s AS SELECT DISTINCT ON (%s) * FROM %s ORDER BY %s, %s DESC",
+            latest, claimIdColumn, staged, claimIdColumn, sequenceNumberColumn));
+    sql.add(
+        String.format(
+            "DELETE FROM %s l USING %s t WHERE t.%s = l.%s AND t.%s > l.%s",
+            latest,
+            target,
+            claimIdColumn,
+            claimIdColumn,
+            sequenceNumberColumn,
+            sequenceNumberColumn));
+    for (ChildTable childTable : childTables) {
+      sql.add(
+          String.format(
+              "DELETE FROM %s c USING %s l WHERE c.%s = l.%s",
+              childTable.getTable().getQualifiedName(),
+              latest,
+              childTable.getParentIdColumn(),
+              claimIdColumn));
+    }
+    sql.add(
+        String.format(
+            "DELETE FROM %s t USING %s l WHERE t.%s = l.%s",
+            target, latest, claimIdColumn, claimIdColumn));
+    sql.add(
+        String.format(
+            "INSERT INTO %s (%s) SELECT %s FROM %s",
+            target, claimTable.columnList(""), claimTable.columnList(""), latest));
+    for (ChildTable childTable : childTables) {
+      final CopyTable table = childTable.getTable();
+      sql.add(
+          String.format(
+              "INSERT INTO %s (%s) SELECT %s FROM %s c JOIN %s l ON c.%s = l.%s AND c.%s = l.%s",
+              table.getQualifiedName(),
+              table.columnList(""),
+              table.columnList("c"),
+              stagingName(table),
+              latest,
+              childTable.getParentIdColumn(),
+              claimIdColumn,
+              STAGED_SEQUENCE_NUMBER_COLUMN,
+              sequenceNumberColumn));
+    }
+    sql.add(
+        String.format(
+            "INSERT INTO %s (%s) SELECT %s FROM %s ON CONFLICT DO NOTHING",
+            metaDataTable.getQualifiedName(),
+            metaDataTable.columnList(""),
+            metaDataTable.columnList(""),
+            stagingName(metaDataTable)));
+    return sql.build();
+  }
+
+  /**
+   * Records the highest sequence number loaded in the progress table. Never moves the sequence
+   * number backwards when merging into an existing table.
+   *
+   * @param connection connection with an open transaction
+   * @param lastSequenceNumber highest sequence number read from the source
+   * @throws SQLException if the update fails
+   */
+  private void updateProgress(Connection connection, long lastSequenceNumber) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "INSERT INTO rda.rda_api_progress (claim_type, last_sequence_number, last_updated)"
+                + " VALUES (?, ?, ?) ON CONFLICT (claim_type) DO UPDATE SET"
+                + " last_sequence_number = GREATEST(rda.rda_api_progress.last_sequence_number,"
+                + " EXCLUDED.last_sequence_number), last_updated = EXCLUDED.last_updated")) {
+      statement.setString(1, claimType.name());
+      statement.setLong(2, lastSequenceNumber);
+      statement.setTimestamp(3, Timestamp.from(clock.instant()));
+      statement.executeUpdate();
+    }
+  }
+
+  /**
+   * Determines whether the target claim table is empty.
+   *
+   * @param connection connection to use for the query
+   * @return true if the table contains no claims
+   * @throws SQLException if the query fails
+   */
+  private boolean isTargetEmpty(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet results =
+            statement.executeQuery(
+                String.format("SELECT 1 FROM %s LIMIT 1", claimTable.getQualifiedName()))) {
+      return !results.next();
+    }
+  }
+
+  /**
+   * Drops any staging tables left over from a previous load and creates new empty ones.
+   *
+   * @param connection connection to use for the statements
+   * @throws SQLException if any statement fails
+   */
+  private void createStagingTables(Connection connection) throws SQLException {
+    dropStagingTables(connection);
+    try (Statement statement = connection.createStatement()) {
+      for (CopyTable table : getAllTables()) {
+        final String extraColumn =
+            table == claimTable || table == metaDataTable
+                ? ""
+                : String.format(", %s bigint NOT NULL", STAGED_SEQUENCE_NUMBER_COLUMN);
+        statement.execute(
+            String.format(
+                "CREATE UNLOGGED TABLE %s (LIKE %s INCLUDING DEFAULTS%s)",
+                stagingName(table), table.getQualifiedName(), extraColumn));
+      }
+    }
+  }
+
+  /**
+   * Drops all of our staging tables.
+   *
+   * @param connection connection to use for the statements
+   * @throws SQLException if any statement fails
+   */
+  private void dropStagingTables(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (CopyTable table : getAllTables()) {
+        statement.execute(String.format("DROP TABLE IF EXISTS %s", stagingName(table)));
+      }
+      statement.execute(String.format("DROP TABLE IF EXISTS %s", latestTableName()));
+    }
+  }
+
+  /**
+   * Gets every table written by the load.
+   *
+   * @return the tables
+   */
+  private List<CopyTable> getAllTables() {
+    final ImmutableList.Builder<CopyTable> tables = ImmutableList.builder();
+    tables.add(claimTable);
+    childTables.forEach(childTable -> tables.add(childTable.getTable()));
+    tables.add(metaDataTable);
+    return tables.build();
+  }
+
+  /**
+   * Computes the qualified name of the staging table for a target table. The meta data table is
+   * shared by all claim types so its staging table name includes our claim type to allow FISS and
+   * MCS loads to run at the same time.
+   *
+   * @param table the target table
+   * @return the qualified name of the staging table
+   */
+  @VisibleForTesting
+  String stagingName(CopyTable table) {
+    final String suffix =
+        table == metaDataTable
+            ? claimType.name().toLowerCase() + "_" + table.getTableName()
+            : table.getTableName();
+    return table.qualify(STAGING_TABLE_PREFIX + suffix);
+  }
+
+  /**
+   * Computes the qualified name of the table holding the latest staged version of each claim.
+   *
+   * @return the qualified name
+   */
+  private String latestTableName() {
+    return claimTable.qualify(STAGING_TABLE_PREFIX + "latest_" + claimTable.getTableName());
+  }
+
+  /**
+   * Finds the single {@link Id} field of the claim class.
+   *
+   * @param claimClass the claim class
+   * @return the field
+   */
+  private static Field findIdField(Class<?> claimClass) {
+    for (Field field : claimClass.getDeclaredFields()) {
+      if (field.isAnnotationPresent(Id.class)) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("claim class has no @Id field: " + claimClass.getName());
+  }
+
+  /**
+   * Finds every {@link OneToMany} collection of the claim class and creates a {@link ChildTable}
+   * for each.
+   *
+   * @param claimClass the claim class
+   * @return the child tables
+   */
+  private static List<ChildTable> findChildTables(Class<?> claimClass) {
+    final ImmutableList.Builder<ChildTable> tables = ImmutableList.builder();
+    for (Field field : claimClass.getDeclaredFields()) {
+      final OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+      if (oneToMany != null) {
+        final Class<?> elementType =
+            (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        final CopyTable table = new CopyTable(elementType);
+        tables.add(new ChildTable(table, table.getColumnNameForField(oneToMany.mappedBy()), field));
+      }
+    }
+    return tables.build();
+  }
+
+  /** Settings that control a bulk load. */
+  @Value
+  @Builder
+  public static class Config {
+    /** Number of threads used to transform and stage claims. */
+    @Builder.Default int threads = 1;
+    /** Number of messages transformed and staged in each transaction. */
+    @Builder.Default int batchSize = 1_000;
+    /**
+     * When true, staged claims are merged into a target table that already contains claims.
+     * Otherwise the load refuses to run unless the target table is empty.
+     */
+    boolean merge;
+    /** Value written to the {@code api_source} column of every claim. */
+    String apiVersion;
+  }
+
+  /** Summary of the work performed by a load. */
+  @Value
+  public static class Result {
+    /** Number of messages read from the source. */
+    long messagesRead;
+    /** Number of claims written to the staging table (includes multiple versions of claims). */
+    long claimsStaged;
+    /** Number of claims written to the target table. */
+    long claimsMerged;
+    /** Highest sequence number read from the source. */
+    long lastSequenceNumber;
+  }
+
+  /** A table containing child records of a claim. */
+  private static class ChildTable {
+    /** Layout of the table. */
+    @Getter private final CopyTable table;
+    /** Column in the table that holds the parent claim's id. */
+    @Getter private final String parentIdColumn;
+    /** Field of the claim that contains the collection of child records. */
+    private final Field field;
+
+    /**
+     * Creates an instance.
+     *
+     * @param table layout of the table
+     * @param parentIdColumn column holding the parent claim's id
+     * @param field field of the claim containing the child records
+     */
+    private ChildTable(CopyTable table, String parentIdColumn, Field field) {
+      this.table = table;
+      this.parentIdColumn = parentIdColumn;
+      this.field = field;
+      field.setAccessible(true);
+    }
+
+    /**
+     * Gets the child records from the claim.
+     *
+     * @param claim the claim
+     * @return the child records (possibly empty)
+     */
+    private Collection<?> getChildren(Object claim) {
+      try {
+        final Collection<?> children = (Collection<?>) field.get(claim);
+        return children == null ? List.of() : children;
+      } catch (IllegalAccessException ex) {
+        throw new IllegalStateException("unable to read field " + field.getName(), ex);
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@ import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
@@ -25,13 +26,20 @@ import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.persistence.EntityManager;
+import javax.persistence.PessimisticLockException;
 import lombok.Getter;
+import lombok.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +65,17 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
   protected final RdaApiProgress.ClaimType claimType;
   /** Whether to automatically update the sequence number. */
   protected final boolean autoUpdateLastSeq;
+  /**
+   * Whether to skip claim updates for changes older than the version of the claim already in the
+   * database. Only needed when changes for a claim can arrive out of order.
+   */
+  protected final boolean skipStaleChanges;
+  /**
+   * Whether to compute a content digest for each claim and skip rewriting claims whose digest
+   * matches the one already stored in the database. When a claim is skipped only its metadata and
+   * sequence number are written.
+   */
+  protected final boolean skipUnchangedClaims;
 
   /** The number of claim errors that can exist before the job will stop processing. */
   private final int errorLimit;
@@ -64,6 +83,12 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
   /** Holds the underlying value of our sequence number gauges. */
   private static final NumericGauges GAUGES = new NumericGauges();
 
+  /**
+   * Number of times a batch is retried when skipping stale changes and another sink inserted one of
+   * its claims first or held its locks in a conflicting order.
+   */
+  private static final int MAX_WRITE_CONFLICT_RETRIES = 3;
+
   /** Used to write out RDA messages to json strings. */
   protected static final JsonFormat.Printer protobufObjectWriter =
       JsonFormat.printer().omittingInsignificantWhitespace();
@@ -74,16 +99,28 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
    * auto updated (autoUpdateLastSeq=false). Generally the former is used for single-threaded
    * processing and the latter for multi-threaded processing.
    *
+   * <p>When changes can arrive out of sequence number order (as happens when a backfill processes
+   * several ranges of sequence numbers in parallel) skipStaleChanges=true prevents an older change
+   * from replacing a newer version of the same claim.
+   *
+   * <p>The RDA API often sends changes that do not alter the content of a claim.
+   * skipUnchangedClaims=true compares a digest of each claim with the digest stored in the database
+   * and only writes the metadata and sequence number when they match.
+   *
    * @param appState provides database and metrics configuration
    * @param claimType used to write claim type when recording sequence number updates
    * @param autoUpdateLastSeq controls whether sequence numbers are automatically written to the
    *     database
+   * @param skipStaleChanges controls whether changes older than the stored claim are skipped
+   * @param skipUnchangedClaims controls whether claims with unchanged content are skipped
    * @param errorLimit the number of claim errors that can exist before the job will stop processing
    */
   protected AbstractClaimRdaSink(
       PipelineApplicationState appState,
       RdaApiProgress.ClaimType claimType,
       boolean autoUpdateLastSeq,
+      boolean skipStaleChanges,
+      boolean skipUnchangedClaims,
       int errorLimit) {
     transactionManager = new TransactionManager(appState.getEntityManagerFactory());
     metrics = new Metrics(getClass(), appState.getMeters());
@@ -91,6 +128,8 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
     logger = LoggerFactory.getLogger(getClass());
     this.claimType = claimType;
     this.autoUpdateLastSeq = autoUpdateLastSeq;
+    this.skipStaleChanges = skipStaleChanges;
+    this.skipUnchangedClaims = skipUnchangedClaims;
     this.errorLimit = errorLimit;
   }
 
@@ -269,7 +308,7 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
    * @param change an incoming RdaChange object from which to extract metadata
    * @return an object ready for insertion into the database
    */
-  abstract RdaClaimMessageMetaData createMetaData(RdaChange<TClaim> change);
+  public abstract RdaClaimMessageMetaData createMetaData(RdaChange<TClaim> change);
 
   /**
    * Helper method to generate {@link MessageError} entities from a given claim object. This is
@@ -385,41 +424,201 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
    */
   abstract int getInsertCount(TClaim claim);
 
+  /**
+   * Implementation specific JPQL query that selects the claim id, sequence number, and content
+   * digest of every stored claim whose claim id is in the collection bound to the {@code claimIds}
+   * parameter. Used to detect stale changes when {@link #skipStaleChanges} is true and unchanged
+   * claims when {@link #skipUnchangedClaims} is true.
+   *
+   * @return the JPQL query string
+   */
+  abstract String getStoredClaimsQuery();
+
+  /**
+   * Implementation specific JPQL statement that sets the sequence number of every stored claim
+   * whose claim id is in the collection bound to the {@code claimIds} parameter to its current
+   * value. It changes nothing but leaves those claims locked until the transaction ends. Used
+   * before {@link #getStoredClaimsQuery} when {@link #skipStaleChanges} is true.
+   *
+   * @return the JPQL statement string
+   */
+  abstract String getLockStoredClaimsStatement();
+
+  /**
+   * Implementation specific JPQL statement that sets the sequence number of the claim whose claim
+   * id is bound to the {@code claimId} parameter to the value bound to the {@code sequenceNumber}
+   * parameter. Used to record an unchanged claim without rewriting it.
+   *
+   * @return the JPQL statement string
+   */
+  abstract String getUpdateSequenceNumberStatement();
+
+  /**
+   * Implementation specific method to extract the content digest computed for a claim during
+   * transformation.
+   *
+   * @param claim the claim
+   * @return the digest or null if none was computed
+   */
+  abstract String getContentDigest(TClaim claim);
+
   /**
    * Uses {@link EntityManager#merge} to write each claim and its associated metadata to the
    * database.
    *
+   * <p>When {@link #skipStaleChanges} is true several sinks can write the same claim concurrently,
+   * so the stale change check has to hold while the claim is written. The stored claims are locked
+   * before they are read so that no other sink can change them until this transaction ends, and the
+   * changes are written in claim id order so that two sinks insert new claims in the same order. A
+   * claim that is not stored yet cannot be locked, so it is inserted using {@link
+   * EntityManager#persist} rather than merged. When two sinks insert it at the same time the
+   * loser's transaction fails with a constraint violation instead of silently overwriting the
+   * winner's version. The batch is then retried, at which point the claim exists and is checked and
+   * locked like any other. Batches that deadlock on their locks are retried the same way.
+   *
    * @param maxSeq highest sequence number from claims in the collection
    * @param changes collection of claims to write to the database
    */
   private void mergeBatch(long maxSeq, Collection<RdaChange<TClaim>> changes) {
-    transactionManager.executeProcedure(
-        entityManager -> {
-          final Instant startTime = Instant.now();
-          int insertCount = 0;
-          try {
-            for (RdaChange<TClaim> change : changes) {
-              if (change.getType() != RdaChange.Type.DELETE) {
-                var metaData = createMetaData(change);
-                entityManager.merge(metaData);
-                entityManager.merge(change.getClaim());
-                insertCount += getInsertCount(change.getClaim());
-              } else {
-                // We would expect this to have been filtered by the RdaSource so it is safe
-                // to stop processing with an exception here.
-                throw new IllegalArgumentException(
-                    "RDA API DELETE changes are not currently supported");
-              }
-            }
-            if (autoUpdateLastSeq) {
-              updateLastSequenceNumberImpl(entityManager, maxSeq);
-            }
-          } finally {
-            metrics.dbUpdateTime.record(Duration.between(startTime, Instant.now()));
-            metrics.dbBatchSize.record(changes.size());
-            metrics.insertCount.record(insertCount);
+    if (skipStaleChanges) {
+      final List<RdaChange<TClaim>> sortedChanges = new ArrayList<>(changes);
+      sortedChanges.sort(Comparator.comparing(change -> createMetaData(change).getClaimId()));
+      transactionManager.executeFunctionWithRetries(
+          MAX_WRITE_CONFLICT_RETRIES,
+          AbstractClaimRdaSink::isWriteConflict,
+          entityManager -> {
+            mergeBatchImpl(entityManager, maxSeq, sortedChanges);
+            return null;
+          });
+    } else {
+      transactionManager.executeProcedure(
+          entityManager -> mergeBatchImpl(entityManager, maxSeq, changes));
+    }
+  }
+
+  /**
+   * Writes each claim and its associated metadata to the database using the provided {@link
+   * EntityManager}. Called by {@link #mergeBatch} within a transaction.
+   *
+   * @param entityManager the {@link EntityManager} to use
+   * @param maxSeq highest sequence number from claims in the collection
+   * @param changes collection of claims to write to the database
+   */
+  private void mergeBatchImpl(
+      EntityManager entityManager, long maxSeq, Collection<RdaChange<TClaim>> changes) {
+    final Instant startTime = Instant.now();
+    int insertCount = 0;
+    try {
+      final Map<String, StoredClaim> storedClaims =
+          skipStaleChanges || skipUnchangedClaims
+              ? readStoredClaims(entityManager, changes)
+              : new HashMap<>();
+      for (RdaChange<TClaim> change : changes) {
+        if (change.getType() != RdaChange.Type.DELETE) {
+          var metaData = createMetaData(change);
+          entityManager.merge(metaData);
+          final String claimId = metaData.getClaimId();
+          final String contentDigest = getContentDigest(change.getClaim());
+          final StoredClaim storedClaim = storedClaims.get(claimId);
+          if (storedClaim != null
+              && skipStaleChanges
+              && storedClaim.getSequenceNumber() > change.getSequenceNumber()) {
+            metrics.objectsStale.increment();
+            continue;
           }
-        });
+          storedClaims.put(claimId, new StoredClaim(change.getSequenceNumber(), contentDigest));
+          if (storedClaim != null
+              && skipUnchangedClaims
+              && contentDigest != null
+              && contentDigest.equals(storedClaim.getContentDigest())) {
+            entityManager
+                .createQuery(getUpdateSequenceNumberStatement())
+                .setParameter("claimId", claimId)
+                .setParameter("sequenceNumber", change.getSequenceNumber())
+                .executeUpdate();
+            metrics.objectsUnchanged.increment();
+            continue;
+          }
+          if (storedClaim == null && skipStaleChanges) {
+            entityManager.persist(change.getClaim());
+          } else {
+            entityManager.merge(change.getClaim());
+          }
+          insertCount += getInsertCount(change.getClaim());
+        } else {
+          // We would expect this to have been filtered by the RdaSource so it is safe
+          // to stop processing with an exception here.
+          throw new IllegalArgumentException("RDA API DELETE changes are not currently supported");
+        }
+      }
+      if (autoUpdateLastSeq) {
+        updateLastSequenceNumberImpl(entityManager, maxSeq);
+      }
+    } finally {
+      metrics.dbUpdateTime.record(Duration.between(startTime, Instant.now()));
+      metrics.dbBatchSize.record(changes.size());
+      metrics.insertCount.record(insertCount);
+    }
+  }
+
+  /**
+   * Queries the database to find the sequence numbers and content digests of any already stored
+   * claims that have the same claim id as one of the changes. Claims that are not yet in the
+   * database are not included in the result. When {@link #skipStaleChanges} is true the stored
+   * claims are locked first, using an update rather than {@code SELECT FOR UPDATE} since HSQLDB
+   * does not hold locks for the latter. The query is a separate statement so it sees any newer
+   * version committed by a sink that held the lock before us.
+   *
+   * @param entityManager the {@link EntityManager} to use for the query
+   * @param changes the changes about to be written
+   * @return mutable map of claim id to stored claim state
+   */
+  private Map<String, StoredClaim> readStoredClaims(
+      EntityManager entityManager, Collection<RdaChange<TClaim>> changes) {
+    final Set<String> claimIds =
+        changes.stream()
+            .map(change -> createMetaData(change).getClaimId())
+            .collect(Collectors.toSet());
+    if (skipStaleChanges) {
+      entityManager
+          .createQuery(getLockStoredClaimsStatement())
+          .setParameter("claimIds", claimIds)
+          .executeUpdate();
+    }
+    final Map<String, StoredClaim> answer = new HashMap<>();
+    entityManager
+        .createQuery(getStoredClaimsQuery(), Object[].class)
+        .setParameter("claimIds", claimIds)
+        .getResultList()
+        .forEach(
+            row -> answer.put((String) row[0], new StoredClaim((Long) row[1], (String) row[2])));
+    return answer;
+  }
+
+  /**
+   * Determines if a batch failed because a concurrent sink wrote the same claims, either by
+   * inserting one of them first or by holding locks that this batch needed while waiting for ours.
+   * The database reports the latter as a deadlock or serialization failure, both of which have a
+   * {@code SQLSTATE} in class 40.
+   *
+   * @param exception the exception to test
+   * @return true if retrying the batch can succeed
+   */
+  private static boolean isWriteConflict(Exception exception) {
+    if (TransactionManager.isConstraintViolation(exception)) {
+      return true;
+    }
+    Throwable throwable = exception;
+    while (throwable != null) {
+      if (throwable instanceof PessimisticLockException
+          || (throwable instanceof SQLException sqlException
+              && sqlException.getSQLState() != null
+              && sqlException.getSQLState().startsWith("40"))) {
+        return true;
+      }
+      throwable = throwable.getCause();
+    }
+    return false;
   }
 
   /**
@@ -470,6 +669,15 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
     metrics.extractAgeMillis.record(0L);
   }
 
+  /** The state of a claim already stored in the database that is relevant to skipping changes. */
+  @Value
+  private static class StoredClaim {
+    /** Sequence number of the stored claim. */
+    long sequenceNumber;
+    /** Content digest of the stored claim, null if none has been computed. */
+    String contentDigest;
+  }
+
   /**
    * Metrics are tested in unit tests so they need to be easily accessible from tests. Also this
    * class is used to write both MCS and FISS claims so the metric names need to include a claim
@@ -490,6 +698,10 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
     private final Counter objectsPersisted;
     /** Number of objects stored using {@code merge()}. */
     private final Counter objectsMerged;
+    /** Number of objects not stored because the database already had a newer version. */
+    private final Counter objectsStale;
+    /** Number of objects not rewritten because their content matched the stored version. */
+    private final Counter objectsUnchanged;
     /** Number of objects successfully transformed. */
     private final Counter transformSuccesses;
     /** Number of objects which failed to be transformed. */
@@ -529,6 +741,8 @@ abstract class AbstractClaimRdaSink<TMessage, TClaim>
       objectsWritten = appMetrics.counter(MetricRegistry.name(base, "writes", "total"));
       objectsPersisted = appMetrics.counter(MetricRegistry.name(base, "writes", "persisted"));
       objectsMerged = appMetrics.counter(MetricRegistry.name(base, "writes", "merged"));
+      objectsStale = appMetrics.counter(MetricRegistry.name(base, "writes", "stale"));
+      objectsUnchanged = appMetrics.counter(MetricRegistry.name(base, "writes", "unchanged"));
       transformSuccesses = appMetrics.counter(MetricRegistry.name(base, "transform", "successes"));
       transformFailures = appMetrics.counter(MetricRegistry.name(base, "transform", "failures"));
       changeAgeMillis =
@@ -0,0 +1,157 @@
+package gov.cms.bfd.pipeline.rda.grpc.sink.direct;
+
+import com.google.common.collect.ImmutableList;
+import gov.cms.bfd.model.rda.Mbi;
+import gov.cms.bfd.pipeline.rda.grpc.sink.bulk.CopyTable;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import javax.persistence.OneToMany;
+
+/**
+ * Computes a stable digest of the materially relevant content of a claim entity and all of its
+ * child entities. Two claims with the same digest would produce identical rows in the database
+ * except for bookkeeping columns such as the sequence number and update timestamp. Sinks use the
+ * digest to recognize changes that can be recorded without rewriting the claim.
+ *
+ * <p>Rows are serialized using the same {@link CopyTable} logic used for bulk loads so every mapped
+ * column participates in the digest. Child rows are sorted before hashing so that the digest does
+ * not depend on the iteration order of the child collections.
+ *
+ * @param <TClaim> type of claim entity
+ */
+public class ClaimContentDigester<TClaim> {
+  /** Names of fields that change with every update and so are excluded from the digest. */
+  private static final Set<String> IGNORED_FIELDS =
+      Set.of("sequenceNumber", "lastUpdated", "apiSource", "contentDigest", "mbiRecord");
+
+  /** Algorithm used to compute the digest. */
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  /** Writes the claim's own columns. */
+  private final CopyTable claimTable;
+  /** Writes the columns of each child collection. */
+  private final List<ChildTable> childTables;
+  /**
+   * Extracts the {@link Mbi} from a claim. The MBI itself is digested rather than its database id
+   * since the id is not always known when the digest is computed.
+   */
+  private final Function<TClaim, Mbi> mbiGetter;
+
+  /**
+   * Creates an instance by examining the JPA annotations of the claim class.
+   *
+   * @param claimClass the claim entity class
+   * @param mbiGetter extracts the {@link Mbi} from a claim
+   */
+  public ClaimContentDigester(Class<TClaim> claimClass, Function<TClaim, Mbi> mbiGetter) {
+    claimTable = new CopyTable(claimClass).withoutFields(IGNORED_FIELDS);
+    childTables = findChildTables(claimClass);
+    this.mbiGetter = mbiGetter;
+  }
+
+  /**
+   * Computes the digest of the claim and its children.
+   *
+   * @param claim the claim
+   * @return Base64 encoded digest (always 44 characters)
+   */
+  public String digest(TClaim claim) {
+    final StringBuilder content = new StringBuilder();
+    claimTable.appendRow(content, claim);
+    final Mbi mbi = mbiGetter.apply(claim);
+    content.append(mbi == null ? "" : mbi.getMbi()).append('\n');
+    final List<String> rows = new ArrayList<>();
+    final StringBuilder row = new StringBuilder();
+    for (ChildTable childTable : childTables) {
+      content.append(childTable.table.getTableName()).append('\n');
+      rows.clear();
+      for (Object child : childTable.getChildren(claim)) {
+        row.setLength(0);
+        childTable.table.appendRow(row, child);
+        rows.add(row.toString());
+      }
+      rows.sort(null);
+      rows.forEach(content::append);
+    }
+    return Base64.getEncoder().encodeToString(sha256(content.toString()));
+  }
+
+  /**
+   * Hashes the UTF-8 bytes of a string.
+   *
+   * @param content the string to hash
+   * @return the hash bytes
+   */
+  private static byte[] sha256(String content) {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM)
+          .digest(content.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException ex) {
+      // every JVM is required to support SHA-256
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Finds every {@link OneToMany} collection of the claim class and creates a {@link ChildTable}
+   * for each.
+   *
+   * @param claimClass the claim class
+   * @return the child tables
+   */
+  private static List<ChildTable> findChildTables(Class<?> claimClass) {
+    final ImmutableList.Builder<ChildTable> tables = ImmutableList.builder();
+    for (Field field : claimClass.getDeclaredFields()) {
+      if (field.isAnnotationPresent(OneToMany.class)) {
+        final Class<?> elementType =
+            (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        field.setAccessible(true);
+        tables.add(new ChildTable(new CopyTable(elementType).withoutFields(IGNORED_FIELDS), field));
+      }
+    }
+    return tables.build();
+  }
+
+  /** A collection of child entities and the {@link CopyTable} used to write them. */
+  private static class ChildTable {
+    /** Writes the child entities. */
+    private final CopyTable table;
+    /** Field of the claim containing the child collection. */
+    private final Field field;
+
+    /**
+     * Creates an instance.
+     *
+     * @param table writes the child entities
+     * @param field field of the claim containing the child collection
+     */
+    private ChildTable(CopyTable table, Field field) {
+      this.table = table;
+      this.field = field;
+    }
+
+    /**
+     * Reads the child collection from the claim.
+     *
+     * @param claim the claim
+     * @return the children, empty if the collection is null
+     */
+    private Collection<?> getChildren(Object claim) {
+      try {
+        final Collection<?> children = (Collection<?>) field.get(claim);
+        return children == null ? List.of() : children;
+      } catch (IllegalAccessException ex) {
+        throw new IllegalStateException("unable to read field " + field.getName(), ex);
+      }
+    }
+  }
+}
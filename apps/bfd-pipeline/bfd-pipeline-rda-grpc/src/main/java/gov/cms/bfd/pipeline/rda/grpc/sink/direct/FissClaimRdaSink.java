@@ -27,6 +27,10 @@ public class FissClaimRdaSink extends AbstractClaimRdaSink<FissClaimChange, RdaF
    */
   private static final Pattern InvalidDcnRegex = Pattern.compile("(^[0 ]+$)|(^.{14}XXX)");
 
+  /** Computes content digests used to detect unchanged claims. */
+  private static final ClaimContentDigester<RdaFissClaim> DIGESTER =
+      new ClaimContentDigester<>(RdaFissClaim.class, RdaFissClaim::getMbiRecord);
+
   /** The claim transformer. */
   private final FissClaimTransformer transformer;
 
@@ -43,7 +47,35 @@ public class FissClaimRdaSink extends AbstractClaimRdaSink<FissClaimChange, RdaF
       FissClaimTransformer transformer,
       boolean autoUpdateLastSeq,
       int errorLimit) {
-    super(appState, RdaApiProgress.ClaimType.FISS, autoUpdateLastSeq, errorLimit);
+    this(appState, transformer, autoUpdateLastSeq, false, false, errorLimit);
+  }
+
+  /**
+   * Instantiates a new Fiss claim rda sink that optionally skips changes older than the claim
+   * already stored in the database and claims whose content matches the claim already stored in the
+   * database.
+   *
+   * @param appState the app state
+   * @param transformer the transformer
+   * @param autoUpdateLastSeq whether to automatically update the sequence number
+   * @param skipStaleChanges whether to skip changes older than the stored claim
+   * @param skipUnchangedClaims whether to skip rewriting claims whose content has not changed
+   * @param errorLimit the error limit
+   */
+  public FissClaimRdaSink(
+      PipelineApplicationState appState,
+      FissClaimTransformer transformer,
+      boolean autoUpdateLastSeq,
+      boolean skipStaleChanges,
+      boolean skipUnchangedClaims,
+      int errorLimit) {
+    super(
+        appState,
+        RdaApiProgress.ClaimType.FISS,
+        autoUpdateLastSeq,
+        skipStaleChanges,
+        skipUnchangedClaims,
+        errorLimit);
     this.transformer =
         transformer.withMbiCache(transformer.getMbiCache().withDatabaseLookup(transactionManager));
   }
@@ -87,6 +119,9 @@ public class FissClaimRdaSink extends AbstractClaimRdaSink<FissClaimChange, RdaF
   RdaChange<RdaFissClaim> transformMessageImpl(String apiVersion, FissClaimChange message) {
     var change = transformer.transformClaim(message);
     change.getClaim().setApiSource(apiVersion);
+    if (skipUnchangedClaims) {
+      change.getClaim().setContentDigest(DIGESTER.digest(change.getClaim()));
+    }
     return change;
   }
 
@@ -100,7 +135,28 @@ public class FissClaimRdaSink extends AbstractClaimRdaSink<FissClaimChange, RdaF
   }
 
   @Override
-  RdaClaimMessageMetaData createMetaData(RdaChange<RdaFissClaim> change) {
+  String getStoredClaimsQuery() {
+    return "select c.claimId, c.sequenceNumber, c.contentDigest from RdaFissClaim c"
+        + " where c.claimId in (:claimIds)";
+  }
+
+  @Override
+  String getLockStoredClaimsStatement() {
+    return "update RdaFissClaim c set c.sequenceNumber = c.sequenceNumber where c.claimId in (:claimIds)";
+  }
+
+  @Override
+  String getUpdateSequenceNumberStatement() {
+    return "update RdaFissClaim c set c.sequenceNumber = :sequenceNumber where c.claimId = :claimId";
+  }
+
+  @Override
+  String getContentDigest(RdaFissClaim claim) {
+    return claim.getContentDigest();
+  }
+
+  @Override
+  public RdaClaimMessageMetaData createMetaData(RdaChange<RdaFissClaim> change) {
     final RdaFissClaim claim = change.getClaim();
     return RdaClaimMessageMetaData.builder()
         .sequenceNumber(change.getSequenceNumber())
@@ -20,6 +20,10 @@ import javax.annotation.Nonnull;
 
 /** Implementation of AbstractClaimRdaSink that adds MCS claim specific methods. */
 public class McsClaimRdaSink extends AbstractClaimRdaSink<McsClaimChange, RdaMcsClaim> {
+  /** Computes content digests used to detect unchanged claims. */
+  private static final ClaimContentDigester<RdaMcsClaim> DIGESTER =
+      new ClaimContentDigester<>(RdaMcsClaim.class, RdaMcsClaim::getMbiRecord);
+
   /** The claim transformer. */
   private final McsClaimTransformer transformer;
 
@@ -36,7 +40,35 @@ public class McsClaimRdaSink extends AbstractClaimRdaSink<McsClaimChange, RdaMcs
       McsClaimTransformer transformer,
       boolean autoUpdateLastSeq,
       int errorLimit) {
-    super(appState, RdaApiProgress.ClaimType.MCS, autoUpdateLastSeq, errorLimit);
+    this(appState, transformer, autoUpdateLastSeq, false, false, errorLimit);
+  }
+
+  /**
+   * Instantiates a new Mcs claim rda sink that optionally skips changes older than the claim
+   * already stored in the database and claims whose content matches the claim already stored in the
+   * database.
+   *
+   * @param appState the app state
+   * @param transformer the transformer
+   * @param autoUpdateLastSeq whether to automatically update the sequence number
+   * @param skipStaleChanges whether to skip changes older than the stored claim
+   * @param skipUnchangedClaims whether to skip rewriting claims whose content has not changed
+   * @param errorLimit the error limit
+   */
+  public McsClaimRdaSink(
+      PipelineApplicationState appState,
+      McsClaimTransformer transformer,
+      boolean autoUpdateLastSeq,
+      boolean skipStaleChanges,
+      boolean skipUnchangedClaims,
+      int errorLimit) {
+    super(
+        appState,
+        RdaApiProgress.ClaimType.MCS,
+        autoUpdateLastSeq,
+        skipStaleChanges,
+        skipUnchangedClaims,
+        errorLimit);
     this.transformer =
         transformer.withMbiCache(transformer.getMbiCache().withDatabaseLookup(transactionManager));
   }
@@ -69,6 +101,9 @@ public class McsClaimRdaSink extends AbstractClaimRdaSink<McsClaimChange, RdaMcs
   RdaChange<RdaMcsClaim> transformMessageImpl(String apiVersion, McsClaimChange message) {
     var change = transformer.transformClaim(message);
     change.getClaim().setApiSource(apiVersion);
+    if (skipUnchangedClaims) {
+      change.getClaim().setContentDigest(DIGESTER.digest(change.getClaim()));
+    }
     return change;
   }
 
@@ -83,7 +118,28 @@ public class McsClaimRdaSink extends AbstractClaimRdaSink<McsClaimChange, RdaMcs
   }
 
   @Override
-  RdaClaimMessageMetaData createMetaData(RdaChange<RdaMcsClaim> change) {
+  String getStoredClaimsQuery() {
+    return "select c.idrClmHdIcn, c.sequenceNumber, c.contentDigest from RdaMcsClaim c"
+        + " where c.idrClmHdIcn in (:claimIds)";
+  }
+
+  @Override
+  String getLockStoredClaimsStatement() {
+    return "update RdaMcsClaim c set c.sequenceNumber = c.sequenceNumber where c.idrClmHdIcn in (:claimIds)";
+  }
+
+  @Override
+  String getUpdateSequenceNumberStatement() {
+    return "update RdaMcsClaim c set c.sequenceNumber = :sequenceNumber where c.idrClmHdIcn = :claimId";
+  }
+
+  @Override
+  String getContentDigest(RdaMcsClaim claim) {
+    return claim.getContentDigest();
+  }
+
+  @Override
+  public RdaClaimMessageMetaData createMetaData(RdaChange<RdaMcsClaim> change) {
     final RdaMcsClaim claim = change.getClaim();
     final var locations = new StringList();
     claim.getLocations().stream()
@@ -0,0 +1,368 @@
+package gov.cms.bfd.pipeline.rda.grpc.source;
+
+import static gov.cms.bfd.pipeline.rda.grpc.RdaChange.MIN_SEQUENCE_NUM;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import gov.cms.bfd.pipeline.rda.grpc.MultiCloser;
+import gov.cms.bfd.pipeline.rda.grpc.ProcessingException;
+import gov.cms.bfd.pipeline.rda.grpc.RdaSink;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * RdaSource implementation that loads a large backlog of historical claims by splitting the range
+ * of sequence numbers reported by the RDA API into shards and downloading each shard over its own
+ * stream in parallel. Each shard writes to its own {@link RdaSink} so that database writes also
+ * happen in parallel.
+ *
+ * <p>Since shards can write changes for the same claim in any order the shard sinks must be created
+ * with stale change detection enabled so that an older change never overwrites a newer one. They
+ * must also not update the progress table themselves. Instead this class uses a {@link
+ * BackfillProgressTracker} to compute a safe resume point and writes it using the sink passed to
+ * {@link #retrieveAndProcessObjects}. That guarantees that a restarted job never skips any change.
+ *
+ * <p>Once the backfill completes the normal {@link StandardGrpcRdaSource} picks up from the upper
+ * end of the range and streams new changes as usual. If the range is too small to benefit from more
+ * than one shard this source does nothing and leaves the work to the normal source.
+ *
+ * @param <TMessage> type of objects returned by the gRPC service
+ * @param <TClaim> type of entity objects written to the database
+ */
+@Slf4j
+public class BackfillGrpcRdaSource<TMessage, TClaim>
+    extends AbstractGrpcRdaSource<TMessage, TClaim> {
+  /** The maximum amount of time to wait for an {@link RdaSink} to shut down. */
+  private static final Duration MAX_SINK_SHUTDOWN_WAIT = Duration.ofMinutes(5);
+
+  /** Maximum number of shards (and therefore streams and sinks) to use at one time. */
+  private final int maxShards;
+  /** Smallest number of sequence numbers worth assigning to a separate shard. */
+  private final long minShardSize;
+  /** Used to create a new sink for each shard. */
+  private final Callable<RdaSink<TMessage, TClaim>> shardSinkFactory;
+
+  /**
+   * The primary constructor for this class. Constructs a BackfillGrpcRdaSource and opens a channel
+   * to the gRPC service.
+   *
+   * @param config the configuration values used to establish the channel
+   * @param caller the GrpcStreamCaller used to invoke a particular RPC
+   * @param appMetrics the MetricRegistry used to track metrics
+   * @param claimType the claim type
+   * @param rdaVersion The required {@link RdaVersion} in order to ingest data
+   * @param maxShards maximum number of shards to process in parallel
+   * @param minShardSize minimum number of sequence numbers per shard
+   * @param shardSinkFactory used to create a new sink for each shard
+   */
+  public BackfillGrpcRdaSource(
+      RdaSourceConfig config,
+      GrpcStreamCaller<TMessage> caller,
+      MeterRegistry appMetrics,
+      String claimType,
+      RdaVersion rdaVersion,
+      int maxShards,
+      long minShardSize,
+      Callable<RdaSink<TMessage, TClaim>> shardSinkFactory) {
+    this(
+        config.createChannel(),
+        caller,
+        config::createCallOptions,
+        appMetrics,
+        claimType,
+        rdaVersion,
+        maxShards,
+        minShardSize,
+        shardSinkFactory);
+  }
+
+  /**
+   * This constructor accepts a fully constructed channel instead of a configuration object. This is
+   * used internally by the primary constructor but is also used by unit tests to allow a mock
+   * channel to be provided.
+   *
+   * @param channel channel used to make RPC calls
+   * @param caller the GrpcStreamCaller used to invoke a particular RPC
+   * @param callOptionsFactory factory for generating runtime options for the gRPC call
+   * @param appMetrics the MetricRegistry used to track metrics
+   * @param claimType string representation of the claim type
+   * @param rdaVersion The required {@link RdaVersion} in order to ingest data
+   * @param maxShards maximum number of shards to process in parallel
+   * @param minShardSize minimum number of sequence numbers per shard
+   * @param shardSinkFactory used to create a new sink for each shard
+   */
+  @VisibleForTesting
+  BackfillGrpcRdaSource(
+      ManagedChannel channel,
+      GrpcStreamCaller<TMessage> caller,
+      Supplier<CallOptions> callOptionsFactory,
+      MeterRegistry appMetrics,
+      String claimType,
+      RdaVersion rdaVersion,
+      int maxShards,
+      long minShardSize,
+      Callable<RdaSink<TMessage, TClaim>> shardSinkFactory) {
+    super(
+        Preconditions.checkNotNull(channel),
+        Preconditions.checkNotNull(caller),
+        Preconditions.checkNotNull(claimType),
+        callOptionsFactory,
+        appMetrics,
+        rdaVersion);
+    Preconditions.checkArgument(maxShards >= 1, "maxShards less than 1: %s", maxShards);
+    Preconditions.checkArgument(minShardSize >= 1, "minShardSize less than 1: %s", minShardSize);
+    this.maxShards = maxShards;
+    this.minShardSize = minShardSize;
+    this.shardSinkFactory = Preconditions.checkNotNull(shardSinkFactory);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Reads the current progress from the database and the available sequence number range from
+   * the RDA API. Splits the remaining range into shards and processes every shard on its own
+   * thread. The progress table is updated using {@code sink} whenever the safe resume point
+   * advances. Sequence numbers below the lower end of the range no longer exist in the RDA API so
+   * the shards start at the lower end of the range if the stored progress is below it.
+   *
+   * @param maxPerBatch maximum number of objects to collect into a batch before calling the sink
+   * @param sink used to read and update the progress table
+   * @return the number of objects that were successfully processed
+   * @throws ProcessingException wrapper around any Exception thrown by the service or sink
+   */
+  @Override
+  public int retrieveAndProcessObjects(int maxPerBatch, RdaSink<TMessage, TClaim> sink)
+      throws ProcessingException {
+    sink.checkErrorCount();
+
+    return tryRetrieveAndProcessObjects(
+        () -> {
+          final ProcessResult processResult = new ProcessResult();
+          final long storedSequenceNumber =
+              sink.readMaxExistingSequenceNumber().orElse(MIN_SEQUENCE_NUM);
+          final String apiVersion = caller.callVersionService(channel, callOptionsFactory.get());
+          checkApiVersion(apiVersion);
+          final ClaimSequenceNumberRange range =
+              caller.callSequenceNumberRangeService(channel, callOptionsFactory.get());
+          final long startingSequenceNumber =
+              computeStartingSequenceNumber(storedSequenceNumber, range);
+          final BackfillProgressTracker tracker =
+              new BackfillProgressTracker(
+                  startingSequenceNumber, range.getUpper(), maxShards, minShardSize);
+          final List<BackfillProgressTracker.Shard> shards = tracker.getShards();
+          if (shards.size() < 2) {
+            log.info(
+                "skipping backfill: claimType={} startingSequenceNumber={} upper={} shards={}",
+                claimType,
+                startingSequenceNumber,
+                range.getUpper(),
+                shards.size());
+            return processResult;
+          }
+
+          log.info(
+              "starting backfill: claimType={} startingSequenceNumber={} upper={} shards={}",
+              claimType,
+              startingSequenceNumber,
+              range.getUpper(),
+              shards.size());
+          final ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+          try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (BackfillProgressTracker.Shard shard : shards) {
+              futures.add(
+                  executor.submit(
+                      () -> processShard(apiVersion, maxPerBatch, shard, tracker, sink)));
+            }
+            for (Future<Integer> future : futures) {
+              try {
+                processResult.addCount(future.get());
+              } catch (ExecutionException ex) {
+                final Exception error =
+                    ex.getCause() instanceof Exception cause ? cause : new Exception(ex.getCause());
+                if (error instanceof ProcessingException processingException) {
+                  processResult.addCount(processingException.getProcessedCount());
+                }
+                if (processResult.getException() == null) {
+                  processResult.setException(error);
+                  // no point letting the other shards continue once one has failed
+                  executor.shutdownNow();
+                } else {
+                  processResult.getException().addSuppressed(error);
+                }
+              } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                processResult.setInterrupted(true);
+              }
+            }
+          } finally {
+            executor.shutdownNow();
+          }
+          log.info(
+              "finished backfill: claimType={} processed={} safeResumeSequenceNumber={}",
+              claimType,
+              processResult.getCount(),
+              tracker.getSafeResumeSequenceNumber());
+          return processResult;
+        });
+  }
+
+  /**
+   * Computes the highest sequence number that the backfill can treat as already processed. That is
+   * the stored progress unless it is below the lower end of the range reported by the RDA API, in
+   * which case nothing below the lower end can be downloaded anyway.
+   *
+   * @param storedSequenceNumber highest sequence number recorded in the progress table
+   * @param range the range of sequence numbers available from the RDA API
+   * @return the sequence number that the first shard starts after
+   */
+  @VisibleForTesting
+  static long computeStartingSequenceNumber(
+      long storedSequenceNumber, ClaimSequenceNumberRange range) {
+    return Math.max(storedSequenceNumber, range.getLower() - 1);
+  }
+
+  /**
+   * Downloads and stores every change in a single shard. Progress is reported to the tracker after
+   * every batch and the progress table is updated whenever the safe resume point advances.
+   *
+   * <p>The shard is only complete once the stream has delivered its last sequence number or a
+   * sequence number beyond it. If the server closes the stream before then (because of an idle or
+   * time limit or a restart) the shard's progress only covers the changes actually received. The
+   * safe resume point then stops at this shard, so that the normal stream or the next run picks up
+   * the missing changes instead of skipping them.
+   *
+   * @param apiVersion the RDA API version string
+   * @param maxPerBatch maximum number of objects to collect into a batch before calling the sink
+   * @param shard the shard to process
+   * @param tracker tracks progress across all shards
+   * @param progressSink used to update the progress table
+   * @return number of objects processed
+   * @throws Exception if any part of the processing failed
+   */
+  private int processShard(
+      String apiVersion,
+      int maxPerBatch,
+      BackfillProgressTracker.Shard shard,
+      BackfillProgressTracker tracker,
+      RdaSink<TMessage, TClaim> progressSink)
+      throws Exception {
+    log.info(
+        "starting shard: claimType={} shard={} first={} last={}",
+        claimType,
+        shard.getIndex(),
+        shard.getFirst(),
+        shard.getLast());
+    int processed = 0;
+    try (RdaSink<TMessage, TClaim> sink = shardSinkFactory.call();
+        var responseStream =
+            caller.callService(channel, callOptionsFactory.get(), shard.getFirst() - 1)) {
+      final Map<Object, TMessage> batch = new LinkedHashMap<>();
+      long lastSequenceNumber = shard.getFirst() - 1;
+      boolean passedEndOfShard = false;
+      try {
+        while (lastSequenceNumber < shard.getLast() && responseStream.hasNext()) {
+          setUptimeToReceiving();
+          final TMessage result = responseStream.next();
+          final long sequenceNumber = sink.getSequenceNumberForObject(result);
+          if (sequenceNumber > shard.getLast()) {
+            passedEndOfShard = true;
+            break;
+          }
+          lastSequenceNumber = sequenceNumber;
+          metrics.getObjectsReceived().increment();
+          if (sink.isDeleteMessage(result)) {
+            metrics.getDeleteMessagesSkipped().increment();
+            log.warn(
+                "skipping DELETE message: claimType={} claimId={} seq={}",
+                claimType,
+                sink.getClaimIdForMessage(result),
+                sequenceNumber);
+          } else if (sink.isValidMessage(result)) {
+            // a newer change for the same claim replaces the older one within the batch
+            batch.put(sink.getClaimIdForMessage(result), result);
+            if (batch.size() >= maxPerBatch) {
+              processed += submitBatchToSink(apiVersion, sink, batch);
+              recordProgress(tracker, shard, lastSequenceNumber, progressSink);
+            }
+          } else {
+            metrics.getInvalidObjectsSkipped().increment();
+            log.info(
+                "skipping invalid claim: claimType={} claimId={} seq={}",
+                claimType,
+                sink.getClaimIdForMessage(result),
+                sequenceNumber);
+          }
+        }
+        if (batch.size() > 0) {
+          processed += submitBatchToSink(apiVersion, sink, batch);
+        }
+        if (passedEndOfShard || lastSequenceNumber >= shard.getLast()) {
+          // Sequence numbers can have gaps so the last one we received may be below the end.
+          recordProgress(tracker, shard, shard.getLast(), progressSink);
+        } else {
+          log.warn(
+              "shard stream ended early: claimType={} shard={} lastSequenceNumber={} last={}",
+              claimType,
+              shard.getIndex(),
+              lastSequenceNumber,
+              shard.getLast());
+          recordProgress(tracker, shard, lastSequenceNumber, progressSink);
+        }
+      } catch (ProcessingException ex) {
+        throw new ProcessingException(ex, processed + ex.getProcessedCount());
+      } catch (Exception ex) {
+        throw new ProcessingException(ex, processed);
+      } finally {
+        final MultiCloser closer = new MultiCloser();
+        closer.close(() -> responseStream.cancelStream("shard finished"));
+        closer.close(() -> sink.shutdown(MAX_SINK_SHUTDOWN_WAIT));
+        closer.finish();
+      }
+    }
+    log.info(
+        "finished shard: claimType={} shard={} processed={}",
+        claimType,
+        shard.getIndex(),
+        processed);
+    return processed;
+  }
+
+  /**
+   * Records progress for the shard and updates the progress table if the safe resume point
+   * advanced. Synchronized on the tracker so that progress table updates are never written out of
+   * order.
+   *
+   * @param tracker tracks progress across all shards
+   * @param shard the shard that made progress
+   * @param sequenceNumber highest sequence number processed by the shard
+   * @param progressSink used to update the progress table
+   */
+  private void recordProgress(
+      BackfillProgressTracker tracker,
+      BackfillProgressTracker.Shard shard,
+      long sequenceNumber,
+      RdaSink<TMessage, TClaim> progressSink) {
+    synchronized (tracker) {
+      final OptionalLong safeResumeSequenceNumber = tracker.recordProgress(shard, sequenceNumber);
+      if (safeResumeSequenceNumber.isPresent()) {
+        progressSink.updateLastSequenceNumber(safeResumeSequenceNumber.getAsLong());
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package gov.cms.bfd.pipeline.rda.grpc.source;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.Value;
+
+/**
+ * Divides a range of RDA API sequence numbers into shards that can be processed concurrently and
+ * tracks the progress of each shard as batches are written to the database.
+ *
+ * <p>Shards complete in no particular order so the highest sequence number written by any one shard
+ * is not a safe place to resume from. The best we can do is track the highest sequence number for
+ * which every lower sequence number in every shard has been written. That value is computed by
+ * walking the shards in order and stopping at the first shard that has not yet been completed.
+ */
+@ThreadSafe
+public class BackfillProgressTracker {
+  /** The shards in ascending sequence number order. */
+  private final List<Shard> shards;
+
+  /**
+   * Highest sequence number known to be processed in each shard. Indexes match those in {@link
+   * #shards}.
+   */
+  private final long[] progress;
+
+  /** The sequence number that was already processed before any shard was started. */
+  private final long startingSequenceNumber;
+
+  /** The most recent value returned by {@link #recordProgress}. */
+  private long safeResumeSequenceNumber;
+
+  /**
+   * Creates a tracker for all sequence numbers after {@code startingSequenceNumber} up to and
+   * including {@code lastSequenceNumber}. The range is split into at most {@code maxShards} shards
+   * of equal size but never into shards smaller than {@code minShardSize}.
+   *
+   * @param startingSequenceNumber highest sequence number already processed
+   * @param lastSequenceNumber highest sequence number to be processed
+   * @param maxShards maximum number of shards to create
+   * @param minShardSize minimum number of sequence numbers per shard
+   */
+  public BackfillProgressTracker(
+      long startingSequenceNumber, long lastSequenceNumber, int maxShards, long minShardSize) {
+    Preconditions.checkArgument(maxShards >= 1, "maxShards less than 1: %s", maxShards);
+    Preconditions.checkArgument(minShardSize >= 1, "minShardSize less than 1: %s", minShardSize);
+    this.startingSequenceNumber = startingSequenceNumber;
+    safeResumeSequenceNumber = startingSequenceNumber;
+    final List<Shard> shards = new ArrayList<>();
+    final long total = lastSequenceNumber - startingSequenceNumber;
+    if (total > 0) {
+      final long shardCount = Math.max(1, Math.min(maxShards, total / minShardSize));
+      final long shardSize = (total + shardCount - 1) / shardCount;
+      long first = startingSequenceNumber + 1;
+      while (first <= lastSequenceNumber) {
+        final long last = Math.min(lastSequenceNumber, first + shardSize - 1);
+        shards.add(new Shard(shards.size(), first, last));
+        first = last + 1;
+      }
+    }
+    this.shards = Collections.unmodifiableList(shards);
+    progress = new long[shards.size()];
+    for (Shard shard : shards) {
+      progress[shard.getIndex()] = shard.getFirst() - 1;
+    }
+  }
+
+  /**
+   * Gets the shards in ascending sequence number order. Empty if there is nothing to process.
+   *
+   * @return the shards
+   */
+  public List<Shard> getShards() {
+    return shards;
+  }
+
+  /**
+   * Records that every sequence number in the shard up to and including {@code sequenceNumber} has
+   * been processed. Values lower than the shard's current progress are ignored and values higher
+   * than the end of the shard are treated as the end of the shard.
+   *
+   * @param shard the shard that made progress
+   * @param sequenceNumber highest sequence number processed by the shard
+   * @return the new safe resume sequence number if this call advanced it, empty otherwise
+   */
+  public synchronized OptionalLong recordProgress(Shard shard, long sequenceNumber) {
+    final int index = shard.getIndex();
+    progress[index] = Math.max(progress[index], Math.min(sequenceNumber, shard.getLast()));
+    final long newSafeResumeSequenceNumber = computeSafeResumeSequenceNumber();
+    if (newSafeResumeSequenceNumber > safeResumeSequenceNumber) {
+      safeResumeSequenceNumber = newSafeResumeSequenceNumber;
+      return OptionalLong.of(newSafeResumeSequenceNumber);
+    } else {
+      return OptionalLong.empty();
+    }
+  }
+
+  /**
+   * Gets the highest sequence number for which every lower sequence number has been processed.
+   *
+   * @return the best sequence number to send to the RDA API when resuming
+   */
+  public synchronized long getSafeResumeSequenceNumber() {
+    return safeResumeSequenceNumber;
+  }
+
+  /**
+   * Walks the shards in order to find the first one that has not been completed.
+   *
+   * @return the highest sequence number for which every lower one has been processed
+   */
+  private long computeSafeResumeSequenceNumber() {
+    long answer = startingSequenceNumber;
+    for (Shard shard : shards) {
+      answer = progress[shard.getIndex()];
+      if (answer < shard.getLast()) {
+        break;
+      }
+    }
+    return answer;
+  }
+
+  /** A contiguous range of sequence numbers processed by a single stream. */
+  @Value
+  public static class Shard {
+    /** Position of this shard within the tracker. */
+    int index;
+    /** First sequence number in the shard. */
+    long first;
+    /** Last sequence number in the shard (inclusive). */
+    long last;
+  }
+}
@@ -5,6 +5,7 @@ import com.google.common.base.Strings;
 import com.google.protobuf.Empty;
 import gov.cms.bfd.pipeline.rda.grpc.RdaServerJob;
 import gov.cms.mpsm.rda.v1.ApiVersion;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.RDAServiceGrpc;
 import io.grpc.CallOptions;
 import io.grpc.ClientCall;
@@ -62,6 +63,19 @@ public abstract class GrpcStreamCaller<TResponse> {
       ManagedChannel channel, CallOptions callOptions, long startingSequenceNumber)
       throws Exception;
 
+  /**
+   * Make a call to the server's sequence number range service for this caller's claim type and
+   * return the range of sequence numbers currently available from the server. Used to divide the
+   * available history into shards for parallel processing.
+   *
+   * @param channel an already open channel to the service being called
+   * @param callOptions the CallOptions object to use for the API call
+   * @return the range of available sequence numbers
+   * @throws Exception any exception thrown calling the RPC
+   */
+  public abstract ClaimSequenceNumberRange callSequenceNumberRangeService(
+      ManagedChannel channel, CallOptions callOptions) throws Exception;
+
   /**
    * Make a call to the server's {@code getVersion()} service and return the version component. Will
    * retry several times if the call fails. Retries allow the job to handle with a race condition
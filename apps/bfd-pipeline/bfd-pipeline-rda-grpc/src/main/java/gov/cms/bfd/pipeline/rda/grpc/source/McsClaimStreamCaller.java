@@ -1,7 +1,9 @@
 package gov.cms.bfd.pipeline.rda.grpc.source;
 
 import com.google.common.base.Preconditions;
+import com.google.protobuf.Empty;
 import gov.cms.mpsm.rda.v1.ClaimRequest;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import gov.cms.mpsm.rda.v1.RDAServiceGrpc;
 import io.grpc.CallOptions;
@@ -44,4 +46,25 @@ public class McsClaimStreamCaller extends GrpcStreamCaller<McsClaimChange> {
         ClientCalls.blockingServerStreamingCall(call, request);
     return new GrpcResponseStream<>(call, apiResults);
   }
+
+  /**
+   * Calls the getMcsClaimsSequenceNumberRange RPC using the provided {@link ManagedChannel} and
+   * {@link CallOptions} and returns the range of sequence numbers available from the server.
+   *
+   * @param channel an already open channel to the service being called
+   * @param callOptions additional {@link CallOptions} for the RPC call.
+   * @return the range of {@link McsClaimChange} sequence numbers available from the server
+   * @throws Exception passes through any gRPC framework exceptions
+   */
+  @Override
+  public ClaimSequenceNumberRange callSequenceNumberRangeService(
+      ManagedChannel channel, CallOptions callOptions) throws Exception {
+    logger.info("calling sequence number range service");
+    Preconditions.checkNotNull(channel);
+    return ClientCalls.blockingUnaryCall(
+        channel,
+        RDAServiceGrpc.getGetMcsClaimsSequenceNumberRangeMethod(),
+        callOptions,
+        Empty.getDefaultInstance());
+  }
 }
@@ -4,6 +4,7 @@ import static gov.cms.bfd.pipeline.rda.grpc.AbstractRdaLoadJob.Config;
 import static gov.cms.bfd.pipeline.rda.grpc.RdaPipelineTestUtils.assertMeterReading;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
@@ -36,6 +37,9 @@ public class AbstractRdaLoadJobTest {
   /** Mock {@link Callable} task used in testing for the preJob logic. */
   @Mock private Callable<RdaSource<Integer, Integer>> preJobTask;
 
+  /** Mock {@link Callable} task used in testing for the backfill logic. */
+  @Mock private Callable<RdaSource<Integer, Integer>> backfillSourceFactory;
+
   /** Mock {@link Callable} task used in testing for the RDA source logic. */
   @Mock private Callable<RdaSource<Integer, Integer>> sourceFactory;
 
@@ -77,7 +81,9 @@ public class AbstractRdaLoadJobTest {
             .sinkTypePreference(AbstractRdaLoadJob.SinkTypePreference.NONE)
             .build();
     appMetrics = new SimpleMeterRegistry();
-    job = new TestingLoadJob(config, preJobTask, sourceFactory, sinkFactory, appMetrics);
+    job =
+        new TestingLoadJob(
+            config, preJobTask, backfillSourceFactory, sourceFactory, sinkFactory, appMetrics);
   }
 
   /**
@@ -262,6 +268,90 @@ public class AbstractRdaLoadJobTest {
     assertMeterReading(25_000, "processed", job.getMetrics().getProcessed());
   }
 
+  /**
+   * Verifies that the backfill source is invoked with a {@link
+   * AbstractRdaLoadJob.SinkTypePreference#BACKFILL} sink before the normal source when backfill has
+   * been enabled and that the claims it processed are included in the outcome.
+   *
+   * @throws Exception If a resource fails to close or some other issue has occurred.
+   */
+  @Test
+  public void backfillRunsBeforeNormalSource() throws Exception {
+    config =
+        AbstractRdaLoadJob.Config.builder()
+            .runInterval(Duration.ofSeconds(10))
+            .batchSize(3)
+            .sinkTypePreference(AbstractRdaLoadJob.SinkTypePreference.NONE)
+            .backfillShards(4)
+            .build();
+    job =
+        new TestingLoadJob(
+            config, preJobTask, backfillSourceFactory, sourceFactory, sinkFactory, appMetrics);
+
+    final RdaSource<Integer, Integer> backfillSource = mock(RdaSource.class);
+    final RdaSink<Integer, Integer> backfillSink = mock(RdaSink.class);
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(mock(RdaSource.class)).when(preJobTask).call();
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(backfillSource).when(backfillSourceFactory).call();
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(backfillSink).when(sinkFactory).apply(AbstractRdaLoadJob.SinkTypePreference.BACKFILL);
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(source).when(sourceFactory).call();
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(sink).when(sinkFactory).apply(AbstractRdaLoadJob.SinkTypePreference.NONE);
+    doReturn(1_000).when(backfillSource).retrieveAndProcessObjects(eq(3), same(backfillSink));
+    doReturn(0).when(source).retrieveAndProcessObjects(anyInt(), same(sink));
+
+    assertEquals(PipelineJobOutcome.WORK_DONE, job.call());
+    final var order = inOrder(backfillSource, source);
+    order.verify(backfillSource).retrieveAndProcessObjects(3, backfillSink);
+    order.verify(source).retrieveAndProcessObjects(3, sink);
+    verify(backfillSource).close();
+    verify(backfillSink).close();
+  }
+
+  /**
+   * Verifies that the backfill source is never used unless more than one shard has been configured.
+   *
+   * @throws Exception If a resource fails to close or some other issue has occurred.
+   */
+  @Test
+  public void backfillDisabledByDefault() throws Exception {
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(mock(RdaSource.class)).when(preJobTask).call();
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(source).when(sourceFactory).call();
+    // resource - This is a mock, not an invocation
+    //noinspection resource
+    doReturn(sink).when(sinkFactory).apply(AbstractRdaLoadJob.SinkTypePreference.NONE);
+
+    job.call();
+    verifyNoInteractions(backfillSourceFactory);
+    verify(sinkFactory, never()).apply(AbstractRdaLoadJob.SinkTypePreference.BACKFILL);
+  }
+
+  /** Verifies that backfill can not be combined with a hard coded starting sequence number. */
+  @Test
+  public void backfillRejectsStartingSequenceNumber() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            AbstractRdaLoadJob.Config.builder()
+                .runInterval(Duration.ofSeconds(10))
+                .batchSize(3)
+                .startingFissSeqNum(10L)
+                .backfillShards(2)
+                .build());
+  }
+
   /**
    * Tests that if multiple jobs try to execute at the same time, only one will perform the work.
    * The second job will complete immediately and return {@link PipelineJobOutcome#NOTHING_TO_DO}.
@@ -285,6 +375,7 @@ public class AbstractRdaLoadJobTest {
         new TestingLoadJob(
             config,
             () -> mock(RdaSource.class),
+            () -> mock(RdaSource.class),
             () -> {
               // lets the main thread know we've acquired the semaphore
               waitForStartup.countDown();
@@ -329,6 +420,7 @@ public class AbstractRdaLoadJobTest {
      *
      * @param config the config
      * @param preJobTask the pre job task
+     * @param backfillSourceFactory the backfill source factory
      * @param sourceFactory the source factory
      * @param sinkFactory the sink factory
      * @param appMetrics the app metrics
@@ -336,12 +428,14 @@ public class AbstractRdaLoadJobTest {
     public TestingLoadJob(
         Config config,
         Callable<RdaSource<Integer, Integer>> preJobTask,
+        Callable<RdaSource<Integer, Integer>> backfillSourceFactory,
         Callable<RdaSource<Integer, Integer>> sourceFactory,
         ThrowingFunction<RdaSink<Integer, Integer>, SinkTypePreference, Exception> sinkFactory,
         MeterRegistry appMetrics) {
       super(
           config,
           preJobTask,
+          backfillSourceFactory,
           sourceFactory,
           sinkFactory,
           appMetrics,
@@ -9,6 +9,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.CharSource;
 import com.google.common.io.Resources;
+import gov.cms.bfd.model.rda.RdaApiProgress;
 import gov.cms.bfd.model.rda.RdaFissClaim;
 import gov.cms.bfd.model.rda.RdaMcsClaim;
 import gov.cms.bfd.pipeline.rda.grpc.server.JsonMessageSource;
@@ -142,6 +143,50 @@ public class RdaLoadJobIT {
         });
   }
 
+  /**
+   * Verifies that enabling backfill loads every FISS claim using parallel streams and leaves the
+   * progress table pointing at the highest sequence number available from the server.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void fissClaimsBackfillTest() throws Exception {
+    RdaPipelineTestUtils.runTestWithTemporaryDb(
+        RdaLoadJobIT.class,
+        clock,
+        (appState, transactionManager) -> {
+          assertTablesAreEmpty(transactionManager);
+          RdaServer.LocalConfig.builder()
+              .serviceConfig(
+                  RdaMessageSourceFactory.Config.builder()
+                      .version(ARBITRARY_RDA_VERSION)
+                      .fissClaimJsonList(fissClaimJson)
+                      .build())
+              .build()
+              .runWithPortParam(
+                  port -> {
+                    final RdaLoadOptions config = createRdaLoadOptions(port, 3);
+                    final var mbiCache = config.createComputedMbiCache(appState);
+                    final RdaFissClaimLoadJob job =
+                        config.createFissClaimsLoadJob(appState, mbiCache);
+                    final int processed = job.executeBackfill();
+                    assertTrue(processed > 0);
+                  });
+          final ImmutableList<FissClaimChange> expectedClaims =
+              JsonMessageSource.parseAll(fissClaimJson, JsonMessageSource.fissParser());
+          final long maxSequenceNumber =
+              expectedClaims.stream().mapToLong(FissClaimChange::getSeq).max().orElseThrow();
+          List<RdaFissClaim> claims = getRdaFissClaims(transactionManager);
+          assertEquals(expectedClaims.size(), claims.size());
+          for (RdaFissClaim resultClaim : claims) {
+            assertNotNull(findMatchingFissClaim(expectedClaims, resultClaim));
+          }
+          assertEquals(
+              maxSequenceNumber,
+              getLastSequenceNumber(transactionManager, RdaApiProgress.ClaimType.FISS));
+        });
+  }
+
   /**
    * Verifies that an invalid FISS claim terminates the job and that all complete batches prior to
    * the bad claim have been written to the database.
@@ -376,6 +421,25 @@ public class RdaLoadJobIT {
                 .getResultList());
   }
 
+  /**
+   * Reads the last sequence number recorded in the progress table for the given claim type.
+   *
+   * @param transactionManager the transaction manager to connect to the database
+   * @param claimType the claim type to look up
+   * @return the last sequence number
+   */
+  private long getLastSequenceNumber(
+      TransactionManager transactionManager, RdaApiProgress.ClaimType claimType) {
+    return transactionManager.executeFunction(
+        entityManager ->
+            entityManager
+                .createQuery(
+                    "select p.lastSequenceNumber from RdaApiProgress p where p.claimType = :type",
+                    Long.class)
+                .setParameter("type", claimType)
+                .getSingleResult());
+  }
+
   /**
    * Creates the RDA load options.
    *
@@ -383,6 +447,17 @@ public class RdaLoadJobIT {
    * @return the rda load options
    */
   private static RdaLoadOptions createRdaLoadOptions(int serverPort) {
+    return createRdaLoadOptions(serverPort, 0);
+  }
+
+  /**
+   * Creates the RDA load options with the given number of backfill shards.
+   *
+   * @param serverPort the server port to use
+   * @param backfillShards the maximum number of backfill shards
+   * @return the rda load options
+   */
+  private static RdaLoadOptions createRdaLoadOptions(int serverPort, int backfillShards) {
     final RdaSourceConfig.RdaSourceConfigBuilder rdaSourceConfig = RdaSourceConfig.builder();
     if (serverPort > 0) {
       rdaSourceConfig
@@ -400,6 +475,8 @@ public class RdaLoadJobIT {
         AbstractRdaLoadJob.Config.builder()
             .runInterval(Duration.ofSeconds(1))
             .batchSize(BATCH_SIZE)
+            .backfillShards(backfillShards)
+            .backfillMinShardSize(1)
             .rdaVersion(
                 RdaVersion.builder()
                     .versionString("~" + ARBITRARY_RDA_VERSION.getVersion())
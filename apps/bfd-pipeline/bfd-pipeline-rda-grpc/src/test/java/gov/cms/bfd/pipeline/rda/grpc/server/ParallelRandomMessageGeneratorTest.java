@@ -0,0 +1,140 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import gov.cms.mpsm.rda.v1.FissClaimChange;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link ParallelRandomMessageGenerator}. */
+public class ParallelRandomMessageGeneratorTest {
+  /** Fixed clock so that timestamps in generated changes are predictable. */
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.ofEpochMilli(1625172944844L), ZoneOffset.UTC);
+
+  /** Settings shared by all tests. */
+  private static final RandomClaimGeneratorConfig CONFIG =
+      RandomClaimGeneratorConfig.builder()
+          .seed(42)
+          .clock(CLOCK)
+          .randomErrorRate(5)
+          .maxToSend(53)
+          .generatorThreads(3)
+          .generatorBatchSize(5)
+          .build();
+
+  /** Thread pool used by the generators. */
+  private ExecutorService executor;
+
+  /** Creates the thread pool. */
+  @BeforeEach
+  public void setUp() {
+    executor = ParallelRandomMessageGenerator.createExecutor(CONFIG.getGeneratorThreads());
+  }
+
+  /** Shuts down the thread pool. */
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Verifies that the parallel generator produces exactly the same changes as the sequential {@link
+   * RandomFissClaimSource}.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void producesSameChangesAsSequentialSource() throws Exception {
+    final var generator =
+        new ParallelRandomMessageGenerator<>(
+            executor, () -> new RandomFissClaimSource(CONFIG)::createChange, CONFIG);
+    final List<FissClaimChange> expected = readAll(new RandomFissClaimSource(CONFIG));
+    assertEquals(53, expected.size());
+    try (var source = generator.createMessageSource(0)) {
+      assertEquals(expected, readAll(source));
+      assertThrows(NoSuchElementException.class, source::next);
+    }
+  }
+
+  /**
+   * Verifies that skipping works within and across batches and never moves backwards.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void skipToMovesDirectlyToSequenceNumber() throws Exception {
+    final var generator =
+        new ParallelRandomMessageGenerator<>(
+            executor, () -> new RandomFissClaimSource(CONFIG)::createChange, CONFIG);
+    final var sequential = new RandomFissClaimSource(CONFIG);
+    try (var source = generator.createMessageSource(12)) {
+      assertEquals(sequential.createChange(12), source.next());
+      assertEquals(sequential.createChange(13), source.next());
+      source.skipTo(41);
+      assertEquals(sequential.createChange(41), source.next());
+      source.skipTo(3);
+      assertEquals(sequential.createChange(42), source.next());
+      source.skipTo(54);
+      assertFalse(source.hasNext());
+    }
+  }
+
+  /**
+   * Verifies that cached batches are reused by later sources rather than being generated again.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void cachedBatchesAreReused() throws Exception {
+    final var config = CONFIG.toBuilder().generatorCachedBatches(100).build();
+    final AtomicInteger generated = new AtomicInteger();
+    final var generator =
+        new ParallelRandomMessageGenerator<>(
+            executor,
+            () -> {
+              final var claimSource = new RandomFissClaimSource(config);
+              return seq -> {
+                generated.incrementAndGet();
+                return claimSource.createChange(seq);
+              };
+            },
+            config);
+    final List<FissClaimChange> first;
+    try (var source = generator.createMessageSource(0)) {
+      first = readAll(source);
+    }
+    assertEquals(53, generated.get());
+    try (var source = generator.createMessageSource(20)) {
+      assertEquals(first.subList(19, 53), readAll(source));
+    }
+    assertEquals(53, generated.get());
+  }
+
+  /**
+   * Reads all remaining messages from the source.
+   *
+   * @param source the source to read
+   * @return the messages
+   * @throws Exception if reading fails
+   */
+  private static List<FissClaimChange> readAll(MessageSource<FissClaimChange> source)
+      throws Exception {
+    final List<FissClaimChange> answer = new ArrayList<>();
+    while (source.hasNext()) {
+      answer.add(source.next());
+    }
+    return answer;
+  }
+}
@@ -0,0 +1,188 @@
+package gov.cms.bfd.pipeline.rda.grpc.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.io.ByteSource;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
+import gov.cms.mpsm.rda.v1.FissClaimChange;
+import gov.cms.mpsm.rda.v1.fiss.FissClaim;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link ProtobufCaptureWriter} and {@link ProtobufCaptureMessageSource} can write and
+ * read capture files.
+ */
+public class ProtobufCaptureMessageSourceTest {
+  /** Verifies that every message written to a file can be read back in order. */
+  @Test
+  public void allMessagesCanBeReadBack() throws Exception {
+    final List<FissClaimChange> changes = createChanges(1, 25);
+    final ByteSource capture = writeCapture(changes, 4);
+    assertEquals(7, ProtobufCaptureFile.readIndex(capture).size());
+    try (var source = new ProtobufCaptureMessageSource<>(capture, ProtobufCaptureFile.Codec.FISS)) {
+      assertEquals(changes, readAll(source));
+      assertThrows(NoSuchElementException.class, source::next);
+    }
+  }
+
+  /**
+   * Verifies that skipTo jumps into the middle of a block and can be called again to move farther
+   * forward, but never backwards.
+   */
+  @Test
+  public void skipToFindsSequenceNumbersInAnyBlock() throws Exception {
+    // sequence numbers 10, 20, ... 250 with 4 per block
+    final List<FissClaimChange> changes = createChanges(1, 25);
+    final ByteSource capture = writeCapture(changes, 4);
+    try (var source = new ProtobufCaptureMessageSource<>(capture, ProtobufCaptureFile.Codec.FISS)) {
+      source.skipTo(95);
+      assertEquals(100, source.next().getSeq());
+      source.skipTo(170);
+      assertEquals(170, source.next().getSeq());
+      source.skipTo(20);
+      assertEquals(180, source.next().getSeq());
+    }
+    try (var source = new ProtobufCaptureMessageSource<>(capture, ProtobufCaptureFile.Codec.FISS)) {
+      source.skipTo(0);
+      assertEquals(changes, readAll(source));
+    }
+  }
+
+  /** Verifies that skipping past the last sequence number produces an empty source. */
+  @Test
+  public void skipToPastEndProducesEmptySource() throws Exception {
+    final ByteSource capture = writeCapture(createChanges(1, 10), 3);
+    try (var source = new ProtobufCaptureMessageSource<>(capture, ProtobufCaptureFile.Codec.FISS)) {
+      source.skipTo(101);
+      assertFalse(source.hasNext());
+    }
+  }
+
+  /** Verifies that files with no messages as well as zero length sources are empty. */
+  @Test
+  public void emptyFilesHaveNoMessages() throws Exception {
+    for (ByteSource capture : List.of(writeCapture(List.of(), 3), ByteSource.empty())) {
+      try (var source =
+          new ProtobufCaptureMessageSource<>(capture, ProtobufCaptureFile.Codec.FISS)) {
+        assertFalse(source.skipTo(1000).hasNext());
+      }
+      assertEquals(
+          ClaimSequenceNumberRange.newBuilder().setLower(0).setUpper(0).build(),
+          ProtobufCaptureMessageSource.readSequenceNumberRange(capture));
+    }
+  }
+
+  /** Verifies that capture files are recognized by suffix and gzipped ones are rejected. */
+  @Test
+  public void captureFileNamesRecognized() {
+    assertTrue(ProtobufCaptureFile.isCaptureFileName("fiss-1-100.rdapb"));
+    assertTrue(ProtobufCaptureFile.isCaptureFileName("FISS.RDAPB"));
+    assertFalse(ProtobufCaptureFile.isCaptureFileName("fiss-1-100.ndjson"));
+    assertFalse(ProtobufCaptureFile.isCaptureFileName("fiss-1-100.ndjson.gz"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ProtobufCaptureFile.isCaptureFileName("fiss-1-100.rdapb.gz"));
+  }
+
+  /** Verifies that the sequence number range is computed from the index. */
+  @Test
+  public void sequenceNumberRangeReadFromIndex() throws Exception {
+    final ByteSource capture = writeCapture(createChanges(3, 12), 5);
+    assertEquals(
+        ClaimSequenceNumberRange.newBuilder().setLower(30).setUpper(120).build(),
+        ProtobufCaptureMessageSource.readSequenceNumberRange(capture));
+  }
+
+  /** Verifies that files that are not capture files are rejected. */
+  @Test
+  public void invalidFilesAreRejected() {
+    final ByteSource notCapture = ByteSource.wrap("not a capture file at all".getBytes());
+    assertThrows(
+        IOException.class,
+        () -> new ProtobufCaptureMessageSource<>(notCapture, ProtobufCaptureFile.Codec.FISS));
+  }
+
+  /** Verifies that the writer rejects messages whose sequence numbers are out of order. */
+  @Test
+  public void writerRejectsOutOfOrderMessages() throws Exception {
+    final var writer =
+        new ProtobufCaptureWriter<>(new ByteArrayOutputStream(), ProtobufCaptureFile.Codec.FISS);
+    writer.write(createChange(2));
+    assertThrows(IllegalArgumentException.class, () -> writer.write(createChange(1)));
+    writer.close();
+  }
+
+  /**
+   * Creates a list of changes with sequence numbers that are multiples of 10.
+   *
+   * @param first multiplier for first sequence number
+   * @param last multiplier for last sequence number
+   * @return the changes
+   */
+  private static List<FissClaimChange> createChanges(long first, long last) {
+    return LongStream.rangeClosed(first, last)
+        .mapToObj(i -> createChange(10 * i))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Creates a change with the given sequence number.
+   *
+   * @param seq the sequence number
+   * @return the change
+   */
+  private static FissClaimChange createChange(long seq) {
+    final String claimId = "claim-" + seq;
+    return FissClaimChange.newBuilder()
+        .setSeq(seq)
+        .setRdaClaimKey(claimId)
+        .setClaim(FissClaim.newBuilder().setRdaClaimKey(claimId).setDcn("dcn-" + seq))
+        .build();
+  }
+
+  /**
+   * Writes the changes to an in memory capture file.
+   *
+   * @param changes the changes to write
+   * @param messagesPerBlock number of messages per block
+   * @return the file contents
+   * @throws IOException if writing fails
+   */
+  private static ByteSource writeCapture(List<FissClaimChange> changes, int messagesPerBlock)
+      throws IOException {
+    final var bytes = new ByteArrayOutputStream();
+    try (var writer =
+        new ProtobufCaptureWriter<>(bytes, ProtobufCaptureFile.Codec.FISS, messagesPerBlock)) {
+      for (FissClaimChange change : changes) {
+        writer.write(change);
+      }
+    }
+    return ByteSource.wrap(bytes.toByteArray());
+  }
+
+  /**
+   * Reads all remaining messages from the source.
+   *
+   * @param source the source to read
+   * @return the messages
+   * @throws Exception if reading fails
+   */
+  private static List<FissClaimChange> readAll(MessageSource<FissClaimChange> source)
+      throws Exception {
+    final List<FissClaimChange> answer = new ArrayList<>();
+    while (source.hasNext()) {
+      answer.add(source.next());
+    }
+    return answer;
+  }
+}
@@ -511,6 +511,25 @@ public class RandomFissClaimGeneratorTest {
         json);
   }
 
+  /**
+   * Verifies that the claim generated for a sequence number (including whether it contains a forced
+   * error) does not depend on which claims were generated before it.
+   */
+  @Test
+  public void claimsDependOnlyOnSequenceNumber() {
+    final var config = RandomClaimGeneratorConfig.builder().seed(7).randomErrorRate(3).build();
+    final var sequential = new RandomFissClaimGenerator(config);
+    final var sequentialClaims =
+        IntStream.range(1, 50).mapToObj(i -> sequential.randomClaim()).collect(Collectors.toList());
+
+    final var seeking = new RandomFissClaimGenerator(config);
+    for (int seq = 49; seq >= 1; seq -= 3) {
+      assertEquals(sequentialClaims.get(seq - 1), seeking.randomClaim(seq));
+    }
+    assertEquals(sequentialClaims.get(10), seeking.randomClaim(11));
+    assertEquals(sequentialClaims.get(11), seeking.randomClaim());
+  }
+
   /** Verifies that the overrides in the {@link RandomClaimGeneratorConfig} are enforced. */
   @Test
   public void testFieldOverrides() {
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 import com.google.protobuf.Empty;
 import gov.cms.mpsm.rda.v1.ApiVersion;
 import gov.cms.mpsm.rda.v1.ClaimRequest;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
 import gov.cms.mpsm.rda.v1.FissClaimChange;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import io.grpc.Status;
@@ -46,6 +47,8 @@ public class RdaServiceTest {
   @Mock private RdaService.Responder<McsClaimChange> mockMcsResponder;
   /** The mocked MCS source. */
   @Mock private MessageSource<McsClaimChange> mockMcsSource;
+  /** The mocked sequence number range observer. */
+  @Mock private StreamObserver<ClaimSequenceNumberRange> mockRangeObserver;
   /** The mocked MCS request. */
   @Mock private ClaimRequest mockRequest;
 
@@ -201,4 +204,37 @@ public class RdaServiceTest {
 
     assertEquals(Status.DEADLINE_EXCEEDED, exception.getStatus());
   }
+
+  /** Tests that the FISS sequence number range is sent to the observer. */
+  @Test
+  void shouldSendFissSequenceNumberRange() throws Exception {
+    final var range = ClaimSequenceNumberRange.newBuilder().setLower(3).setUpper(42).build();
+    doReturn(range).when(mockRdaMessageSourceFactory).getFissSequenceNumberRange();
+
+    RdaService service = new RdaService(mockRdaMessageSourceFactory);
+    service.getFissClaimsSequenceNumberRange(request, mockRangeObserver);
+
+    verify(mockRangeObserver, times(1)).onNext(range);
+    verify(mockRangeObserver, times(1)).onCompleted();
+    verify(mockRangeObserver, times(0)).onError(any(Exception.class));
+  }
+
+  /**
+   * Tests that the observer onError method is invoked if an exception was thrown for MCS sequence
+   * number range requests.
+   */
+  @Test
+  void shouldInvokeOnErrorWhenExceptionRaisedOnMcsSequenceNumberRangeCall() throws Exception {
+    doThrow(new StatusRuntimeException(Status.UNAVAILABLE))
+        .when(mockRdaMessageSourceFactory)
+        .getMcsSequenceNumberRange();
+
+    RdaService service = new RdaService(mockRdaMessageSourceFactory);
+    service.getMcsClaimsSequenceNumberRange(request, mockRangeObserver);
+
+    ArgumentCaptor<StatusException> captor = ArgumentCaptor.forClass(StatusException.class);
+    verify(mockRangeObserver, times(1)).onError(captor.capture());
+    verify(mockRangeObserver, times(0)).onCompleted();
+    assertEquals(Status.UNAVAILABLE, captor.getValue().getStatus());
+  }
 }
@@ -70,6 +70,34 @@ public class S3BucketMessageSourceFactoryTest {
     assertEquals(Collections.emptyList(), mcsFactory.listFiles(276L));
   }
 
+  /**
+   * Verifies that a factory configured with multiple suffixes lists files with any of them, but
+   * skips capture files that were gzip compressed as a whole.
+   */
+  @Test
+  public void listFilesWithMultipleSuffixesTest() {
+    setFilesInS3Dao(
+        "fiss-0-100.ndjson",
+        "fiss-101-250.rdapb",
+        "fiss-251-300.ndjson.gz",
+        "fiss-301-400.json",
+        "fiss-401-500.rdapb.gz",
+        "mcs-0-100.rdapb");
+
+    final Function<String, MessageSource<Object>> emptyObjectParser =
+        s -> new EmptyMessageSource<>();
+
+    S3BucketMessageSourceFactory<?> fissFactory =
+        new S3BucketMessageSourceFactory<>(
+            s3Dao, "fiss", List.of("ndjson", "rdapb"), emptyObjectParser);
+    assertEquals(
+        Arrays.asList(
+            new S3BucketMessageSourceFactory.FileEntry("fiss-0-100.ndjson", 0, 100),
+            new S3BucketMessageSourceFactory.FileEntry("fiss-101-250.rdapb", 101, 250),
+            new S3BucketMessageSourceFactory.FileEntry("fiss-251-300.ndjson.gz", 251, 300)),
+        fissFactory.listFiles(0L));
+  }
+
   /**
    * Validates when there are no sources passed when creating a factory then the source returned by
    * the factory is empty.
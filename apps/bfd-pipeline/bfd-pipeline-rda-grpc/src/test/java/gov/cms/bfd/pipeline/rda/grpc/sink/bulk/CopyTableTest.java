@@ -0,0 +1,106 @@
+package gov.cms.bfd.pipeline.rda.grpc.sink.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import gov.cms.bfd.model.rda.Mbi;
+import gov.cms.bfd.model.rda.RdaApiProgress;
+import gov.cms.bfd.model.rda.RdaClaimMessageMetaData;
+import gov.cms.bfd.model.rda.RdaFissClaim;
+import gov.cms.bfd.model.rda.RdaFissProcCode;
+import gov.cms.bfd.model.rda.StringList;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link CopyTable}. */
+public class CopyTableTest {
+  /** Verifies that table and column names are taken from the JPA annotations. */
+  @Test
+  public void namesComeFromAnnotations() {
+    final CopyTable table = new CopyTable(RdaFissProcCode.class);
+    assertEquals("rda", table.getSchema());
+    assertEquals("fiss_proc_codes", table.getTableName());
+    assertEquals("rda.fiss_proc_codes", table.getQualifiedName());
+    assertEquals(
+        List.of("claim_id", "rda_position", "proc_code", "proc_flag", "proc_date"),
+        table.getColumnNames());
+    assertEquals("rda_position", table.getColumnNameForField("rdaPosition"));
+    assertThrows(IllegalArgumentException.class, () -> table.getColumnNameForField("nope"));
+  }
+
+  /** Verifies that collections of child entities are not treated as columns. */
+  @Test
+  public void childCollectionsAreNotColumns() {
+    final List<String> columns = new CopyTable(RdaFissClaim.class).getColumnNames();
+    assertFalse(columns.contains("proc_codes"));
+    assertEquals("mbi_id", columns.get(columns.size() - 1));
+  }
+
+  /** Verifies that the copy statement lists our columns followed by any extra columns. */
+  @Test
+  public void copySqlListsColumns() {
+    final CopyTable table = new CopyTable(RdaFissProcCode.class);
+    assertEquals(
+        "COPY rda.bulk_fiss_proc_codes (claim_id, rda_position, proc_code, proc_flag, proc_date,"
+            + " extra) FROM STDIN WITH (FORMAT csv)",
+        table.copySql("rda.bulk_fiss_proc_codes", "extra"));
+    assertEquals(
+        "c.claim_id, c.rda_position, c.proc_code, c.proc_flag, c.proc_date", table.columnList("c"));
+  }
+
+  /**
+   * Verifies that rows quote non-null values, escape quotes, leave nulls empty, and append extra
+   * values.
+   */
+  @Test
+  public void rowsDistinguishNullsFromEmptyStrings() {
+    final RdaFissProcCode procCode =
+        RdaFissProcCode.builder()
+            .claimId("claim\"1")
+            .rdaPosition((short) 2)
+            .procCode("")
+            .procDate(LocalDate.of(2022, 3, 4))
+            .build();
+    final StringBuilder out = new StringBuilder();
+    new CopyTable(RdaFissProcCode.class).appendRow(out, procCode, 42L);
+    assertEquals("\"claim\"\"1\",\"2\",\"\",,\"2022-03-04\",\"42\"\n", out.toString());
+  }
+
+  /** Verifies that join columns, converters, and instants are written correctly. */
+  @Test
+  public void joinedAndConvertedValuesAreWritten() {
+    final RdaClaimMessageMetaData metaData =
+        RdaClaimMessageMetaData.builder()
+            .claimType(RdaApiProgress.ClaimType.MCS)
+            .sequenceNumber(17)
+            .claimId("c1")
+            .mbiRecord(new Mbi(5L, "12345678901", "hash"))
+            .locations(new StringList().add("A").add("1B"))
+            .lastUpdated(Instant.ofEpochMilli(1625172944844L))
+            .build();
+    final CopyTable table = new CopyTable(RdaClaimMessageMetaData.class);
+    final StringBuilder out = new StringBuilder();
+    table.appendRow(out, metaData);
+    assertEquals(
+        List.of(
+            "claim_type",
+            "sequence_number",
+            "claim_id",
+            "mbi_id",
+            "claim_state",
+            "transaction_date",
+            "claim_location",
+            "last_updated",
+            "phase",
+            "phase_seq_num",
+            "extract_date",
+            "transmission_timestamp"),
+        table.getColumnNames());
+    assertEquals(
+        "\"M\",\"17\",\"c1\",\"5\",,,\"[\"\"A\"\",\"\"1B\"\"]\",\"2021-07-01T20:55:44.844Z\",,,,\n",
+        out.toString());
+  }
+}
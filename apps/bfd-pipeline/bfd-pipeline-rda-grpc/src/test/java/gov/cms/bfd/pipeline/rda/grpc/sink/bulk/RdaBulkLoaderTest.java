@@ -0,0 +1,146 @@
+package gov.cms.bfd.pipeline.rda.grpc.sink.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import gov.cms.bfd.model.rda.RdaApiProgress;
+import gov.cms.bfd.model.rda.RdaClaimMessageMetaData;
+import gov.cms.bfd.model.rda.RdaFissClaim;
+import gov.cms.bfd.pipeline.rda.grpc.ProcessingException;
+import gov.cms.bfd.pipeline.rda.grpc.RdaChange;
+import gov.cms.bfd.pipeline.rda.grpc.RdaSink;
+import gov.cms.bfd.pipeline.rda.grpc.server.MessageSource;
+import gov.cms.mpsm.rda.v1.FissClaimChange;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link RdaBulkLoader}. */
+public class RdaBulkLoaderTest {
+  /** Mock data source. */
+  private DataSource dataSource;
+  /** Mock connection returned by {@link #dataSource}. */
+  private Connection connection;
+  /** Mock statement returned by {@link #connection}. */
+  private Statement statement;
+  /** Mock result returned by {@link #statement}. */
+  private ResultSet resultSet;
+  /** Mock sink used to transform messages. */
+  private RdaSink<FissClaimChange, RdaChange<RdaFissClaim>> sink;
+
+  /**
+   * Creates the mocks.
+   *
+   * @throws Exception required by JDBC method signatures
+   */
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    dataSource = mock(DataSource.class);
+    connection = mock(Connection.class);
+    statement = mock(Statement.class);
+    resultSet = mock(ResultSet.class);
+    sink = mock(RdaSink.class);
+    doReturn(connection).when(dataSource).getConnection();
+    doReturn(statement).when(connection).createStatement();
+    doReturn(resultSet).when(statement).executeQuery(anyString());
+  }
+
+  /**
+   * Verifies that the load refuses to run when the target table already contains claims and merge
+   * was not requested. Nothing should be created or read in that case.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void refusesToLoadIntoNonEmptyTableWithoutMerge() throws Exception {
+    doReturn(true).when(resultSet).next();
+    @SuppressWarnings("unchecked")
+    final MessageSource<FissClaimChange> source = mock(MessageSource.class);
+    try (var loader = createLoader(false)) {
+      final ProcessingException error =
+          assertThrows(ProcessingException.class, () -> loader.load(source));
+      assertTrue(error.getCause().getMessage().contains("non-empty table rda.fiss_claims"));
+    }
+    verify(statement).executeQuery("SELECT 1 FROM rda.fiss_claims LIMIT 1");
+    verify(statement, never()).execute(anyString());
+    verify(source, never()).hasNext();
+    verify(sink).close();
+  }
+
+  /** Verifies that staging tables are named consistently and avoid collisions between types. */
+  @Test
+  public void stagingTablesHaveUniqueNames() {
+    final var loader = createLoader(false);
+    assertEquals("rda.bulk_fiss_claims", loader.stagingName(new CopyTable(RdaFissClaim.class)));
+    assertEquals(
+        "rda.claim_message_meta_data",
+        new CopyTable(RdaClaimMessageMetaData.class).getQualifiedName());
+    assertTrue(
+        loader.createMergeStatements().stream()
+            .anyMatch(sql -> sql.contains("FROM rda.bulk_fiss_claim_message_meta_data")));
+  }
+
+  /**
+   * Verifies that merge statements keep only the latest version of each claim, never replace newer
+   * claims, and replace children before inserting.
+   */
+  @Test
+  public void mergeStatementsKeepLatestVersions() {
+    final List<String> sql = createLoader(true).createMergeStatements();
+    assertEquals("ANALYZE rda.bulk_fiss_claims", sql.get(0));
+    assertEquals(
+        "CREATE UNLOGGED TABLE rda.bulk_latest_fiss_claims AS SELECT DISTINCT ON (claim_id) *"
+            + " FROM rda.bulk_fiss_claims ORDER BY claim_id, sequence_number DESC",
+        sql.get(1));
+    assertEquals(
+        "DELETE FROM rda.bulk_latest_fiss_claims l USING rda.fiss_claims t"
+            + " WHERE t.claim_id = l.claim_id AND t.sequence_number > l.sequence_number",
+        sql.get(2));
+    final String childDelete =
+        "DELETE FROM rda.fiss_proc_codes c USING rda.bulk_latest_fiss_claims l"
+            + " WHERE c.claim_id = l.claim_id";
+    assertTrue(sql.contains(childDelete));
+    final String childInsert =
+        "INSERT INTO rda.fiss_proc_codes (claim_id, rda_position, proc_code, proc_flag, proc_date)"
+            + " SELECT c.claim_id, c.rda_position, c.proc_code, c.proc_flag, c.proc_date"
+            + " FROM rda.bulk_fiss_proc_codes c JOIN rda.bulk_latest_fiss_claims l"
+            + " ON c.claim_id = l.claim_id AND c.bulk_sequence_number = l.sequence_number";
+    assertTrue(sql.contains(childInsert));
+    final int claimDelete =
+        sql.indexOf(
+            "DELETE FROM rda.fiss_claims t USING rda.bulk_latest_fiss_claims l"
+                + " WHERE t.claim_id = l.claim_id");
+    assertTrue(claimDelete > sql.indexOf(childDelete));
+    assertTrue(claimDelete < sql.indexOf(childInsert));
+    assertTrue(sql.get(sql.size() - 1).endsWith("ON CONFLICT DO NOTHING"));
+  }
+
+  /**
+   * Creates a loader using our mocks.
+   *
+   * @param merge value for {@link RdaBulkLoader.Config#merge}
+   * @return the loader
+   */
+  private RdaBulkLoader<FissClaimChange, RdaFissClaim> createLoader(boolean merge) {
+    return new RdaBulkLoader<>(
+        dataSource,
+        sink,
+        change -> RdaClaimMessageMetaData.builder().build(),
+        RdaFissClaim.class,
+        RdaApiProgress.ClaimType.FISS,
+        RdaBulkLoader.Config.builder().merge(merge).apiVersion("0.1").build(),
+        Clock.systemUTC());
+  }
+}
@@ -366,7 +366,7 @@ public class AbstractClaimRdaSinkTest {
         RdaApiProgress.ClaimType claimType,
         boolean autoUpdateLastSeq,
         int errorLimit) {
-      super(appState, claimType, autoUpdateLastSeq, errorLimit);
+      super(appState, claimType, autoUpdateLastSeq, false, false, errorLimit);
     }
 
     /** {@inheritDoc} */
@@ -392,7 +392,7 @@ public class AbstractClaimRdaSinkTest {
 
     /** {@inheritDoc} */
     @Override
-    RdaClaimMessageMetaData createMetaData(RdaChange<String> change) {
+    public RdaClaimMessageMetaData createMetaData(RdaChange<String> change) {
       return null;
     }
 
@@ -402,6 +402,30 @@ public class AbstractClaimRdaSinkTest {
       return 1;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    String getStoredClaimsQuery() {
+      return "";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    String getLockStoredClaimsStatement() {
+      return "";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    String getUpdateSequenceNumberStatement() {
+      return "";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    String getContentDigest(String s) {
+      return null;
+    }
+
     /** {@inheritDoc} */
     @Override
     MessageError createMessageError(
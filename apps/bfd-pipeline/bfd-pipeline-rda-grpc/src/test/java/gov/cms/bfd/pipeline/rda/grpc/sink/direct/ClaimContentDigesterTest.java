@@ -0,0 +1,90 @@
+package gov.cms.bfd.pipeline.rda.grpc.sink.direct;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import gov.cms.bfd.model.rda.Mbi;
+import gov.cms.bfd.model.rda.RdaFissClaim;
+import gov.cms.bfd.model.rda.RdaFissProcCode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link ClaimContentDigester}. */
+public class ClaimContentDigesterTest {
+  /** The digester under test. */
+  private final ClaimContentDigester<RdaFissClaim> digester =
+      new ClaimContentDigester<>(RdaFissClaim.class, RdaFissClaim::getMbiRecord);
+
+  /**
+   * Verifies that bookkeeping fields that change with every update, the MBI's database id, and the
+   * order of child records do not affect the digest.
+   */
+  @Test
+  public void digestIgnoresBookkeepingAndChildOrder() {
+    final RdaFissClaim original = createClaim(List.of(1, 2, 3));
+    final String digest = digester.digest(original);
+    assertEquals(44, digest.length());
+
+    final RdaFissClaim update = createClaim(List.of(3, 1, 2));
+    update.setSequenceNumber(99L);
+    update.setLastUpdated(Instant.ofEpochMilli(2_000L));
+    update.setApiSource("other");
+    update.setContentDigest(digest);
+    update.setMbiRecord(new Mbi(12L, "123456789012", "hash"));
+    assertEquals(digest, digester.digest(update));
+  }
+
+  /** Verifies that changes to claim or child content change the digest. */
+  @Test
+  public void digestDetectsContentChanges() {
+    final String digest = digester.digest(createClaim(List.of(1, 2)));
+
+    final RdaFissClaim changedClaim = createClaim(List.of(1, 2));
+    changedClaim.setCurrStatus('A');
+    assertNotEquals(digest, digester.digest(changedClaim));
+
+    final RdaFissClaim changedChild = createClaim(List.of(1, 2));
+    changedChild.getProcCodes().iterator().next().setProcFlag("Z");
+    assertNotEquals(digest, digester.digest(changedChild));
+
+    assertNotEquals(digest, digester.digest(createClaim(List.of(1))));
+
+    final RdaFissClaim changedMbi = createClaim(List.of(1, 2));
+    changedMbi.setMbiRecord(new Mbi("999999999999", "hash"));
+    assertNotEquals(digest, digester.digest(changedMbi));
+  }
+
+  /**
+   * Creates a claim with proc codes at the given positions. The proc codes are added in the order
+   * given so tests can vary the iteration order of the child collection.
+   *
+   * @param positions rda positions of the proc codes
+   * @return the claim
+   */
+  private RdaFissClaim createClaim(List<Integer> positions) {
+    final var procCodes = new LinkedHashSet<RdaFissProcCode>();
+    for (int position : positions) {
+      procCodes.add(
+          RdaFissProcCode.builder()
+              .claimId("claim")
+              .rdaPosition((short) position)
+              .procCode("P" + position)
+              .procDate(LocalDate.of(2022, 1, position))
+              .build());
+    }
+    return RdaFissClaim.builder()
+        .claimId("claim")
+        .dcn("dcn")
+        .intermediaryNb("inter")
+        .sequenceNumber(1L)
+        .currStatus('M')
+        .lastUpdated(Instant.ofEpochMilli(1_000L))
+        .apiSource("api")
+        .mbiRecord(new Mbi("123456789012", "hash"))
+        .procCodes(procCodes)
+        .build();
+  }
+}
@@ -9,8 +9,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,6 +46,7 @@ import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import org.hamcrest.CoreMatchers;
 import org.junit.jupiter.api.BeforeEach;
@@ -120,7 +123,9 @@ public class FissClaimRdaSinkTest {
             "FissClaimRdaSink.writes.elapsed",
             "FissClaimRdaSink.writes.merged",
             "FissClaimRdaSink.writes.persisted",
-            "FissClaimRdaSink.writes.total"),
+            "FissClaimRdaSink.writes.stale",
+            "FissClaimRdaSink.writes.total",
+            "FissClaimRdaSink.writes.unchanged"),
         meters.getMeters().stream()
             .map(meter -> meter.getId().getName())
             .sorted()
@@ -216,6 +221,101 @@ public class FissClaimRdaSinkTest {
     assertTimerCount(1, "database timer count", metrics.getDbUpdateTime());
   }
 
+  /**
+   * Verifies that a sink configured to skip stale changes locks the stored claims, records the meta
+   * data for every change, but does not write a claim when the database already holds a newer
+   * version of it.
+   */
+  @Test
+  public void mergeSkipsStaleChanges() throws Exception {
+    PipelineApplicationState appState =
+        new PipelineApplicationState(meters, appMetrics, dataSource, entityManagerFactory, clock);
+    sink = new FissClaimRdaSink(appState, transformer, false, true, false, 0);
+    final List<RdaChange<RdaFissClaim>> batch =
+        ImmutableList.of(createClaim("1"), createClaim("2"), createClaim("3"));
+
+    // unchecked - This is fine for a mock
+    //noinspection unchecked
+    TypedQuery<Object[]> mockTypedQuery = mock(TypedQuery.class);
+    doReturn(mockTypedQuery).when(mockTypedQuery).setParameter(eq("claimIds"), any());
+    doReturn(List.<Object[]>of(new Object[] {"1id", 0L, null}, new Object[] {"2id", 100L, null}))
+        .when(mockTypedQuery)
+        .getResultList();
+    doReturn(mockTypedQuery)
+        .when(entityManager)
+        .createQuery(sink.getStoredClaimsQuery(), Object[].class);
+    final Query mockLock = mock(Query.class);
+    doReturn(mockLock).when(mockLock).setParameter(eq("claimIds"), any());
+    doReturn(mockLock).when(entityManager).createQuery(sink.getLockStoredClaimsStatement());
+
+    final int count = sink.writeMessages(VERSION, messagesForBatch(batch));
+    assertEquals(3, count);
+
+    verify(mockLock).executeUpdate();
+    for (RdaChange<RdaFissClaim> change : batch) {
+      verify(entityManager).merge(sink.createMetaData(change));
+    }
+    verify(entityManager).merge(batch.get(0).getClaim());
+    verify(entityManager, times(0)).merge(batch.get(1).getClaim());
+    // claims that are not stored yet are inserted so that a concurrent insert fails
+    verify(entityManager).persist(batch.get(2).getClaim());
+
+    final AbstractClaimRdaSink.Metrics metrics = sink.getMetrics();
+    assertMeterReading(1, "stale", metrics.getObjectsStale());
+    assertMeterReading(3, "writes", metrics.getObjectsWritten());
+  }
+
+  /**
+   * Verifies that a sink configured to skip unchanged claims records the meta data for every change
+   * but only updates the sequence number of a claim whose stored content digest matches.
+   */
+  @Test
+  public void mergeSkipsUnchangedClaims() throws Exception {
+    PipelineApplicationState appState =
+        new PipelineApplicationState(meters, appMetrics, dataSource, entityManagerFactory, clock);
+    sink = new FissClaimRdaSink(appState, transformer, false, false, true, 0);
+    final List<RdaChange<RdaFissClaim>> batch =
+        ImmutableList.of(createClaim("1"), createClaim("2"), createClaim("3"));
+    final var digester = new ClaimContentDigester<>(RdaFissClaim.class, RdaFissClaim::getMbiRecord);
+    final String unchangedDigest = digester.digest(batch.get(1).getClaim());
+
+    // unchecked - This is fine for a mock
+    //noinspection unchecked
+    TypedQuery<Object[]> mockTypedQuery = mock(TypedQuery.class);
+    doReturn(mockTypedQuery).when(mockTypedQuery).setParameter(eq("claimIds"), any());
+    doReturn(
+            List.<Object[]>of(
+                new Object[] {"1id", 0L, "not-the-same"},
+                new Object[] {"2id", 0L, unchangedDigest}))
+        .when(mockTypedQuery)
+        .getResultList();
+    doReturn(mockTypedQuery)
+        .when(entityManager)
+        .createQuery(sink.getStoredClaimsQuery(), Object[].class);
+    final Query mockUpdate = mock(Query.class);
+    doReturn(mockUpdate).when(mockUpdate).setParameter(anyString(), any());
+    doReturn(mockUpdate).when(entityManager).createQuery(sink.getUpdateSequenceNumberStatement());
+
+    final int count = sink.writeMessages(VERSION, messagesForBatch(batch));
+    assertEquals(3, count);
+
+    for (RdaChange<RdaFissClaim> change : batch) {
+      verify(entityManager).merge(sink.createMetaData(change));
+    }
+    assertEquals(unchangedDigest, batch.get(1).getClaim().getContentDigest());
+    verify(entityManager).merge(batch.get(0).getClaim());
+    verify(entityManager, times(0)).merge(batch.get(1).getClaim());
+    verify(entityManager).merge(batch.get(2).getClaim());
+    verify(mockUpdate).setParameter("claimId", "2id");
+    verify(mockUpdate).setParameter("sequenceNumber", batch.get(1).getSequenceNumber());
+    verify(mockUpdate).executeUpdate();
+
+    final AbstractClaimRdaSink.Metrics metrics = sink.getMetrics();
+    assertMeterReading(1, "unchanged", metrics.getObjectsUnchanged());
+    assertMeterReading(0, "stale", metrics.getObjectsStale());
+    assertMeterReading(3, "writes", metrics.getObjectsWritten());
+  }
+
   /** Tests the outcome of when a batch merge throws an exception. */
   @Test
   public void mergeFatalError() {
@@ -1,6 +1,7 @@
 package gov.cms.bfd.pipeline.rda.grpc.sink.direct;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -16,6 +17,7 @@ import gov.cms.bfd.pipeline.rda.grpc.ProcessingException;
 import gov.cms.bfd.pipeline.rda.grpc.RdaPipelineTestUtils;
 import gov.cms.bfd.pipeline.rda.grpc.source.McsClaimTransformer;
 import gov.cms.bfd.pipeline.sharedutils.IdHasher;
+import gov.cms.bfd.pipeline.sharedutils.TransactionManager;
 import gov.cms.model.dsl.codegen.library.DataTransformer;
 import gov.cms.mpsm.rda.v1.McsClaimChange;
 import gov.cms.mpsm.rda.v1.mcs.McsClaim;
@@ -26,8 +28,17 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 
 /** Tests the {@link McsClaimRdaSink} with integrated dependencies. */
@@ -140,6 +151,224 @@ public class McsClaimRdaSinkIT {
         });
   }
 
+  /**
+   * Checks that a sink configured to skip unchanged claims only advances the sequence number of a
+   * claim when a change does not alter its content but still writes the meta data for every change.
+   *
+   * @throws Exception If any unexpected exceptions are thrown.
+   */
+  @Test
+  public void unchangedMcsClaimOnlyAdvancesSequenceNumber() throws Exception {
+    RdaPipelineTestUtils.runTestWithTemporaryDb(
+        McsClaimRdaSinkIT.class,
+        Clock.systemUTC(),
+        (appState, transactionManager) -> {
+          final McsClaim claimMessage =
+              McsClaim.newBuilder()
+                  .setIdrClmHdIcn("3")
+                  .setIdrContrId("c1")
+                  .setIdrClaimMbi("12345678901")
+                  .setIdrHic("hc")
+                  .setIdrClaimTypeUnrecognized("c")
+                  .setIdrStatusCodeEnum(McsStatusCode.STATUS_CODE_ACTIVE_A)
+                  .addMcsDetails(McsDetail.newBuilder().setIdrDtlStatusUnrecognized("P").build())
+                  .build();
+          final McsClaimTransformer transformer =
+              new McsClaimTransformer(
+                  appState.getClock(),
+                  MbiCache.computedCache(new IdHasher.Config(1, "notarealpepper")));
+          final McsClaimRdaSink sink =
+              new McsClaimRdaSink(appState, transformer, true, false, true, 0);
+
+          sink.writeMessage(
+              "version", McsClaimChange.newBuilder().setSeq(7).setClaim(claimMessage).build());
+          final String originalDigest = readClaim(transactionManager).getContentDigest();
+          assertNotNull(originalDigest);
+
+          sink.writeMessage(
+              "version", McsClaimChange.newBuilder().setSeq(8).setClaim(claimMessage).build());
+          RdaMcsClaim resultClaim = readClaim(transactionManager);
+          assertEquals(Long.valueOf(8), resultClaim.getSequenceNumber());
+          assertEquals(originalDigest, resultClaim.getContentDigest());
+          assertEquals(1, sink.getMetrics().getObjectsUnchanged().count());
+
+          final McsClaim changedMessage = claimMessage.toBuilder().setIdrContrId("c2").build();
+          sink.writeMessage(
+              "version", McsClaimChange.newBuilder().setSeq(9).setClaim(changedMessage).build());
+          resultClaim = readClaim(transactionManager);
+          assertEquals(Long.valueOf(9), resultClaim.getSequenceNumber());
+          assertEquals("c2", resultClaim.getIdrContrId());
+          assertNotEquals(originalDigest, resultClaim.getContentDigest());
+          assertEquals(1, sink.getMetrics().getObjectsUnchanged().count());
+          assertEquals(Optional.of(9L), sink.readMaxExistingSequenceNumber());
+
+          final long metaDataCount =
+              transactionManager.executeFunction(
+                  entityManager ->
+                      entityManager
+                          .createQuery("select count(m) from RdaClaimMessageMetaData m", Long.class)
+                          .getSingleResult());
+          assertEquals(3L, metaDataCount);
+        });
+  }
+
+  /**
+   * Checks that two sinks configured to skip stale changes, writing interleaved versions of the
+   * same claim at the same time (as backfill shards do), always leave the newest version in the
+   * database. One sink writes the odd versions in ascending order and the other writes the even
+   * versions in descending order, so that both their first inserts and their later updates race
+   * with each other. The database uses row locks as PostgreSQL does (see {@link #useRowLocking}).
+   *
+   * @throws Exception If any unexpected exceptions are thrown.
+   */
+  @Test
+  public void concurrentSinksKeepNewestMcsClaim() throws Exception {
+    final int versionCount = 40;
+    RdaPipelineTestUtils.runTestWithTemporaryDb(
+        McsClaimRdaSinkIT.class,
+        Clock.systemUTC(),
+        (appState, transactionManager) -> {
+          useRowLocking(transactionManager);
+          final McsClaim claimMessage =
+              McsClaim.newBuilder()
+                  .setIdrClmHdIcn("3")
+                  .setIdrClaimMbi("12345678901")
+                  .setIdrHic("hc")
+                  .setIdrClaimTypeUnrecognized("c")
+                  .setIdrStatusCodeEnum(McsStatusCode.STATUS_CODE_ACTIVE_A)
+                  .build();
+          final McsClaimTransformer transformer =
+              new McsClaimTransformer(
+                  appState.getClock(),
+                  MbiCache.computedCache(new IdHasher.Config(1, "notarealpepper")));
+          final List<Long> oddVersions = new ArrayList<>();
+          final List<Long> evenVersions = new ArrayList<>();
+          for (long seq = 1; seq <= versionCount; ++seq) {
+            (seq % 2 == 1 ? oddVersions : evenVersions).add(seq);
+          }
+          Collections.reverse(evenVersions);
+
+          final CountDownLatch start = new CountDownLatch(1);
+          final ExecutorService executor = Executors.newFixedThreadPool(2);
+          try {
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (List<Long> versions : List.of(oddVersions, evenVersions)) {
+              results.add(
+                  executor.submit(
+                      () -> {
+                        try (McsClaimRdaSink sink =
+                            new McsClaimRdaSink(appState, transformer, false, true, false, 0)) {
+                          start.await();
+                          int written = 0;
+                          for (long seq : versions) {
+                            final McsClaim version =
+                                claimMessage.toBuilder().setIdrContrId("c" + seq).build();
+                            written +=
+                                sink.writeMessage(
+                                    "version",
+                                    McsClaimChange.newBuilder()
+                                        .setSeq(seq)
+                                        .setClaim(version)
+                                        .build());
+                          }
+                          return written;
+                        }
+                      }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+              assertEquals(versionCount / 2, result.get(1, TimeUnit.MINUTES));
+            }
+          } finally {
+            executor.shutdownNow();
+          }
+
+          final RdaMcsClaim resultClaim = readClaim(transactionManager);
+          assertEquals(Long.valueOf(versionCount), resultClaim.getSequenceNumber());
+          assertEquals("c" + versionCount, resultClaim.getIdrContrId());
+
+          final long metaDataCount =
+              transactionManager.executeFunction(
+                  entityManager ->
+                      entityManager
+                          .createQuery("select count(m) from RdaClaimMessageMetaData m", Long.class)
+                          .getSingleResult());
+          assertEquals(versionCount, metaDataCount);
+        });
+  }
+
+  /**
+   * Checks that a sink configured to skip stale changes waits for a concurrent transaction that is
+   * writing a newer version of the claim and then skips its own older version, rather than
+   * comparing against the version it saw before the other transaction committed. The database uses
+   * row locks as PostgreSQL does (see {@link #useRowLocking}), so without the sink's own locking
+   * its read would not wait for the other transaction.
+   *
+   * @throws Exception If any unexpected exceptions are thrown.
+   */
+  @Test
+  public void staleMcsClaimWaitsForConcurrentNewerVersion() throws Exception {
+    RdaPipelineTestUtils.runTestWithTemporaryDb(
+        McsClaimRdaSinkIT.class,
+        Clock.systemUTC(),
+        (appState, transactionManager) -> {
+          useRowLocking(transactionManager);
+          final McsClaim claimMessage =
+              McsClaim.newBuilder()
+                  .setIdrClmHdIcn("3")
+                  .setIdrContrId("c5")
+                  .setIdrClaimMbi("12345678901")
+                  .setIdrHic("hc")
+                  .setIdrClaimTypeUnrecognized("c")
+                  .setIdrStatusCodeEnum(McsStatusCode.STATUS_CODE_ACTIVE_A)
+                  .build();
+          final McsClaimTransformer transformer =
+              new McsClaimTransformer(
+                  appState.getClock(),
+                  MbiCache.computedCache(new IdHasher.Config(1, "notarealpepper")));
+          final McsClaimRdaSink sink =
+              new McsClaimRdaSink(appState, transformer, false, true, false, 0);
+          sink.writeMessage(
+              "version", McsClaimChange.newBuilder().setSeq(5).setClaim(claimMessage).build());
+
+          // another shard is part way through writing a newer version of the claim
+          final EntityManager newerWriter =
+              appState.getEntityManagerFactory().createEntityManager();
+          final ExecutorService executor = Executors.newSingleThreadExecutor();
+          try {
+            newerWriter.getTransaction().begin();
+            newerWriter
+                .createQuery(
+                    "update RdaMcsClaim c set c.sequenceNumber = 10, c.idrContrId = 'c10'"
+                        + " where c.idrClmHdIcn = '3'")
+                .executeUpdate();
+
+            final Future<Integer> staleWrite =
+                executor.submit(
+                    () ->
+                        sink.writeMessage(
+                            "version",
+                            McsClaimChange.newBuilder()
+                                .setSeq(7)
+                                .setClaim(claimMessage.toBuilder().setIdrContrId("c7").build())
+                                .build()));
+            assertThrows(TimeoutException.class, () -> staleWrite.get(1, TimeUnit.SECONDS));
+
+            newerWriter.getTransaction().commit();
+            assertEquals(1, staleWrite.get(1, TimeUnit.MINUTES));
+          } finally {
+            executor.shutdownNow();
+            newerWriter.close();
+            sink.close();
+          }
+
+          final RdaMcsClaim resultClaim = readClaim(transactionManager);
+          assertEquals(Long.valueOf(10), resultClaim.getSequenceNumber());
+          assertEquals("c10", resultClaim.getIdrContrId());
+          assertEquals(1, sink.getMetrics().getObjectsStale().count());
+        });
+  }
+
   /**
    * Checks if writing invalid MCS claim messages results in a {@link
    * DataTransformer.TransformationException} being thrown and if {@link MessageError} entities were
@@ -249,4 +478,32 @@ public class McsClaimRdaSinkIT {
           }
         });
   }
+
+  /**
+   * Switches the database to MVCC so that, as in PostgreSQL, writers lock individual rows and plain
+   * reads never wait for them.
+   *
+   * @param transactionManager used to update the database
+   */
+  private static void useRowLocking(TransactionManager transactionManager) {
+    transactionManager.executeProcedure(
+        entityManager ->
+            entityManager
+                .createNativeQuery("set database transaction control mvcc")
+                .executeUpdate());
+  }
+
+  /**
+   * Reads the single claim stored in the database.
+   *
+   * @param transactionManager used to query the database
+   * @return the claim
+   */
+  private static RdaMcsClaim readClaim(TransactionManager transactionManager) {
+    return transactionManager.executeFunction(
+        entityManager ->
+            entityManager
+                .createQuery("select c from RdaMcsClaim c", RdaMcsClaim.class)
+                .getSingleResult());
+  }
 }
@@ -123,7 +123,9 @@ public class McsClaimRdaSinkTest {
             "McsClaimRdaSink.writes.elapsed",
             "McsClaimRdaSink.writes.merged",
             "McsClaimRdaSink.writes.persisted",
-            "McsClaimRdaSink.writes.total"),
+            "McsClaimRdaSink.writes.stale",
+            "McsClaimRdaSink.writes.total",
+            "McsClaimRdaSink.writes.unchanged"),
         meters.getMeters().stream()
             .map(meter -> meter.getId().getName())
             .sorted()
@@ -0,0 +1,189 @@
+package gov.cms.bfd.pipeline.rda.grpc.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import gov.cms.bfd.pipeline.rda.grpc.RdaSink;
+import gov.cms.mpsm.rda.v1.ClaimSequenceNumberRange;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for the {@link BackfillGrpcRdaSource} class. */
+@ExtendWith(MockitoExtension.class)
+public class BackfillGrpcRdaSourceTest {
+  /** String used as a RDA API "version" in the unit tests. */
+  private static final String VERSION = "0.0.1";
+
+  /** A mock stream caller used to simulate data returned from the RDA API server. */
+  @Mock private GrpcStreamCaller<Integer> caller;
+  /** A mock channel used to simulate a connection to the RDA API server. */
+  @Mock private ManagedChannel channel;
+  /** A mock sink used to read and update the progress table. */
+  @Mock private RdaSink<Integer, Integer> progressSink;
+  /** A mock sink used by every shard to write claims to a database. */
+  @Mock private RdaSink<Integer, Integer> shardSink;
+  /** A mock {@link RdaVersion} to use for testing. */
+  @Mock private RdaVersion rdaVersion;
+
+  /**
+   * Configures the mocks so that every {@link Integer} "claim" is valid and is its own sequence
+   * number.
+   *
+   * @throws Exception required because methods being simulated have checked exceptions
+   */
+  @BeforeEach
+  public void setUp() throws Exception {
+    lenient().doReturn(true).when(rdaVersion).allows(VERSION);
+    lenient().doReturn(VERSION).when(caller).callVersionService(channel, CallOptions.DEFAULT);
+    lenient()
+        .doAnswer(i -> ((Integer) i.getArgument(0)).longValue())
+        .when(shardSink)
+        .getSequenceNumberForObject(any());
+    lenient().doReturn(true).when(shardSink).isValidMessage(any());
+    lenient()
+        .doAnswer(i -> i.getArgument(0).toString())
+        .when(shardSink)
+        .getClaimIdForMessage(any());
+    lenient()
+        .doAnswer(i -> ((List<?>) i.getArgument(1)).size())
+        .when(shardSink)
+        .writeMessages(anyString(), anyList());
+  }
+
+  /**
+   * Verifies that the backfill starts from the stored progress unless that is below the lower end
+   * of the range available from the RDA API.
+   */
+  @Test
+  public void startingSequenceNumberRespectsLowerBound() {
+    final var range = ClaimSequenceNumberRange.newBuilder().setLower(1001).setUpper(1400).build();
+    assertEquals(1000, BackfillGrpcRdaSource.computeStartingSequenceNumber(0, range));
+    assertEquals(1000, BackfillGrpcRdaSource.computeStartingSequenceNumber(1000, range));
+    assertEquals(1200, BackfillGrpcRdaSource.computeStartingSequenceNumber(1200, range));
+  }
+
+  /**
+   * Verifies that when nothing has been stored yet and the RDA API no longer has the earliest
+   * sequence numbers the shards cover only the available range.
+   *
+   * @throws Exception required because methods being simulated have checked exceptions
+   */
+  @Test
+  public void shardsStartAtLowerBound() throws Exception {
+    doReturn(Optional.empty()).when(progressSink).readMaxExistingSequenceNumber();
+    doReturn(ClaimSequenceNumberRange.newBuilder().setLower(1001).setUpper(1400).build())
+        .when(caller)
+        .callSequenceNumberRangeService(channel, CallOptions.DEFAULT);
+    for (int first = 1001; first <= 1301; first += 100) {
+      final var stream = createResponseStream(IntStream.of(first, first + 99));
+      doReturn(stream).when(caller).callService(channel, CallOptions.DEFAULT, first - 1L);
+    }
+
+    final int processed = createSource(4).retrieveAndProcessObjects(100, progressSink);
+
+    assertEquals(8, processed);
+    verify(caller, never()).callService(channel, CallOptions.DEFAULT, 0L);
+    verify(progressSink).updateLastSequenceNumber(1400L);
+  }
+
+  /**
+   * Verifies that a shard whose stream closes before reaching the end of the shard only records the
+   * changes actually received, so that the progress table never skips over the missing ones.
+   *
+   * @throws Exception required because methods being simulated have checked exceptions
+   */
+  @Test
+  public void earlyStreamEndLeavesShardIncomplete() throws Exception {
+    doReturn(Optional.of(0L)).when(progressSink).readMaxExistingSequenceNumber();
+    doReturn(ClaimSequenceNumberRange.newBuilder().setLower(1).setUpper(20).build())
+        .when(caller)
+        .callSequenceNumberRangeService(channel, CallOptions.DEFAULT);
+    final var firstShardStream = createResponseStream(IntStream.rangeClosed(1, 4));
+    doReturn(firstShardStream).when(caller).callService(channel, CallOptions.DEFAULT, 0L);
+    final var secondShardStream = createResponseStream(IntStream.rangeClosed(11, 20));
+    doReturn(secondShardStream).when(caller).callService(channel, CallOptions.DEFAULT, 10L);
+
+    final int processed = createSource(2).retrieveAndProcessObjects(100, progressSink);
+
+    assertEquals(14, processed);
+    verify(progressSink).updateLastSequenceNumber(4L);
+    verify(progressSink, never()).updateLastSequenceNumber(longThat(seq -> seq > 4L));
+  }
+
+  /**
+   * Verifies that a shard is complete when its stream moves past the end of the shard even if the
+   * last sequence number in the shard was never sent.
+   *
+   * @throws Exception required because methods being simulated have checked exceptions
+   */
+  @Test
+  public void shardCompleteWhenStreamPassesEnd() throws Exception {
+    doReturn(Optional.of(0L)).when(progressSink).readMaxExistingSequenceNumber();
+    doReturn(ClaimSequenceNumberRange.newBuilder().setLower(1).setUpper(20).build())
+        .when(caller)
+        .callSequenceNumberRangeService(channel, CallOptions.DEFAULT);
+    final var firstShardStream = createResponseStream(IntStream.of(1, 2, 12));
+    doReturn(firstShardStream).when(caller).callService(channel, CallOptions.DEFAULT, 0L);
+    final var secondShardStream = createResponseStream(IntStream.rangeClosed(11, 20));
+    doReturn(secondShardStream).when(caller).callService(channel, CallOptions.DEFAULT, 10L);
+
+    final int processed = createSource(2).retrieveAndProcessObjects(100, progressSink);
+
+    assertEquals(12, processed);
+    verify(progressSink).updateLastSequenceNumber(20L);
+  }
+
+  /**
+   * Creates the source being tested.
+   *
+   * @param maxShards maximum number of shards to process in parallel
+   * @return the source
+   */
+  private BackfillGrpcRdaSource<Integer, Integer> createSource(int maxShards) {
+    return new BackfillGrpcRdaSource<>(
+        channel,
+        caller,
+        () -> CallOptions.DEFAULT,
+        new SimpleMeterRegistry(),
+        "ints",
+        rdaVersion,
+        maxShards,
+        1,
+        () -> shardSink);
+  }
+
+  /**
+   * Creates a mock response stream that returns the given values and then ends.
+   *
+   * @param values the values to return
+   * @return the stream
+   * @throws Exception required because methods being simulated have checked exceptions
+   */
+  @SuppressWarnings("unchecked")
+  private GrpcResponseStream<Integer> createResponseStream(IntStream values) throws Exception {
+    final Iterator<Integer> iterator = values.boxed().collect(Collectors.toList()).iterator();
+    final GrpcResponseStream<Integer> stream = mock(GrpcResponseStream.class);
+    lenient().doAnswer(i -> iterator.hasNext()).when(stream).hasNext();
+    lenient().doAnswer(i -> iterator.next()).when(stream).next();
+    return stream;
+  }
+}
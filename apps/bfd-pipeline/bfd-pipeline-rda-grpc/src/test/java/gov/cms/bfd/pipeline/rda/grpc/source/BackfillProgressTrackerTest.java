@@ -0,0 +1,80 @@
+package gov.cms.bfd.pipeline.rda.grpc.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link BackfillProgressTracker}. */
+public class BackfillProgressTrackerTest {
+  /** Verifies that no shards are created when there is nothing left to process. */
+  @Test
+  public void noShardsWhenRangeIsEmpty() {
+    final var tracker = new BackfillProgressTracker(100, 100, 4, 1);
+    assertEquals(List.of(), tracker.getShards());
+    assertEquals(100, tracker.getSafeResumeSequenceNumber());
+  }
+
+  /** Verifies that the range is divided into contiguous shards covering every sequence number. */
+  @Test
+  public void rangeDividedIntoContiguousShards() {
+    final var tracker = new BackfillProgressTracker(0, 10, 3, 1);
+    assertEquals(
+        List.of(
+            new BackfillProgressTracker.Shard(0, 1, 4),
+            new BackfillProgressTracker.Shard(1, 5, 8),
+            new BackfillProgressTracker.Shard(2, 9, 10)),
+        tracker.getShards());
+  }
+
+  /** Verifies that shards are never smaller than the minimum shard size. */
+  @Test
+  public void shardCountLimitedByMinimumShardSize() {
+    final var tracker = new BackfillProgressTracker(1000, 1250, 10, 100);
+    assertEquals(
+        List.of(
+            new BackfillProgressTracker.Shard(0, 1001, 1125),
+            new BackfillProgressTracker.Shard(1, 1126, 1250)),
+        tracker.getShards());
+
+    final var small = new BackfillProgressTracker(1000, 1050, 10, 100);
+    assertEquals(List.of(new BackfillProgressTracker.Shard(0, 1001, 1050)), small.getShards());
+  }
+
+  /**
+   * Verifies that the safe resume point only advances past a shard once that shard has been
+   * completed, regardless of the order in which shards report progress.
+   */
+  @Test
+  public void safeResumePointRequiresEarlierShardsComplete() {
+    final var tracker = new BackfillProgressTracker(0, 30, 3, 1);
+    final var shards = tracker.getShards();
+
+    // later shards finishing first does not advance anything
+    assertEquals(OptionalLong.empty(), tracker.recordProgress(shards.get(2), 30));
+    assertEquals(OptionalLong.empty(), tracker.recordProgress(shards.get(1), 15));
+    assertEquals(0, tracker.getSafeResumeSequenceNumber());
+
+    // partial progress in the first shard is safe
+    assertEquals(OptionalLong.of(5), tracker.recordProgress(shards.get(0), 5));
+
+    // completing the first shard moves into the partially complete second one
+    assertEquals(OptionalLong.of(15), tracker.recordProgress(shards.get(0), 10));
+
+    // older progress is ignored
+    assertEquals(OptionalLong.empty(), tracker.recordProgress(shards.get(1), 12));
+
+    // completing the second shard jumps to the end since the third is already complete
+    assertEquals(OptionalLong.of(30), tracker.recordProgress(shards.get(1), 1_000));
+    assertEquals(30, tracker.getSafeResumeSequenceNumber());
+  }
+
+  /** Verifies that invalid arguments are rejected. */
+  @Test
+  public void invalidArgumentsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new BackfillProgressTracker(0, 10, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new BackfillProgressTracker(0, 10, 1, 0));
+  }
+}
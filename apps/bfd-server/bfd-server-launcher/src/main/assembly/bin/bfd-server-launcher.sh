@@ -6,4 +6,17 @@ classpath="${bfdServerLauncherJar}:${scriptDirectory}/lib/*"
 mainClass="gov.cms.bfd.server.launcher.DataServerLauncherApp"
 [ -n "${JAVA_HOME}" ] && javaExecutable="${JAVA_HOME}/bin/java" || javaExecutable=java
 
-exec "${javaExecutable}" -cp "${classpath}" "$@" "${mainClass}"
+# If BFD_CDS_ARCHIVE is set to the path of an AppCDS archive, start faster by mapping the classes
+# in it rather than loading and verifying them again. If the archive doesn't exist yet, it is
+# created from the classes that this run loaded once the server shuts down normally, so it should
+# be generated by a run that was warmed up (see bfdServer.warmup.enabled) before being stopped.
+cdsArgs=()
+if [ -n "${BFD_CDS_ARCHIVE}" ]; then
+  if [ -f "${BFD_CDS_ARCHIVE}" ]; then
+    cdsArgs=("-XX:SharedArchiveFile=${BFD_CDS_ARCHIVE}" "-Xshare:auto")
+  else
+    cdsArgs=("-XX:ArchiveClassesAtExit=${BFD_CDS_ARCHIVE}")
+  fi
+fi
+
+exec "${javaExecutable}" -cp "${classpath}" "${cdsArgs[@]}" "$@" "${mainClass}"
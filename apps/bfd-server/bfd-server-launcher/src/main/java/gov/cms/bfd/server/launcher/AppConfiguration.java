@@ -39,6 +39,41 @@ public final class AppConfiguration {
    */
   public static final String ENV_VAR_KEY_WAR = "BFD_WAR";
 
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #isHttp2Enabled()} value.
+   */
+  public static final String ENV_VAR_KEY_HTTP2_ENABLED = "BFD_HTTP2_ENABLED";
+
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #isCompressionEnabled()} value.
+   */
+  public static final String ENV_VAR_KEY_COMPRESSION_ENABLED = "BFD_COMPRESSION_ENABLED";
+
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #getCompressionMinBytes()} value.
+   */
+  public static final String ENV_VAR_KEY_COMPRESSION_MIN_BYTES = "BFD_COMPRESSION_MIN_BYTES";
+
+  /**
+   * The name of the environment variable that should be used to provide the {@link
+   * #getCompressionLevel()} value.
+   */
+  public static final String ENV_VAR_KEY_COMPRESSION_LEVEL = "BFD_COMPRESSION_LEVEL";
+
+  /**
+   * The default {@link #getCompressionMinBytes()} value. Responses smaller than this fit in a
+   * couple of packets anyway, so compressing them costs more CPU than it saves on the wire.
+   */
+  static final int DEFAULT_COMPRESSION_MIN_BYTES = 2048;
+
+  /**
+   * The default {@link #getCompressionLevel()} value, which is the same as the default zlib level.
+   */
+  static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
   /** The host/address that the server will bind to and listen for HTTPS connections on. * */
   private final String host;
   /** The port that the server will listen for HTTPS connections on. * */
@@ -55,6 +90,14 @@ public final class AppConfiguration {
   private final String truststore;
   /** The {@link Path} of the WAR file to run. * */
   private final String war;
+  /** Whether HTTP/2 is offered alongside HTTP/1.1 during the TLS handshake. */
+  private final boolean http2Enabled;
+  /** Whether responses are gzip compressed for clients that accept it. */
+  private final boolean compressionEnabled;
+  /** The minimum size, in bytes, of responses that are compressed. */
+  private final int compressionMinBytes;
+  /** The deflate compression level, from 1 (fastest) to 9 (smallest). */
+  private final int compressionLevel;
 
   /**
    * Constructs a new {@link AppConfiguration} instance.
@@ -64,14 +107,30 @@ public final class AppConfiguration {
    * @param keystore the value to use for {@link #getKeystore()}
    * @param truststore the value to use for {@link #getTruststore()}
    * @param war the value to use for {@link #getWar()}
+   * @param http2Enabled the value to use for {@link #isHttp2Enabled()}
+   * @param compressionEnabled the value to use for {@link #isCompressionEnabled()}
+   * @param compressionMinBytes the value to use for {@link #getCompressionMinBytes()}
+   * @param compressionLevel the value to use for {@link #getCompressionLevel()}
    */
   public AppConfiguration(
-      Optional<String> host, int port, Path keystore, Path truststore, Path war) {
+      Optional<String> host,
+      int port,
+      Path keystore,
+      Path truststore,
+      Path war,
+      boolean http2Enabled,
+      boolean compressionEnabled,
+      int compressionMinBytes,
+      int compressionLevel) {
     this.host = host.orElse(null);
     this.port = port;
     this.keystore = keystore.toString();
     this.truststore = truststore.toString();
     this.war = war.toString();
+    this.http2Enabled = http2Enabled;
+    this.compressionEnabled = compressionEnabled;
+    this.compressionMinBytes = compressionMinBytes;
+    this.compressionLevel = compressionLevel;
   }
 
   /**
@@ -123,6 +182,50 @@ public final class AppConfiguration {
     return Paths.get(war);
   }
 
+  /**
+   * Gets the {@link #http2Enabled}.
+   *
+   * <p>When enabled, the server offers {@code h2} (HTTP/2 over TLS) via ALPN, and clients that
+   * don't support it keep using HTTP/1.1 on the same port. Either way, clients must present a
+   * trusted certificate.
+   *
+   * @return whether HTTP/2 is offered alongside HTTP/1.1
+   */
+  public boolean isHttp2Enabled() {
+    return http2Enabled;
+  }
+
+  /**
+   * Gets the {@link #compressionEnabled}.
+   *
+   * @return whether responses are gzip compressed for clients that send {@code Accept-Encoding:
+   *     gzip}
+   */
+  public boolean isCompressionEnabled() {
+    return compressionEnabled;
+  }
+
+  /**
+   * Gets the {@link #compressionMinBytes}.
+   *
+   * @return the minimum size, in bytes, of responses that are compressed
+   */
+  public int getCompressionMinBytes() {
+    return compressionMinBytes;
+  }
+
+  /**
+   * Gets the {@link #compressionLevel}.
+   *
+   * <p>FHIR JSON is very repetitive, so the lower levels already shrink it several times over while
+   * using much less CPU than the higher ones, which only shave off a few more percent.
+   *
+   * @return the deflate compression level, from 1 (fastest) to 9 (smallest)
+   */
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
   @Override
   public String toString() {
     return "AppConfiguration [port="
@@ -133,6 +236,14 @@ public final class AppConfiguration {
         + truststore
         + ", war="
         + war
+        + ", http2Enabled="
+        + http2Enabled
+        + ", compressionEnabled="
+        + compressionEnabled
+        + ", compressionMinBytes="
+        + compressionMinBytes
+        + ", compressionLevel="
+        + compressionLevel
         + "]";
   }
 
@@ -151,6 +262,26 @@ public final class AppConfiguration {
     Path war = config.readableFile(ENV_VAR_KEY_WAR).toPath();
     Path keystore = config.readableFile(ENV_VAR_KEY_KEYSTORE).toPath();
     Path truststore = config.readableFile(ENV_VAR_KEY_TRUSTSTORE).toPath();
-    return new AppConfiguration(host, port, keystore, truststore, war);
+    boolean http2Enabled = config.booleanValue(ENV_VAR_KEY_HTTP2_ENABLED, false);
+    boolean compressionEnabled = config.booleanValue(ENV_VAR_KEY_COMPRESSION_ENABLED, false);
+    int compressionMinBytes =
+        config
+            .positiveIntOptionZeroOK(ENV_VAR_KEY_COMPRESSION_MIN_BYTES)
+            .orElse(DEFAULT_COMPRESSION_MIN_BYTES);
+    int compressionLevel =
+        config.intValue(ENV_VAR_KEY_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_LEVEL);
+    if (compressionLevel < 1 || compressionLevel > 9) {
+      throw new ConfigException(ENV_VAR_KEY_COMPRESSION_LEVEL, "not between 1 and 9");
+    }
+    return new AppConfiguration(
+        host,
+        port,
+        keystore,
+        truststore,
+        war,
+        http2Enabled,
+        compressionEnabled,
+        compressionMinBytes,
+        compressionLevel);
   }
 }
@@ -9,25 +9,44 @@ import gov.cms.bfd.server.sharedutils.BfdMDC;
 import gov.cms.bfd.sharedutils.config.ConfigException;
 import gov.cms.bfd.sharedutils.config.ConfigLoader;
 import gov.cms.bfd.sharedutils.config.LayeredConfiguration;
+import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
 import org.eclipse.jetty.annotations.AnnotationConfiguration;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.security.ConstraintMapping;
 import org.eclipse.jetty.security.ConstraintSecurityHandler;
 import org.eclipse.jetty.security.authentication.ClientCertAuthenticator;
+import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.CustomRequestLog;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.Slf4jRequestLogWriter;
 import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.security.Constraint;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
@@ -181,9 +200,7 @@ public final class DataServerLauncherApp {
     // Apply the config.
     ServerConnector serverConnector =
         new ServerConnector(
-            server,
-            new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.toString()),
-            new HttpConnectionFactory(httpsConfig));
+            server, createConnectionFactories(appConfig, sslContextFactory, httpsConfig));
     serverConnector.setHost(appConfig.getHost().orElse("0.0.0.0"));
     serverConnector.setPort(appConfig.getPort());
     server.setConnectors(new Connector[] {serverConnector});
@@ -246,7 +263,7 @@ public final class DataServerLauncherApp {
     webapp.setSecurityHandler(securityHandler);
 
     // Wire up the WebAppContext to Jetty.
-    HandlerCollection handlers = new HandlerCollection(webapp);
+    HandlerCollection handlers = new HandlerCollection(wrapWithCompression(appConfig, webapp));
     server.setHandler(handlers);
 
     // Configure shutdown handlers before starting everything up.
@@ -288,6 +305,127 @@ public final class DataServerLauncherApp {
      */
   }
 
+  /**
+   * Creates the {@link ConnectionFactory}s for the server's single TLS port.
+   *
+   * <p>When HTTP/2 is enabled, the TLS handshake uses ALPN to pick {@code h2} for clients that
+   * offer it, and falls back to HTTP/1.1 for everyone else. Both protocols share the same {@link
+   * HttpConfiguration}, so the client certificate is exposed to the webapp either way. HTTP/2 also
+   * forbids the CBC cipher suites that we still allow for older HTTP/1.1 clients, so the cipher
+   * suites it accepts are moved to the front of the server's preference order.
+   *
+   * @param appConfig the launcher configuration
+   * @param sslContextFactory the mutual TLS config
+   * @param httpsConfig the HTTPS config
+   * @return the {@link ConnectionFactory}s, in the order that the connector should use them
+   */
+  private static ConnectionFactory[] createConnectionFactories(
+      AppConfiguration appConfig,
+      SslContextFactory.Server sslContextFactory,
+      HttpConfiguration httpsConfig) {
+    HttpConnectionFactory http1 = new HttpConnectionFactory(httpsConfig);
+    if (!appConfig.isHttp2Enabled()) {
+      return new ConnectionFactory[] {
+        new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.toString()), http1
+      };
+    }
+
+    sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+    sslContextFactory.setUseCipherSuitesOrder(true);
+    HTTP2ServerConnectionFactory http2 = new HTTP2ServerConnectionFactory(httpsConfig);
+    ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
+    alpn.setDefaultProtocol(http1.getProtocol());
+    return new ConnectionFactory[] {
+      new SslConnectionFactory(sslContextFactory, alpn.getProtocol()), alpn, http2, http1
+    };
+  }
+
+  /**
+   * Wraps the webapp in a {@link GzipHandler} if response compression is enabled.
+   *
+   * <p>Only responses of at least the configured size are compressed, and only for clients that
+   * send {@code Accept-Encoding: gzip}. HAPI would otherwise gzip FHIR responses itself, whatever
+   * their size, and the {@link GzipHandler} skips responses that already have a {@code
+   * Content-Encoding}, so the webapp is also wrapped in an {@link AcceptEncodingHidingHandler} to
+   * leave all compression to Jetty.
+   *
+   * @param appConfig the launcher configuration
+   * @param webapp the {@link WebAppContext} that serves the requests
+   * @return the {@link Handler} to give to Jetty
+   */
+  private static Handler wrapWithCompression(AppConfiguration appConfig, WebAppContext webapp) {
+    if (!appConfig.isCompressionEnabled()) {
+      return webapp;
+    }
+
+    final int compressionLevel = appConfig.getCompressionLevel();
+    GzipHandler gzipHandler =
+        new GzipHandler() {
+          @Override
+          protected DeflaterPool newDeflaterPool(int capacity) {
+            return new DeflaterPool(capacity, compressionLevel, true);
+          }
+        };
+    gzipHandler.setMinGzipSize(appConfig.getCompressionMinBytes());
+    // FHIR searches can also be POSTed, and their responses are just as large.
+    gzipHandler.setIncludedMethods(HttpMethod.GET.asString(), HttpMethod.POST.asString());
+    AcceptEncodingHidingHandler acceptEncodingHidingHandler = new AcceptEncodingHidingHandler();
+    acceptEncodingHidingHandler.setHandler(webapp);
+    gzipHandler.setHandler(acceptEncodingHidingHandler);
+    return gzipHandler;
+  }
+
+  /**
+   * Hides the {@code Accept-Encoding} header from the webapp, so that HAPI always writes
+   * uncompressed responses. The {@link GzipHandler} still sees the header, since it reads it from
+   * the Jetty {@link Request} rather than from the {@link HttpServletRequest} passed on here.
+   */
+  private static final class AcceptEncodingHidingHandler extends HandlerWrapper {
+    /** {@inheritDoc} */
+    @Override
+    public void handle(
+        String target,
+        Request baseRequest,
+        HttpServletRequest request,
+        HttpServletResponse response)
+        throws IOException, ServletException {
+      super.handle(
+          target,
+          baseRequest,
+          new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+              return isAcceptEncoding(name) ? null : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+              return isAcceptEncoding(name)
+                  ? Collections.emptyEnumeration()
+                  : super.getHeaders(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaderNames() {
+              List<String> names = Collections.list(super.getHeaderNames());
+              names.removeIf(AcceptEncodingHidingHandler::isAcceptEncoding);
+              return Collections.enumeration(names);
+            }
+          },
+          response);
+    }
+
+    /**
+     * Checks whether a header is the {@code Accept-Encoding} header.
+     *
+     * @param name the name of the header, in any case
+     * @return true if it is the {@code Accept-Encoding} header
+     */
+    private static boolean isAcceptEncoding(String name) {
+      return HttpHeader.ACCEPT_ENCODING.is(name);
+    }
+  }
+
   /**
    * BFD implementation of the Jetty {@link org.eclipse.jetty.server.RequestLog} which provides
    * callback functionality appropriate for writing access logs which contain information for each
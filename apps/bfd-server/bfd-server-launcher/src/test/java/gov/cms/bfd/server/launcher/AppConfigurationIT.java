@@ -1,8 +1,10 @@
 package gov.cms.bfd.server.launcher;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import gov.cms.bfd.sharedutils.config.ConfigException;
 import gov.cms.bfd.sharedutils.config.ConfigLoader;
@@ -28,23 +30,7 @@ public final class AppConfigurationIT {
    */
   @Test
   public void normalUsage() {
-    Map<String, String> envValues = new HashMap<>();
-    envValues.put(AppConfiguration.ENV_VAR_KEY_PORT, "1");
-    envValues.put(
-        AppConfiguration.ENV_VAR_KEY_KEYSTORE,
-        getProjectDirectory()
-            .resolve(Paths.get("..", "dev", "ssl-stores", "server-keystore.pfx"))
-            .toString());
-    envValues.put(
-        AppConfiguration.ENV_VAR_KEY_TRUSTSTORE,
-        getProjectDirectory()
-            .resolve(Paths.get("..", "dev", "ssl-stores", "server-truststore.pfx"))
-            .toString());
-    envValues.put(
-        AppConfiguration.ENV_VAR_KEY_WAR,
-        getProjectDirectory()
-            .resolve(Paths.get("target", "sample", "bfd-server-launcher-sample-1.0.0-SNAPSHOT.war"))
-            .toString());
+    Map<String, String> envValues = createRequiredEnvValues();
 
     ConfigLoader config = ConfigLoader.builder().addSingle(envValues::get).build();
 
@@ -62,6 +48,74 @@ public final class AppConfigurationIT {
         testAppConfig.getTruststore().toString());
     assertEquals(
         envValues.get(AppConfiguration.ENV_VAR_KEY_WAR), testAppConfig.getWar().toString());
+    assertFalse(testAppConfig.isHttp2Enabled());
+    assertFalse(testAppConfig.isCompressionEnabled());
+    assertEquals(
+        AppConfiguration.DEFAULT_COMPRESSION_MIN_BYTES, testAppConfig.getCompressionMinBytes());
+    assertEquals(AppConfiguration.DEFAULT_COMPRESSION_LEVEL, testAppConfig.getCompressionLevel());
+  }
+
+  /**
+   * Verifies that {@link AppConfiguration#loadConfig} reads the HTTP/2 and response compression
+   * settings.
+   */
+  @Test
+  public void http2AndCompressionSettings() {
+    Map<String, String> envValues = createRequiredEnvValues();
+    envValues.put(AppConfiguration.ENV_VAR_KEY_HTTP2_ENABLED, "true");
+    envValues.put(AppConfiguration.ENV_VAR_KEY_COMPRESSION_ENABLED, "true");
+    envValues.put(AppConfiguration.ENV_VAR_KEY_COMPRESSION_MIN_BYTES, "512");
+    envValues.put(AppConfiguration.ENV_VAR_KEY_COMPRESSION_LEVEL, "1");
+
+    ConfigLoader config = ConfigLoader.builder().addSingle(envValues::get).build();
+
+    AppConfiguration testAppConfig = AppConfiguration.loadConfig(config);
+    assertTrue(testAppConfig.isHttp2Enabled());
+    assertTrue(testAppConfig.isCompressionEnabled());
+    assertEquals(512, testAppConfig.getCompressionMinBytes());
+    assertEquals(1, testAppConfig.getCompressionLevel());
+  }
+
+  /**
+   * Verifies that {@link AppConfiguration#loadConfig} rejects compression levels that deflate
+   * doesn't support.
+   */
+  @Test
+  public void invalidCompressionLevel() {
+    Map<String, String> envValues = createRequiredEnvValues();
+    envValues.put(AppConfiguration.ENV_VAR_KEY_COMPRESSION_LEVEL, "10");
+
+    ConfigLoader config = ConfigLoader.builder().addSingle(envValues::get).build();
+
+    ConfigException exception =
+        assertThrows(ConfigException.class, () -> AppConfiguration.loadConfig(config));
+    assertEquals(AppConfiguration.ENV_VAR_KEY_COMPRESSION_LEVEL, exception.getName());
+  }
+
+  /**
+   * Creates valid values for the configuration environment variables that are required.
+   *
+   * @return the environment variable values
+   */
+  private static Map<String, String> createRequiredEnvValues() {
+    Map<String, String> envValues = new HashMap<>();
+    envValues.put(AppConfiguration.ENV_VAR_KEY_PORT, "1");
+    envValues.put(
+        AppConfiguration.ENV_VAR_KEY_KEYSTORE,
+        getProjectDirectory()
+            .resolve(Paths.get("..", "dev", "ssl-stores", "server-keystore.pfx"))
+            .toString());
+    envValues.put(
+        AppConfiguration.ENV_VAR_KEY_TRUSTSTORE,
+        getProjectDirectory()
+            .resolve(Paths.get("..", "dev", "ssl-stores", "server-truststore.pfx"))
+            .toString());
+    envValues.put(
+        AppConfiguration.ENV_VAR_KEY_WAR,
+        getProjectDirectory()
+            .resolve(Paths.get("target", "sample", "bfd-server-launcher-sample-1.0.0-SNAPSHOT.war"))
+            .toString());
+    return envValues;
   }
 
   /**
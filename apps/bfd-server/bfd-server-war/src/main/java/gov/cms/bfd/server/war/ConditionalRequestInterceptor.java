@@ -0,0 +1,361 @@
+package gov.cms.bfd.server.war;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.ResponseDetails;
+import ca.uhn.fhir.rest.server.exceptions.NotModifiedException;
+import ca.uhn.fhir.util.DateUtils;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import gov.cms.bfd.server.war.commons.CommonHeaders;
+import gov.cms.bfd.server.war.commons.LoadedFilterManager;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+/**
+ * Answers conditional requests for the resources of a single beneficiary with {@code 304 Not
+ * Modified} when the {@link LoadedFilterManager} can prove that the beneficiary hasn't been updated
+ * since the client's copy was produced, without querying the database or transforming anything.
+ *
+ * <p>The requests handled are Patient reads and {@code _id} searches, Coverage reads and {@code
+ * beneficiary} searches, and ExplanationOfBenefit {@code patient} searches, for both FHIR versions.
+ * Their responses get a weak {@code ETag} made of the {@link
+ * LoadedFilterManager#getTransactionTime()} read before the request is handled, plus a digest of
+ * everything else that shapes the response: the server base, the path, the parameters and the
+ * headers that select optional content. A request whose {@code If-None-Match} holds one of those
+ * tags for the same digest, or which has only an {@code If-Modified-Since} date, is answered with a
+ * 304 response if no load batch created after that time might contain the beneficiary. Like the
+ * filters themselves this is eventually consistent with the database, lagging it by as much as a
+ * second.
+ *
+ * <p>The transaction time is read before any query so that a batch still being loaded while the
+ * response is built can't be mistaken for one the response already reflects. For the same reason
+ * the {@code lastUpdated} of a response, which HAPI sends as its {@code Last-Modified} header, is
+ * never allowed to be later than that time.
+ *
+ * <p>Conditional requests are ignored unless enabled, which they are not by default.
+ */
+@Interceptor
+public class ConditionalRequestInterceptor {
+  /** The {@link RequestDetails#getUserData()} key of the transaction time read for a request. */
+  private static final String TRANSACTION_TIME_KEY =
+      ConditionalRequestInterceptor.class.getName() + ".transactionTime";
+
+  /** The {@link RequestDetails#getUserData()} key of the digest computed for a request. */
+  private static final String DIGEST_KEY =
+      ConditionalRequestInterceptor.class.getName() + ".digest";
+
+  /** The headers that change the content of a response and so are part of its digest. */
+  private static final List<String> DIGEST_HEADERS =
+      List.of(
+          Constants.HEADER_ACCEPT,
+          CommonHeaders.HEADER_NAME_INCLUDE_IDENTIFIERS,
+          CommonHeaders.HEADER_NAME_INCLUDE_ADDRESS_FIELDS,
+          CommonHeaders.HEADER_NAME_INCLUDE_TAX_NUMBERS);
+
+  /** Matches Coverage ids, such as {@code part-a-123}, capturing the beneficiary id. */
+  private static final Pattern COVERAGE_ID_PATTERN =
+      Pattern.compile("\\p{Alnum}+-\\p{Alnum}-(-?\\p{Digit}+)");
+
+  /** Matches the weak entity tags created by {@link #createETag}. */
+  private static final Pattern ETAG_PATTERN =
+      Pattern.compile("(?:W/)?\"(\\p{Digit}+)-(\\p{XDigit}+)\"");
+
+  /**
+   * Distinguishes the tags of different builds, whose transformers may produce different content
+   * from the same data. Empty if the build has no implementation version.
+   */
+  private static final String BUILD_VERSION =
+      Strings.nullToEmpty(
+          ConditionalRequestInterceptor.class.getPackage().getImplementationVersion());
+
+  /** Used to determine whether a beneficiary has been updated. */
+  private final LoadedFilterManager loadedFilterManager;
+
+  /** Whether conditional requests are answered at all. */
+  private final boolean enabled;
+
+  /** Conditional requests that were answered with a 304 response. */
+  private final Meter notModified;
+
+  /** Conditional requests that had to be handled because the beneficiary might have changed. */
+  private final Meter modified;
+
+  /**
+   * Instantiates a new {@link ConditionalRequestInterceptor}.
+   *
+   * @param loadedFilterManager the loaded filter manager bean
+   * @param metricRegistry the metric registry bean
+   * @param enabled whether conditional requests are answered
+   */
+  public ConditionalRequestInterceptor(
+      LoadedFilterManager loadedFilterManager, MetricRegistry metricRegistry, boolean enabled) {
+    this.loadedFilterManager = loadedFilterManager;
+    this.enabled = enabled;
+    notModified =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "notModified"));
+    modified = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "modified"));
+  }
+
+  /**
+   * Pointcut to answer a conditional request before its handler is invoked, and otherwise remember
+   * what the tag of its response will be.
+   *
+   * @param requestDetails the request
+   * @param operationType the type of operation being performed
+   * @throws NotModifiedException if the client's copy of the response is still current
+   */
+  @Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED)
+  public void requestPreHandled(
+      RequestDetails requestDetails, RestOperationTypeEnum operationType) {
+    if (!enabled) {
+      return;
+    }
+    OptionalLong beneficiaryId = findBeneficiaryId(requestDetails, operationType);
+    if (beneficiaryId.isEmpty()) {
+      return;
+    }
+
+    final Instant transactionTime = loadedFilterManager.getTransactionTime();
+    final String digest = createDigest(requestDetails);
+    requestDetails.getUserData().put(TRANSACTION_TIME_KEY, transactionTime);
+    requestDetails.getUserData().put(DIGEST_KEY, digest);
+
+    String ifNoneMatch = requestDetails.getHeader(Constants.HEADER_IF_NONE_MATCH);
+    String ifModifiedSince = requestDetails.getHeader(Constants.HEADER_IF_MODIFIED_SINCE);
+    Optional<String> currentTag = Optional.empty();
+    if (!Strings.isNullOrEmpty(ifNoneMatch)) {
+      currentTag = findCurrentETag(ifNoneMatch, digest, beneficiaryId.getAsLong(), transactionTime);
+    } else if (!Strings.isNullOrEmpty(ifModifiedSince)) {
+      Date since = DateUtils.parseDate(ifModifiedSince);
+      if (since != null
+          && isCurrent(beneficiaryId.getAsLong(), since.toInstant(), transactionTime)) {
+        currentTag = Optional.of(createETag(since.toInstant(), digest));
+      }
+    } else {
+      return;
+    }
+
+    if (currentTag.isEmpty()) {
+      modified.mark();
+      return;
+    }
+    notModified.mark();
+    NotModifiedException response = new NotModifiedException("Not Modified");
+    response.addResponseHeader(Constants.HEADER_ETAG, currentTag.get());
+    throw response;
+  }
+
+  /**
+   * Pointcut to add the tag to a response and keep its {@code lastUpdated} from claiming that it is
+   * newer than the data it was built from.
+   *
+   * @param requestDetails the request
+   * @param responseDetails the response
+   * @return true to let the response be written
+   */
+  @Hook(Pointcut.SERVER_OUTGOING_RESPONSE)
+  public boolean serverOutgoingResponse(
+      RequestDetails requestDetails, ResponseDetails responseDetails) {
+    Instant transactionTime = (Instant) requestDetails.getUserData().get(TRANSACTION_TIME_KEY);
+    String digest = (String) requestDetails.getUserData().get(DIGEST_KEY);
+    if (transactionTime == null
+        || digest == null
+        || responseDetails.getResponseCode() != Constants.STATUS_HTTP_200_OK) {
+      return true;
+    }
+
+    IBaseResource resource = responseDetails.getResponseResource();
+    if (resource != null && resource.getMeta() != null) {
+      Date lastUpdated = resource.getMeta().getLastUpdated();
+      if (lastUpdated != null && lastUpdated.toInstant().isAfter(transactionTime)) {
+        resource.getMeta().setLastUpdated(Date.from(transactionTime));
+      }
+    }
+    requestDetails
+        .getResponse()
+        .addHeader(Constants.HEADER_ETAG, createETag(transactionTime, digest));
+    return true;
+  }
+
+  /**
+   * Finds the tag in an {@code If-None-Match} header that is still current, if any.
+   *
+   * @param ifNoneMatch the header value, a comma separated list of tags
+   * @param digest the digest of the request
+   * @param beneficiaryId the beneficiary whose resources are requested
+   * @param transactionTime the current transaction time
+   * @return the first of the tags that is still current, or empty if none is
+   */
+  private Optional<String> findCurrentETag(
+      String ifNoneMatch, String digest, long beneficiaryId, Instant transactionTime) {
+    for (String tag : ifNoneMatch.split(",")) {
+      Matcher matcher = ETAG_PATTERN.matcher(tag.trim());
+      if (matcher.matches() && digest.equals(matcher.group(2))) {
+        try {
+          Instant since = Instant.ofEpochMilli(Long.parseLong(matcher.group(1)));
+          if (isCurrent(beneficiaryId, since, transactionTime)) {
+            return Optional.of(tag.trim());
+          }
+        } catch (NumberFormatException e) {
+          // not one of ours
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Determines whether a response produced at a given transaction time is still current. Times
+   * after the current transaction time can't have come from this server and are never current.
+   *
+   * @param beneficiaryId the beneficiary whose resources are requested
+   * @param since the transaction time of the client's copy
+   * @param transactionTime the current transaction time
+   * @return true if no load batch created since that time might contain the beneficiary
+   */
+  private boolean isCurrent(long beneficiaryId, Instant since, Instant transactionTime) {
+    return !since.isAfter(transactionTime)
+        && !loadedFilterManager.isUpdatedSince(beneficiaryId, since);
+  }
+
+  /**
+   * Finds the beneficiary whose resources a request is for, if it is a request that this class
+   * handles.
+   *
+   * @param requestDetails the request
+   * @param operationType the type of operation being performed
+   * @return the beneficiary id, or empty if the request is not for a single known beneficiary
+   */
+  @VisibleForTesting
+  static OptionalLong findBeneficiaryId(
+      RequestDetails requestDetails, RestOperationTypeEnum operationType) {
+    final String resourceName = requestDetails.getResourceName();
+    final String idText;
+    if (operationType == RestOperationTypeEnum.READ) {
+      if (requestDetails.getId() == null) {
+        return OptionalLong.empty();
+      }
+      String idPart = requestDetails.getId().getIdPart();
+      if ("Patient".equals(resourceName)) {
+        idText = idPart;
+      } else if ("Coverage".equals(resourceName) && idPart != null) {
+        Matcher matcher = COVERAGE_ID_PATTERN.matcher(idPart);
+        idText = matcher.matches() ? matcher.group(1) : null;
+      } else {
+        idText = null;
+      }
+    } else if (operationType == RestOperationTypeEnum.SEARCH_TYPE) {
+      if ("Patient".equals(resourceName)) {
+        idText = findSingleParameter(requestDetails, "_id");
+      } else if ("Coverage".equals(resourceName)) {
+        idText = findSingleParameter(requestDetails, "beneficiary");
+      } else if ("ExplanationOfBenefit".equals(resourceName)) {
+        idText = findSingleParameter(requestDetails, "patient");
+      } else {
+        idText = null;
+      }
+    } else {
+      idText = null;
+    }
+    return parseBeneficiaryId(idText);
+  }
+
+  /**
+   * Gets the value of a parameter that has exactly one value.
+   *
+   * @param requestDetails the request
+   * @param name the name of the parameter
+   * @return the value, or null if the parameter is missing, repeated or a list of values
+   */
+  private static String findSingleParameter(RequestDetails requestDetails, String name) {
+    Map<String, String[]> parameters = requestDetails.getParameters();
+    String[] values = parameters == null ? null : parameters.get(name);
+    if (values == null || values.length != 1 || values[0].contains(",")) {
+      return null;
+    }
+    return values[0];
+  }
+
+  /**
+   * Parses a beneficiary id, which may be given as a {@code Patient/} reference.
+   *
+   * @param idText the id or reference
+   * @return the beneficiary id, or empty if it isn't a valid id
+   */
+  private static OptionalLong parseBeneficiaryId(String idText) {
+    if (idText == null) {
+      return OptionalLong.empty();
+    }
+    String id = idText.startsWith("Patient/") ? idText.substring("Patient/".length()) : idText;
+    try {
+      return OptionalLong.of(Long.parseLong(id));
+    } catch (NumberFormatException e) {
+      return OptionalLong.empty();
+    }
+  }
+
+  /**
+   * Creates a digest of everything other than the data that shapes the response to a request.
+   *
+   * @param requestDetails the request
+   * @return the hex encoded digest
+   */
+  @VisibleForTesting
+  static String createDigest(RequestDetails requestDetails) {
+    Hasher hasher =
+        Hashing.murmur3_128()
+            .newHasher()
+            .putString(BUILD_VERSION, StandardCharsets.UTF_8)
+            .putByte((byte) 0)
+            .putString(
+                Strings.nullToEmpty(requestDetails.getFhirServerBase()), StandardCharsets.UTF_8)
+            .putByte((byte) 0)
+            .putString(Strings.nullToEmpty(requestDetails.getRequestPath()), StandardCharsets.UTF_8)
+            .putByte((byte) 0);
+    if (requestDetails.getParameters() != null) {
+      for (Map.Entry<String, String[]> parameter :
+          new TreeMap<>(requestDetails.getParameters()).entrySet()) {
+        hasher.putString(parameter.getKey(), StandardCharsets.UTF_8).putByte((byte) 1);
+        for (String value : parameter.getValue()) {
+          hasher.putString(value, StandardCharsets.UTF_8).putByte((byte) 2);
+        }
+      }
+    }
+    for (String header : DIGEST_HEADERS) {
+      hasher
+          .putByte((byte) 3)
+          .putString(Strings.nullToEmpty(requestDetails.getHeader(header)), StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Creates the weak entity tag of a response.
+   *
+   * @param transactionTime the transaction time read before the response was produced
+   * @param digest the digest of the request
+   * @return the tag
+   */
+  @VisibleForTesting
+  static String createETag(Instant transactionTime, String digest) {
+    return "W/\"" + transactionTime.toEpochMilli() + "-" + digest + "\"";
+  }
+}
@@ -0,0 +1,158 @@
+package gov.cms.bfd.server.war;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import gov.cms.bfd.data.fda.lookup.FdaDrugCodeDisplayLookup;
+import gov.cms.bfd.data.npi.lookup.NPIOrgLookup;
+import gov.cms.bfd.server.war.commons.SortedLookupStore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the lookup tables used by the transformers in parallel, rather than one after another as
+ * the beans that need them are created. The FDA drug codes and the NPI organizations are each read
+ * from the classpath on their own thread as soon as this class is created, and the time taken by
+ * each is recorded in the {@link MetricRegistry}. The CCW codebook isn't loaded here, since the
+ * ids, labels and coded values used by the transformers are compiled into its enum.
+ *
+ * <p>The FDA drug codes and NPI organizations are {@link SortedLookupStore}s of the sorted
+ * resources that their modules produce during the build, so loading them only maps or copies the
+ * resources rather than parsing each line into the heap.
+ */
+public class LookupPreloader {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(LookupPreloader.class);
+
+  /** The FDA drug code lookup being loaded. */
+  private final CompletableFuture<FdaDrugCodeDisplayLookup> fdaDrugCodeDisplayLookup;
+
+  /** The NPI organization lookup being loaded. */
+  private final CompletableFuture<NPIOrgLookup> npiOrgLookup;
+
+  /**
+   * Instantiates a new {@link LookupPreloader} and starts loading the lookups.
+   *
+   * @param metricRegistry receives the time taken to load each lookup
+   * @param includeFakeDrugCode if true, the {@link FdaDrugCodeDisplayLookup} will include a fake
+   *     drug code for testing purposes
+   * @param includeFakeOrgName if true, the {@link NPIOrgLookup} will include a fake org name for
+   *     testing purposes
+   */
+  public LookupPreloader(
+      MetricRegistry metricRegistry, boolean includeFakeDrugCode, boolean includeFakeOrgName) {
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      fdaDrugCodeDisplayLookup =
+          load(
+              metricRegistry,
+              executor,
+              "fdaDrugCodes",
+              () -> createFdaDrugCodeDisplayLookup(includeFakeDrugCode));
+      npiOrgLookup =
+          load(
+              metricRegistry,
+              executor,
+              "npiOrgs",
+              includeFakeOrgName ? NPIOrgLookup::new : LookupPreloader::createNpiOrgLookup);
+    } finally {
+      // lets the threads exit once the lookups are loaded
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Gets the FDA drug code lookup, waiting for it to finish loading if necessary.
+   *
+   * @return the {@link FdaDrugCodeDisplayLookup}
+   */
+  public FdaDrugCodeDisplayLookup getFdaDrugCodeDisplayLookup() {
+    return await(fdaDrugCodeDisplayLookup);
+  }
+
+  /**
+   * Gets the NPI organization lookup, waiting for it to finish loading if necessary.
+   *
+   * @return the {@link NPIOrgLookup}
+   */
+  public NPIOrgLookup getNpiOrgLookup() {
+    return await(npiOrgLookup);
+  }
+
+  /** Waits for all of the lookups to finish loading. */
+  public void awaitAll() {
+    await(fdaDrugCodeDisplayLookup);
+    await(npiOrgLookup);
+  }
+
+  /**
+   * Starts loading a lookup and records how long it takes.
+   *
+   * @param <T> the type of the lookup
+   * @param metricRegistry receives the time taken to load the lookup
+   * @param executor runs the loader
+   * @param name the name of the lookup's timer
+   * @param loader loads the lookup
+   * @return the lookup being loaded
+   */
+  private static <T> CompletableFuture<T> load(
+      MetricRegistry metricRegistry, ExecutorService executor, String name, Supplier<T> loader) {
+    final Timer timer =
+        metricRegistry.timer(MetricRegistry.name(LookupPreloader.class.getSimpleName(), name));
+    return CompletableFuture.supplyAsync(
+        () -> {
+          final Timer.Context timerContext = timer.time();
+          final T lookup = loader.get();
+          LOGGER.info("Loaded {} in {} ms", name, timerContext.stop() / 1_000_000);
+          return lookup;
+        },
+        executor);
+  }
+
+  /**
+   * Waits for a lookup to finish loading, and passes on any exception thrown while loading it.
+   *
+   * @param <T> the type of the lookup
+   * @param lookup the lookup being loaded
+   * @return the lookup
+   */
+  private static <T> T await(CompletableFuture<T> lookup) {
+    try {
+      return lookup.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Creates the {@link FdaDrugCodeDisplayLookup} from the sorted drug code display resource.
+   *
+   * @param includeFakeDrugCode whether to include the fake drug code for testing purposes
+   * @return the {@link FdaDrugCodeDisplayLookup}
+   */
+  private static FdaDrugCodeDisplayLookup createFdaDrugCodeDisplayLookup(
+      boolean includeFakeDrugCode) {
+    final SortedLookupStore drugCodes =
+        SortedLookupStore.fromResource(
+            gov.cms.bfd.data.fda.utility.App.FDA_PRODUCTS_DISPLAY_RESOURCE, false);
+    return FdaDrugCodeDisplayLookup.createDrugCodeLookup(drugCodes.asMap(), includeFakeDrugCode);
+  }
+
+  /**
+   * Creates the production {@link NPIOrgLookup} from the sorted NPI organization resource.
+   *
+   * @return the {@link NPIOrgLookup}
+   */
+  private static NPIOrgLookup createNpiOrgLookup() {
+    final SortedLookupStore orgNames =
+        SortedLookupStore.fromResource(gov.cms.bfd.data.npi.utility.App.NPI_RESOURCE, false);
+    return new NPIOrgLookup(orgNames.asMap());
+  }
+}
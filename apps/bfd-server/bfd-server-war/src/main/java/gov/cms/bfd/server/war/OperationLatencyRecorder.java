@@ -0,0 +1,192 @@
+package gov.cms.bfd.server.war;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.servlets.MetricsServlet;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the latency of each completed request in {@link Timer}s that are keyed by the request's
+ * {@link CanonicalOperation} name, with one timer for each of the total, database, transformation
+ * and serialization phases collected in its {@link RequestTimings}. Each timer keeps a histogram
+ * whose percentiles are published, along with every other metric, by the {@link MetricsServlet}
+ * that the launcher serves at {@code /metrics/metrics}.
+ *
+ * <p>Since some operation names include request options such as the page size, only the first
+ * {@value #MAX_OPERATION_NAMES} names get their own timers. Requests for any other operation are
+ * recorded under the name of their {@link CanonicalOperation.Endpoint}.
+ *
+ * <p>Requests that take at least the configured threshold are also logged, along with their phase
+ * breakdown and database queries. Only one in every {@code sampleEvery} of those slow requests is
+ * logged, so that a slow database doesn't flood the logs. The slow request log is disabled when the
+ * threshold is zero.
+ */
+@Component
+public class OperationLatencyRecorder {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(OperationLatencyRecorder.class);
+
+  /** The servlet context attribute that {@link ServerInitializer} stores this bean in. */
+  public static final String SERVLET_CONTEXT_ATTRIBUTE = OperationLatencyRecorder.class.getName();
+
+  /** The maximum number of operation names that are given their own timers. */
+  static final int MAX_OPERATION_NAMES = 500;
+
+  /** Receives the timers. */
+  private final MetricRegistry metricRegistry;
+
+  /** Requests that take at least this long are slow, or 0 if the slow request log is disabled. */
+  private final long slowThresholdNanos;
+
+  /** Only one in this many slow requests is logged. */
+  private final int sampleEvery;
+
+  /** The timers of each operation name, which saves looking them up in the registry each time. */
+  private final Map<String, PhaseTimers> operationTimers = new ConcurrentHashMap<>();
+
+  /** The number of slow requests so far, used to sample them. */
+  private final AtomicLong slowRequestCount = new AtomicLong();
+
+  /**
+   * Instantiates a new {@link OperationLatencyRecorder}.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param metricRegistry the metric registry bean
+   * @param slowThresholdMillis requests that take at least this long are logged, or 0 to disable
+   *     the slow request log
+   * @param sampleEvery only one in this many slow requests is logged
+   */
+  public OperationLatencyRecorder(
+      MetricRegistry metricRegistry,
+      @Value("${bfdServer.slowRequest.thresholdMillis:0}") long slowThresholdMillis,
+      @Value("${bfdServer.slowRequest.sampleEvery:1}") int sampleEvery) {
+    Preconditions.checkArgument(
+        slowThresholdMillis >= 0, "slowThresholdMillis must not be negative");
+    Preconditions.checkArgument(sampleEvery > 0, "sampleEvery must be positive");
+    this.metricRegistry = metricRegistry;
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    this.sampleEvery = sampleEvery;
+  }
+
+  /**
+   * Records the latency of a completed request, and logs it if it was slow.
+   *
+   * @param operationName the request's {@link CanonicalOperation} name, or null if it has none
+   * @param endpointName the name of the request's {@link CanonicalOperation.Endpoint}
+   * @param timings the request's timings
+   * @param endNanos the {@link System#nanoTime()} when the request ended
+   */
+  public void record(
+      String operationName, String endpointName, RequestTimings timings, long endNanos) {
+    final String name = operationName != null ? operationName : endpointName;
+    final PhaseTimers timers = getTimers(name, endpointName);
+    final long totalNanos = timings.getTotalNanos(endNanos);
+    timers.total.update(totalNanos, TimeUnit.NANOSECONDS);
+    timers.database.update(timings.getDatabaseNanos(), TimeUnit.NANOSECONDS);
+    timings
+        .getTransformationNanos()
+        .ifPresent(nanos -> timers.transformation.update(nanos, TimeUnit.NANOSECONDS));
+    timings
+        .getSerializationNanos()
+        .ifPresent(nanos -> timers.serialization.update(nanos, TimeUnit.NANOSECONDS));
+
+    if (slowThresholdNanos > 0
+        && totalNanos >= slowThresholdNanos
+        && slowRequestCount.getAndIncrement() % sampleEvery == 0) {
+      LOGGER.warn(
+          "Slow request: operation={} total={}ms database={}ms transformation={}ms"
+              + " serialization={}ms queryCount={} queries={}",
+          name,
+          TimeUnit.NANOSECONDS.toMillis(totalNanos),
+          TimeUnit.NANOSECONDS.toMillis(timings.getDatabaseNanos()),
+          timings.getTransformationNanos().map(TimeUnit.NANOSECONDS::toMillis).orElse(null),
+          timings.getSerializationNanos().map(TimeUnit.NANOSECONDS::toMillis).orElse(null),
+          timings.getQueryCount(),
+          timings.getQueryDetails());
+    }
+  }
+
+  /**
+   * Gets the timers for an operation, creating them the first time they are needed.
+   *
+   * @param operationName the operation name
+   * @param endpointName the name to use instead once there are too many operation names
+   * @return the timers
+   */
+  private PhaseTimers getTimers(String operationName, String endpointName) {
+    final PhaseTimers timers = operationTimers.get(operationName);
+    if (timers != null) {
+      return timers;
+    }
+    final String name = operationTimers.size() < MAX_OPERATION_NAMES ? operationName : endpointName;
+    return operationTimers.computeIfAbsent(name, this::createTimers);
+  }
+
+  /**
+   * Creates the timers for an operation in the {@link MetricRegistry}.
+   *
+   * @param operationName the operation name
+   * @return the timers
+   */
+  private PhaseTimers createTimers(String operationName) {
+    return new PhaseTimers(
+        timer(operationName, "total"),
+        timer(operationName, "database"),
+        timer(operationName, "transformation"),
+        timer(operationName, "serialization"));
+  }
+
+  /**
+   * Gets the timer for one phase of an operation from the {@link MetricRegistry}.
+   *
+   * @param operationName the operation name
+   * @param phase the phase
+   * @return the timer
+   */
+  @VisibleForTesting
+  Timer timer(String operationName, String phase) {
+    return metricRegistry.timer(
+        MetricRegistry.name(getClass().getSimpleName(), operationName, phase));
+  }
+
+  /** The timers of each phase of an operation. */
+  private static final class PhaseTimers {
+    /** Times the whole request. */
+    private final Timer total;
+
+    /** Times the database queries. */
+    private final Timer database;
+
+    /** Times the transformation of entities into FHIR resources. */
+    private final Timer transformation;
+
+    /** Times the serialization of the response. */
+    private final Timer serialization;
+
+    /**
+     * Initializes an instance.
+     *
+     * @param total times the whole request
+     * @param database times the database queries
+     * @param transformation times the transformation of entities into FHIR resources
+     * @param serialization times the serialization of the response
+     */
+    private PhaseTimers(Timer total, Timer database, Timer transformation, Timer serialization) {
+      this.total = total;
+      this.database = database;
+      this.transformation = transformation;
+      this.serialization = serialization;
+    }
+  }
+}
@@ -10,7 +10,10 @@ import net.ttddyy.dsproxy.listener.QueryExecutionListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** This {@link QueryExecutionListener} records query performance data in {@link BfdMDC}. */
+/**
+ * This {@link QueryExecutionListener} records query performance data in {@link BfdMDC}, and adds
+ * each query to the current {@link RequestTimings}.
+ */
 public final class QueryLoggingListener implements QueryExecutionListener {
   private static final Logger LOGGER = LoggerFactory.getLogger(QueryLoggingListener.class);
 
@@ -84,6 +87,10 @@ public final class QueryLoggingListener implements QueryExecutionListener {
         BfdMDC.computeMDCKey(MDC_KEY_PREFIX, mdcKeyPrefix, "size"),
         String.valueOf(queryInfoList.size()));
 
+    final String queryTypeId = mdcKeyPrefix;
+    RequestTimings.current()
+        .ifPresent(timings -> timings.addQuery(queryTypeId, execInfo.getElapsedTime()));
+
     BfdMDC.put(
         BfdMDC.computeMDCKey(MDC_KEY_PREFIX, mdcKeyPrefix, "duration_milliseconds"),
         String.valueOf(execInfo.getElapsedTime()));
@@ -136,6 +143,20 @@ public final class QueryLoggingListener implements QueryExecutionListener {
     BENE_BY_HICN_HISTORY(
         "bene_by_hicn_hicns_from_beneficiarieshistory",
         (s -> s.contains(" from beneficiaries_history ") && s.contains("bene_crnt_hic_num="))),
+    /** Represents the query for beneficiary by current or historical hash. */
+    BENE_BY_HASH(
+        "bene_by_hash", (s -> s.contains(" from beneficiaries_history ") && s.contains(" union "))),
+    /** Represents the query for a beneficiary's history records. */
+    BENE_HISTORIES_BY_ID(
+        "bene_histories_by_id",
+        (s ->
+            s.contains(" from beneficiaries_history ")
+                && s.contains("bene_id=")
+                && !s.contains("mbi_hash=")
+                && !s.contains("bene_crnt_hic_num="))),
+    /** Represents the query for a beneficiary's skipped RIF records. */
+    SKIPPED_RIF_RECORDS_BY_BENE_ID(
+        "skipped_rif_records_by_bene_id", (s -> s.contains(" from skipped_rif_records "))),
     /** Represents the query for beneficiary by hicn or id (no hicn/mbi returned). */
     BENE_BY_HICN_OR_ID_OMIT_IDENTIFIERS(
         "bene_by_hicn_bene_by_hicn_or_id_omit_hicns_and_mbis",
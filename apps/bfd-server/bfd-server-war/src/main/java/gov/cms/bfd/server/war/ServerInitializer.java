@@ -7,6 +7,7 @@ import com.codahale.metrics.servlets.HealthCheckServlet;
 import com.codahale.metrics.servlets.MetricsServlet;
 import com.google.common.annotations.VisibleForTesting;
 import gov.cms.bfd.sharedutils.config.ConfigLoader;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.servlet.ServletContainerInitializer;
@@ -38,6 +39,7 @@ public final class ServerInitializer implements WebApplicationInitializer {
   @Override
   public void onStartup(@Nonnull ServletContext servletContext) throws ServletException {
     LOGGER.info("Initializing Blue Button API backend server...");
+    final long startNanos = System.nanoTime();
 
     // Create the Spring application context and configure it with our ConfigLoader
     // and SpringConfiguration.  We store the ConfigLoader as a ServletContext
@@ -46,6 +48,7 @@ public final class ServerInitializer implements WebApplicationInitializer {
     var springContext = new AnnotationConfigWebApplicationContext();
     initializeSpringConfiguration(
         springContext, servletContext, SpringConfiguration.class, System::getenv);
+    final long springContextNanos = System.nanoTime() - startNanos;
 
     // Set the Spring PRODUCTION profile as the default.
     ConfigurableEnvironment springEnv = springContext.getEnvironment();
@@ -74,14 +77,25 @@ public final class ServerInitializer implements WebApplicationInitializer {
      * Register the MetricRegistry and HealthCheckRegistry into the ServletContext,
      * so that InstrumentedFilter and AdminServlet (configured in web.xml) can work.
      */
-    servletContext.setAttribute(
-        InstrumentedFilter.REGISTRY_ATTRIBUTE, springContext.getBean(MetricRegistry.class));
-    servletContext.setAttribute(
-        MetricsServlet.METRICS_REGISTRY, springContext.getBean(MetricRegistry.class));
+    MetricRegistry metricRegistry = springContext.getBean(MetricRegistry.class);
+    servletContext.setAttribute(InstrumentedFilter.REGISTRY_ATTRIBUTE, metricRegistry);
+    servletContext.setAttribute(MetricsServlet.METRICS_REGISTRY, metricRegistry);
     servletContext.setAttribute(
         HealthCheckServlet.HEALTH_CHECK_REGISTRY, springContext.getBean(HealthCheckRegistry.class));
 
-    LOGGER.info("Initialized Blue Button API backend server.");
+    // Allow RequestResponsePopulateMdcFilter (configured in web.xml) to record request latencies.
+    servletContext.setAttribute(
+        OperationLatencyRecorder.SERVLET_CONTEXT_ATTRIBUTE,
+        springContext.getBean(OperationLatencyRecorder.class));
+
+    // Record how long startup took, so that changes to it can be tracked.
+    metricRegistry
+        .timer(MetricRegistry.name(getClass().getSimpleName(), "springContext"))
+        .update(springContextNanos, TimeUnit.NANOSECONDS);
+    LOGGER.info(
+        "Initialized Blue Button API backend server in {} ms ({} ms creating the Spring context).",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+        TimeUnit.NANOSECONDS.toMillis(springContextNanos));
   }
 
   /**
@@ -14,6 +14,7 @@ import com.zaxxer.hikari.HikariDataSource;
 import gov.cms.bfd.data.fda.lookup.FdaDrugCodeDisplayLookup;
 import gov.cms.bfd.data.npi.lookup.NPIOrgLookup;
 import gov.cms.bfd.model.rda.Mbi;
+import gov.cms.bfd.server.war.commons.LoadedFilterManager;
 import gov.cms.bfd.server.war.r4.providers.R4CoverageResourceProvider;
 import gov.cms.bfd.server.war.r4.providers.R4ExplanationOfBenefitResourceProvider;
 import gov.cms.bfd.server.war.r4.providers.R4PatientResourceProvider;
@@ -25,7 +26,6 @@ import gov.cms.bfd.server.war.stu3.providers.PatientResourceProvider;
 import gov.cms.bfd.sharedutils.config.ConfigLoader;
 import gov.cms.bfd.sharedutils.config.LayeredConfiguration;
 import gov.cms.bfd.sharedutils.database.DatabaseUtils;
-import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
@@ -86,6 +86,18 @@ public class SpringConfiguration {
    * integration testing.
    */
   public static final String PROP_INCLUDE_FAKE_ORG_NAME = "bfdServer.include.fake.org.name";
+  /**
+   * The {@link String } Boolean property that is used to enable streaming of large search results
+   * by the {@link StreamingBundleInterceptor}. This property defaults to false.
+   */
+  public static final String PROP_STREAMING_BUNDLES_ENABLED = "bfdServer.streamingBundles.enabled";
+  /**
+   * The {@link String } Boolean property that is used to enable answering conditional requests with
+   * {@code 304 Not Modified} responses in the {@link ConditionalRequestInterceptor}. This property
+   * defaults to false.
+   */
+  public static final String PROP_CONDITIONAL_REQUESTS_ENABLED =
+      "bfdServer.conditionalRequests.enabled";
   /** The database transaction timeout value (seconds). */
   public static final int TRANSACTION_TIMEOUT = 30;
 
@@ -397,40 +409,78 @@ public class SpringConfiguration {
   }
 
   /**
-   * This bean provides an {@link FdaDrugCodeDisplayLookup} for use in the transformers to look up
-   * drug codes.
+   * This bean provides the {@link LookupPreloader} that loads the lookup tables used by the
+   * transformers in parallel.
    *
+   * @param metricRegistry the metric registry bean
    * @param includeFakeDrugCode if true, the {@link FdaDrugCodeDisplayLookup} will include a fake
    *     drug code for testing purposes.
+   * @param includeFakeOrgName if true, the {@link NPIOrgLookup} will include a fake org name for
+   *     testing purposes.
+   * @return the {@link LookupPreloader} for the application.
+   */
+  @Bean
+  public LookupPreloader lookupPreloader(
+      MetricRegistry metricRegistry,
+      @Value("${" + PROP_INCLUDE_FAKE_DRUG_CODE + ":false}") Boolean includeFakeDrugCode,
+      @Value("${" + PROP_INCLUDE_FAKE_ORG_NAME + ":false}") Boolean includeFakeOrgName) {
+    return new LookupPreloader(metricRegistry, includeFakeDrugCode, includeFakeOrgName);
+  }
+
+  /**
+   * This bean provides an {@link FdaDrugCodeDisplayLookup} for use in the transformers to look up
+   * drug codes.
+   *
+   * @param lookupPreloader loads the lookup in parallel with the others
    * @return the {@link FdaDrugCodeDisplayLookup} for the application.
    */
   @Bean
-  public FdaDrugCodeDisplayLookup fdaDrugCodeDisplayLookup(
-      @Value("${" + PROP_INCLUDE_FAKE_DRUG_CODE + ":false}") Boolean includeFakeDrugCode) {
-    if (includeFakeDrugCode) {
-      return FdaDrugCodeDisplayLookup.createDrugCodeLookupForTesting();
-    } else {
-      return FdaDrugCodeDisplayLookup.createDrugCodeLookupForProduction();
-    }
+  public FdaDrugCodeDisplayLookup fdaDrugCodeDisplayLookup(LookupPreloader lookupPreloader) {
+    return lookupPreloader.getFdaDrugCodeDisplayLookup();
   }
 
   /**
    * This bean provides an {@link NPIOrgLookup} for use in the transformers to look up org name.
    *
-   * @param includeFakeOrgName if true, the {@link NPIOrgLookup} will include a fake org name for
-   *     testing purposes.
+   * @param lookupPreloader loads the lookup in parallel with the others
    * @return the {@link NPIOrgLookup} for the application.
-   * @throws IOException if there is an error accessing the resource
    */
   @Bean
-  public NPIOrgLookup npiOrgLookup(
-      @Value("${" + PROP_INCLUDE_FAKE_ORG_NAME + ":false}") Boolean includeFakeOrgName)
-      throws IOException {
-    if (includeFakeOrgName) {
-      return new NPIOrgLookup();
-    } else {
-      return NPIOrgLookup.createNpiOrgLookup();
-    }
+  public NPIOrgLookup npiOrgLookup(LookupPreloader lookupPreloader) {
+    return lookupPreloader.getNpiOrgLookup();
+  }
+
+  /**
+   * This bean provides the {@link StreamingBundleInterceptor} used to write large search results as
+   * they are produced rather than after the complete result has been built in memory.
+   *
+   * @param streamingEnabled if true, searches that support it will stream their bundle entries
+   * @return the {@link StreamingBundleInterceptor} for the application
+   */
+  @Bean
+  public StreamingBundleInterceptor streamingBundleInterceptor(
+      @Value("${" + PROP_STREAMING_BUNDLES_ENABLED + ":false}") Boolean streamingEnabled) {
+    return new StreamingBundleInterceptor(streamingEnabled);
+  }
+
+  /**
+   * This bean provides the {@link ConditionalRequestInterceptor} used to answer requests for
+   * resources that the client already has a current copy of without querying them.
+   *
+   * @param loadedFilterManager used to determine whether a beneficiary has been updated
+   * @param metricRegistry the metric registry bean
+   * @param conditionalRequestsEnabled if true, conditional requests are answered with {@code 304
+   *     Not Modified} when possible
+   * @return the {@link ConditionalRequestInterceptor} for the application
+   */
+  @Bean
+  public ConditionalRequestInterceptor conditionalRequestInterceptor(
+      LoadedFilterManager loadedFilterManager,
+      MetricRegistry metricRegistry,
+      @Value("${" + PROP_CONDITIONAL_REQUESTS_ENABLED + ":false}")
+          Boolean conditionalRequestsEnabled) {
+    return new ConditionalRequestInterceptor(
+        loadedFilterManager, metricRegistry, conditionalRequestsEnabled);
   }
 
   /**
@@ -0,0 +1,392 @@
+package gov.cms.bfd.server.war;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.parser.IParser;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import gov.cms.bfd.model.rif.Beneficiary;
+import gov.cms.bfd.model.rif.BeneficiaryParser;
+import gov.cms.bfd.model.rif.CarrierClaimParser;
+import gov.cms.bfd.model.rif.DMEClaimParser;
+import gov.cms.bfd.model.rif.HHAClaimParser;
+import gov.cms.bfd.model.rif.HospiceClaimParser;
+import gov.cms.bfd.model.rif.InpatientClaimParser;
+import gov.cms.bfd.model.rif.OutpatientClaimParser;
+import gov.cms.bfd.model.rif.PartDEventParser;
+import gov.cms.bfd.model.rif.RifFile;
+import gov.cms.bfd.model.rif.RifFileType;
+import gov.cms.bfd.model.rif.SNFClaimParser;
+import gov.cms.bfd.model.rif.parse.RifParsingUtils;
+import gov.cms.bfd.model.rif.samples.StaticRifResource;
+import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
+import gov.cms.bfd.server.war.commons.RequestHeaders;
+import gov.cms.bfd.server.war.r4.providers.BeneficiaryTransformerV2;
+import gov.cms.bfd.server.war.r4.providers.ClaimTransformerInterfaceV2;
+import gov.cms.bfd.server.war.r4.providers.CoverageTransformerV2;
+import gov.cms.bfd.server.war.stu3.providers.BeneficiaryTransformer;
+import gov.cms.bfd.server.war.stu3.providers.ClaimTransformerInterface;
+import gov.cms.bfd.server.war.stu3.providers.CoverageTransformer;
+import gov.cms.model.dsl.codegen.library.RifObjectWrapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms up a newly started server before it reports itself healthy, so that the first requests
+ * routed to it don't pay for class loading, lazy initialization and interpreted code.
+ *
+ * <p>When enabled, a background thread waits for the {@link LookupPreloader} to finish, parses the
+ * {@link StaticRifResourceGroup#SAMPLE_A} records, and then runs them through the R4 and STU3
+ * beneficiary, coverage and claim transformers and the FHIR JSON encoders a configurable number of
+ * times. The time taken by each of those phases is logged and recorded in the {@link
+ * MetricRegistry}, and the {@value #HEALTH_CHECK_NAME} health check reports the node unhealthy
+ * until the warm-up has finished. A failed warm-up leaves the node unhealthy, since whatever broke
+ * the warm-up is likely to break requests too.
+ *
+ * <p>The warm-up is disabled by default, in which case the health check is always healthy.
+ */
+@Component
+public class StartupWarmup {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(StartupWarmup.class);
+
+  /** The name of the health check that reports whether the warm-up has finished. */
+  public static final String HEALTH_CHECK_NAME = "warmup";
+
+  /** Waits for the lookup tables used by the transformers to be loaded. */
+  private final LookupPreloader lookupPreloader;
+
+  /** Transforms sample beneficiaries into R4 patients. */
+  private final BeneficiaryTransformerV2 beneficiaryTransformerV2;
+
+  /** Transforms sample beneficiaries into STU3 patients. */
+  private final BeneficiaryTransformer beneficiaryTransformer;
+
+  /** Transforms sample beneficiaries into R4 coverages. */
+  private final CoverageTransformerV2 coverageTransformerV2;
+
+  /** Transforms sample beneficiaries into STU3 coverages. */
+  private final CoverageTransformer coverageTransformer;
+
+  /** The R4 claim transformers, keyed by the claim entity class that each transforms. */
+  private final Map<Class<?>, ClaimTransformerInterfaceV2> claimTransformersV2;
+
+  /** The STU3 claim transformers, keyed by the claim entity class that each transforms. */
+  private final Map<Class<?>, ClaimTransformerInterface> claimTransformers;
+
+  /** Records the time taken by each phase of the warm-up. */
+  private final MetricRegistry metricRegistry;
+
+  /** Whether the warm-up runs at all. */
+  private final boolean enabled;
+
+  /** The number of times that each sample record is transformed. */
+  private final int iterations;
+
+  /** Whether the warm-up has finished, successfully or not. */
+  private volatile boolean finished;
+
+  /** The exception or error that ended the warm-up, or null if it didn't fail. */
+  private volatile Throwable failure;
+
+  /**
+   * Instantiates a new {@link StartupWarmup} and registers its health check.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param lookupPreloader the lookup preloader bean
+   * @param beneficiaryTransformerV2 the R4 beneficiary transformer
+   * @param beneficiaryTransformer the STU3 beneficiary transformer
+   * @param coverageTransformerV2 the R4 coverage transformer
+   * @param coverageTransformer the STU3 coverage transformer
+   * @param claimTransformersV2 all of the R4 claim transformers
+   * @param claimTransformers all of the STU3 claim transformers
+   * @param metricRegistry the metric registry bean
+   * @param healthCheckRegistry the health check registry bean
+   * @param enabled whether to warm up the server at all
+   * @param iterations the number of times that each sample record is transformed
+   */
+  public StartupWarmup(
+      LookupPreloader lookupPreloader,
+      BeneficiaryTransformerV2 beneficiaryTransformerV2,
+      BeneficiaryTransformer beneficiaryTransformer,
+      CoverageTransformerV2 coverageTransformerV2,
+      CoverageTransformer coverageTransformer,
+      List<ClaimTransformerInterfaceV2> claimTransformersV2,
+      List<ClaimTransformerInterface> claimTransformers,
+      MetricRegistry metricRegistry,
+      HealthCheckRegistry healthCheckRegistry,
+      @Value("${bfdServer.warmup.enabled:false}") boolean enabled,
+      @Value("${bfdServer.warmup.iterations:200}") int iterations) {
+    Preconditions.checkArgument(iterations >= 0, "iterations cannot be negative");
+    this.lookupPreloader = lookupPreloader;
+    this.beneficiaryTransformerV2 = beneficiaryTransformerV2;
+    this.beneficiaryTransformer = beneficiaryTransformer;
+    this.coverageTransformerV2 = coverageTransformerV2;
+    this.coverageTransformer = coverageTransformer;
+    this.claimTransformersV2 =
+        mapByEntityClass(claimTransformersV2, ClaimTransformerInterfaceV2::getEntityClass);
+    this.claimTransformers =
+        mapByEntityClass(claimTransformers, ClaimTransformerInterface::getEntityClass);
+    this.metricRegistry = metricRegistry;
+    this.enabled = enabled;
+    this.iterations = iterations;
+    finished = !enabled;
+    healthCheckRegistry.register(
+        HEALTH_CHECK_NAME,
+        new HealthCheck() {
+          /** {@inheritDoc} */
+          @Override
+          protected Result check() {
+            if (!finished) {
+              return Result.unhealthy("warm-up in progress");
+            }
+            return failure == null
+                ? Result.healthy()
+                : Result.unhealthy("warm-up failed: %s", failure.getMessage());
+          }
+        });
+  }
+
+  /**
+   * Determines whether the warm-up has finished. Always true if the warm-up is disabled.
+   *
+   * @return true if the warm-up has finished, successfully or not
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * Starts the warm-up on a background thread, if it is enabled, so that the servlets can finish
+   * initializing in the meantime.
+   */
+  @PostConstruct
+  public void start() {
+    if (enabled) {
+      Thread thread = new Thread(this::run, getClass().getSimpleName());
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /** Runs each phase of the warm-up and records that it finished. */
+  @VisibleForTesting
+  void run() {
+    try (Timer.Context total = createPhaseTimer("total").time()) {
+      runPhase("lookups", lookupPreloader::awaitAll);
+
+      final List<Object> records = new ArrayList<>();
+      runPhase(
+          "sampleParsing",
+          () ->
+              records.addAll(
+                  parseSampleRecords(
+                      Arrays.asList(StaticRifResourceGroup.SAMPLE_A.getResources()))));
+
+      runPhase("transformers", () -> transformRecords(records));
+      LOGGER.info("Warm-up finished in {} ms", total.stop() / 1_000_000);
+    } catch (RuntimeException | Error e) {
+      LOGGER.error("Warm-up failed", e);
+      failure = e;
+    } finally {
+      finished = true;
+    }
+  }
+
+  /**
+   * Runs a phase of the warm-up and records how long it took.
+   *
+   * @param name the name of the phase
+   * @param phase the phase to run
+   */
+  private void runPhase(String name, Runnable phase) {
+    final Timer.Context timerContext = createPhaseTimer(name).time();
+    phase.run();
+    LOGGER.info("Warm-up phase {} finished in {} ms", name, timerContext.stop() / 1_000_000);
+  }
+
+  /**
+   * Creates the timer for a phase of the warm-up.
+   *
+   * @param name the name of the phase
+   * @return the timer
+   */
+  private Timer createPhaseTimer(String name) {
+    return metricRegistry.timer(MetricRegistry.name(getClass().getSimpleName(), name));
+  }
+
+  /**
+   * Transforms each of the records {@link #iterations} times, and encodes the results as JSON.
+   *
+   * @param records the parsed {@link Beneficiary}s and claims
+   */
+  @VisibleForTesting
+  void transformRecords(List<Object> records) {
+    final IParser r4Parser = FhirContext.forCached(FhirVersionEnum.R4).newJsonParser();
+    final IParser stu3Parser = FhirContext.forCached(FhirVersionEnum.DSTU3).newJsonParser();
+    final List<IBaseResource> r4Resources = new ArrayList<>();
+    final List<IBaseResource> stu3Resources = new ArrayList<>();
+    for (int i = 0; i < iterations; ++i) {
+      for (Object record : records) {
+        if (record instanceof Beneficiary) {
+          final Beneficiary beneficiary = (Beneficiary) record;
+          r4Resources.add(
+              beneficiaryTransformerV2.transform(beneficiary, RequestHeaders.getHeaderWrapper()));
+          r4Resources.addAll(coverageTransformerV2.transform(beneficiary));
+          stu3Resources.add(
+              beneficiaryTransformer.transform(beneficiary, RequestHeaders.getHeaderWrapper()));
+          stu3Resources.addAll(coverageTransformer.transform(beneficiary));
+        } else {
+          r4Resources.add(getTransformer(claimTransformersV2, record).transform(record, true));
+          stu3Resources.add(getTransformer(claimTransformers, record).transform(record, true));
+        }
+      }
+      r4Resources.forEach(r4Parser::encodeResourceToString);
+      stu3Resources.forEach(stu3Parser::encodeResourceToString);
+      r4Resources.clear();
+      stu3Resources.clear();
+    }
+  }
+
+  /**
+   * Parses the beneficiaries and claims in the sample RIF resources, in the same way as the CCW
+   * pipeline does. Any other records, such as beneficiary histories, are skipped since they aren't
+   * transformed on their own.
+   *
+   * @param resources the sample RIF resources
+   * @return the parsed {@link Beneficiary}s and claims
+   */
+  @VisibleForTesting
+  static List<Object> parseSampleRecords(List<StaticRifResource> resources) {
+    final List<Object> records = new ArrayList<>();
+    for (StaticRifResource resource : resources) {
+      final RifFile file = resource.toRifFile();
+      final Function<RifObjectWrapper, Object> parser = createParser(file.getFileType());
+      if (parser == null) {
+        continue;
+      }
+
+      // claim lines are grouped with the other lines of the same claim
+      final boolean isGrouped =
+          file.getFileType() != RifFileType.BENEFICIARY && file.getFileType() != RifFileType.PDE;
+      try (CSVParser csvParser = RifParsingUtils.createCsvParser(file)) {
+        List<CSVRecord> group = new ArrayList<>();
+        for (CSVRecord csvRecord : csvParser) {
+          if (!group.isEmpty()
+              && (!isGrouped || !isSameClaim(file.getFileType(), group.get(0), csvRecord))) {
+            records.add(parser.apply(new RifObjectWrapper(group)));
+            group = new ArrayList<>();
+          }
+          group.add(csvRecord);
+        }
+        if (!group.isEmpty()) {
+          records.add(parser.apply(new RifObjectWrapper(group)));
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Determines whether two records are lines of the same claim.
+   *
+   * @param fileType the type of the file that the records are from
+   * @param first the first line of the claim
+   * @param record the next record in the file
+   * @return true if the record is another line of the claim
+   */
+  private static boolean isSameClaim(RifFileType fileType, CSVRecord first, CSVRecord record) {
+    final Enum<?> idColumn = fileType.getIdColumn();
+    return Objects.equals(first.get(idColumn), record.get(idColumn));
+  }
+
+  /**
+   * Creates the parser for the records of a RIF file type.
+   *
+   * @param fileType the type of the RIF file
+   * @return the parser, or null if records of the file type aren't transformed on their own
+   */
+  private static Function<RifObjectWrapper, Object> createParser(RifFileType fileType) {
+    switch (fileType) {
+      case BENEFICIARY:
+        return new BeneficiaryParser()::transformMessage;
+      case PDE:
+        return new PartDEventParser()::transformMessage;
+      case CARRIER:
+        return new CarrierClaimParser()::transformMessage;
+      case INPATIENT:
+        return new InpatientClaimParser()::transformMessage;
+      case OUTPATIENT:
+        return new OutpatientClaimParser()::transformMessage;
+      case SNF:
+        return new SNFClaimParser()::transformMessage;
+      case HOSPICE:
+        return new HospiceClaimParser()::transformMessage;
+      case HHA:
+        return new HHAClaimParser()::transformMessage;
+      case DME:
+        return new DMEClaimParser()::transformMessage;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Keys claim transformers by the claim entity class that each transforms.
+   *
+   * @param <T> the type of the claim transformers
+   * @param transformers the claim transformers
+   * @param entityClass gets the claim entity class of a transformer
+   * @return the claim transformers keyed by entity class
+   */
+  private static <T> Map<Class<?>, T> mapByEntityClass(
+      List<T> transformers, Function<T, Class<?>> entityClass) {
+    final Map<Class<?>, T> transformersByClass = new HashMap<>();
+    for (T transformer : transformers) {
+      final Class<?> claimClass = entityClass.apply(transformer);
+      Preconditions.checkArgument(
+          transformersByClass.put(claimClass, transformer) == null,
+          "more than one transformer for %s",
+          claimClass.getSimpleName());
+    }
+    return transformersByClass;
+  }
+
+  /**
+   * Gets the transformer for a claim.
+   *
+   * @param <T> the type of the claim transformers
+   * @param transformers the claim transformers keyed by entity class
+   * @param claim the claim
+   * @return the transformer
+   */
+  private static <T> T getTransformer(Map<Class<?>, T> transformers, Object claim) {
+    final T transformer = transformers.get(claim.getClass());
+    Preconditions.checkState(
+        transformer != null, "no transformer for %s", claim.getClass().getSimpleName());
+    return transformer;
+  }
+}
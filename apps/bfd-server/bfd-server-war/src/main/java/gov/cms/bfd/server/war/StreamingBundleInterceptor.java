@@ -0,0 +1,201 @@
+package gov.cms.bfd.server.war;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.ResponseDetails;
+import ca.uhn.fhir.rest.server.RestfulServerUtils;
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.DateUtils;
+import gov.cms.bfd.server.war.commons.BufferedStartWriter;
+import gov.cms.bfd.server.war.commons.StreamingBundle;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes {@link StreamingBundle} responses for large searches. Requests whose responses can be
+ * written as plain JSON are marked as supporting streaming before their handler is invoked, which
+ * allows the resource provider to return a bundle whose entries are only produced while the
+ * response is being written. Requests that ask for another format, pretty printing, or a subset of
+ * elements are left to HAPI. For more info on server pointcuts:
+ * https://hapifhir.io/hapi-fhir/docs/interceptors/server_pointcuts.html
+ */
+@Interceptor
+public class StreamingBundleInterceptor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingBundleInterceptor.class);
+
+  /** The resource types whose searches can be streamed. */
+  private static final Set<String> STREAMING_RESOURCE_TYPES = Set.of("ExplanationOfBenefit");
+
+  /** Request parameters that change how the response is encoded and so prevent streaming. */
+  private static final Set<String> NON_STREAMING_PARAMETERS =
+      Set.of(
+          Constants.PARAM_PRETTY,
+          Constants.PARAM_SUMMARY,
+          Constants.PARAM_ELEMENTS,
+          Constants.PARAM_ELEMENTS + Constants.PARAM_ELEMENTS_EXCLUDE_MODIFIER);
+
+  /**
+   * The number of characters at the start of a streamed response that are held back until they have
+   * all been produced.
+   */
+  private static final int HELD_BACK_CHARS = 64 * 1024;
+
+  /**
+   * Name of the {@link RequestDetails#getUserData()} value set once the start of a streamed
+   * response has been sent.
+   */
+  private static final String RESPONSE_STARTED_KEY =
+      StreamingBundleInterceptor.class.getName() + ".responseStarted";
+
+  /** Whether streaming is enabled at all. */
+  private final boolean enabled;
+
+  /**
+   * Instantiates a new {@link StreamingBundleInterceptor}.
+   *
+   * @param enabled whether streaming responses are enabled
+   */
+  public StreamingBundleInterceptor(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Pointcut to mark requests whose response can be streamed before their handler is invoked.
+   *
+   * @param requestDetails the request
+   * @param operationType the type of operation being performed
+   */
+  @Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED)
+  public void requestPreHandled(
+      RequestDetails requestDetails, RestOperationTypeEnum operationType) {
+    if (enabled
+        && operationType == RestOperationTypeEnum.SEARCH_TYPE
+        && STREAMING_RESOURCE_TYPES.contains(requestDetails.getResourceName())
+        && isPlainJsonResponse(requestDetails)) {
+      requestDetails.getUserData().put(StreamingBundle.STREAMING_SUPPORTED_KEY, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Pointcut to write the response of a deferred bundle. Any other response is left to HAPI.
+   *
+   * <p>The start of the response is held back until the first {@link #HELD_BACK_CHARS} characters
+   * have been produced, which covers the envelope and the first batch of entries of all but the
+   * smallest results. A failure before then is reported to the client as a normal error response. A
+   * failure after that is left to {@link #handleException}.
+   *
+   * @param requestDetails the request
+   * @param responseDetails the response
+   * @return false if the response has been written, true to let HAPI write the response
+   */
+  @Hook(Pointcut.SERVER_OUTGOING_RESPONSE)
+  public boolean serverOutgoingResponse(
+      RequestDetails requestDetails, ResponseDetails responseDetails) {
+    IBaseResource resource = responseDetails.getResponseResource();
+    Optional<StreamingBundle.EntrySource> entrySource = StreamingBundle.getEntrySource(resource);
+    if (entrySource.isEmpty()) {
+      return true;
+    }
+
+    IBaseBundle bundle = (IBaseBundle) resource;
+    IParser parser =
+        RestfulServerUtils.getNewParser(
+            requestDetails.getFhirContext(),
+            requestDetails.getFhirContext().getVersion().getVersion(),
+            requestDetails);
+    BufferedStartWriter writer =
+        new BufferedStartWriter(
+            () -> openResponseWriter(requestDetails, responseDetails, bundle), HELD_BACK_CHARS);
+    try {
+      int count = StreamingBundle.writeJson(parser, bundle, entrySource.get(), writer);
+      requestDetails.getResponse().commitResponse(writer.finish());
+      LOGGER.debug("Streamed {} bundle entries", count);
+    } catch (Exception e) {
+      throw new InternalErrorException("Failed to stream bundle entries", e);
+    }
+    return false;
+  }
+
+  /**
+   * Pointcut to abort a streamed response that failed after its start was sent. HAPI would
+   * otherwise write its error response after the part of the bundle that was already written,
+   * leaving the client with a body that won't parse, and possibly a 200 status. The exception
+   * thrown here is passed on to the servlet container instead, which discards a response that
+   * hasn't been committed yet and reports a server error, or closes the connection without
+   * completing a response that has, so the client always sees the failure.
+   *
+   * @param requestDetails the request
+   * @param exception the exception that HAPI is handling
+   * @return true to let HAPI write the error response
+   */
+  @Hook(Pointcut.SERVER_HANDLE_EXCEPTION)
+  public boolean handleException(
+      RequestDetails requestDetails, BaseServerResponseException exception) {
+    if (!Boolean.TRUE.equals(requestDetails.getUserData().get(RESPONSE_STARTED_KEY))) {
+      return true;
+    }
+    LOGGER.error("Aborting a streamed response that failed after it was started", exception);
+    throw new IllegalStateException("Streamed response failed after it was started", exception);
+  }
+
+  /**
+   * Opens the writer of a streamed response, once the start of the response has been produced.
+   *
+   * @param requestDetails the request
+   * @param responseDetails the response
+   * @param bundle the bundle being written
+   * @return the {@link Writer} of the response
+   * @throws IOException if the writer couldn't be opened
+   */
+  private static Writer openResponseWriter(
+      RequestDetails requestDetails, ResponseDetails responseDetails, IBaseBundle bundle)
+      throws IOException {
+    Date lastUpdated = bundle.getMeta().getLastUpdated();
+    if (lastUpdated != null) {
+      requestDetails
+          .getResponse()
+          .addHeader(Constants.HEADER_LAST_MODIFIED, DateUtils.formatDate(lastUpdated));
+    }
+    requestDetails.getUserData().put(RESPONSE_STARTED_KEY, Boolean.TRUE);
+    return requestDetails
+        .getResponse()
+        .getResponseWriter(
+            responseDetails.getResponseCode(),
+            RestfulServerUtils.determineResponseEncodingWithDefault(requestDetails)
+                .getResourceContentType(),
+            Constants.CHARSET_NAME_UTF8,
+            RestfulServerUtils.respondGzip(requestDetails));
+  }
+
+  /**
+   * Determines whether the response to a request would be encoded as compact JSON containing every
+   * element, which is the only form written by {@link StreamingBundle#writeJson}.
+   *
+   * @param requestDetails the request
+   * @return true if the response can be streamed
+   */
+  private static boolean isPlainJsonResponse(RequestDetails requestDetails) {
+    Map<String, String[]> parameters = requestDetails.getParameters();
+    if (parameters != null
+        && parameters.keySet().stream().anyMatch(NON_STREAMING_PARAMETERS::contains)) {
+      return false;
+    }
+    return RestfulServerUtils.determineResponseEncodingWithDefault(requestDetails).getEncoding()
+        == EncodingEnum.JSON;
+  }
+}
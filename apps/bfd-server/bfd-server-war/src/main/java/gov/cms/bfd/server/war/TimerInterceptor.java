@@ -10,6 +10,10 @@ import gov.cms.bfd.server.sharedutils.BfdMDC;
  * Pre-handling and outgoing response in the BFD API call lifecycle can be generated and logged
  * {@link BfdMDC}. For more info on server pointcuts:
  * https://hapifhir.io/hapi-fhir/docs/interceptors/server_pointcuts.html
+ *
+ * <p>The pre-handled, outgoing response and processing completed pointcuts also mark the current
+ * {@link RequestTimings}, which separate the time spent handling a request from the time spent
+ * serializing its response.
  */
 @Interceptor
 public class TimerInterceptor {
@@ -40,6 +44,7 @@ public class TimerInterceptor {
     Long currentTime = System.currentTimeMillis();
     BfdMDC.put(
         "hapi.server_incoming_request_pre_handle_timestamp_in_millis", Long.toString(currentTime));
+    RequestTimings.current().ifPresent(timings -> timings.markHandlerStarted(System.nanoTime()));
   }
 
   /** Pointcut to log timestamp in milliseconds when a request has an outgoing response. */
@@ -48,6 +53,7 @@ public class TimerInterceptor {
     // log current instance to MDC
     Long currentTime = System.currentTimeMillis();
     BfdMDC.put("hapi.server_outgoing_response_timestamp_in_millis", Long.toString(currentTime));
+    RequestTimings.current().ifPresent(timings -> timings.markResponseReady(System.nanoTime()));
   }
 
   /** Pointcut to log timestamp in milliseconds when a request has completed processing normally. */
@@ -66,5 +72,6 @@ public class TimerInterceptor {
     // log current instance to MDC
     Long currentTime = System.currentTimeMillis();
     BfdMDC.put("hapi.server_processing_completed_timestamp_in_millis", Long.toString(currentTime));
+    RequestTimings.current().ifPresent(timings -> timings.markCompleted(System.nanoTime()));
   }
 }
@@ -125,6 +125,13 @@ public class V2Server extends RestfulServer {
     // executed
     registerInterceptor(new TimerInterceptor());
 
+    // Registers the HAPI interceptor that answers conditional requests, which has to see the
+    // response before it can be streamed
+    registerInterceptor(springContext.getBean(ConditionalRequestInterceptor.class));
+
+    // Registers the HAPI interceptor that writes large search results as they are produced
+    registerInterceptor(springContext.getBean(StreamingBundleInterceptor.class));
+
     // OpenAPI
     OpenApiInterceptor openApiInterceptor = new OpenApiInterceptor();
     registerInterceptor(openApiInterceptor);
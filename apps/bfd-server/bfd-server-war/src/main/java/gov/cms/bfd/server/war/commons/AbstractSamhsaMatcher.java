@@ -1,6 +1,8 @@
 package gov.cms.bfd.server.war.commons;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
 import gov.cms.bfd.server.war.adapters.CodeableConcept;
 import gov.cms.bfd.server.war.adapters.Coding;
@@ -15,9 +17,13 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.hl7.fhir.exceptions.FHIRException;
@@ -31,6 +37,9 @@ import org.hl7.fhir.exceptions.FHIRException;
  * <p>Individual implementations of this class will define specifically which resource/version is
  * being checked, and what attributes are checked for it.
  *
+ * <p>The code lists are compiled into {@link SamhsaCodeSet}s, which normalize codes as they are
+ * looked up. The lists loaded from the classpath are compiled once and shared by every matcher.
+ *
  * @param <T> The FHIR resource type being checked.
  */
 public abstract class AbstractSamhsaMatcher<T> implements Predicate<T> {
@@ -42,55 +51,51 @@ public abstract class AbstractSamhsaMatcher<T> implements Predicate<T> {
   protected static final String DRG =
       CCWUtils.calculateVariableReferenceUrl(CcwCodebookVariable.CLM_DRG_CD);
 
+  /**
+   * The infixes of the claim entity diagnosis getters (e.g. {@code getDiagnosis1Code}) examined by
+   * {@link #containsSamhsaEntityDiagnosisCode}. Every claim transformer maps all of these fields
+   * that exist on its claim entity into the {@link DiagnosisComponent}s of the EOB.
+   */
+  private static final List<String> ENTITY_DIAGNOSIS_NAMES =
+      Stream.concat(Stream.of("Principal"), IntStream.rangeClosed(1, 25).mapToObj(String::valueOf))
+          .collect(Collectors.toUnmodifiableList());
+
+  /** The number of ICD procedure fields in a claim entity. */
+  private static final int ENTITY_PROCEDURE_COUNT = 25;
+
+  /**
+   * The code sets compiled from the classpath, in the order DRG, CPT, ICD9 procedure, ICD9
+   * diagnosis, ICD10 procedure and ICD10 diagnosis. They are loaded by the first matcher that is
+   * constructed.
+   */
+  private static final Supplier<List<SamhsaCodeSet>> resourceCodeSets =
+      Suppliers.memoize(AbstractSamhsaMatcher::loadResourceCodeSets);
+
   /** The list of DRG codes. */
-  private final Set<String> drgCodes;
+  private final SamhsaCodeSet drgCodes;
   /** The list of CPT codes. */
-  private final Set<String> cptCodes;
+  private final SamhsaCodeSet cptCodes;
   /** The list of ICD9 Procedure codes. */
-  private final Set<String> icd9ProcedureCodes;
+  private final SamhsaCodeSet icd9ProcedureCodes;
   /** The list of ICD9 Diagnosis codes. */
-  private final Set<String> icd9DiagnosisCodes;
+  private final SamhsaCodeSet icd9DiagnosisCodes;
   /** The list of ICD10 Procedure codes. */
-  private final Set<String> icd10ProcedureCodes;
+  private final SamhsaCodeSet icd10ProcedureCodes;
   /** The list of ICD10 Diagnosis codes. */
-  private final Set<String> icd10DiagnosisCodes;
+  private final SamhsaCodeSet icd10DiagnosisCodes;
 
   /**
-   * Constructs a new {@link AbstractSamhsaMatcher}, loading the lists of SAMHSA-related codes from
-   * the classpath. The list data is normalized as it is loaded.
+   * Constructs a new {@link AbstractSamhsaMatcher}, using the lists of SAMHSA-related codes from
+   * the classpath.
    */
   protected AbstractSamhsaMatcher() {
-    this.drgCodes =
-        resourceCsvColumnToList("samhsa-related-codes/codes-drg.csv", "MS-DRGs").stream()
-            .map(AbstractSamhsaMatcher::normalizeDrgCode)
-            .collect(Collectors.toUnmodifiableSet());
-    this.cptCodes =
-        resourceCsvColumnToList("samhsa-related-codes/codes-cpt.csv", "CPT Code").stream()
-            .map(AbstractSamhsaMatcher::normalizeHcpcsCode)
-            .collect(Collectors.toUnmodifiableSet());
-    this.icd9ProcedureCodes =
-        resourceCsvColumnToList("samhsa-related-codes/codes-icd-9-procedure.csv", "ICD-9-CM")
-            .stream()
-            .map(AbstractSamhsaMatcher::normalizeIcdCode)
-            .collect(Collectors.toUnmodifiableSet());
-    this.icd9DiagnosisCodes =
-        resourceCsvColumnToList(
-                "samhsa-related-codes/codes-icd-9-diagnosis.csv", "ICD-9-CM Diagnosis Code")
-            .stream()
-            .map(AbstractSamhsaMatcher::normalizeIcdCode)
-            .collect(Collectors.toUnmodifiableSet());
-    this.icd10ProcedureCodes =
-        resourceCsvColumnToList(
-                "samhsa-related-codes/codes-icd-10-procedure.csv", "ICD-10-PCS Code")
-            .stream()
-            .map(AbstractSamhsaMatcher::normalizeIcdCode)
-            .collect(Collectors.toUnmodifiableSet());
-    this.icd10DiagnosisCodes =
-        resourceCsvColumnToList(
-                "samhsa-related-codes/codes-icd-10-diagnosis.csv", "ICD-10-CM Diagnosis Code")
-            .stream()
-            .map(AbstractSamhsaMatcher::normalizeIcdCode)
-            .collect(Collectors.toUnmodifiableSet());
+    final List<SamhsaCodeSet> codeSets = resourceCodeSets.get();
+    this.drgCodes = codeSets.get(0);
+    this.cptCodes = codeSets.get(1);
+    this.icd9ProcedureCodes = codeSets.get(2);
+    this.icd9DiagnosisCodes = codeSets.get(3);
+    this.icd10ProcedureCodes = codeSets.get(4);
+    this.icd10DiagnosisCodes = codeSets.get(5);
   }
 
   /**
@@ -110,12 +115,64 @@ public abstract class AbstractSamhsaMatcher<T> implements Predicate<T> {
       Set<String> icd9DiagnosisCodes,
       Set<String> icd10ProcedureCodes,
       Set<String> icd10DiagnosisCodes) {
-    this.cptCodes = cptCodes;
-    this.drgCodes = drgCodes;
-    this.icd9ProcedureCodes = icd9ProcedureCodes;
-    this.icd9DiagnosisCodes = icd9DiagnosisCodes;
-    this.icd10ProcedureCodes = icd10ProcedureCodes;
-    this.icd10DiagnosisCodes = icd10DiagnosisCodes;
+    this.cptCodes = SamhsaCodeSet.of(cptCodes);
+    this.drgCodes = SamhsaCodeSet.of(drgCodes);
+    this.icd9ProcedureCodes = SamhsaCodeSet.of(icd9ProcedureCodes);
+    this.icd9DiagnosisCodes = SamhsaCodeSet.of(icd9DiagnosisCodes);
+    this.icd10ProcedureCodes = SamhsaCodeSet.of(icd10ProcedureCodes);
+    this.icd10DiagnosisCodes = SamhsaCodeSet.of(icd10DiagnosisCodes);
+  }
+
+  /**
+   * Loads the lists of SAMHSA-related codes from the classpath, normalizing them and compiling them
+   * into {@link SamhsaCodeSet}s.
+   *
+   * @return the DRG, CPT, ICD9 procedure, ICD9 diagnosis, ICD10 procedure and ICD10 diagnosis code
+   *     sets
+   */
+  private static List<SamhsaCodeSet> loadResourceCodeSets() {
+    return List.of(
+        loadResourceCodeSet(
+            "samhsa-related-codes/codes-drg.csv",
+            "MS-DRGs",
+            AbstractSamhsaMatcher::normalizeDrgCode),
+        loadResourceCodeSet(
+            "samhsa-related-codes/codes-cpt.csv",
+            "CPT Code",
+            AbstractSamhsaMatcher::normalizeHcpcsCode),
+        loadResourceCodeSet(
+            "samhsa-related-codes/codes-icd-9-procedure.csv",
+            "ICD-9-CM",
+            AbstractSamhsaMatcher::normalizeIcdCode),
+        loadResourceCodeSet(
+            "samhsa-related-codes/codes-icd-9-diagnosis.csv",
+            "ICD-9-CM Diagnosis Code",
+            AbstractSamhsaMatcher::normalizeIcdCode),
+        loadResourceCodeSet(
+            "samhsa-related-codes/codes-icd-10-procedure.csv",
+            "ICD-10-PCS Code",
+            AbstractSamhsaMatcher::normalizeIcdCode),
+        loadResourceCodeSet(
+            "samhsa-related-codes/codes-icd-10-diagnosis.csv",
+            "ICD-10-CM Diagnosis Code",
+            AbstractSamhsaMatcher::normalizeIcdCode));
+  }
+
+  /**
+   * Loads a list of SAMHSA-related codes from the classpath, normalizing them and compiling them
+   * into a {@link SamhsaCodeSet}.
+   *
+   * @param csvResourceName the classpath resource name of the CSV file to parse
+   * @param columnToReturn the name of the column that holds the codes
+   * @param normalizer normalizes each code
+   * @return the compiled codes
+   */
+  private static SamhsaCodeSet loadResourceCodeSet(
+      String csvResourceName, String columnToReturn, UnaryOperator<String> normalizer) {
+    return SamhsaCodeSet.of(
+        resourceCsvColumnToList(csvResourceName, columnToReturn).stream()
+            .map(normalizer)
+            .collect(Collectors.toUnmodifiableSet()));
   }
 
   /**
@@ -174,6 +231,134 @@ public abstract class AbstractSamhsaMatcher<T> implements Predicate<T> {
     return items.stream().anyMatch(c -> containsSamhsaProcedureCode(c.getProductOrService()));
   }
 
+  /**
+   * Checks if any of the ICD diagnosis codes of a claim entity is SAMHSA-related. This is used to
+   * screen claims before they are transformed, so it only returns <code>true</code> for codes that
+   * are certain to make {@link #containsSamhsaIcdDiagnosisCode} match the transformed EOB.
+   *
+   * @param claimEntity the claim entity to check
+   * @return <code>true</code> if any diagnosis code matches the {@link #icd9DiagnosisCodes} or
+   *     {@link #icd10DiagnosisCodes} for its ICD version or has an unknown ICD version
+   */
+  protected boolean containsSamhsaEntityDiagnosisCode(Object claimEntity) {
+    return ENTITY_DIAGNOSIS_NAMES.stream()
+        .anyMatch(
+            name ->
+                isSamhsaEntityIcdCode(
+                    ReflectionUtils.tryMethod(claimEntity, "getDiagnosis" + name + "Code"),
+                    ReflectionUtils.tryMethod(claimEntity, "getDiagnosis" + name + "CodeVersion"),
+                    icd9DiagnosisCodes,
+                    icd10DiagnosisCodes));
+  }
+
+  /**
+   * Checks if any of the ICD procedure codes of a claim entity is SAMHSA-related. This is used to
+   * screen claims before they are transformed, so it only returns <code>true</code> for codes that
+   * are certain to make {@link #containsSamhsaIcdProcedureCode} match the transformed EOB.
+   *
+   * @param claimEntity the claim entity to check
+   * @return <code>true</code> if any procedure code matches the {@link #icd9ProcedureCodes} or
+   *     {@link #icd10ProcedureCodes} for its ICD version or has an unknown ICD version
+   */
+  protected boolean containsSamhsaEntityProcedureCode(Object claimEntity) {
+    return IntStream.rangeClosed(1, ENTITY_PROCEDURE_COUNT)
+        .anyMatch(
+            i ->
+                isSamhsaEntityIcdCode(
+                    ReflectionUtils.tryMethod(claimEntity, "getProcedure" + i + "Code"),
+                    ReflectionUtils.tryMethod(claimEntity, "getProcedure" + i + "CodeVersion"),
+                    icd9ProcedureCodes,
+                    icd10ProcedureCodes));
+  }
+
+  /**
+   * Checks if the HCPCS code of any line of a claim entity is a SAMHSA-related CPT code. Every
+   * claim transformer maps the line HCPCS code into the HCPCS coding system, so a match here is
+   * certain to make {@link #containsSamhsaLineItem} match the transformed EOB.
+   *
+   * @param claimEntity the claim entity to check
+   * @return <code>true</code> if any line's HCPCS code matches the {@link #cptCodes}
+   */
+  protected boolean containsSamhsaEntityLineItem(Object claimEntity) {
+    // claims without lines have nothing to check
+    final Object lines = ReflectionUtils.tryGetter(claimEntity, "getLines").orElse(null);
+    if (!(lines instanceof List)) {
+      return false;
+    }
+    for (Object line : (List<?>) lines) {
+      Optional<String> hcpcsCode = ReflectionUtils.tryMethod(line, "getHcpcsCode");
+      if (hcpcsCode.isPresent() && isSamhsaHcpcsCode(hcpcsCode.get())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if a raw ICD code from a claim entity is SAMHSA-related. The ICD version is interpreted
+   * the same way {@link IcdCode#getFhirSystem()} does when the code is transformed, including
+   * treating unknown versions as SAMHSA-related just as {@link #isSamhsaCoding} does.
+   *
+   * @param code the ICD code, if any
+   * @param version the CCW encoding of the code's ICD version, if any
+   * @param icd9Codes the SAMHSA codes to use for ICD-9 codes
+   * @param icd10Codes the SAMHSA codes to use for ICD-10 codes
+   * @return <code>true</code> if the code is SAMHSA-related, <code>false</code> otherwise
+   */
+  private static boolean isSamhsaEntityIcdCode(
+      Optional<String> code,
+      Optional<Character> version,
+      SamhsaCodeSet icd9Codes,
+      SamhsaCodeSet icd10Codes) {
+    if (code.isEmpty()) {
+      return false;
+    }
+    if (version.isEmpty() || version.get().equals('9')) {
+      return icd9Codes.containsIcdCode(code.get());
+    } else if (version.get().equals('0')) {
+      return icd10Codes.containsIcdCode(code.get());
+    } else {
+      // Fail safe: if we don't know the ICD version, assume the code is SAMHSA.
+      return true;
+    }
+  }
+
+  /**
+   * Checks if a raw HCPCS code from a claim entity is a SAMHSA-related CPT code.
+   *
+   * @param hcpcsCode the HCPCS code to check
+   * @return <code>true</code> if the code matches one of the {@link #cptCodes} entries
+   */
+  protected boolean isSamhsaHcpcsCode(String hcpcsCode) {
+    return cptCodes.containsHcpcsCode(hcpcsCode);
+  }
+
+  /**
+   * Checks if a raw ICD diagnosis code from a claim entity is SAMHSA-related.
+   *
+   * @param icdCode the ICD code to check
+   * @param icd9 <code>true</code> if the code is an ICD-9 code, <code>false</code> if it is an
+   *     ICD-10 code
+   * @return <code>true</code> if the code matches one of the {@link #icd9DiagnosisCodes} or {@link
+   *     #icd10DiagnosisCodes} entries for its ICD version
+   */
+  protected boolean isSamhsaIcdDiagnosisCode(String icdCode, boolean icd9) {
+    return (icd9 ? icd9DiagnosisCodes : icd10DiagnosisCodes).containsIcdCode(icdCode);
+  }
+
+  /**
+   * Checks if a raw ICD procedure code from a claim entity is SAMHSA-related.
+   *
+   * @param icdCode the ICD code to check
+   * @param icd9 <code>true</code> if the code is an ICD-9 code, <code>false</code> if it is an
+   *     ICD-10 code
+   * @return <code>true</code> if the code matches one of the {@link #icd9ProcedureCodes} or {@link
+   *     #icd10ProcedureCodes} entries for its ICD version
+   */
+  protected boolean isSamhsaIcdProcedureCode(String icdCode, boolean icd9) {
+    return (icd9 ? icd9ProcedureCodes : icd10ProcedureCodes).containsIcdCode(icdCode);
+  }
+
   /**
    * Checks if the given {@link ProcedureComponent} contains SAMHSA data.
    *
@@ -417,11 +602,27 @@ public abstract class AbstractSamhsaMatcher<T> implements Predicate<T> {
    */
   @VisibleForTesting
   boolean isSamhsaCodingForSystem(Coding coding, Set<String> samhsaCodes, String requiredSystem) {
+    return isSamhsaCodingForSystem(coding, SamhsaCodeSet.of(samhsaCodes), requiredSystem);
+  }
+
+  /**
+   * Checks if the given {@link Coding} is in the given {@link SamhsaCodeSet}.
+   *
+   * @param coding The {@link Coding} to check.
+   * @param samhsaCodes The {@link SamhsaCodeSet} of defined SAMHSA codes to compare against.
+   * @param requiredSystem The expected {@link Coding} system of the given {@link Coding}.
+   * @return <code>true</code> if the given {@link SamhsaCodeSet} includes the given {@link Coding}
+   *     code. <code>false</code> otherwise.
+   * @throws IllegalArgumentException if the given {@link Coding} system is not the same as the
+   *     given requiredSystem
+   */
+  private boolean isSamhsaCodingForSystem(
+      Coding coding, SamhsaCodeSet samhsaCodes, String requiredSystem) {
     if (!requiredSystem.equals(coding.getSystem())) {
       throw new IllegalArgumentException("Illegal coding system: '" + coding.getSystem() + "'");
     }
 
-    return coding.getCode() != null && samhsaCodes.contains(normalizeIcdCode(coding.getCode()));
+    return coding.getCode() != null && samhsaCodes.containsIcdCode(coding.getCode());
   }
 
   /**
@@ -435,7 +636,7 @@ public abstract class AbstractSamhsaMatcher<T> implements Predicate<T> {
     /*
      * Note: per XXX all codes in icd10DiagnosisCodes are already normalized.
      */
-    return coding.getCode() != null && cptCodes.contains(normalizeHcpcsCode(coding.getCode()));
+    return coding.getCode() != null && cptCodes.containsHcpcsCode(coding.getCode());
   }
 
   /**
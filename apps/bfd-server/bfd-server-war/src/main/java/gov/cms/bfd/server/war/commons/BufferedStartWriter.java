@@ -0,0 +1,137 @@
+package gov.cms.bfd.server.war.commons;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that holds back the start of what is written to it, and only opens the {@link
+ * Writer} it is meant for once a given number of characters has been written or it is {@link
+ * #finish finished}. Everything written after that is passed straight through.
+ *
+ * <p>Used to write responses whose status can't be changed once their first bytes are sent, so that
+ * a failure while producing the start of the response can still be reported as an error.
+ */
+public final class BufferedStartWriter extends Writer {
+  /** Opens the {@link Writer} that the characters are meant for. */
+  @FunctionalInterface
+  public interface Opener {
+    /**
+     * Opens the {@link Writer}.
+     *
+     * @return the {@link Writer}
+     * @throws IOException if the {@link Writer} couldn't be opened
+     */
+    Writer open() throws IOException;
+  }
+
+  /** Opens the {@link #target}. */
+  private final Opener opener;
+
+  /** The number of characters held back before the {@link #target} is opened. */
+  private final int bufferLimit;
+
+  /** The characters held back, or null once the {@link #target} has been opened. */
+  private StringBuilder buffer;
+
+  /** The {@link Writer} the characters are meant for, or null until it has been opened. */
+  private Writer target;
+
+  /**
+   * Instantiates a new {@link BufferedStartWriter}.
+   *
+   * @param opener opens the {@link Writer} the characters are meant for
+   * @param bufferLimit the number of characters held back before the {@link Writer} is opened
+   */
+  public BufferedStartWriter(Opener opener, int bufferLimit) {
+    Preconditions.checkNotNull(opener);
+    Preconditions.checkArgument(bufferLimit >= 0, "bufferLimit must not be negative");
+    this.opener = opener;
+    this.bufferLimit = bufferLimit;
+    this.buffer = new StringBuilder();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    if (target != null) {
+      target.write(cbuf, off, len);
+      return;
+    }
+    buffer.append(cbuf, off, len);
+    if (buffer.length() >= bufferLimit) {
+      open();
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    if (target != null) {
+      target.write(str, off, len);
+      return;
+    }
+    buffer.append(str, off, off + len);
+    if (buffer.length() >= bufferLimit) {
+      open();
+    }
+  }
+
+  /**
+   * Flushes the {@link Writer} the characters are meant for if it has been opened. Characters that
+   * are still held back stay held back.
+   *
+   * @throws IOException if flushing failed
+   */
+  @Override
+  public void flush() throws IOException {
+    if (target != null) {
+      target.flush();
+    }
+  }
+
+  /**
+   * Finishes writing and closes the {@link Writer} the characters are meant for.
+   *
+   * @throws IOException if writing or closing failed
+   */
+  @Override
+  public void close() throws IOException {
+    finish().close();
+  }
+
+  /**
+   * Determines whether the {@link Writer} the characters are meant for has been opened, after which
+   * the start of what was written can no longer be taken back.
+   *
+   * @return true if the {@link Writer} has been opened
+   */
+  public boolean isOpened() {
+    return target != null;
+  }
+
+  /**
+   * Opens the {@link Writer} the characters are meant for if it hasn't been opened yet, and passes
+   * on any characters that are still held back.
+   *
+   * @return the {@link Writer} the characters are meant for
+   * @throws IOException if the {@link Writer} couldn't be opened or written to
+   */
+  public Writer finish() throws IOException {
+    if (target == null) {
+      open();
+    }
+    return target;
+  }
+
+  /**
+   * Opens the {@link #target} and passes on the characters held back.
+   *
+   * @throws IOException if the {@link #target} couldn't be opened or written to
+   */
+  private void open() throws IOException {
+    target = opener.open();
+    target.append(buffer);
+    buffer = null;
+  }
+}
@@ -15,6 +15,6 @@ public class CCWUtils {
     return String.format(
         "%s/%s",
         TransformerConstants.BASE_URL_CCW_VARIABLES,
-        ccwVariable.getVariable().getId().toLowerCase());
+        ccwVariable.getId().toLowerCase());
   }
 }
@@ -0,0 +1,159 @@
+package gov.cms.bfd.server.war.commons;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Preconditions;
+import java.time.Instant;
+import java.util.function.LongToIntFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded in-process cache of the claim availability masks (see {@link
+ * QueryUtils#availableClaimsData}) of individual beneficiaries.
+ *
+ * <p>The cache is a direct mapped table held in two primitive arrays so that it needs no objects
+ * per entry: each slot holds a beneficiary id and a packed value containing the mask and the
+ * {@link LoadedFilterManager#getTransactionTime()} that was current when the mask was queried. A
+ * beneficiary whose slot is taken by another beneficiary simply replaces it. A mask is only used
+ * while the {@link LoadedFilterManager} can prove that no load batch created after that time
+ * contains the beneficiary.
+ *
+ * <p>The cache is disabled when its maximum size is zero, which is the default.
+ */
+@Component
+public class ClaimAvailabilityCache {
+  /** Number of locks guarding the slots. Must be a power of two. */
+  private static final int LOCK_STRIPES = 64;
+
+  /** Number of low bits of a packed value used to hold the mask and the occupied flag. */
+  private static final int MASK_BITS = 9;
+
+  /** Used to determine whether the beneficiary of an entry has been updated. */
+  private final LoadedFilterManager loadedFilterManager;
+
+  /** The beneficiary id of each slot. */
+  private final long[] beneficiaryIds;
+
+  /**
+   * The packed value of each slot. Bit 0 is set for occupied slots, bits 1 to 8 hold the mask, and
+   * the remaining bits hold the epoch milliseconds at which the mask was known to be current.
+   */
+  private final long[] values;
+
+  /** Locks guarding the slots, selected by the low bits of the slot index. */
+  private final Object[] locks;
+
+  /** Lookups that were answered from the cache. */
+  private final Meter hits;
+
+  /** Lookups that were not found in the cache. */
+  private final Meter misses;
+
+  /** Entries that were discarded because their beneficiary was updated. */
+  private final Meter invalidations;
+
+  /**
+   * Instantiates a new {@link ClaimAvailabilityCache}.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param loadedFilterManager the loaded filter manager bean
+   * @param metricRegistry the metric registry bean
+   * @param maxEntries the maximum number of beneficiaries held by the cache, zero to disable the
+   *     cache; rounded up to a power of two
+   */
+  public ClaimAvailabilityCache(
+      LoadedFilterManager loadedFilterManager,
+      MetricRegistry metricRegistry,
+      @Value("${bfdServer.claimAvailabilityCache.maxEntries:0}") int maxEntries) {
+    Preconditions.checkArgument(maxEntries >= 0, "maxEntries cannot be negative");
+    Preconditions.checkArgument(maxEntries <= (1 << 30), "maxEntries is too large");
+    this.loadedFilterManager = loadedFilterManager;
+    int capacity = maxEntries <= 1 ? maxEntries : Integer.highestOneBit(maxEntries - 1) << 1;
+    beneficiaryIds = new long[capacity];
+    values = new long[capacity];
+    locks = new Object[Math.min(LOCK_STRIPES, Math.max(capacity, 1))];
+    for (int i = 0; i < locks.length; ++i) {
+      locks[i] = new Object();
+    }
+
+    hits = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "hits"));
+    misses = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "misses"));
+    invalidations =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "invalidations"));
+  }
+
+  /**
+   * Determines whether masks are cached at all.
+   *
+   * @return true if the cache is enabled
+   */
+  public boolean isEnabled() {
+    return values.length > 0;
+  }
+
+  /**
+   * Gets the claim availability mask of a beneficiary, either from the cache or by calling the
+   * provided lookup function and caching its result.
+   *
+   * @param beneficiaryId the beneficiary
+   * @param lookup queries the mask from the database, normally {@link
+   *     QueryUtils#availableClaimsData}
+   * @return the mask
+   */
+  public int getAvailableClaims(long beneficiaryId, LongToIntFunction lookup) {
+    if (!isEnabled()) {
+      return lookup.applyAsInt(beneficiaryId);
+    }
+
+    final int slot = slotOf(beneficiaryId);
+    long value;
+    synchronized (lockOf(slot)) {
+      value = beneficiaryIds[slot] == beneficiaryId ? values[slot] : 0L;
+    }
+    if ((value & 1L) != 0) {
+      Instant loadedThrough = Instant.ofEpochMilli(value >>> MASK_BITS);
+      if (!loadedFilterManager.isUpdatedSince(beneficiaryId, loadedThrough)) {
+        hits.mark();
+        return (int) ((value >>> 1) & 0xFF);
+      }
+      invalidations.mark();
+    }
+    misses.mark();
+
+    /*
+     * Truncating the transaction time to milliseconds can only make it earlier, which makes the
+     * entry invalidated sooner rather than later.
+     */
+    long loadedThroughMillis = loadedFilterManager.getTransactionTime().toEpochMilli();
+    int mask = lookup.applyAsInt(beneficiaryId);
+    synchronized (lockOf(slot)) {
+      beneficiaryIds[slot] = beneficiaryId;
+      values[slot] = (loadedThroughMillis << MASK_BITS) | ((mask & 0xFFL) << 1) | 1L;
+    }
+    return mask;
+  }
+
+  /**
+   * Computes the slot of a beneficiary by spreading the bits of its id.
+   *
+   * @param beneficiaryId the beneficiary
+   * @return the index of its slot
+   */
+  private int slotOf(long beneficiaryId) {
+    long hash = beneficiaryId * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & (values.length - 1);
+  }
+
+  /**
+   * Gets the lock guarding a slot.
+   *
+   * @param slot the index of the slot
+   * @return the lock
+   */
+  private Object lockOf(int slot) {
+    return locks[slot & (locks.length - 1)];
+  }
+}
@@ -0,0 +1,119 @@
+package gov.cms.bfd.server.war.commons;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Holds the diagnosis, procedure and NPI code display tables that are read from the {@code
+ * DGNS_CD.txt}, {@code PRCDR_CD.txt} and {@code NPI_Coded_Display_Values_Tab.txt} resources (see
+ * the README in src/main/resources). Each table is a {@link SortedLookupStore} that is loaded once,
+ * the first time it is needed, and then shared by the STU3 and R4 transformers.
+ */
+public final class CodeDisplayLookups {
+  /** The name of the diagnosis code resource. */
+  public static final String ICD_RESOURCE = "DGNS_CD.txt";
+
+  /** The name of the procedure code resource. */
+  public static final String PROCEDURE_RESOURCE = "PRCDR_CD.txt";
+
+  /** The name of the NPI code resource. */
+  public static final String NPI_RESOURCE = "NPI_Coded_Display_Values_Tab.txt";
+
+  /** Splits the columns of a line. */
+  private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+  /**
+   * The diagnosis codes, whose first column is {@code DGNS_DESC} (e.g. HEADACHE for code 7840). The
+   * memoized supplier loads it once, and tries again on the next lookup if loading fails.
+   */
+  private static final Supplier<SortedLookupStore> icdCodes =
+      Suppliers.memoize(() -> SortedLookupStore.fromResource(ICD_RESOURCE, true));
+
+  /**
+   * The procedure codes, whose first column is {@code PRCDR_DESC} (e.g. INJECT TENDON OF HAND for
+   * code 8295).
+   */
+  private static final Supplier<SortedLookupStore> procedureCodes =
+      Suppliers.memoize(() -> SortedLookupStore.fromResource(PROCEDURE_RESOURCE, true));
+
+  /** The NPI codes, whose columns hold the organization or provider's name. */
+  private static final Supplier<SortedLookupStore> npiCodes =
+      Suppliers.memoize(() -> SortedLookupStore.fromResource(NPI_RESOURCE, true));
+
+  /** Prevents instantiation of this utility class. */
+  private CodeDisplayLookups() {}
+
+  /**
+   * Finds the display value of a diagnosis code.
+   *
+   * @param icdCode the diagnosis code
+   * @return the display value, or empty if the code isn't in the table
+   */
+  public static Optional<String> getIcdCodeDisplay(String icdCode) {
+    return icdCodes.get().get(icdCode).map(CodeDisplayLookups::firstColumn);
+  }
+
+  /**
+   * Finds the display value of a procedure code.
+   *
+   * @param procedureCode the procedure code
+   * @return the display value, or empty if the code isn't in the table
+   */
+  public static Optional<String> getProcedureCodeDisplay(String procedureCode) {
+    return procedureCodes.get().get(procedureCode).map(CodeDisplayLookups::firstColumn);
+  }
+
+  /**
+   * Finds the display value of an NPI code, which is its organization name if it has one, and
+   * otherwise the provider's full name and credential.
+   *
+   * @param npiCode the NPI code
+   * @return the display value, or empty if the code isn't in the table
+   */
+  public static Optional<String> getNpiCodeDisplay(String npiCode) {
+    return npiCodes.get().get(npiCode).map(CodeDisplayLookups::npiDisplay);
+  }
+
+  /**
+   * Gets the first column of the columns that follow a key.
+   *
+   * @param columns the tab separated columns
+   * @return the first column
+   */
+  private static String firstColumn(String columns) {
+    final int end = columns.indexOf('\t');
+    return end < 0 ? columns : columns.substring(0, end);
+  }
+
+  /**
+   * Builds the display value of an NPI code from the columns that follow it. Since the NPI code
+   * itself is the key, columns[3] here is the NPI organization name, columns[7] is the provider
+   * name prefix, columns[5] is the first name, columns[6] is the middle name, columns[4] is the
+   * last name, columns[8] is the name suffix, and columns[9] is the provider credential.
+   *
+   * @param columns the tab separated columns
+   * @return the display value
+   */
+  private static String npiDisplay(String columns) {
+    final List<String> npiColumns = TAB_SPLITTER.splitToList(columns);
+    if (!npiColumns.get(3).isEmpty()) {
+      return npiColumns.get(3).replace("\"", "").trim();
+    }
+    final String npiDisplayName =
+        npiColumns.get(7).trim()
+            + " "
+            + npiColumns.get(5).trim()
+            + " "
+            + npiColumns.get(6).trim()
+            + " "
+            + npiColumns.get(4).trim()
+            + " "
+            + npiColumns.get(8).trim()
+            + " "
+            + npiColumns.get(9).trim();
+    return npiDisplayName.replace("  ", " ").trim();
+  }
+}
@@ -0,0 +1,288 @@
+package gov.cms.bfd.server.war.commons;
+
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
+
+/**
+ * Determines which claims belong on a single page of an EOB search without loading and transforming
+ * every claim of the beneficiary. Only lightweight sort keys are read from each claim table. The
+ * sorted keys of every claim type are combined using a k-way merge to find the members of the
+ * requested page, after which only those claims need to be loaded and transformed.
+ *
+ * <p>Keys are ordered by the string form of the claim id and then by claim type, which is the same
+ * order the resource providers use when sorting transformed EOBs. The total and last updated time
+ * of the page cover every matching claim so bundles built from a page match those built from the
+ * full result.
+ */
+public final class EobPager {
+  /** preclude construction from outsiders. */
+  private EobPager() {}
+
+  /**
+   * Queries the sort keys of every claim of one type that belongs to the beneficiary.
+   *
+   * @param <T> the claim type enum
+   * @param entityManager used to run the query
+   * @param claimType the claim type stored in each key
+   * @param entityClass the JPA entity class of the claim type
+   * @param idAttribute the claim id attribute of the entity
+   * @param beneficiaryIdAttribute the beneficiary id attribute of the entity
+   * @param serviceEndAttributeName the name of the service end date attribute of the entity
+   * @param beneficiaryId the beneficiary to query
+   * @param lastUpdated optional range that the claim's lastUpdated must fall within
+   * @param serviceDate optional range that the claim's service end date must fall within
+   * @return the keys in no particular order
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static <T extends Enum<T>> List<ClaimKey<T>> findClaimKeys(
+      EntityManager entityManager,
+      T claimType,
+      Class<?> entityClass,
+      SingularAttribute<?, Long> idAttribute,
+      SingularAttribute<?, Long> beneficiaryIdAttribute,
+      String serviceEndAttributeName,
+      long beneficiaryId,
+      Optional<DateRangeParam> lastUpdated,
+      Optional<DateRangeParam> serviceDate) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Object[]> criteria = builder.createQuery(Object[].class);
+    Root root = criteria.from(entityClass);
+    criteria.multiselect(root.get(idAttribute), root.get("lastUpdated"));
+
+    Predicate wherePredicate = builder.equal(root.get(beneficiaryIdAttribute), beneficiaryId);
+    if (lastUpdated.isPresent()) {
+      Predicate predicate = QueryUtils.createLastUpdatedPredicate(builder, root, lastUpdated.get());
+      wherePredicate = builder.and(wherePredicate, predicate);
+    }
+    if (serviceDate.isPresent()) {
+      Predicate predicate =
+          QueryUtils.createServiceDatePredicate(
+              builder, serviceDate.get(), root.get(serviceEndAttributeName));
+      wherePredicate = builder.and(wherePredicate, predicate);
+    }
+    criteria.where(wherePredicate);
+
+    return entityManager.createQuery(criteria).getResultList().stream()
+        .map(row -> new ClaimKey<>(claimType, (Long) row[0], (Instant) row[1]))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Selects the members of one page from the keys of several claim types. Each collection of keys
+   * is sorted and then all of them are merged so that only the keys up to the end of the page are
+   * ever compared across claim types.
+   *
+   * @param <T> the claim type enum
+   * @param keysByClaimType the keys of each claim type in any order
+   * @param startIndex offset of the first key on the page
+   * @param pageSize maximum number of keys on the page
+   * @return the page
+   * @throws IllegalArgumentException if startIndex is beyond the total number of keys
+   */
+  public static <T extends Enum<T>> Page<T> selectPage(
+      Collection<? extends Collection<ClaimKey<T>>> keysByClaimType, int startIndex, int pageSize) {
+    final List<Iterator<ClaimKey<T>>> sortedKeys = new ArrayList<>(keysByClaimType.size());
+    int total = 0;
+    Instant lastUpdated = null;
+    for (Collection<ClaimKey<T>> keys : keysByClaimType) {
+      final List<ClaimKey<T>> sorted = new ArrayList<>(keys);
+      sorted.sort(ClaimKey.ORDER);
+      sortedKeys.add(sorted.iterator());
+      total += sorted.size();
+      for (ClaimKey<T> key : sorted) {
+        final Instant keyLastUpdated = key.getEffectiveLastUpdated();
+        if (lastUpdated == null || keyLastUpdated.isAfter(lastUpdated)) {
+          lastUpdated = keyLastUpdated;
+        }
+      }
+    }
+    Preconditions.checkArgument(
+        startIndex >= 0 && startIndex <= total,
+        "startIndex %s is beyond the %s matching claims",
+        startIndex,
+        total);
+
+    final Iterator<ClaimKey<T>> merged = Iterators.mergeSorted(sortedKeys, ClaimKey.ORDER);
+    Iterators.advance(merged, startIndex);
+    final List<ClaimKey<T>> pageKeys = ImmutableList.copyOf(Iterators.limit(merged, pageSize));
+    return new Page<>(pageKeys, total, Optional.ofNullable(lastUpdated));
+  }
+
+  /**
+   * The minimal information about a claim needed to sort it and to compute the last updated time of
+   * a bundle.
+   *
+   * @param <T> the claim type enum
+   */
+  public static final class ClaimKey<T extends Enum<T>> {
+    /**
+     * Orders keys by the string form of their claim id and then by claim type, matching the order
+     * in which the resource providers sort transformed EOBs.
+     */
+    private static final Comparator<ClaimKey<?>> ORDER =
+        (key1, key2) -> {
+          final int result = key1.sortId.compareTo(key2.sortId);
+          return result != 0
+              ? result
+              : Integer.compare(key1.claimType.ordinal(), key2.claimType.ordinal());
+        };
+
+    /** The claim type. */
+    private final T claimType;
+    /** The claim id. */
+    private final long claimId;
+    /** The claim id as it appears in the EOB identifier, used for sorting. */
+    private final String sortId;
+    /** The lastUpdated value of the claim, null if the claim has never been updated. */
+    private final Instant lastUpdated;
+
+    /**
+     * Instantiates a new key.
+     *
+     * @param claimType the claim type
+     * @param claimId the claim id
+     * @param lastUpdated the lastUpdated value of the claim (may be null)
+     */
+    public ClaimKey(T claimType, long claimId, Instant lastUpdated) {
+      this.claimType = claimType;
+      this.claimId = claimId;
+      this.sortId = String.valueOf(claimId);
+      this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Gets the {@link #claimType}.
+     *
+     * @return the claim type
+     */
+    public T getClaimType() {
+      return claimType;
+    }
+
+    /**
+     * Gets the {@link #claimId}.
+     *
+     * @return the claim id
+     */
+    public long getClaimId() {
+      return claimId;
+    }
+
+    /**
+     * Gets the {@link #sortId}.
+     *
+     * @return the claim id as a string
+     */
+    public String getSortId() {
+      return sortId;
+    }
+
+    /**
+     * Gets the last updated time that the transformed EOB of this claim would report, which falls
+     * back to {@link TransformerConstants#FALLBACK_LAST_UPDATED} for claims without a value.
+     *
+     * @return the last updated time
+     */
+    public Instant getEffectiveLastUpdated() {
+      return lastUpdated != null ? lastUpdated : TransformerConstants.FALLBACK_LAST_UPDATED;
+    }
+  }
+
+  /**
+   * The members of one page along with summary information about every matching claim.
+   *
+   * @param <T> the claim type enum
+   */
+  public static final class Page<T extends Enum<T>> {
+    /** The keys of the claims on the page in page order. */
+    private final List<ClaimKey<T>> keys;
+    /** The number of matching claims across all pages. */
+    private final int total;
+    /** The latest last updated time of any matching claim, empty if there are none. */
+    private final Optional<Instant> lastUpdated;
+
+    /**
+     * Instantiates a new page.
+     *
+     * @param keys the keys of the claims on the page in page order
+     * @param total the number of matching claims across all pages
+     * @param lastUpdated the latest last updated time of any matching claim
+     */
+    private Page(List<ClaimKey<T>> keys, int total, Optional<Instant> lastUpdated) {
+      this.keys = keys;
+      this.total = total;
+      this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Gets the {@link #keys}.
+     *
+     * @return the keys of the claims on the page in page order
+     */
+    public List<ClaimKey<T>> getKeys() {
+      return keys;
+    }
+
+    /**
+     * Gets the {@link #total}.
+     *
+     * @return the number of matching claims across all pages
+     */
+    public int getTotal() {
+      return total;
+    }
+
+    /**
+     * Gets the {@link #lastUpdated}.
+     *
+     * @return the latest last updated time of any matching claim
+     */
+    public Optional<Instant> getLastUpdated() {
+      return lastUpdated;
+    }
+
+    /**
+     * Gets the ids of the claims of one type that are on the page.
+     *
+     * @param claimType the claim type
+     * @return the claim ids, empty if no claims of that type are on the page
+     */
+    public Set<Long> getClaimIds(T claimType) {
+      return keys.stream()
+          .filter(key -> key.getClaimType() == claimType)
+          .map(ClaimKey::getClaimId)
+          .collect(Collectors.toSet());
+    }
+
+    /**
+     * Splits the page into consecutive pages with at most the given number of keys. Every part
+     * reports the same total and last updated time as this page.
+     *
+     * @param maxKeys the maximum number of keys in each part
+     * @return the parts in page order, empty if this page has no keys
+     */
+    public List<Page<T>> partition(int maxKeys) {
+      return Lists.partition(keys, maxKeys).stream()
+          .map(part -> new Page<>(part, total, lastUpdated))
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,389 @@
+package gov.cms.bfd.server.war.commons;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-process cache of the EOB search results of individual beneficiaries. Results are stored as
+ * gzip compressed JSON and the cache is bounded by the total number of compressed bytes it holds.
+ *
+ * <p>Each entry remembers the {@link LoadedFilterManager#getTransactionTime()} that was current
+ * when its result was computed. An entry is only used while the {@link LoadedFilterManager} can
+ * prove that no {@link LoadedFileFilter} created after that time contains the beneficiary. Since
+ * the filters are Bloom filters a false positive merely causes an unnecessary cache miss. Entries
+ * also expire after a maximum age as a backstop.
+ *
+ * <p>The cache is disabled when its maximum size is zero, which is the default.
+ */
+@Component
+public class EobResponseCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EobResponseCache.class);
+
+  /** Approximate number of bytes used by an entry beyond its compressed content. */
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+  /**
+   * Results larger than this fraction of the cache's maximum size are not cached so that a single
+   * very large beneficiary can't flush the rest of the cache.
+   */
+  private static final int MAX_ENTRY_FRACTION = 16;
+
+  /** Used to determine whether the beneficiary of an entry has been updated. */
+  private final LoadedFilterManager loadedFilterManager;
+
+  /** The cached results, or null if the cache is disabled. */
+  private final Cache<Key, Entry> cache;
+
+  /** The largest number of bytes that a single entry may use. */
+  private final long maxEntryBytes;
+
+  /** The number of bytes used by all entries currently in the cache. */
+  private final AtomicLong cachedBytes = new AtomicLong();
+
+  /** Requests that were answered from the cache. */
+  private final Meter hits;
+
+  /** Requests that were not found in the cache. */
+  private final Meter misses;
+
+  /** Entries that were discarded because their beneficiary was updated. */
+  private final Meter invalidations;
+
+  /**
+   * Instantiates a new {@link EobResponseCache}.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param loadedFilterManager the loaded filter manager bean
+   * @param metricRegistry the metric registry bean
+   * @param maxBytes the maximum number of bytes held by the cache, zero to disable the cache
+   * @param maxAgeSeconds the maximum number of seconds that an entry is used
+   */
+  public EobResponseCache(
+      LoadedFilterManager loadedFilterManager,
+      MetricRegistry metricRegistry,
+      @Value("${bfdServer.eobCache.maxBytes:0}") long maxBytes,
+      @Value("${bfdServer.eobCache.maxAgeSeconds:3600}") long maxAgeSeconds) {
+    Preconditions.checkArgument(maxBytes >= 0, "maxBytes cannot be negative");
+    this.loadedFilterManager = loadedFilterManager;
+    this.maxEntryBytes = maxBytes / MAX_ENTRY_FRACTION;
+    if (maxBytes > 0) {
+      cache =
+          CacheBuilder.newBuilder()
+              .maximumWeight(maxBytes)
+              .weigher((Key key, Entry entry) -> entry.getWeight())
+              .expireAfterWrite(Duration.ofSeconds(maxAgeSeconds))
+              .removalListener(
+                  notification -> cachedBytes.addAndGet(-notification.getValue().getWeight()))
+              .build();
+    } else {
+      cache = null;
+    }
+
+    hits = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "hits"));
+    misses = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "misses"));
+    invalidations =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "invalidations"));
+    metricRegistry.register(
+        MetricRegistry.name(getClass().getSimpleName(), "bytes"), (Gauge<Long>) cachedBytes::get);
+    metricRegistry.register(
+        MetricRegistry.name(getClass().getSimpleName(), "entries"),
+        (Gauge<Long>) () -> cache == null ? 0L : cache.size());
+  }
+
+  /**
+   * Determines whether results are cached at all.
+   *
+   * @return true if the cache is enabled
+   */
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * Finds the cached result for a request. The meta.lastUpdated of the returned bundle is advanced
+   * to the current {@link LoadedFilterManager#getTransactionTime()} if that is later, so that the
+   * bundle matches one computed now.
+   *
+   * @param <T> the bundle type
+   * @param key identifies the request
+   * @param bundleClass the bundle type
+   * @return a newly parsed copy of the cached bundle or empty if there is no valid entry
+   */
+  public <T extends IBaseBundle> Optional<T> get(Key key, Class<T> bundleClass) {
+    if (cache == null) {
+      return Optional.empty();
+    }
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null) {
+      misses.mark();
+      return Optional.empty();
+    }
+    if (loadedFilterManager.isUpdatedSince(key.getBeneficiaryId(), entry.getLoadedThrough())) {
+      cache.asMap().remove(key, entry);
+      invalidations.mark();
+      misses.mark();
+      return Optional.empty();
+    }
+
+    T bundle = decode(key.getFhirVersion(), entry.getContent(), bundleClass);
+    Instant transactionTime = loadedFilterManager.getTransactionTime();
+    Date lastUpdated = bundle.getMeta().getLastUpdated();
+    if (lastUpdated == null || transactionTime.isAfter(lastUpdated.toInstant())) {
+      bundle.getMeta().setLastUpdated(Date.from(transactionTime));
+    }
+    hits.mark();
+    return Optional.of(bundle);
+  }
+
+  /**
+   * Adds the result of a request to the cache.
+   *
+   * @param key identifies the request
+   * @param bundle the complete result
+   * @param loadedThrough the {@link LoadedFilterManager#getTransactionTime()} read before the
+   *     result was queried from the database
+   */
+  public void put(Key key, IBaseBundle bundle, Instant loadedThrough) {
+    if (cache == null || StreamingBundle.getEntrySource(bundle).isPresent()) {
+      return;
+    }
+    byte[] content = encode(key.getFhirVersion(), bundle);
+    Entry entry = new Entry(content, loadedThrough);
+    if (entry.getWeight() > maxEntryBytes) {
+      LOGGER.debug("Result of {} bytes is too large to cache", content.length);
+      return;
+    }
+    cachedBytes.addAndGet(entry.getWeight());
+    cache.put(key, entry);
+  }
+
+  /**
+   * Encodes a bundle as gzip compressed JSON.
+   *
+   * @param fhirVersion the FHIR version of the bundle
+   * @param bundle the bundle
+   * @return the compressed JSON
+   */
+  @VisibleForTesting
+  static byte[] encode(FhirVersionEnum fhirVersion, IBaseBundle bundle) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer writer =
+        new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+      FhirContext.forCached(fhirVersion).newJsonParser().encodeResourceToWriter(bundle, writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decodes a bundle from gzip compressed JSON.
+   *
+   * @param <T> the bundle type
+   * @param fhirVersion the FHIR version of the bundle
+   * @param content the compressed JSON
+   * @param bundleClass the bundle type
+   * @return the bundle
+   */
+  @VisibleForTesting
+  static <T extends IBaseBundle> T decode(
+      FhirVersionEnum fhirVersion, byte[] content, Class<T> bundleClass) {
+    try (Reader reader =
+        new InputStreamReader(
+            new GZIPInputStream(new ByteArrayInputStream(content)), StandardCharsets.UTF_8)) {
+      return FhirContext.forCached(fhirVersion).newJsonParser().parseResource(bundleClass, reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Identifies the result of a single request. */
+  public static final class Key {
+    /** The FHIR version of the result. */
+    private final FhirVersionEnum fhirVersion;
+    /** The beneficiary whose claims are in the result. */
+    private final long beneficiaryId;
+    /** The complete URL of the request, which determines the paging links of the result. */
+    private final String requestUrl;
+    /**
+     * The parameters of the request by name, which determine the matching claims. These include
+     * form parameters of POSTed searches, which aren't part of the {@link #requestUrl}.
+     */
+    private final SortedMap<String, List<String>> parameters;
+    /** Whether tax numbers are included in the result. */
+    private final boolean includeTaxNumbers;
+
+    /**
+     * Instantiates a new key.
+     *
+     * @param fhirVersion the FHIR version of the result
+     * @param beneficiaryId the beneficiary whose claims are in the result
+     * @param requestUrl the complete URL of the request
+     * @param parameters the parameters of the request, including any form parameters
+     * @param includeTaxNumbers whether tax numbers are included in the result
+     */
+    public Key(
+        FhirVersionEnum fhirVersion,
+        long beneficiaryId,
+        String requestUrl,
+        Map<String, String[]> parameters,
+        boolean includeTaxNumbers) {
+      this.fhirVersion = fhirVersion;
+      this.beneficiaryId = beneficiaryId;
+      this.requestUrl = requestUrl;
+      this.parameters = new TreeMap<>();
+      if (parameters != null) {
+        parameters.forEach((name, values) -> this.parameters.put(name, Arrays.asList(values)));
+      }
+      this.includeTaxNumbers = includeTaxNumbers;
+    }
+
+    /**
+     * Creates the key of a request. The parameters are read from {@link
+     * RequestDetails#getParameters()} rather than the URL, so that searches POSTed with different
+     * form parameters have different keys.
+     *
+     * @param fhirVersion the FHIR version of the result
+     * @param beneficiaryId the beneficiary whose claims are in the result
+     * @param requestDetails the request
+     * @param includeTaxNumbers whether tax numbers are included in the result
+     * @return the key
+     */
+    public static Key forRequest(
+        FhirVersionEnum fhirVersion,
+        long beneficiaryId,
+        RequestDetails requestDetails,
+        boolean includeTaxNumbers) {
+      return new Key(
+          fhirVersion,
+          beneficiaryId,
+          requestDetails.getCompleteUrl(),
+          requestDetails.getParameters(),
+          includeTaxNumbers);
+    }
+
+    /**
+     * Gets the {@link #fhirVersion}.
+     *
+     * @return the FHIR version of the result
+     */
+    public FhirVersionEnum getFhirVersion() {
+      return fhirVersion;
+    }
+
+    /**
+     * Gets the {@link #beneficiaryId}.
+     *
+     * @return the beneficiary whose claims are in the result
+     */
+    public long getBeneficiaryId() {
+      return beneficiaryId;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return beneficiaryId == other.beneficiaryId
+          && includeTaxNumbers == other.includeTaxNumbers
+          && fhirVersion == other.fhirVersion
+          && requestUrl.equals(other.requestUrl)
+          && parameters.equals(other.parameters);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+      return Objects.hash(fhirVersion, beneficiaryId, requestUrl, parameters, includeTaxNumbers);
+    }
+  }
+
+  /** A cached result. */
+  private static final class Entry {
+    /** The result as gzip compressed JSON. */
+    private final byte[] content;
+    /** The transaction time that was current when the result was queried. */
+    private final Instant loadedThrough;
+
+    /**
+     * Instantiates a new entry.
+     *
+     * @param content the result as gzip compressed JSON
+     * @param loadedThrough the transaction time that was current when the result was queried
+     */
+    private Entry(byte[] content, Instant loadedThrough) {
+      this.content = content;
+      this.loadedThrough = loadedThrough;
+    }
+
+    /**
+     * Gets the {@link #content}.
+     *
+     * @return the result as gzip compressed JSON
+     */
+    private byte[] getContent() {
+      return content;
+    }
+
+    /**
+     * Gets the {@link #loadedThrough}.
+     *
+     * @return the transaction time that was current when the result was queried
+     */
+    private Instant getLoadedThrough() {
+      return loadedThrough;
+    }
+
+    /**
+     * Computes the approximate number of bytes used by this entry.
+     *
+     * @return the weight of the entry
+     */
+    private int getWeight() {
+      return content.length + ENTRY_OVERHEAD_BYTES;
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package gov.cms.bfd.server.war.commons;
+
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import gov.cms.bfd.server.war.RequestTimings;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the number of database connections that the per claim type tasks of EOB searches can hold
+ * at once, so that concurrent searches can't starve the connection pool by fanning out wider than
+ * it can serve.
+ *
+ * <p>Each task holds its own connection while it runs, so a search reserves one permit from a
+ * shared connection budget per task that it will run concurrently before any of its tasks start.
+ * When fewer permits are free than the search has tasks, the search runs its tasks on fewer
+ * threads, down to running them one at a time, rather than waiting for the full width. A search
+ * only waits when no permits are free at all, and is rejected with a 503 response if none become
+ * free before its deadline. Searches that can't finish all of their tasks before the deadline are
+ * also rejected.
+ *
+ * <p>The {@link RequestTimings} of the request are bound to every thread that runs its tasks, so
+ * that the queries of all tasks are recorded with the request.
+ *
+ * <p>The connection budget should be set somewhat below the size of the database connection pool,
+ * since the request threads hold connections of their own. The controller is disabled when the
+ * budget is zero, which is the default, in which case all tasks are simply run at once.
+ */
+@Component
+public class FanOutAdmissionController {
+  /** The permits of the connection budget, or null when the controller is disabled. */
+  private final Semaphore connectionPermits;
+
+  /** The longest time a search may take to reserve connections and run its tasks. */
+  private final long deadlineMillis;
+
+  /** Time spent waiting for connection permits. */
+  private final Timer poolWait;
+
+  /** Number of tasks each search runs at once. */
+  private final Histogram fanOutWidth;
+
+  /** Searches rejected because no connections became free in time. */
+  private final Meter rejections;
+
+  /** Searches rejected because their tasks didn't finish in time. */
+  private final Meter deadlinesExceeded;
+
+  /**
+   * Instantiates a new {@link FanOutAdmissionController}.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param metricRegistry the metric registry bean
+   * @param connectionBudget the number of connections that all tasks can hold at once, zero to
+   *     disable admission control
+   * @param deadlineMillis the longest time in milliseconds that a search may take to reserve
+   *     connections and run its tasks
+   */
+  public FanOutAdmissionController(
+      MetricRegistry metricRegistry,
+      @Value("${bfdServer.fanOut.connectionBudget:0}") int connectionBudget,
+      @Value("${bfdServer.fanOut.deadlineMillis:30000}") long deadlineMillis) {
+    Preconditions.checkArgument(connectionBudget >= 0, "connectionBudget cannot be negative");
+    Preconditions.checkArgument(deadlineMillis > 0, "deadlineMillis must be positive");
+    this.connectionPermits = connectionBudget > 0 ? new Semaphore(connectionBudget, true) : null;
+    this.deadlineMillis = deadlineMillis;
+
+    poolWait = metricRegistry.timer(MetricRegistry.name(getClass().getSimpleName(), "poolWait"));
+    fanOutWidth =
+        metricRegistry.histogram(MetricRegistry.name(getClass().getSimpleName(), "fanOutWidth"));
+    rejections =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "rejections"));
+    deadlinesExceeded =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "deadlinesExceeded"));
+  }
+
+  /**
+   * Determines whether fan-out is limited at all.
+   *
+   * @return true if admission control is enabled
+   */
+  public boolean isEnabled() {
+    return connectionPermits != null;
+  }
+
+  /**
+   * Runs the specified tasks on the specified {@link ExecutorService}, as many at once as the
+   * connection budget allows, and waits for all of them to finish.
+   *
+   * @param <T> the result type of the tasks
+   * @param executorService runs the tasks
+   * @param tasks the tasks to run, each of which holds a database connection while it runs
+   * @return the results of the tasks, in the same order as the tasks
+   * @throws InterruptedException if interrupted while waiting
+   * @throws ExecutionException if any of the tasks threw an exception
+   * @throws UnclassifiedServerFailureException with a 503 status if the search couldn't reserve a
+   *     connection or finish its tasks before its deadline
+   */
+  public <T> List<T> invokeAll(ExecutorService executorService, List<? extends Callable<T>> tasks)
+      throws InterruptedException, ExecutionException {
+    final RequestTimings requestTimings = RequestTimings.current().orElse(null);
+    if (!isEnabled()) {
+      List<Callable<T>> boundTasks = new ArrayList<>(tasks.size());
+      for (Callable<? extends T> task : tasks) {
+        boundTasks.add(() -> callWithTimings(task, requestTimings));
+      }
+      List<T> results = new ArrayList<>(tasks.size());
+      for (Future<T> future : executorService.invokeAll(boundTasks)) {
+        results.add(future.get());
+      }
+      return results;
+    }
+    if (tasks.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    final int width = reserve(tasks.size(), deadlineNanos);
+    fanOutWidth.update(width);
+
+    /*
+     * Each worker runs tasks one at a time until none are left, so no more than width tasks run at
+     * once. Every worker returns its own permit when it finishes, even if the search gave up on it,
+     * so the budget always matches the connections that are actually in use.
+     */
+    final Object[] results = new Object[tasks.size()];
+    final AtomicInteger nextTask = new AtomicInteger();
+    final AtomicBoolean[] started = new AtomicBoolean[width];
+    List<Callable<Void>> workers = new ArrayList<>(width);
+    for (int i = 0; i < width; ++i) {
+      final AtomicBoolean workerStarted = new AtomicBoolean();
+      started[i] = workerStarted;
+      workers.add(
+          () -> {
+            if (!workerStarted.compareAndSet(false, true)) {
+              // the search gave up on this worker and has already returned its permit
+              return null;
+            }
+            final RequestTimings previousTimings = RequestTimings.bind(requestTimings);
+            try {
+              for (int task = nextTask.getAndIncrement();
+                  task < tasks.size();
+                  task = nextTask.getAndIncrement()) {
+                results[task] = tasks.get(task).call();
+              }
+              return null;
+            } finally {
+              RequestTimings.bind(previousTimings);
+              connectionPermits.release();
+            }
+          });
+    }
+
+    List<Future<Void>> futures =
+        executorService.invokeAll(workers, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    boolean deadlineExceeded = false;
+    for (int i = 0; i < futures.size(); ++i) {
+      if (futures.get(i).isCancelled()) {
+        deadlineExceeded = true;
+        if (started[i].compareAndSet(false, true)) {
+          connectionPermits.release();
+        }
+      }
+    }
+    if (deadlineExceeded) {
+      deadlinesExceeded.mark();
+      throw new UnclassifiedServerFailureException(
+          503, "The search could not be completed in time; please retry later.");
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> typedResults = (List<T>) Arrays.asList(results);
+    return typedResults;
+  }
+
+  /**
+   * Runs a task with the specified {@link RequestTimings} bound to the current thread, and restores
+   * the thread's previous binding afterwards.
+   *
+   * @param <T> the result type of the task
+   * @param task the task to run
+   * @param requestTimings the timings of the request that started the task, or null if none
+   * @return the result of the task
+   * @throws Exception if the task threw an exception
+   */
+  private static <T> T callWithTimings(Callable<? extends T> task, RequestTimings requestTimings)
+      throws Exception {
+    final RequestTimings previousTimings = RequestTimings.bind(requestTimings);
+    try {
+      return task.call();
+    } finally {
+      RequestTimings.bind(previousTimings);
+    }
+  }
+
+  /**
+   * Reserves as many connection permits as are free, up to the number of tasks. Waits for a single
+   * permit if none are free.
+   *
+   * @param taskCount the number of tasks to be run
+   * @param deadlineNanos the {@link System#nanoTime()} by which a permit must be reserved
+   * @return the number of permits reserved, which is at least one
+   * @throws InterruptedException if interrupted while waiting
+   * @throws UnclassifiedServerFailureException with a 503 status if no permit became free in time
+   */
+  private int reserve(int taskCount, long deadlineNanos) throws InterruptedException {
+    final Timer.Context waitTimer = poolWait.time();
+    try {
+      for (int available = connectionPermits.availablePermits();
+          available > 0;
+          available = connectionPermits.availablePermits()) {
+        int width = Math.min(taskCount, available);
+        if (connectionPermits.tryAcquire(width)) {
+          return width;
+        }
+      }
+      if (connectionPermits.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        return 1;
+      }
+    } finally {
+      waitTimer.stop();
+    }
+
+    rejections.mark();
+    throw new UnclassifiedServerFailureException(
+        503, "Too many concurrent searches; please retry later.");
+  }
+}
@@ -0,0 +1,254 @@
+package gov.cms.bfd.server.war.commons;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-process cache of the identities that MBI and HICN hashes resolve to, so that the partner
+ * applications that look up the same hashes over and over don't need the database to resolve them
+ * each time.
+ *
+ * <p>Beneficiary hashes resolve to the BENE_IDs whose current or historical hash matches. Those
+ * entries remember the {@link LoadedFilterManager#getTransactionTime()} that was current when they
+ * were resolved and are discarded once newer CCW data has been loaded, since the new data could add
+ * a matching beneficiary or change which beneficiary a hash belongs to. PAC hashes resolve to the
+ * ids of the matching {@code Mbi} records, which the RDA pipeline updates continuously, so those
+ * entries simply expire after a short time.
+ *
+ * <p>Misses are cached as an empty array of ids, and hashes that resolve to more than one identity
+ * keep all of them, so that callers detect collisions exactly as they would without the cache. Keys
+ * hold hex encoded hashes as raw bytes and values hold primitive ids to keep entries small.
+ *
+ * <p>The cache is disabled when its maximum number of entries is zero, which is the default.
+ */
+@Component
+public class HashResolutionCache {
+  /** Used to determine whether newer CCW data has been loaded since an entry was resolved. */
+  private final LoadedFilterManager loadedFilterManager;
+
+  /** The BENE_IDs that beneficiary hashes resolve to, or null if the cache is disabled. */
+  private final Cache<ByteBuffer, BeneficiaryEntry> beneficiaryIds;
+
+  /** The {@code Mbi} ids that PAC hashes resolve to, or null if the cache is disabled. */
+  private final Cache<ByteBuffer, long[]> mbiIds;
+
+  /** Beneficiary hashes that were resolved from the cache. */
+  private final Meter beneficiaryHits;
+
+  /** Beneficiary hashes that had to be resolved by the database. */
+  private final Meter beneficiaryMisses;
+
+  /** PAC hashes that were resolved from the cache. */
+  private final Meter mbiHits;
+
+  /** PAC hashes that had to be resolved by the database. */
+  private final Meter mbiMisses;
+
+  /** Beneficiary entries that were discarded because newer CCW data had been loaded. */
+  private final Meter invalidations;
+
+  /**
+   * Instantiates a new {@link HashResolutionCache}.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param loadedFilterManager the loaded filter manager bean
+   * @param metricRegistry the metric registry bean
+   * @param maxEntries the maximum number of hashes held for each of CCW and PAC, zero to disable
+   *     the cache
+   * @param pacMaxAgeSeconds the maximum number of seconds that a PAC entry is used
+   */
+  public HashResolutionCache(
+      LoadedFilterManager loadedFilterManager,
+      MetricRegistry metricRegistry,
+      @Value("${bfdServer.hashCache.maxEntries:0}") long maxEntries,
+      @Value("${bfdServer.hashCache.pacMaxAgeSeconds:60}") long pacMaxAgeSeconds) {
+    Preconditions.checkArgument(maxEntries >= 0, "maxEntries cannot be negative");
+    Preconditions.checkArgument(pacMaxAgeSeconds > 0, "pacMaxAgeSeconds must be positive");
+    this.loadedFilterManager = loadedFilterManager;
+    if (maxEntries > 0) {
+      beneficiaryIds = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+      mbiIds =
+          CacheBuilder.newBuilder()
+              .maximumSize(maxEntries)
+              .expireAfterWrite(Duration.ofSeconds(pacMaxAgeSeconds))
+              .build();
+    } else {
+      beneficiaryIds = null;
+      mbiIds = null;
+    }
+
+    beneficiaryHits =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "beneficiaryHits"));
+    beneficiaryMisses =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "beneficiaryMisses"));
+    mbiHits = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "mbiHits"));
+    mbiMisses = metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "mbiMisses"));
+    invalidations =
+        metricRegistry.meter(MetricRegistry.name(getClass().getSimpleName(), "invalidations"));
+    metricRegistry.register(
+        MetricRegistry.name(getClass().getSimpleName(), "beneficiaryHitRatio"),
+        createHitRatio(beneficiaryHits, beneficiaryMisses));
+    metricRegistry.register(
+        MetricRegistry.name(getClass().getSimpleName(), "mbiHitRatio"),
+        createHitRatio(mbiHits, mbiMisses));
+    metricRegistry.register(
+        MetricRegistry.name(getClass().getSimpleName(), "entries"),
+        (Gauge<Long>) () -> isEnabled() ? beneficiaryIds.size() + mbiIds.size() : 0L);
+  }
+
+  /**
+   * Determines whether hashes are cached at all.
+   *
+   * @return true if the cache is enabled
+   */
+  public boolean isEnabled() {
+    return beneficiaryIds != null;
+  }
+
+  /**
+   * Finds the BENE_IDs that a beneficiary hash resolved to, if that is still known to be current.
+   *
+   * @param hashType the type of the hash, such as "mbi" or "hicn"
+   * @param hash the hash
+   * @return the distinct BENE_IDs, which are empty if no beneficiary matched, or empty if the hash
+   *     has to be resolved by the database
+   */
+  public Optional<long[]> getBeneficiaryIds(String hashType, String hash) {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    ByteBuffer key = createKey(hashType, hash);
+    BeneficiaryEntry entry = beneficiaryIds.getIfPresent(key);
+    if (entry == null) {
+      beneficiaryMisses.mark();
+      return Optional.empty();
+    }
+    if (loadedFilterManager.getTransactionTime().isAfter(entry.loadedThrough)) {
+      beneficiaryIds.asMap().remove(key, entry);
+      invalidations.mark();
+      beneficiaryMisses.mark();
+      return Optional.empty();
+    }
+    beneficiaryHits.mark();
+    return Optional.of(entry.ids.clone());
+  }
+
+  /**
+   * Remembers the BENE_IDs that a beneficiary hash resolved to.
+   *
+   * @param hashType the type of the hash, such as "mbi" or "hicn"
+   * @param hash the hash
+   * @param ids the distinct BENE_IDs that matched, empty if none did
+   * @param loadedThrough the {@link LoadedFilterManager#getTransactionTime()} read before the hash
+   *     was resolved by the database
+   */
+  public void putBeneficiaryIds(String hashType, String hash, long[] ids, Instant loadedThrough) {
+    if (isEnabled()) {
+      beneficiaryIds.put(
+          createKey(hashType, hash), new BeneficiaryEntry(ids.clone(), loadedThrough));
+    }
+  }
+
+  /**
+   * Resolves a PAC hash to the ids of its matching {@code Mbi} records, using the database only if
+   * the hash isn't cached or its entry has expired.
+   *
+   * @param hashType the type of the hash, which should distinguish lookups that also match old
+   *     hashes from those that don't
+   * @param hash the hash
+   * @param resolver resolves the hash using the database
+   * @return the ids of the matching {@code Mbi} records, which are empty if none matched
+   */
+  public long[] resolveMbiIds(String hashType, String hash, Supplier<long[]> resolver) {
+    if (!isEnabled()) {
+      return resolver.get();
+    }
+    ByteBuffer key = createKey(hashType, hash);
+    long[] ids = mbiIds.getIfPresent(key);
+    if (ids == null) {
+      mbiMisses.mark();
+      ids = resolver.get();
+      mbiIds.put(key, ids.clone());
+    } else {
+      mbiHits.mark();
+    }
+    return ids.clone();
+  }
+
+  /**
+   * Creates a compact cache key. Hex encoded hashes are stored as the bytes they encode, which
+   * halves the size of the usual SHA-256 hashes. Anything else is stored as UTF-8.
+   *
+   * @param hashType the type of the hash
+   * @param hash the hash
+   * @return the key
+   */
+  @VisibleForTesting
+  static ByteBuffer createKey(String hashType, String hash) {
+    final BaseEncoding hex = BaseEncoding.base16().lowerCase();
+    final boolean isHex = hex.canDecode(hash);
+    final byte[] type = hashType.getBytes(StandardCharsets.UTF_8);
+    final byte[] value = isHex ? hex.decode(hash) : hash.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(type.length + value.length + 2)
+        .put(type)
+        .put((byte) 0)
+        .put((byte) (isHex ? 1 : 0))
+        .put(value)
+        .flip();
+  }
+
+  /**
+   * Creates a gauge of the fraction of lookups that were resolved from the cache over the last five
+   * minutes.
+   *
+   * @param hits the lookups that were resolved from the cache
+   * @param misses the lookups that were not
+   * @return the gauge
+   */
+  private static RatioGauge createHitRatio(Meter hits, Meter misses) {
+    return new RatioGauge() {
+      /** {@inheritDoc} */
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(
+            hits.getFiveMinuteRate(), hits.getFiveMinuteRate() + misses.getFiveMinuteRate());
+      }
+    };
+  }
+
+  /** The BENE_IDs that a beneficiary hash resolved to. */
+  private static final class BeneficiaryEntry {
+    /** The distinct BENE_IDs that matched, empty if none did. */
+    private final long[] ids;
+    /** The transaction time that was current when the hash was resolved. */
+    private final Instant loadedThrough;
+
+    /**
+     * Instantiates a new entry.
+     *
+     * @param ids the distinct BENE_IDs that matched, empty if none did
+     * @param loadedThrough the transaction time that was current when the hash was resolved
+     */
+    private BeneficiaryEntry(long[] ids, Instant loadedThrough) {
+      this.ids = ids;
+      this.loadedThrough = loadedThrough;
+    }
+  }
+}
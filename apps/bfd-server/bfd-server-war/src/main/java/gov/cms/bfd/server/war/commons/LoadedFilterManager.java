@@ -7,6 +7,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
@@ -25,6 +26,11 @@ import org.springframework.stereotype.Component;
 /**
  * Monitors the loaded files and their associated batches in the database. Creates Bloom filters to
  * match these files.
+ *
+ * <p>The filters, the transaction time and the batch bounds are published together as an immutable
+ * {@link Snapshot} through a volatile reference. Request threads read whichever snapshot is current
+ * without ever blocking, and always see a consistent set of values, while {@link #refreshFilters()}
+ * builds the next snapshot on its own thread from only the files that have new batches.
  */
 @Component
 public class LoadedFilterManager {
@@ -36,17 +42,8 @@ public class LoadedFilterManager {
   /** The connection to the DB. */
   private EntityManager entityManager;
 
-  /** The filter set. */
-  private List<LoadedFileFilter> filters;
-
-  /** The latest transaction time from the LoadedBatch files. */
-  private Instant transactionTime;
-
-  /** The last LoadedBatch.created in the filter set. */
-  private Instant lastBatchCreated;
-
-  /** The first LoadedBatch.created in the filter set. */
-  private Instant firstBatchCreated;
+  /** The current state of the manager, replaced as a whole whenever it changes. */
+  private volatile Snapshot snapshot = new Snapshot(List.of(), null, null, null);
 
   /**
    * A tuple of values: LoadedFile.loadedFileid, LoadedFile.created, max(LoadedBatch.created). Used
@@ -101,18 +98,50 @@ public class LoadedFilterManager {
     }
   }
 
-  /** Create a manager for {@link LoadedFileFilter}s. */
-  public LoadedFilterManager() {
-    this.filters = new ArrayList<>();
+  /**
+   * An immutable set of filters together with the times that describe them. Readers take a single
+   * reference to the current snapshot so that every value they use comes from the same refresh.
+   */
+  private static final class Snapshot {
+    /** The filter set, newest first. */
+    private final List<LoadedFileFilter> filters;
+
+    /** The latest transaction time from the LoadedBatch files. */
+    private final Instant transactionTime;
+
+    /** The first LoadedBatch.created in the filter set. */
+    private final Instant firstBatchCreated;
+
+    /** The last LoadedBatch.created in the filter set. */
+    private final Instant lastBatchCreated;
+
+    /**
+     * Instantiates a new snapshot.
+     *
+     * @param filters the filter set, newest first
+     * @param transactionTime the latest transaction time
+     * @param firstBatchCreated the first batch created
+     * @param lastBatchCreated the last batch created
+     */
+    private Snapshot(
+        List<LoadedFileFilter> filters,
+        Instant transactionTime,
+        Instant firstBatchCreated,
+        Instant lastBatchCreated) {
+      this.filters = List.copyOf(filters);
+      this.transactionTime = transactionTime;
+      this.firstBatchCreated = firstBatchCreated;
+      this.lastBatchCreated = lastBatchCreated;
+    }
   }
 
   /**
-   * Gets the {@link #filters}.
+   * Gets the current filters.
    *
-   * @return the list of current filters. Newest first.
+   * @return the unmodifiable list of current filters. Newest first.
    */
   public List<LoadedFileFilter> getFilters() {
-    return filters;
+    return snapshot.filters;
   }
 
   /**
@@ -121,6 +150,7 @@ public class LoadedFilterManager {
    * @return the last batch's created timestamp
    */
   public Instant getTransactionTime() {
+    final Instant transactionTime = snapshot.transactionTime;
     if (transactionTime == null) {
       throw new RuntimeException("LoadedFilterManager has not been initialized.");
     }
@@ -133,6 +163,7 @@ public class LoadedFilterManager {
    * @return the first batch's created timestamp
    */
   public Instant getLastBatchCreated() {
+    final Instant lastBatchCreated = snapshot.lastBatchCreated;
     if (lastBatchCreated == null) {
       throw new RuntimeException("LoadedFilterManager has not been refreshed.");
     }
@@ -145,6 +176,7 @@ public class LoadedFilterManager {
    * @return the first batch's created timestamp
    */
   public Instant getFirstBatchCreated() {
+    final Instant firstBatchCreated = snapshot.firstBatchCreated;
     if (firstBatchCreated == null) {
       throw new RuntimeException("LoadedFilterManager has not been refreshed.");
     }
@@ -165,7 +197,12 @@ public class LoadedFilterManager {
   @PostConstruct
   public synchronized void init() {
     // The transaction time will either the last LoadedBatch or some earlier time
-    transactionTime = fetchLastLoadedBatchCreated().orElse(BEFORE_LAST_UPDATED_FEATURE);
+    final Instant transactionTime =
+        fetchLastLoadedBatchCreated().orElse(BEFORE_LAST_UPDATED_FEATURE);
+    final Snapshot current = snapshot;
+    snapshot =
+        new Snapshot(
+            current.filters, transactionTime, current.firstBatchCreated, current.lastBatchCreated);
   }
 
   /**
@@ -178,21 +215,21 @@ public class LoadedFilterManager {
    * @param lastUpdatedRange to test
    * @return true if the results set is empty. false if the result set *may* contain items.
    */
-  public synchronized boolean isResultSetEmpty(
-      Long beneficiaryId, DateRangeParam lastUpdatedRange) {
+  public boolean isResultSetEmpty(Long beneficiaryId, DateRangeParam lastUpdatedRange) {
     if (beneficiaryId == null) {
       // This case should not happen and be caught/validated before this, therefore if we get here
       // it is a code error
       throw new IllegalArgumentException("Beneficiary id cannot be null/empty");
     }
 
-    if (!isInBounds(lastUpdatedRange)) {
+    final Snapshot current = snapshot;
+    if (!isInBounds(current, lastUpdatedRange)) {
       // Out of bounds has to be treated as unknown result
       return false;
     }
 
     // Within the known interval that search for matching filters
-    for (LoadedFileFilter filter : filters) {
+    for (LoadedFileFilter filter : current.filters) {
       if (filter.matchesDateRange(lastUpdatedRange)) {
         if (filter.mightContain(beneficiaryId)) {
           return false;
@@ -208,6 +245,30 @@ public class LoadedFilterManager {
     return true;
   }
 
+  /**
+   * Might this beneficiary have been updated after the given time?
+   *
+   * <p>Used to decide whether a result computed at a known transaction time is still current. When
+   * the time falls before the interval that the filters cover the answer is unknown and so is
+   * treated as updated.
+   *
+   * @param beneficiaryId to test
+   * @param since a previous value of {@link #getTransactionTime()}
+   * @return false if the beneficiary has not been updated since the time, true if it may have been
+   */
+  public boolean isUpdatedSince(long beneficiaryId, Instant since) {
+    final Snapshot current = snapshot;
+    if (current.firstBatchCreated == null || since.isBefore(current.firstBatchCreated)) {
+      return true;
+    }
+    for (LoadedFileFilter filter : current.filters) {
+      if (filter.getLastUpdated().isAfter(since) && filter.mightContain(beneficiaryId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Test the passed in range against the range of information that filter manager knows about.
    *
@@ -217,55 +278,70 @@ public class LoadedFilterManager {
    * @param range to test against
    * @return true iff the range is within the bounds of the filters
    */
-  public synchronized boolean isInBounds(DateRangeParam range) {
-    if (range == null || getFilters().size() == 0) return false;
+  public boolean isInBounds(DateRangeParam range) {
+    return isInBounds(snapshot, range);
+  }
+
+  /**
+   * Test the passed in range against the range of information in a snapshot.
+   *
+   * @param current the snapshot to test against
+   * @param range to test against
+   * @return true iff the range is within the bounds of the snapshot's filters
+   */
+  private static boolean isInBounds(Snapshot current, DateRangeParam range) {
+    if (range == null || current.filters.size() == 0) return false;
 
     // The manager has a "known" interval which it has information about. The known range
     // is from the firstFilterUpdate to the future.
     final Instant lowerBound =
         range.getLowerBoundAsInstant() != null ? range.getLowerBoundAsInstant().toInstant() : null;
-    return lowerBound != null && lowerBound.toEpochMilli() >= getFirstBatchCreated().toEpochMilli();
+    return lowerBound != null
+        && lowerBound.toEpochMilli() >= current.firstBatchCreated.toEpochMilli();
   }
 
   /**
    * Called periodically to build and refresh the filters list from the entityManager.
    *
-   * <p>The {@link #lastBatchCreated} and {@link #firstBatchCreated} fields are updated by this
-   * call.
+   * <p>The next snapshot is built from the current one and only the files that have batches created
+   * since it, and then published with its filters, bounds and transaction time all at once.
    */
   @Scheduled(fixedDelay = 1000, initialDelay = 2000)
   public void refreshFilters() {
     /*
      * Dev note: the pipeline has a process to trim the files list. Nevertheless, building a set of
      * bloom filters may take a while. This method is expected to be called on it's own thread by
-     * the the Spring framework. In addition, it doesn't lock this object until the end of the
-     * process, so this filter building process can happen without interfering with serving. Also,
+     * the the Spring framework. In addition, readers never lock this object, and the new snapshot
+     * is only published at the end of the process, so this filter building process can happen
+     * without interfering with serving. Also,
      * this refresh time will be proportional to the number of files which have been loaded in the
      * past refresh period. If no files have been loaded, this refresh should take less than a
      * millisecond.
      */
     try {
+      final Snapshot current = snapshot;
+
       // If new batches are present, then build new filters for the affected files
       final Instant currentLastBatchCreated =
           fetchLastLoadedBatchCreated().orElse(BEFORE_LAST_UPDATED_FEATURE);
 
-      if (this.lastBatchCreated == null
-          || this.lastBatchCreated.isBefore(currentLastBatchCreated)) {
+      if (current.lastBatchCreated == null
+          || current.lastBatchCreated.isBefore(currentLastBatchCreated)) {
         LOGGER.info(
             "Refreshing LoadedFile filters with new filters from {} to {}",
-            lastBatchCreated,
+            current.lastBatchCreated,
             currentLastBatchCreated);
 
-        List<LoadedTuple> loadedTuples = fetchLoadedTuples(this.lastBatchCreated);
+        List<LoadedTuple> loadedTuples = fetchLoadedTuples(current.lastBatchCreated);
         List<LoadedFileFilter> newFilters =
-            updateFilters(this.filters, loadedTuples, this::fetchLoadedBatches);
+            updateFilters(current.filters, loadedTuples, this::fetchLoadedBatches);
 
         // If batches been trimmed, then remove filters which are no longer present
         final Instant currentFirstBatchUpdate =
             fetchFirstLoadedBatchCreated().orElse(BEFORE_LAST_UPDATED_FEATURE);
 
-        if (this.firstBatchCreated == null
-            || this.firstBatchCreated.isBefore(currentFirstBatchUpdate)) {
+        if (current.firstBatchCreated == null
+            || current.firstBatchCreated.isBefore(currentFirstBatchUpdate)) {
           LOGGER.info("Trimmed LoadedFile filters before {}", currentFirstBatchUpdate);
           List<LoadedFile> loadedFiles = fetchLoadedFiles();
           newFilters = trimFilters(newFilters, loadedFiles);
@@ -284,7 +360,8 @@ public class LoadedFilterManager {
   }
 
   /**
-   * Set the current state in consistent fashion.
+   * Set the current state in consistent fashion. Readers see either the previous state or all of
+   * the new one.
    *
    * @param filters the filters
    * @param firstBatchCreated the first batch created
@@ -292,23 +369,21 @@ public class LoadedFilterManager {
    */
   public synchronized void set(
       List<LoadedFileFilter> filters, Instant firstBatchCreated, Instant lastBatchCreated) {
-    this.filters = filters;
-    this.firstBatchCreated = firstBatchCreated;
-    this.lastBatchCreated = lastBatchCreated;
-    this.transactionTime = lastBatchCreated;
+    snapshot = new Snapshot(filters, lastBatchCreated, firstBatchCreated, lastBatchCreated);
   }
 
   /** {@inheritDoc} */
   @Override
   public String toString() {
+    final Snapshot current = snapshot;
     return "LoadedFilterManager [filters.size="
-        + (filters != null ? String.valueOf(filters.size()) : "null")
+        + current.filters.size()
         + ", transactionTime="
-        + transactionTime
+        + current.transactionTime
         + ", firstBatchCreated="
-        + firstBatchCreated
+        + current.firstBatchCreated
         + ", lastBatchCreated="
-        + lastBatchCreated
+        + current.lastBatchCreated
         + "]";
   }
 
@@ -334,13 +409,14 @@ public class LoadedFilterManager {
       List<LoadedFileFilter> existingFilters,
       List<LoadedTuple> loadedTuples,
       Function<Long, List<LoadedBatch>> fetchById) {
-    List<LoadedFileFilter> result = new ArrayList<>(existingFilters);
     List<LoadedFileFilter> newFilters = buildFilters(loadedTuples, fetchById);
-    newFilters.forEach(
-        filter -> {
-          result.removeIf(f -> f.getLoadedFileId() == filter.getLoadedFileId());
-          result.add(filter);
-        });
+    Set<Long> newFileIds =
+        newFilters.stream().map(LoadedFileFilter::getLoadedFileId).collect(Collectors.toSet());
+    List<LoadedFileFilter> result = new ArrayList<>(existingFilters.size() + newFilters.size());
+    existingFilters.stream()
+        .filter(f -> !newFileIds.contains(f.getLoadedFileId()))
+        .forEach(result::add);
+    result.addAll(newFilters);
     result.sort((a, b) -> b.getFirstUpdated().compareTo(a.getFirstUpdated())); // Descending
     return result;
   }
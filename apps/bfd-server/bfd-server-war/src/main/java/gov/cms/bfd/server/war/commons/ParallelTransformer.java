@@ -0,0 +1,159 @@
+package gov.cms.bfd.server.war.commons;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transforms large lists of claim entities in parallel chunks on a dedicated, bounded {@link
+ * ForkJoinPool}, so that a beneficiary with many claims of a single type doesn't leave one pooled
+ * thread doing all of the work while the tasks for the other claim types sit idle.
+ *
+ * <p>Lists of at most {@link #chunkSize} entities are transformed on the calling thread, as are all
+ * lists when the chunk size is zero, which is the default. Results are always returned in the same
+ * order as the entities, so the output is identical to a sequential transformation.
+ *
+ * <p>The transformation function is called concurrently from several threads and so must be thread
+ * safe. The claim transformers are: the NPI and FDA lookups only read maps built at startup, the
+ * metric registries are thread safe, and the "log once" failure sets of the transformer utilities
+ * are concurrent sets. The claim entities must already be fully loaded since the persistence
+ * context that loaded them can't be used from other threads.
+ */
+@Component
+public class ParallelTransformer implements AutoCloseable {
+  /** The pool used to transform chunks, empty when parallel transformation is disabled. */
+  private final Optional<ForkJoinPool> pool;
+
+  /** The largest number of entities transformed as a single chunk. */
+  private final int chunkSize;
+
+  /**
+   * Instantiates a new {@link ParallelTransformer}.
+   *
+   * <p>Spring will wire this class during the initial component scan, so this constructor should
+   * only be explicitly called by tests.
+   *
+   * @param threadCount the number of threads in the pool
+   * @param chunkSize the largest number of entities transformed as a single chunk, zero to disable
+   *     parallel transformation
+   */
+  public ParallelTransformer(
+      @Value("${bfdServer.parallelTransform.threads:4}") int threadCount,
+      @Value("${bfdServer.parallelTransform.chunkSize:0}") int chunkSize) {
+    Preconditions.checkArgument(threadCount > 0, "threadCount must be positive");
+    Preconditions.checkArgument(chunkSize >= 0, "chunkSize cannot be negative");
+    this.chunkSize = chunkSize;
+    this.pool =
+        chunkSize == 0
+            ? Optional.empty()
+            : Optional.of(
+                new ForkJoinPool(
+                    threadCount,
+                    forkJoinPool -> {
+                      ForkJoinWorkerThread t =
+                          ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                      t.setName("eob_transforms-" + t.getPoolIndex());
+                      return t;
+                    },
+                    null,
+                    false));
+  }
+
+  /**
+   * Determines whether large lists are transformed in parallel.
+   *
+   * @return true if parallel transformation is enabled
+   */
+  public boolean isEnabled() {
+    return pool.isPresent();
+  }
+
+  /**
+   * Transforms each of the specified entities, in parallel chunks if there are more than {@link
+   * #chunkSize} of them.
+   *
+   * @param <T> the entity type
+   * @param <R> the result type
+   * @param entities the entities to transform
+   * @param transform the thread safe transformation to apply to each entity
+   * @return the results, in the same order as the entities
+   */
+  public <T, R> List<R> transform(List<T> entities, Function<? super T, ? extends R> transform) {
+    if (!pool.isPresent() || entities.size() <= chunkSize) {
+      return entities.stream().map(transform).collect(Collectors.toList());
+    }
+    return pool.get().invoke(new ChunkTask<>(entities, transform, 0, entities.size()));
+  }
+
+  /** Shuts down the pool once Spring destroys this bean. */
+  @Override
+  public void close() {
+    pool.ifPresent(ForkJoinPool::shutdown);
+  }
+
+  /**
+   * Transforms a range of entities, splitting it in half until the ranges are no larger than {@link
+   * #chunkSize}.
+   *
+   * @param <T> the entity type
+   * @param <R> the result type
+   */
+  private class ChunkTask<T, R> extends RecursiveTask<List<R>> {
+    /** The entities being transformed. */
+    private final List<T> entities;
+
+    /** The transformation to apply to each entity. */
+    private final Function<? super T, ? extends R> transform;
+
+    /** The index of the first entity in the range. */
+    private final int from;
+
+    /** The index after the last entity in the range. */
+    private final int to;
+
+    /**
+     * Instantiates a new {@link ChunkTask}.
+     *
+     * @param entities the entities being transformed
+     * @param transform the transformation to apply to each entity
+     * @param from the index of the first entity in the range
+     * @param to the index after the last entity in the range
+     */
+    private ChunkTask(
+        List<T> entities, Function<? super T, ? extends R> transform, int from, int to) {
+      this.entities = entities;
+      this.transform = transform;
+      this.from = from;
+      this.to = to;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected List<R> compute() {
+      if (to - from <= chunkSize) {
+        List<R> results = new ArrayList<>(to - from);
+        for (int i = from; i < to; ++i) {
+          results.add(transform.apply(entities.get(i)));
+        }
+        return results;
+      }
+
+      int middle = (from + to) >>> 1;
+      ChunkTask<T, R> first = new ChunkTask<>(entities, transform, from, middle);
+      ChunkTask<T, R> second = new ChunkTask<>(entities, transform, middle, to);
+      first.fork();
+      List<R> secondResults = second.compute();
+      List<R> results = first.join();
+      results.addAll(secondResults);
+      return results;
+    }
+  }
+}
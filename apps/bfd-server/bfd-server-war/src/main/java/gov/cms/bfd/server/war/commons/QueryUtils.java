@@ -6,6 +6,7 @@ import ca.uhn.fhir.rest.param.ParamPrefixEnum;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,11 +20,13 @@ import javax.persistence.criteria.Root;
 /** As set of methods to help form JPA queries. */
 public class QueryUtils {
   /**
-   * Database function that checks all claims for a given beneficiaryId and returns a bitwise mask
-   * value that shows if a given claim type will have any data.
+   * Reads the bitwise mask value that shows if a given claim type will have any data for a given
+   * beneficiaryId. The mask maintained by the pipeline in the beneficiaries table is used when
+   * present, otherwise a database function checks all claims for the beneficiary.
    */
   public static final String CHECK_CLAIMS_FOR_DATA_SQL =
-      "SELECT * FROM check_claims_mask(:beneIdValue)";
+      "SELECT COALESCE(claim_availability, check_claims_mask(bene_id)) FROM beneficiaries"
+          + " WHERE bene_id = :beneIdValue";
 
   /** BitSet index identifier for Carrier Claims. */
   public static final int CARRIER_HAS_DATA = 0;
@@ -171,6 +174,79 @@ public class QueryUtils {
     return builder.and(predicates.toArray(new Predicate[0]));
   }
 
+  /**
+   * Create a predicate for the service date of an EOB search. Bounds are converted to dates using
+   * the same rules the EOB searches used when they filtered claims after loading them, so the
+   * database returns exactly the claims that filter accepted. Claims without a service date never
+   * match a bound.
+   *
+   * @param builder {@link CriteriaBuilder} used to create various things
+   * @param serviceDate {@link DateRangeParam} specifying the date bounds
+   * @param dateExpression {@link Expression} or {@link Path} defining the service date to test
+   * @return a {@link Predicate} to evaluate the data range
+   */
+  public static Predicate createServiceDatePredicate(
+      CriteriaBuilder builder, DateRangeParam serviceDate, Expression<LocalDate> dateExpression) {
+    final List<Predicate> predicates = new ArrayList<>();
+
+    if (serviceDate.getLowerBoundAsInstant() != null) {
+      final LocalDate from =
+          serviceDate
+              .getLowerBoundAsInstant()
+              .toInstant()
+              .atZone(ZoneId.systemDefault())
+              .toLocalDate();
+      predicates.add(
+          compareDate(builder, dateExpression, from, serviceDate.getLowerBound().getPrefix()));
+    }
+
+    if (serviceDate.getUpperBoundAsInstant() != null) {
+      final LocalDate to =
+          serviceDate
+              .getUpperBoundAsInstant()
+              .toInstant()
+              .atZone(ZoneId.systemDefault())
+              .toLocalDate();
+      predicates.add(
+          compareDate(builder, dateExpression, to, serviceDate.getUpperBound().getPrefix()));
+    }
+
+    if (predicates.size() > 0) {
+      final Predicate notNull = builder.isNotNull(dateExpression);
+      predicates.add(0, notNull);
+    }
+
+    return builder.and(predicates.toArray(new Predicate[0]));
+  }
+
+  /**
+   * Create a predicate comparing a date expression to a date using a search prefix.
+   *
+   * @param builder {@link CriteriaBuilder} used to create various things
+   * @param dateExpression {@link Expression} defining the date to test
+   * @param date the date to compare against
+   * @param prefix the comparison to perform
+   * @return a {@link Predicate} performing the comparison
+   */
+  private static Predicate compareDate(
+      CriteriaBuilder builder,
+      Expression<LocalDate> dateExpression,
+      LocalDate date,
+      ParamPrefixEnum prefix) {
+    switch (prefix) {
+      case GREATERTHAN_OR_EQUALS:
+        return builder.greaterThanOrEqualTo(dateExpression, date);
+      case GREATERTHAN:
+        return builder.greaterThan(dateExpression, date);
+      case LESSTHAN_OR_EQUALS:
+        return builder.lessThanOrEqualTo(dateExpression, date);
+      case LESSTHAN:
+        return builder.lessThan(dateExpression, date);
+      default:
+        throw new InvalidRequestException(String.format("Unsupported prefix supplied: %s", prefix));
+    }
+  }
+
   /**
    * Create a predicate for the lastUpdate field based on the passed range.
    *
@@ -248,7 +324,9 @@ public class QueryUtils {
      * PART D CLAIMS       : bit 7
      *
      * For more information on the database function, see: V111__SETUP_CLAIMS_AVAILABILITY_FUNCTION.SQL
-     * in the db migration directory.
+     * in the db migration directory. The pipeline maintains the same bits in the claim_availability
+     * column of the beneficiaries table (see V114__ADD_BENEFICIARY_CLAIM_AVAILABILITY.SQL), which
+     * turns the common case into a single indexed row read.
      */
     List<Object> values =
         entityManager
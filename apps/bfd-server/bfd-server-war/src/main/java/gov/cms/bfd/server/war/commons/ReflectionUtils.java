@@ -1,7 +1,12 @@
 package gov.cms.bfd.server.war.commons;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utilities for working with reflection.
@@ -10,6 +15,35 @@ import java.util.Optional;
  * outside this package.
  */
 public class ReflectionUtils {
+  /**
+   * The {@link MethodHandle} of every method that {@link #tryMethod} has looked up, per class and
+   * method name, adapted to take and return an {@link Object}. Methods that don't exist or can't be
+   * used are cached as {@link Optional#empty()}, so the lookup and any exceptions it throws only
+   * happen once per class and name rather than once per call.
+   */
+  private static final ClassValue<Map<String, Optional<MethodHandle>>> ACCESSORS =
+      new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /**
+   * The {@link MethodHandle} of every method that {@link #tryGetter} has looked up, cached in the
+   * same way as {@link #ACCESSORS}.
+   */
+  private static final ClassValue<Map<String, Optional<MethodHandle>>> GETTERS =
+      new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /** The type that every cached {@link MethodHandle} is adapted to. */
+  private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
   /**
    * Helper function to look up method names and optionally attempt to execute.
    *
@@ -21,13 +55,78 @@ public class ReflectionUtils {
    */
   @SuppressWarnings("unchecked")
   public static <T> Optional<T> tryMethod(Object obj, String methodName) {
+    return (Optional<T>) invoke(ACCESSORS, obj, methodName, true).orElse(Optional.empty());
+  }
+
+  /**
+   * Calls a public no-argument method of any return type, such as {@code getLines()}, looking it up
+   * only once per class and method name.
+   *
+   * @param obj the object with the specified method
+   * @param methodName the method name
+   * @return the result of the method, or {@link Optional#empty()} if the method did not exist,
+   *     invocation failed, or it returned null
+   */
+  public static Optional<Object> tryGetter(Object obj, String methodName) {
+    return invoke(GETTERS, obj, methodName, false);
+  }
+
+  /**
+   * Looks up a method in a cache, and calls it if it exists.
+   *
+   * @param cache the cache to look the method up in
+   * @param obj the object with the specified method
+   * @param methodName the method name
+   * @param optionalOnly whether the method must return an {@link Optional}
+   * @return the result of the method, or {@link Optional#empty()} if the method did not exist,
+   *     invocation failed, or it returned null
+   */
+  private static Optional<Object> invoke(
+      ClassValue<Map<String, Optional<MethodHandle>>> cache,
+      Object obj,
+      String methodName,
+      boolean optionalOnly) {
+    Optional<MethodHandle> accessor =
+        cache
+            .get(obj.getClass())
+            .computeIfAbsent(methodName, name -> findAccessor(obj.getClass(), name, optionalOnly));
+    if (!accessor.isPresent()) {
+      return Optional.empty();
+    }
+
+    final Object result;
     try {
-      Method func = obj.getClass().getDeclaredMethod(methodName);
+      result = accessor.get().invokeExact(obj);
+    } catch (Error e) {
+      throw e;
+    }
+    // Any other errors would be caused by the method failing, as with Method.invoke
+    catch (Throwable t) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(result);
+  }
 
-      return (Optional<T>) func.invoke(obj);
+  /**
+   * Looks up a public no-argument method declared by the specified class.
+   *
+   * @param type the class to look in
+   * @param methodName the method name
+   * @param optionalOnly whether the method must return an {@link Optional}
+   * @return a {@link MethodHandle} for the method, adapted to {@link #ACCESSOR_TYPE}, or {@link
+   *     Optional#empty()} if there is no such method
+   */
+  private static Optional<MethodHandle> findAccessor(
+      Class<?> type, String methodName, boolean optionalOnly) {
+    try {
+      Method method = type.getDeclaredMethod(methodName);
+      if (optionalOnly && !Optional.class.equals(method.getReturnType())) {
+        return Optional.empty();
+      }
+      return Optional.of(MethodHandles.publicLookup().unreflect(method).asType(ACCESSOR_TYPE));
     }
     // Any reflection errors would be caused by the method not being available
-    catch (Exception e) {
+    catch (ReflectiveOperationException | RuntimeException e) {
       return Optional.empty();
     }
   }
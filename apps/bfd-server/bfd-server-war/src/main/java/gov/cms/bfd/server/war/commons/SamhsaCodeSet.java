@@ -0,0 +1,212 @@
+package gov.cms.bfd.server.war.commons;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of normalized SAMHSA-related codes, compiled into a trie that is stored in a few
+ * flat arrays. Raw codes from claim entities or FHIR codings are normalized as the trie is walked,
+ * so checking a code doesn't allocate or copy it the way {@link
+ * AbstractSamhsaMatcher#normalizeIcdCode} and {@link AbstractSamhsaMatcher#normalizeHcpcsCode} do.
+ *
+ * <p>Node 0 is the root. The edges leaving a node are {@code edgeLabels}/{@code edgeTargets}
+ * entries from {@code firstEdges[node]} up to {@code firstEdges[node + 1]}, sorted by label.
+ *
+ * <p>This class is immutable and thread-safe.
+ */
+final class SamhsaCodeSet {
+  /** The index of the first edge of each node, plus the number of edges as a final entry. */
+  private final int[] firstEdges;
+
+  /** The character that each edge matches. */
+  private final char[] edgeLabels;
+
+  /** The node that each edge leads to. */
+  private final int[] edgeTargets;
+
+  /** Whether the path to each node spells out a complete code. */
+  private final boolean[] terminals;
+
+  /** The number of codes in the set. */
+  private final int size;
+
+  /**
+   * Initializes an instance. Use {@link #of} to compile one.
+   *
+   * @param firstEdges the index of the first edge of each node
+   * @param edgeLabels the character that each edge matches
+   * @param edgeTargets the node that each edge leads to
+   * @param terminals whether each node ends a code
+   * @param size the number of codes in the set
+   */
+  private SamhsaCodeSet(
+      int[] firstEdges, char[] edgeLabels, int[] edgeTargets, boolean[] terminals, int size) {
+    this.firstEdges = firstEdges;
+    this.edgeLabels = edgeLabels;
+    this.edgeTargets = edgeTargets;
+    this.terminals = terminals;
+    this.size = size;
+  }
+
+  /**
+   * Compiles a set of codes that have already been normalized. Nodes are numbered breadth first,
+   * which keeps the edges of each node next to each other.
+   *
+   * @param normalizedCodes the codes to put in the set
+   * @return the compiled set
+   */
+  static SamhsaCodeSet of(Collection<String> normalizedCodes) {
+    final String[] codes = normalizedCodes.stream().distinct().sorted().toArray(String[]::new);
+    int maxNodes = 1;
+    for (String code : codes) {
+      maxNodes += code.length();
+    }
+    final int[] firstEdges = new int[maxNodes + 1];
+    final char[] edgeLabels = new char[maxNodes];
+    final int[] edgeTargets = new int[maxNodes];
+    final boolean[] terminals = new boolean[maxNodes];
+    // the codes below each node are a contiguous range of the sorted codes
+    final int[] rangeStarts = new int[maxNodes];
+    final int[] rangeEnds = new int[maxNodes];
+    final int[] depths = new int[maxNodes];
+    rangeEnds[0] = codes.length;
+    int nodeCount = 1;
+    int edgeCount = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      firstEdges[node] = edgeCount;
+      final int depth = depths[node];
+      int start = rangeStarts[node];
+      // since the codes are sorted and distinct, only the first one can end at this node
+      if (start < rangeEnds[node] && codes[start].length() == depth) {
+        terminals[node] = true;
+        start += 1;
+      }
+      while (start < rangeEnds[node]) {
+        final char label = codes[start].charAt(depth);
+        int end = start + 1;
+        while (end < rangeEnds[node] && codes[end].charAt(depth) == label) {
+          end += 1;
+        }
+        edgeLabels[edgeCount] = label;
+        edgeTargets[edgeCount] = nodeCount;
+        edgeCount += 1;
+        rangeStarts[nodeCount] = start;
+        rangeEnds[nodeCount] = end;
+        depths[nodeCount] = depth + 1;
+        nodeCount += 1;
+        start = end;
+      }
+    }
+    firstEdges[nodeCount] = edgeCount;
+    return new SamhsaCodeSet(
+        Arrays.copyOf(firstEdges, nodeCount + 1),
+        Arrays.copyOf(edgeLabels, edgeCount),
+        Arrays.copyOf(edgeTargets, edgeCount),
+        Arrays.copyOf(terminals, nodeCount),
+        codes.length);
+  }
+
+  /**
+   * Gets the number of codes in the set.
+   *
+   * @return the number of codes
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the set contains a code exactly as given.
+   *
+   * @param normalizedCode the code to check
+   * @return <code>true</code> if the set contains the code
+   */
+  boolean contains(String normalizedCode) {
+    int node = 0;
+    for (int i = 0; i < normalizedCode.length() && node >= 0; i++) {
+      node = child(node, normalizedCode.charAt(i));
+    }
+    return node >= 0 && terminals[node];
+  }
+
+  /**
+   * Checks if the set contains an ICD (or DRG) code once it is normalized the way {@link
+   * AbstractSamhsaMatcher#normalizeIcdCode} does.
+   *
+   * @param icdCode the raw code to check
+   * @return <code>true</code> if the set contains the normalized code
+   */
+  boolean containsIcdCode(String icdCode) {
+    return containsNormalized(icdCode, true);
+  }
+
+  /**
+   * Checks if the set contains a HCPCS code once it is normalized the way {@link
+   * AbstractSamhsaMatcher#normalizeHcpcsCode} does.
+   *
+   * @param hcpcsCode the raw code to check
+   * @return <code>true</code> if the set contains the normalized code
+   */
+  boolean containsHcpcsCode(String hcpcsCode) {
+    return containsNormalized(hcpcsCode, false);
+  }
+
+  /**
+   * Walks the trie with a raw code, trimming it, upper-casing it, and optionally skipping its first
+   * period along the way. Codes that aren't plain ASCII are normalized with {@link String} methods
+   * instead, since upper-casing them can change their length.
+   *
+   * @param code the raw code to check
+   * @param skipFirstPeriod whether to skip the first period in the code
+   * @return <code>true</code> if the set contains the normalized code
+   */
+  private boolean containsNormalized(String code, boolean skipFirstPeriod) {
+    int start = 0;
+    int end = code.length();
+    while (start < end && code.charAt(start) <= ' ') {
+      start += 1;
+    }
+    while (end > start && code.charAt(end - 1) <= ' ') {
+      end -= 1;
+    }
+    boolean skipPeriod = skipFirstPeriod;
+    int node = 0;
+    for (int i = start; i < end && node >= 0; i++) {
+      char c = code.charAt(i);
+      if (c >= 0x80) {
+        return contains(
+            skipFirstPeriod
+                ? AbstractSamhsaMatcher.normalizeIcdCode(code)
+                : AbstractSamhsaMatcher.normalizeHcpcsCode(code));
+      }
+      if (skipPeriod && c == '.') {
+        skipPeriod = false;
+        continue;
+      }
+      if (c >= 'a' && c <= 'z') {
+        c = (char) (c - ('a' - 'A'));
+      }
+      node = child(node, c);
+    }
+    return node >= 0 && terminals[node];
+  }
+
+  /**
+   * Follows the edge that leaves a node with a given label.
+   *
+   * @param node the node to leave
+   * @param label the label of the edge to follow
+   * @return the node the edge leads to, or -1 if there is no such edge
+   */
+  private int child(int node, char label) {
+    for (int edge = firstEdges[node]; edge < firstEdges[node + 1]; edge++) {
+      final char edgeLabel = edgeLabels[edge];
+      if (edgeLabel == label) {
+        return edgeTargets[edge];
+      } else if (edgeLabel > label) {
+        break;
+      }
+    }
+    return -1;
+  }
+}
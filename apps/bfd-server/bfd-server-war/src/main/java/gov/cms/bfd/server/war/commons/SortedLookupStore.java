@@ -0,0 +1,410 @@
+package gov.cms.bfd.server.war.commons;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An immutable lookup table of tab separated {@code key<TAB>value} lines that is held as the raw
+ * UTF-8 bytes of the lines plus one {@code int} offset per line, rather than as a {@link
+ * java.util.HashMap} of two {@link String}s and an entry per line. Keys are found by binary search
+ * over the offsets, so {@link String}s are only created for the values that are actually looked up.
+ *
+ * <p>The lines are expected to be sorted by the unsigned bytes of their keys, which the build
+ * produces for the NPI and FDA resources. Unsorted resources are sorted once when they are loaded,
+ * and when a key occurs more than once the last line wins, just as it did with a map. The bytes are
+ * memory mapped when the resource is a plain file, and otherwise copied once into a buffer outside
+ * of the heap, since entries of the jars inside the war can't be mapped.
+ *
+ * <p>Instances are thread safe, so that a single instance of each table can be shared by all
+ * requests and by both the STU3 and R4 transformers.
+ */
+public final class SortedLookupStore {
+  /** The byte that separates a key from its value. */
+  private static final byte TAB = '\t';
+
+  /** The byte that ends each line. */
+  private static final byte NEWLINE = '\n';
+
+  /** The byte that may precede {@link #NEWLINE} in files with DOS line endings. */
+  private static final byte CARRIAGE_RETURN = '\r';
+
+  /** The bytes of the lines. Only read with absolute gets, so it is safe to share. */
+  private final ByteBuffer bytes;
+
+  /** The offset of the start of each line, in key order. */
+  private final int[] lineStarts;
+
+  /**
+   * Instantiates a new store from the bytes of its lines.
+   *
+   * @param bytes the bytes of the lines
+   * @param skipHeader true if the first line is a header rather than an entry
+   */
+  @VisibleForTesting
+  SortedLookupStore(ByteBuffer bytes, boolean skipHeader) {
+    this.bytes = bytes;
+    this.lineStarts = findEntries(bytes, skipHeader);
+  }
+
+  /**
+   * Loads a store from a classpath resource.
+   *
+   * @param resourceName the name of the resource
+   * @param skipHeader true if the first line is a header rather than an entry
+   * @return the store
+   * @throws UncheckedIOException if the resource can't be read
+   * @throws IllegalArgumentException if there is no such resource
+   */
+  public static SortedLookupStore fromResource(String resourceName, boolean skipHeader) {
+    URL resource = Thread.currentThread().getContextClassLoader().getResource(resourceName);
+    Preconditions.checkArgument(resource != null, "Unable to find resource: %s", resourceName);
+    try {
+      return new SortedLookupStore(readBytes(resource), skipHeader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read resource: " + resourceName, e);
+    }
+  }
+
+  /**
+   * Gets the number of entries in the store.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return lineStarts.length;
+  }
+
+  /**
+   * Finds the value of a key.
+   *
+   * @param key the key
+   * @return the rest of the key's line after the tab that follows the key, or empty if there is no
+   *     such key
+   */
+  public Optional<String> get(String key) {
+    final int index = indexOf(key.getBytes(StandardCharsets.UTF_8));
+    return index < 0 ? Optional.empty() : Optional.of(getValue(index));
+  }
+
+  /**
+   * Determines whether the store has a key.
+   *
+   * @param key the key
+   * @return true if the key is in the store
+   */
+  public boolean containsKey(String key) {
+    return indexOf(key.getBytes(StandardCharsets.UTF_8)) >= 0;
+  }
+
+  /**
+   * Creates an unmodifiable {@link Map} view of the store, for code that expects a map. Lookups in
+   * the view use the store directly, and iterating over it creates {@link String}s for each entry
+   * as it is reached.
+   *
+   * @return the view
+   */
+  public Map<String, String> asMap() {
+    return new MapView();
+  }
+
+  /**
+   * Finds the line with a key.
+   *
+   * @param key the bytes of the key
+   * @return the index of the line in {@link #lineStarts}, or -1 if there is no such key
+   */
+  private int indexOf(byte[] key) {
+    int low = 0;
+    int high = lineStarts.length - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int comparison = compareKey(bytes, lineStarts[middle], key);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the key of a line.
+   *
+   * @param index the index of the line in {@link #lineStarts}
+   * @return the key
+   */
+  private String getKey(int index) {
+    final int start = lineStarts[index];
+    return decode(start, findKeyEnd(bytes, start));
+  }
+
+  /**
+   * Gets the value of a line.
+   *
+   * @param index the index of the line in {@link #lineStarts}
+   * @return the value, which is empty if the line has no tab
+   */
+  private String getValue(int index) {
+    final int keyEnd = findKeyEnd(bytes, lineStarts[index]);
+    final int lineEnd = findLineEnd(bytes, keyEnd);
+    return keyEnd < lineEnd ? decode(keyEnd + 1, lineEnd) : "";
+  }
+
+  /**
+   * Decodes a range of the bytes.
+   *
+   * @param start the offset of the first byte
+   * @param end the offset after the last byte
+   * @return the decoded text
+   */
+  private String decode(int start, int end) {
+    final byte[] text = new byte[end - start];
+    bytes.get(start, text);
+    return new String(text, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Finds the lines of the entries, and sorts them by key if the lines aren't sorted already. Blank
+   * lines are ignored.
+   *
+   * @param bytes the bytes of the lines
+   * @param skipHeader true if the first line is a header rather than an entry
+   * @return the offset of the start of each entry's line, in key order
+   */
+  private static int[] findEntries(ByteBuffer bytes, boolean skipHeader) {
+    int[] starts = new int[1024];
+    int count = 0;
+    boolean sorted = true;
+    int start = skipHeader ? findLineEnd(bytes, 0) : 0;
+    while (start < bytes.limit()) {
+      if (bytes.get(start) == NEWLINE || bytes.get(start) == CARRIAGE_RETURN) {
+        ++start;
+        continue;
+      }
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+      }
+      if (count > 0 && compareKeys(bytes, starts[count - 1], start) > 0) {
+        sorted = false;
+      }
+      starts[count++] = start;
+      start = findLineEnd(bytes, start);
+    }
+    starts = Arrays.copyOf(starts, count);
+    return sorted ? removeDuplicates(bytes, starts) : sort(bytes, starts);
+  }
+
+  /**
+   * Sorts the lines by key, keeping lines with the same key in their original order.
+   *
+   * @param bytes the bytes of the lines
+   * @param starts the offset of the start of each line, in file order
+   * @return the offset of the start of each line, in key order
+   */
+  private static int[] sort(ByteBuffer bytes, int[] starts) {
+    final Integer[] boxed = Arrays.stream(starts).boxed().toArray(Integer[]::new);
+    Arrays.sort(boxed, (first, second) -> compareKeys(bytes, first, second));
+    return removeDuplicates(bytes, Arrays.stream(boxed).mapToInt(Integer::intValue).toArray());
+  }
+
+  /**
+   * Removes all but the last of each run of lines with the same key.
+   *
+   * @param bytes the bytes of the lines
+   * @param starts the offset of the start of each line, in key order
+   * @return the offset of the start of each line with a unique key
+   */
+  private static int[] removeDuplicates(ByteBuffer bytes, int[] starts) {
+    int count = 0;
+    for (int i = 0; i < starts.length; ++i) {
+      if (i + 1 < starts.length && compareKeys(bytes, starts[i], starts[i + 1]) == 0) {
+        continue;
+      }
+      starts[count++] = starts[i];
+    }
+    return count == starts.length ? starts : Arrays.copyOf(starts, count);
+  }
+
+  /**
+   * Compares the keys of two lines by their unsigned bytes.
+   *
+   * @param bytes the bytes of the lines
+   * @param first the offset of the first line
+   * @param second the offset of the second line
+   * @return a negative number, zero, or a positive number as the first key sorts before, the same
+   *     as, or after the second
+   */
+  private static int compareKeys(ByteBuffer bytes, int first, int second) {
+    final int firstEnd = findKeyEnd(bytes, first);
+    final int secondEnd = findKeyEnd(bytes, second);
+    final int length = Math.min(firstEnd - first, secondEnd - second);
+    for (int i = 0; i < length; ++i) {
+      final int comparison =
+          Byte.toUnsignedInt(bytes.get(first + i)) - Byte.toUnsignedInt(bytes.get(second + i));
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return (firstEnd - first) - (secondEnd - second);
+  }
+
+  /**
+   * Compares the key of a line with a key being looked up, by their unsigned bytes.
+   *
+   * @param bytes the bytes of the lines
+   * @param start the offset of the line
+   * @param key the bytes of the key being looked up
+   * @return a negative number, zero, or a positive number as the line's key sorts before, the same
+   *     as, or after the key being looked up
+   */
+  private static int compareKey(ByteBuffer bytes, int start, byte[] key) {
+    final int end = findKeyEnd(bytes, start);
+    final int length = Math.min(end - start, key.length);
+    for (int i = 0; i < length; ++i) {
+      final int comparison = Byte.toUnsignedInt(bytes.get(start + i)) - Byte.toUnsignedInt(key[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return (end - start) - key.length;
+  }
+
+  /**
+   * Finds the end of the key of a line.
+   *
+   * @param bytes the bytes of the lines
+   * @param start the offset of the line
+   * @return the offset of the tab that follows the key, or of the end of the line if it has no tab
+   */
+  private static int findKeyEnd(ByteBuffer bytes, int start) {
+    int end = start;
+    while (end < bytes.limit()) {
+      final byte b = bytes.get(end);
+      if (b == TAB || b == NEWLINE || b == CARRIAGE_RETURN) {
+        break;
+      }
+      ++end;
+    }
+    return end;
+  }
+
+  /**
+   * Finds the end of a line.
+   *
+   * @param bytes the bytes of the lines
+   * @param start any offset within the line
+   * @return the offset of the line's line break, or the end of the bytes for the last line
+   */
+  private static int findLineEnd(ByteBuffer bytes, int start) {
+    int end = start;
+    while (end < bytes.limit()) {
+      final byte b = bytes.get(end);
+      if (b == NEWLINE || b == CARRIAGE_RETURN) {
+        break;
+      }
+      ++end;
+    }
+    return end;
+  }
+
+  /**
+   * Reads the bytes of a resource, mapping them if the resource is a plain file.
+   *
+   * @param resource the resource
+   * @return the bytes
+   * @throws IOException if the resource can't be read
+   */
+  private static ByteBuffer readBytes(URL resource) throws IOException {
+    if ("file".equals(resource.getProtocol())) {
+      try (FileChannel channel =
+          FileChannel.open(Path.of(resource.toURI()), StandardOpenOption.READ)) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } catch (URISyntaxException e) {
+        throw new IOException(e);
+      }
+    }
+    try (InputStream input = resource.openStream()) {
+      final byte[] contents = input.readAllBytes();
+      return ByteBuffer.allocateDirect(contents.length).put(contents).flip();
+    }
+  }
+
+  /** An unmodifiable {@link Map} view of the store. */
+  private final class MapView extends AbstractMap<String, String> {
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+      return SortedLookupStore.this.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof String && SortedLookupStore.this.containsKey((String) key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String get(Object key) {
+      return key instanceof String ? SortedLookupStore.this.get((String) key).orElse(null) : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return new AbstractSet<>() {
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+          return SortedLookupStore.this.size();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+          return new Iterator<>() {
+            /** The index of the next entry. */
+            private int next;
+
+            /** {@inheritDoc} */
+            @Override
+            public boolean hasNext() {
+              return next < lineStarts.length;
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public Entry<String, String> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              final int index = next++;
+              return new SimpleImmutableEntry<>(getKey(index), getValue(index));
+            }
+          };
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package gov.cms.bfd.server.war.commons;
+
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+/**
+ * Supports writing the entries of a search {@link IBaseBundle} to the response as they are
+ * produced rather than holding every resource of the result in memory at once.
+ *
+ * <p>A resource provider that has been told streaming is supported for a request returns a bundle
+ * that contains everything but its entries (total, meta, links) and attaches an {@link
+ * EntrySource} to it using {@link #defer}. When the response is written the envelope is encoded
+ * normally and the entries are encoded one at a time as the source produces them. The output is
+ * identical to encoding the complete bundle since entries are the last element of an encoded
+ * bundle.
+ */
+public final class StreamingBundle {
+  /**
+   * Name of the {@link RequestDetails#getUserData()} value set when the response to a request can
+   * be streamed.
+   */
+  public static final String STREAMING_SUPPORTED_KEY =
+      StreamingBundle.class.getName() + ".supported";
+
+  /** Name of the {@link IBaseBundle#getUserData} value holding the deferred {@link EntrySource}. */
+  private static final String ENTRY_SOURCE_KEY = StreamingBundle.class.getName() + ".entrySource";
+
+  /** The name of the bundle's entry element. */
+  private static final String ENTRY_ELEMENT = "entry";
+
+  /** preclude construction from outsiders. */
+  private StreamingBundle() {}
+
+  /**
+   * Produces the resources of a bundle in the order they should appear in its entries.
+   *
+   * <p>Implementations are expected to hold only a bounded number of resources in memory at a time
+   * and pass each to the consumer as soon as its place in the bundle is known.
+   */
+  @FunctionalInterface
+  public interface EntrySource {
+    /**
+     * Passes every resource of the bundle to the consumer in bundle order.
+     *
+     * @param consumer receives each resource
+     * @throws Exception if producing the resources failed
+     */
+    void forEachResource(Consumer<IBaseResource> consumer) throws Exception;
+  }
+
+  /**
+   * Determines whether the response to a request can be streamed.
+   *
+   * @param requestDetails the request
+   * @return true if {@link #STREAMING_SUPPORTED_KEY} has been set for the request
+   */
+  public static boolean isStreamingSupported(RequestDetails requestDetails) {
+    if (requestDetails == null) {
+      return false;
+    }
+    Map<Object, Object> userData = requestDetails.getUserData();
+    return userData != null && Boolean.TRUE.equals(userData.get(STREAMING_SUPPORTED_KEY));
+  }
+
+  /**
+   * Attaches the source of the bundle's entries to a bundle that has no entries of its own.
+   *
+   * @param <T> the bundle type
+   * @param bundle the bundle without entries
+   * @param entrySource produces the entries when the bundle is written
+   * @return the bundle
+   */
+  public static <T extends IBaseBundle> T defer(T bundle, EntrySource entrySource) {
+    bundle.setUserData(ENTRY_SOURCE_KEY, entrySource);
+    return bundle;
+  }
+
+  /**
+   * Gets the {@link EntrySource} attached by {@link #defer}.
+   *
+   * @param resource the resource being returned
+   * @return the source of the entries or empty if the resource was not deferred
+   */
+  public static Optional<EntrySource> getEntrySource(IBaseResource resource) {
+    if (resource instanceof IBaseBundle) {
+      return Optional.ofNullable((EntrySource) resource.getUserData(ENTRY_SOURCE_KEY));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Writes a deferred bundle as JSON. The envelope is encoded by the parser and the entries are
+   * inserted before its final closing brace. The entry element is only written once the first
+   * resource arrives so that an empty result is encoded exactly as HAPI would encode it.
+   *
+   * @param parser a JSON {@link IParser} configured for the response
+   * @param bundle the bundle without entries
+   * @param entrySource produces the entries
+   * @param writer receives the encoded bundle
+   * @return the number of entries written
+   * @throws Exception if producing the resources or writing failed
+   */
+  public static int writeJson(
+      IParser parser, IBaseBundle bundle, EntrySource entrySource, Writer writer)
+      throws Exception {
+    String envelope = parser.encodeResourceToString(bundle);
+    int closingBrace = envelope.lastIndexOf('}');
+    Preconditions.checkState(closingBrace > 0, "encoded bundle is not a JSON object");
+    writer.write(envelope, 0, closingBrace);
+
+    int[] count = {0};
+    entrySource.forEachResource(
+        resource -> {
+          try {
+            writer.write(count[0] == 0 ? ",\"" + ENTRY_ELEMENT + "\":[" : ",");
+            writer.write("{\"resource\":");
+            parser.encodeResourceToWriter(resource, writer);
+            writer.write('}');
+            count[0] += 1;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    if (count[0] > 0) {
+      writer.write(']');
+    }
+    writer.write(envelope, closingBrace, envelope.length() - closingBrace);
+    return count[0];
+  }
+}
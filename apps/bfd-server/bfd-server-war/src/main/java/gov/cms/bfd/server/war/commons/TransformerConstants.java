@@ -1,7 +1,6 @@
 package gov.cms.bfd.server.war.commons;
 
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
-import gov.cms.bfd.model.codebook.model.Variable;
 import gov.cms.bfd.model.rif.Beneficiary;
 import gov.cms.bfd.model.rif.CarrierClaimColumn;
 import gov.cms.bfd.server.war.stu3.providers.PatientResourceProvider;
@@ -89,7 +88,7 @@ public final class TransformerConstants {
    * </ul>
    *
    * <p>This URL will never be used by itself; it will always be suffixed with the (lower-cased)
-   * {@link CcwCodebookVariable#getVariable()}'s {@link Variable#getId()}.
+   * {@link CcwCodebookVariable#getId()}.
    */
   public static final String BASE_URL_CCW_VARIABLES = BASE_URL_BBAPI_RESOURCES + "/variables";
 
@@ -62,6 +62,16 @@ final class CarrierClaimTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link CarrierClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return CarrierClaim.class;
+  }
+
   /**
    * Transforms a {@link CarrierClaim} into an {@link ExplanationOfBenefit}.
    *
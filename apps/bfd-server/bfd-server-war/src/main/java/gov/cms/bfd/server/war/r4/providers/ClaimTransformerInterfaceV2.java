@@ -14,4 +14,11 @@ public interface ClaimTransformerInterfaceV2 {
    * @return {@link ExplanationOfBenefit}
    */
   ExplanationOfBenefit transform(Object claimEntity, boolean includeTaxNumbers);
+
+  /**
+   * Gets the class of the claim entities that {@link #transform} accepts.
+   *
+   * @return the claim entity class, such as {@code CarrierClaim.class}
+   */
+  Class<?> getEntityClass();
 }
@@ -30,7 +30,7 @@ import org.springframework.stereotype.Component;
 
 /** Transforms CCW {@link Beneficiary} instances into FHIR {@link Coverage} resources. */
 @Component
-final class CoverageTransformerV2 {
+public final class CoverageTransformerV2 {
 
   /** Helper to record metric information. */
   private final MetricRegistry metricRegistry;
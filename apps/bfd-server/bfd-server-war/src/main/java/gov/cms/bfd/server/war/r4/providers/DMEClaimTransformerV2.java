@@ -55,6 +55,16 @@ final class DMEClaimTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link DMEClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return DMEClaim.class;
+  }
+
   /**
    * Transforms a {@link DMEClaim} into a FHIR {@link ExplanationOfBenefit}.
    *
@@ -2,6 +2,7 @@ package gov.cms.bfd.server.war.r4.providers;
 
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
 import gov.cms.bfd.model.codebook.model.CcwCodebookInterface;
+import gov.cms.bfd.server.war.commons.CodeDisplayLookups;
 import gov.cms.bfd.server.war.commons.Diagnosis;
 import gov.cms.bfd.server.war.commons.Diagnosis.DiagnosisLabel;
 import gov.cms.bfd.server.war.commons.IcdCode;
@@ -10,18 +11,11 @@ import gov.cms.bfd.server.war.commons.carin.C4BBClaimInpatientInstitutionalDiagn
 import gov.cms.bfd.server.war.commons.carin.C4BBClaimOutpatientInstitutionalDiagnosisType;
 import gov.cms.bfd.server.war.commons.carin.C4BBClaimProfessionalAndNonClinicianDiagnosisType;
 import gov.cms.bfd.sharedutils.exceptions.BadCodeMonkeyException;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.hl7.fhir.r4.model.CodeableConcept;
@@ -40,11 +34,8 @@ import org.slf4j.LoggerFactory;
 public class DiagnosisUtilV2 {
   private static final Logger LOGGER = LoggerFactory.getLogger(DiagnosisUtilV2.class);
 
-  /** Stores the diagnosis ICD codes and their display values. */
-  private static Map<String, String> icdMap = null;
-
   /** Tracks the national drug codes that have already had code lookup failures. */
-  private static final Set<String> icdLookupMissingFailures = new HashSet<>();
+  private static final Set<String> icdLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /**
    * Retrieves the Diagnosis display value from a Diagnosis code look up file.
@@ -57,19 +48,9 @@ public class DiagnosisUtilV2 {
       return null;
     }
 
-    /*
-     * There's a race condition here: we may initialize this static field more than once if multiple
-     * requests come in at the same time. However, the assignment is atomic, so the race and
-     * reinitialization is harmless other than maybe wasting a bit of time.
-     */
-    // read the entire ICD file the first time and put in a Map
-    if (icdMap == null) {
-      icdMap = readIcdCodeFile();
-    }
-
-    if (icdMap.containsKey(icdCode.toUpperCase())) {
-      String icdCodeDisplay = icdMap.get(icdCode);
-      return icdCodeDisplay;
+    Optional<String> icdCodeDisplay = CodeDisplayLookups.getIcdCodeDisplay(icdCode);
+    if (icdCodeDisplay.isPresent()) {
+      return icdCodeDisplay.get();
     }
 
     // log which ICD codes we couldn't find a match for in our downloaded ICD file
@@ -84,38 +65,6 @@ public class DiagnosisUtilV2 {
     return null;
   }
 
-  /**
-   * Reads ALL the ICD codes and display values from the DGNS_CD.txt file. Refer to the README file
-   * in the src/main/resources directory.
-   *
-   * @return the map of ICD codes
-   */
-  private static Map<String, String> readIcdCodeFile() {
-    Map<String, String> icdDiagnosisMap = new HashMap<String, String>();
-
-    try (final InputStream icdCodeDisplayStream =
-            Thread.currentThread().getContextClassLoader().getResourceAsStream("DGNS_CD.txt");
-        final BufferedReader icdCodesIn =
-            new BufferedReader(new InputStreamReader(icdCodeDisplayStream))) {
-      /*
-       * We want to extract the ICD Diagnosis codes and display values and put in a map for easy
-       * retrieval to get the display value icdColumns[1] is DGNS_DESC(i.e. 7840 code is HEADACHE
-       * description)
-       */
-      String line = "";
-      icdCodesIn.readLine();
-      while ((line = icdCodesIn.readLine()) != null) {
-        String icdColumns[] = line.split("\t");
-        icdDiagnosisMap.put(icdColumns[0], icdColumns[1]);
-      }
-      icdCodesIn.close();
-    } catch (IOException e) {
-      throw new UncheckedIOException("Unable to read ICD code data.", e);
-    }
-
-    return icdDiagnosisMap;
-  }
-
   /**
    * Checks to see if a diagnosis that matches already exists.
    *
@@ -189,12 +138,11 @@ public class DiagnosisUtilV2 {
       String substitution, Object claim, Optional<CcwCodebookInterface> ccw, DiagnosisLabel label) {
 
     Optional<String> code =
-        ReflectionUtils.tryMethod(claim, String.format("getDiagnosis%sCode", substitution));
+        ReflectionUtils.tryMethod(claim, "getDiagnosis" + substitution + "Code");
     Optional<Character> codeVersion =
-        ReflectionUtils.tryMethod(claim, String.format("getDiagnosis%sCodeVersion", substitution));
+        ReflectionUtils.tryMethod(claim, "getDiagnosis" + substitution + "CodeVersion");
     Optional<Character> presentOnAdm =
-        ReflectionUtils.tryMethod(
-            claim, String.format("getDiagnosis%sPresentOnAdmissionCode", substitution));
+        ReflectionUtils.tryMethod(claim, "getDiagnosis" + substitution + "PresentOnAdmissionCode");
 
     return Diagnosis.from(code, codeVersion, presentOnAdm, ccw, label);
   }
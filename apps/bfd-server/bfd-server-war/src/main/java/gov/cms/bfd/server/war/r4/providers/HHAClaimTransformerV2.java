@@ -49,6 +49,16 @@ final class HHAClaimTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link HHAClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return HHAClaim.class;
+  }
+
   /**
    * Transforms a {@link HHAClaim} into a FHIR {@link ExplanationOfBenefit}.
    *
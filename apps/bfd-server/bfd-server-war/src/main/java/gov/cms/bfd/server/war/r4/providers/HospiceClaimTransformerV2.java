@@ -51,6 +51,16 @@ final class HospiceClaimTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link HospiceClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return HospiceClaim.class;
+  }
+
   /**
    * Transforms a @link HospiceClaim} into an {@link ExplanationOfBenefit}.
    *
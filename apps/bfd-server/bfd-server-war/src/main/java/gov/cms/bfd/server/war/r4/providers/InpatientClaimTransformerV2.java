@@ -55,6 +55,16 @@ final class InpatientClaimTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link InpatientClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return InpatientClaim.class;
+  }
+
   /**
    * Transforms a {@link InpatientClaim} into an {@link ExplanationOfBenefit}.
    *
@@ -64,6 +64,16 @@ final class OutpatientClaimTransformerV2 implements ClaimTransformerInterfaceV2
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link OutpatientClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return OutpatientClaim.class;
+  }
+
   /**
    * Transforms a {@link OutpatientClaim} into an {@link ExplanationOfBenefit}.
    *
@@ -56,6 +56,16 @@ final class PartDEventTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link PartDEvent} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return PartDEvent.class;
+  }
+
   /**
    * Transforms a {@link PartDEvent} into a FHIR {@link ExplanationOfBenefit}.
    *
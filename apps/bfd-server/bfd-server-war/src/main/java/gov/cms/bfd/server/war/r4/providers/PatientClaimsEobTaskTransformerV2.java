@@ -9,18 +9,16 @@ import com.google.common.annotations.VisibleForTesting;
 import com.newrelic.api.agent.Trace;
 import gov.cms.bfd.data.fda.lookup.FdaDrugCodeDisplayLookup;
 import gov.cms.bfd.data.npi.lookup.NPIOrgLookup;
+import gov.cms.bfd.server.war.commons.ParallelTransformer;
 import gov.cms.bfd.server.war.commons.QueryUtils;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
@@ -70,6 +68,8 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
   private final NPIOrgLookup npiOrgLookup;
   /** The samhsa matcher. */
   private final R4EobSamhsaMatcher samhsaMatcher;
+  /** transforms large claim lists in parallel chunks. */
+  private final ParallelTransformer parallelTransformer;
   /** Database entity manager. */
   private EntityManager entityManager;
 
@@ -91,6 +91,8 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
   private boolean includeTaxNumbers = false;
   /** whether to exclude SAMHSA claims. */
   private boolean excludeSamhsa = false;
+  /** ids of the claims to load, all of the beneficiary's claims are loaded if empty. */
+  private Optional<Set<Long>> claimIds = Optional.empty();
 
   // +++++++++++++++++++++++++++++++++++
   // task properties
@@ -116,16 +118,19 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
    * @param samhsaMatcher the samhsa matcher bean
    * @param drugCodeDisplayLookup the drug code display lookup bean
    * @param npiOrgLookup the npi org lookup bean
+   * @param parallelTransformer the parallel transformer bean
    */
   public PatientClaimsEobTaskTransformerV2(
       MetricRegistry metricRegistry,
       R4EobSamhsaMatcher samhsaMatcher,
       FdaDrugCodeDisplayLookup drugCodeDisplayLookup,
-      NPIOrgLookup npiOrgLookup) {
+      NPIOrgLookup npiOrgLookup,
+      ParallelTransformer parallelTransformer) {
     this.metricRegistry = requireNonNull(metricRegistry);
     this.samhsaMatcher = requireNonNull(samhsaMatcher);
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
+    this.parallelTransformer = requireNonNull(parallelTransformer);
   }
 
   /**
@@ -174,6 +179,16 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
     this.includeTaxNumbers = includeTaxNumbers;
   }
 
+  /**
+   * Sets the {@link #claimIds} to restrict the task to specific claims of the beneficiary, such as
+   * the members of a single page of search results.
+   *
+   * @param claimIds the ids of the claims to load
+   */
+  public void setClaimIds(Set<Long> claimIds) {
+    this.claimIds = Optional.of(claimIds);
+  }
+
   /**
    * ExecutorService will invoke the task.
    *
@@ -183,7 +198,11 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
   public PatientClaimsEobTaskTransformerV2 call() {
     LOGGER.debug("TransformPatientClaimsToEobTaskV2.call() started for {}", id);
     try {
-      eobs.addAll(transformToEobs(findClaimTypeByPatient()));
+      List<Object> claimEntities = findClaimTypeByPatient();
+      if (excludeSamhsa) {
+        claimEntities = screenSamhsa(claimEntities);
+      }
+      eobs.addAll(transformToEobs(claimEntities));
       if (excludeSamhsa) {
         filterSamhsa(eobs);
       }
@@ -199,14 +218,16 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
   }
 
   /**
-   * Transform a list of claims to a list of {@link ExplanationOfBenefit} objects.
+   * Transform a list of claims to a list of {@link ExplanationOfBenefit} objects. Large lists are
+   * split into chunks that are transformed in parallel by the {@link ParallelTransformer}, which
+   * keeps the results in the same order as the claims.
    *
    * @param claims the claims/events to transform
    * @return the {@link ExplanationOfBenefit} instances, one per claim/event
    */
   @Trace
   private List<ExplanationOfBenefit> transformToEobs(List<?> claims) {
-    return claims.stream().map(c -> transformEobClaim(c)).collect(Collectors.toList());
+    return parallelTransformer.transform(claims, this::transformEobClaim);
   }
 
   /**
@@ -306,6 +327,16 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
       Predicate predicate = QueryUtils.createLastUpdatedPredicate(builder, root, lastUpdated.get());
       wherePredicate = builder.and(wherePredicate, predicate);
     }
+    if (serviceDate.isPresent()) {
+      Predicate predicate =
+          QueryUtils.createServiceDatePredicate(
+              builder, serviceDate.get(), root.get(claimType.getEntityServiceEndAttributeName()));
+      wherePredicate = builder.and(wherePredicate, predicate);
+    }
+    if (claimIds.isPresent()) {
+      Predicate predicate = root.get(claimType.getEntityIdAttribute()).in(claimIds.get());
+      wherePredicate = builder.and(wherePredicate, predicate);
+    }
     criteria.where(wherePredicate);
 
     List<T> claimEntities = null;
@@ -329,41 +360,28 @@ public class PatientClaimsEobTaskTransformerV2 implements Callable {
           claimEntities == null ? 0 : claimEntities.size());
     }
 
-    if (claimEntities != null && !serviceDate.isEmpty()) {
-      final Instant lowerBound =
-          serviceDate.get().getLowerBoundAsInstant() != null
-              ? serviceDate.get().getLowerBoundAsInstant().toInstant()
-              : null;
-      final Instant upperBound =
-          serviceDate.get().getUpperBoundAsInstant() != null
-              ? serviceDate.get().getUpperBoundAsInstant().toInstant()
-              : null;
-      final java.util.function.Predicate<LocalDate> lowerBoundCheck =
-          lowerBound == null
-              ? (date) -> true
-              : (date) ->
-                  TransformerUtilsV2.compareLocalDate(
-                      date,
-                      lowerBound.atZone(ZoneId.systemDefault()).toLocalDate(),
-                      serviceDate.get().getLowerBound().getPrefix());
-      final java.util.function.Predicate<LocalDate> upperBoundCheck =
-          upperBound == null
-              ? (date) -> true
-              : (date) ->
-                  TransformerUtilsV2.compareLocalDate(
-                      date,
-                      upperBound.atZone(ZoneId.systemDefault()).toLocalDate(),
-                      serviceDate.get().getUpperBound().getPrefix());
+    return claimEntities;
+  }
 
-      return claimEntities.stream()
-          .filter(
-              entity ->
-                  lowerBoundCheck.test(claimType.getServiceEndAttributeFunction().apply(entity))
-                      && upperBoundCheck.test(
-                          claimType.getServiceEndAttributeFunction().apply(entity)))
-          .collect(Collectors.toList());
+  /**
+   * Removes claims that are certain to be SAMHSA-related before they are transformed, so that no
+   * time is spent building {@link ExplanationOfBenefit} resources that {@link #filterSamhsa} would
+   * remove anyway. Claims that pass this screen are still checked by {@link #filterSamhsa} after
+   * they are transformed.
+   *
+   * @param claimEntities the claim entities to screen
+   * @return the claim entities that might not be SAMHSA-related
+   */
+  private List<Object> screenSamhsa(List<Object> claimEntities) {
+    List<Object> screened = new ArrayList<>(claimEntities.size());
+    for (Object claimEntity : claimEntities) {
+      if (samhsaMatcher.testClaimEntity(claimEntity, claimType)) {
+        samhsaRemovedCount.getAndIncrement();
+      } else {
+        screened.add(claimEntity);
+      }
     }
-    return claimEntities;
+    return screened;
   }
 
   /**
@@ -2,6 +2,7 @@ package gov.cms.bfd.server.war.r4.providers;
 
 import static java.util.Objects.requireNonNull;
 
+import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.model.api.annotation.Description;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.annotation.IdParam;
@@ -18,6 +19,7 @@ import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.IResourceProvider;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
@@ -25,12 +27,18 @@ import com.google.common.base.Strings;
 import com.newrelic.api.agent.Trace;
 import gov.cms.bfd.server.war.CanonicalOperation;
 import gov.cms.bfd.server.war.commons.AbstractResourceProvider;
+import gov.cms.bfd.server.war.commons.ClaimAvailabilityCache;
+import gov.cms.bfd.server.war.commons.EobPager;
+import gov.cms.bfd.server.war.commons.EobResponseCache;
+import gov.cms.bfd.server.war.commons.FanOutAdmissionController;
 import gov.cms.bfd.server.war.commons.LoadedFilterManager;
 import gov.cms.bfd.server.war.commons.LoggingUtils;
 import gov.cms.bfd.server.war.commons.OffsetLinkBuilder;
 import gov.cms.bfd.server.war.commons.OpenAPIContentProvider;
 import gov.cms.bfd.server.war.commons.QueryUtils;
+import gov.cms.bfd.server.war.commons.StreamingBundle;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -42,7 +50,6 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -77,6 +84,12 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
    */
   private static final Pattern EOB_ID_PATTERN = Pattern.compile("(\\p{Alpha}+)-(-?\\p{Digit}+)");
 
+  /**
+   * The maximum number of claims loaded and transformed at once when the entries of a {@link
+   * Bundle} are streamed to the response.
+   */
+  private static final int STREAMING_BATCH_SIZE = 500;
+
   /** The entity manager. */
   private EntityManager entityManager;
   /** The metric registry. */
@@ -85,6 +98,12 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
   private final LoadedFilterManager loadedFilterManager;
   /** The ExecutorService entity. */
   private final ExecutorService executorService;
+  /** Limits how many connections the claim type tasks of searches hold at once. */
+  private final FanOutAdmissionController fanOutAdmissionController;
+  /** The cache of previously computed search results. */
+  private final EobResponseCache eobResponseCache;
+  /** The cache of beneficiary claim availability masks. */
+  private final ClaimAvailabilityCache claimAvailabilityCache;
   /** spring application context. */
   private final ApplicationContext appContext;
   /** The transformer for carrier claims. */
@@ -114,6 +133,9 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
    * @param metricRegistry the metric registry bean
    * @param loadedFilterManager the loaded filter manager bean
    * @param executorService thread pool for running queries in parallel
+   * @param fanOutAdmissionController limits how many connections the claim type tasks hold at once
+   * @param eobResponseCache the cache of previously computed search results
+   * @param claimAvailabilityCache the cache of beneficiary claim availability masks
    * @param carrierClaimTransformer the carrier claim transformer
    * @param dmeClaimTransformer the dme claim transformer
    * @param hhaClaimTransformer the hha claim transformer
@@ -128,6 +150,9 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
       MetricRegistry metricRegistry,
       LoadedFilterManager loadedFilterManager,
       ExecutorService executorService,
+      FanOutAdmissionController fanOutAdmissionController,
+      EobResponseCache eobResponseCache,
+      ClaimAvailabilityCache claimAvailabilityCache,
       CarrierClaimTransformerV2 carrierClaimTransformer,
       DMEClaimTransformerV2 dmeClaimTransformer,
       HHAClaimTransformerV2 hhaClaimTransformer,
@@ -140,6 +165,9 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
     this.metricRegistry = requireNonNull(metricRegistry);
     this.loadedFilterManager = requireNonNull(loadedFilterManager);
     this.executorService = requireNonNull(executorService);
+    this.fanOutAdmissionController = requireNonNull(fanOutAdmissionController);
+    this.eobResponseCache = requireNonNull(eobResponseCache);
+    this.claimAvailabilityCache = requireNonNull(claimAvailabilityCache);
     this.carrierClaimTransformer = requireNonNull(carrierClaimTransformer);
     this.dmeClaimTransformer = requireNonNull(dmeClaimTransformer);
     this.hhaClaimTransformer = requireNonNull(hhaClaimTransformer);
@@ -361,9 +389,24 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
           paging, new ArrayList<IBaseResource>(), loadedFilterManager.getTransactionTime());
     }
 
+    // Reuse an earlier result for the same request if the beneficiary hasn't been updated since
+    EobResponseCache.Key cacheKey =
+        EobResponseCache.Key.forRequest(
+            FhirVersionEnum.R4, beneficiaryId, requestDetails, includeTaxNumbers);
+    Optional<Bundle> cachedBundle = eobResponseCache.get(cacheKey, Bundle.class);
+    if (cachedBundle.isPresent()) {
+      LoggingUtils.logBeneIdToMdc(beneficiaryId);
+      LoggingUtils.logResourceCountToMdc(cachedBundle.get().getEntry().size());
+      return cachedBundle.get();
+    }
+    Instant cacheLoadedThrough = loadedFilterManager.getTransactionTime();
+
     // See if we have any claims data for the beneficiary.
-    int claimTypesThatHaveData = QueryUtils.availableClaimsData(entityManager, beneficiaryId);
+    int claimTypesThatHaveData =
+        claimAvailabilityCache.getAvailableClaims(
+            beneficiaryId, id -> QueryUtils.availableClaimsData(entityManager, id));
     Bundle bundle = null;
+    boolean cacheable = true;
     if (claimTypesThatHaveData > 0) {
       try {
         bundle =
@@ -375,9 +418,14 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
                 Optional.ofNullable(lastUpdated),
                 Optional.ofNullable(serviceDate),
                 filterSamhsa,
-                includeTaxNumbers);
+                includeTaxNumbers,
+                StreamingBundle.isStreamingSupported(requestDetails));
+      } catch (UnclassifiedServerFailureException e) {
+        // the search was turned away by the fan-out admission control, so let the client retry
+        throw e;
       } catch (Exception e) {
         LOGGER.error(e.getMessage(), e);
+        cacheable = false;
       }
     }
     if (bundle == null) {
@@ -387,6 +435,9 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
           TransformerUtilsV2.createBundle(
               paging, new ArrayList<IBaseResource>(), loadedFilterManager.getTransactionTime());
     }
+    if (cacheable) {
+      eobResponseCache.put(cacheKey, bundle, cacheLoadedThrough);
+    }
     return bundle;
   }
 
@@ -404,6 +455,8 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
    *     filtering of all SAMHSA-related claims from the results.
    * @param includeTaxNumbers an {@link Optional} boolean denoting includsio/exclusion of tax
    *     numbers in the response,
+   * @param streamingSupported true if the entries of the returned {@link Bundle} may be produced
+   *     while the response is written using {@link StreamingBundle}
    * @return Returns a {@link Bundle} of {@link ExplanationOfBenefit}s, which may contain multiple
    *     matching resources, or may also be empty.
    * @throws InterruptedException when thread processing task is interrupted.
@@ -418,7 +471,8 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
       Optional<DateRangeParam> lastUpdated,
       Optional<DateRangeParam> serviceDate,
       boolean excludeSamhsa,
-      boolean includeTaxNumbers)
+      boolean includeTaxNumbers,
+      boolean streamingSupported)
       throws InterruptedException, ExecutionException {
 
     EnumSet<ClaimTypeV2> claimsToProcess =
@@ -431,6 +485,185 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
       return null;
     }
 
+    /*
+     * The total of a bundle is written before its entries so results that are filtered after
+     * transformation (SAMHSA) can't be streamed.
+     */
+    if (streamingSupported && !paging.isPagingRequested() && !excludeSamhsa) {
+      return streamClaims(
+          claimsToProcess, beneficiaryId, lastUpdated, serviceDate, includeTaxNumbers);
+    }
+
+    /*
+     * When only a page of results is wanted we find the members of the page using just the sort
+     * keys of the claims and then load and transform only those claims. Whether a claim is SAMHSA
+     * related can only be fully determined after it is transformed so those searches must process
+     * every claim.
+     */
+    Optional<EobPager.Page<ClaimTypeV2>> page =
+        paging.isPagingRequested() && !excludeSamhsa
+            ? Optional.of(
+                EobPager.selectPage(
+                    findClaimKeys(claimsToProcess, beneficiaryId, lastUpdated, serviceDate),
+                    paging.getStartIndex(),
+                    paging.getPageSize()))
+            : Optional.empty();
+
+    List<IBaseResource> eobs =
+        transformClaims(
+            claimsToProcess,
+            beneficiaryId,
+            lastUpdated,
+            serviceDate,
+            excludeSamhsa,
+            includeTaxNumbers,
+            page);
+    eobs.sort(R4ExplanationOfBenefitResourceProvider::compareByClaimIdThenClaimType);
+
+    // Add bene_id to MDC logs
+    LoggingUtils.logBeneIdToMdc(beneficiaryId);
+    if (page.isPresent()) {
+      return TransformerUtilsV2.createBundle(
+          paging,
+          eobs,
+          page.get().getTotal(),
+          page.get().getLastUpdated(),
+          loadedFilterManager.getTransactionTime());
+    }
+    return TransformerUtilsV2.createBundle(paging, eobs, loadedFilterManager.getTransactionTime());
+  }
+
+  /**
+   * Creates a {@link Bundle} whose entries are produced while the response is being written. The
+   * sort keys of every matching claim are used to compute the total and last updated time of the
+   * bundle up front. The claims are then loaded, transformed, and written in batches in the order
+   * the keys sort so that no more than {@link #STREAMING_BATCH_SIZE} EOBs are held in memory at
+   * once.
+   *
+   * @param claimsToProcess the claim types to process
+   * @param beneficiaryId a {@link Long} patient bene_id value.
+   * @param lastUpdated a {@link DateRangeParam} denoting inclusion of lastUpdated field.
+   * @param serviceDate a {@link DateRangeParam} specifying date range for the {@link
+   *     ExplanationOfBenefit}s that completed.
+   * @param includeTaxNumbers whether to include tax numbers in the response
+   * @return a {@link Bundle} without entries that has been passed to {@link StreamingBundle#defer}
+   */
+  private Bundle streamClaims(
+      Set<ClaimTypeV2> claimsToProcess,
+      long beneficiaryId,
+      Optional<DateRangeParam> lastUpdated,
+      Optional<DateRangeParam> serviceDate,
+      boolean includeTaxNumbers) {
+    EobPager.Page<ClaimTypeV2> allClaims =
+        EobPager.selectPage(
+            findClaimKeys(claimsToProcess, beneficiaryId, lastUpdated, serviceDate),
+            0,
+            Integer.MAX_VALUE);
+
+    // Add bene_id and number of resources to MDC logs
+    LoggingUtils.logBeneIdToMdc(beneficiaryId);
+    LoggingUtils.logResourceCountToMdc(allClaims.getTotal());
+
+    Bundle bundle =
+        TransformerUtilsV2.createBundleWithoutEntries(
+            allClaims.getTotal(),
+            allClaims.getLastUpdated(),
+            loadedFilterManager.getTransactionTime());
+    return StreamingBundle.defer(
+        bundle,
+        consumer -> {
+          for (EobPager.Page<ClaimTypeV2> batch : allClaims.partition(STREAMING_BATCH_SIZE)) {
+            List<IBaseResource> eobs =
+                transformClaims(
+                    claimsToProcess,
+                    beneficiaryId,
+                    lastUpdated,
+                    serviceDate,
+                    false,
+                    includeTaxNumbers,
+                    Optional.of(batch));
+            eobs.sort(R4ExplanationOfBenefitResourceProvider::compareByClaimIdThenClaimType);
+            eobs.forEach(consumer);
+          }
+        });
+  }
+
+  /**
+   * Finds the sort keys of every matching claim of each claim type.
+   *
+   * @param claimsToProcess the claim types to search
+   * @param beneficiaryId a {@link Long} patient bene_id value.
+   * @param lastUpdated a {@link DateRangeParam} denoting inclusion of lastUpdated field.
+   * @param serviceDate a {@link DateRangeParam} specifying date range for the {@link
+   *     ExplanationOfBenefit}s that completed.
+   * @return the {@link EobPager.ClaimKey}s of each claim type
+   */
+  private List<List<EobPager.ClaimKey<ClaimTypeV2>>> findClaimKeys(
+      Set<ClaimTypeV2> claimsToProcess,
+      long beneficiaryId,
+      Optional<DateRangeParam> lastUpdated,
+      Optional<DateRangeParam> serviceDate) {
+    List<List<EobPager.ClaimKey<ClaimTypeV2>>> keysByClaimType =
+        new ArrayList<>(claimsToProcess.size());
+    for (ClaimTypeV2 claimType : claimsToProcess) {
+      List<EobPager.ClaimKey<ClaimTypeV2>> keys = null;
+      Timer.Context timerKeyQuery =
+          metricRegistry
+              .timer(
+                  MetricRegistry.name(
+                      getClass().getSimpleName(),
+                      "query",
+                      "eob_keys_by_bene_id",
+                      claimType.name().toLowerCase()))
+              .time();
+      try {
+        keys =
+            EobPager.findClaimKeys(
+                entityManager,
+                claimType,
+                claimType.getEntityClass(),
+                claimType.getEntityIdAttribute(),
+                claimType.getEntityBeneficiaryIdAttribute(),
+                claimType.getEntityServiceEndAttributeName(),
+                beneficiaryId,
+                lastUpdated,
+                serviceDate);
+      } finally {
+        long keyQueryNanoSeconds = timerKeyQuery.stop();
+        TransformerUtilsV2.recordQueryInMdc(
+            String.format("eob_keys_by_bene_id_%s", claimType.name().toLowerCase()),
+            keyQueryNanoSeconds,
+            keys == null ? 0 : keys.size());
+      }
+      keysByClaimType.add(keys);
+    }
+    return keysByClaimType;
+  }
+
+  /**
+   * Loads and transforms the claims of each claim type in parallel.
+   *
+   * @param claimsToProcess the claim types to process
+   * @param beneficiaryId a {@link Long} patient bene_id value.
+   * @param lastUpdated a {@link DateRangeParam} denoting inclusion of lastUpdated field.
+   * @param serviceDate a {@link DateRangeParam} specifying date range for the {@link
+   *     ExplanationOfBenefit}s that completed.
+   * @param excludeSamhsa if true excludes SAMHSA claims
+   * @param includeTaxNumbers whether to include tax numbers in the response
+   * @param page when present only the claims on this {@link EobPager.Page} are processed
+   * @return the unsorted {@link ExplanationOfBenefit}s
+   * @throws InterruptedException when thread processing task is interrupted.
+   * @throws ExecutionException when when executor fails to create thread.
+   */
+  private List<IBaseResource> transformClaims(
+      Set<ClaimTypeV2> claimsToProcess,
+      long beneficiaryId,
+      Optional<DateRangeParam> lastUpdated,
+      Optional<DateRangeParam> serviceDate,
+      boolean excludeSamhsa,
+      boolean includeTaxNumbers,
+      Optional<EobPager.Page<ClaimTypeV2>> page)
+      throws InterruptedException, ExecutionException {
     List<IBaseResource> eobs = new ArrayList<IBaseResource>();
 
     /*
@@ -448,6 +681,12 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
      */
     claimsToProcess.forEach(
         claimType -> {
+          Optional<Set<Long>> claimIds = page.map(p -> p.getClaimIds(claimType));
+          if (claimIds.isPresent() && claimIds.get().isEmpty()) {
+            // none of the claims of this type are on the requested page
+            return;
+          }
+
           PatientClaimsEobTaskTransformerV2 task =
               appContext.getBean(PatientClaimsEobTaskTransformerV2.class);
 
@@ -460,34 +699,26 @@ public final class R4ExplanationOfBenefitResourceProvider extends AbstractResour
               excludeSamhsa);
 
           task.setIncludeTaxNumbers(includeTaxNumbers);
+          claimIds.ifPresent(task::setClaimIds);
           callableTasks.add(task);
         });
 
-    List<Future<PatientClaimsEobTaskTransformerV2>> futures;
-    try {
-      futures = executorService.invokeAll(callableTasks);
-    } catch (InterruptedException e) {
-      throw e;
-    }
-
-    for (Future<PatientClaimsEobTaskTransformerV2> future : futures) {
-      try {
-        PatientClaimsEobTaskTransformerV2 taskResult = future.get();
-        if (taskResult.ranSuccessfully()) {
-          eobs.addAll(taskResult.fetchEOBs());
-        } else {
-          Throwable taskError = taskResult.getFailure().get();
-          throw new RuntimeException(taskError);
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        throw e;
+    /*
+     * Each task holds its own database connection, so the admission controller decides how many of
+     * them can run at once without starving the connection pool.
+     */
+    List<PatientClaimsEobTaskTransformerV2> taskResults =
+        fanOutAdmissionController.invokeAll(executorService, callableTasks);
+
+    for (PatientClaimsEobTaskTransformerV2 taskResult : taskResults) {
+      if (taskResult.ranSuccessfully()) {
+        eobs.addAll(taskResult.fetchEOBs());
+      } else {
+        Throwable taskError = taskResult.getFailure().get();
+        throw new RuntimeException(taskError);
       }
     }
-    eobs.sort(R4ExplanationOfBenefitResourceProvider::compareByClaimIdThenClaimType);
-
-    // Add bene_id to MDC logs
-    LoggingUtils.logBeneIdToMdc(beneficiaryId);
-    return TransformerUtilsV2.createBundle(paging, eobs, loadedFilterManager.getTransactionTime());
+    return eobs;
   }
 
   /**
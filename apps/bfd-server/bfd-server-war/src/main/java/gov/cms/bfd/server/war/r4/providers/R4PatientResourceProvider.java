@@ -21,14 +21,13 @@ import com.google.common.base.Strings;
 import com.newrelic.api.agent.Trace;
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
 import gov.cms.bfd.model.rif.Beneficiary;
-import gov.cms.bfd.model.rif.BeneficiaryHistory;
-import gov.cms.bfd.model.rif.BeneficiaryHistory_;
 import gov.cms.bfd.model.rif.BeneficiaryMonthly;
 import gov.cms.bfd.model.rif.BeneficiaryMonthly_;
 import gov.cms.bfd.model.rif.Beneficiary_;
 import gov.cms.bfd.server.sharedutils.BfdMDC;
 import gov.cms.bfd.server.war.CanonicalOperation;
 import gov.cms.bfd.server.war.commons.CommonHeaders;
+import gov.cms.bfd.server.war.commons.HashResolutionCache;
 import gov.cms.bfd.server.war.commons.LoadedFilterManager;
 import gov.cms.bfd.server.war.commons.LoggingUtils;
 import gov.cms.bfd.server.war.commons.OffsetLinkBuilder;
@@ -38,6 +37,7 @@ import gov.cms.bfd.server.war.commons.QueryUtils;
 import gov.cms.bfd.server.war.commons.RequestHeaders;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.Year;
 import java.time.YearMonth;
@@ -48,7 +48,6 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
@@ -61,7 +60,6 @@ import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
-import javax.persistence.metamodel.SingularAttribute;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.jpa.QueryHints;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -101,6 +99,16 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
   public static final List<String> VALID_HEADER_VALUES_INCLUDE_IDENTIFIERS =
       Arrays.asList("true", "false", "mbi");
 
+  /**
+   * The native SQL used to find the beneficiaries whose current or historical hash matches a value.
+   * The name of the hash column, which is the same in both tables, is filled in by {@link
+   * String#format}.
+   */
+  public static final String BENES_BY_HASH_SQL =
+      "select b.* from beneficiaries b where b.bene_id in"
+          + " (select bene_id from beneficiaries where %1$s = :hash"
+          + " union select bene_id from beneficiaries_history where %1$s = :hash)";
+
   /** The Entity manager. */
   private EntityManager entityManager;
   /** The Metric registry. */
@@ -109,6 +117,8 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
   private final LoadedFilterManager loadedFilterManager;
   /** The Beneficiary transformer. */
   private final BeneficiaryTransformerV2 beneficiaryTransformerV2;
+  /** Remembers which beneficiaries MBI and HICN hashes resolve to. */
+  private final HashResolutionCache hashResolutionCache;
 
   /** The expected coverage id length. */
   private static final int EXPECTED_COVERAGE_ID_LENGTH = 5;
@@ -122,14 +132,17 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
    * @param metricRegistry the metric registry
    * @param loadedFilterManager the loaded filter manager
    * @param beneficiaryTransformerV2 the beneficiary transformer
+   * @param hashResolutionCache the hash resolution cache
    */
   public R4PatientResourceProvider(
       MetricRegistry metricRegistry,
       LoadedFilterManager loadedFilterManager,
-      BeneficiaryTransformerV2 beneficiaryTransformerV2) {
+      BeneficiaryTransformerV2 beneficiaryTransformerV2,
+      HashResolutionCache hashResolutionCache) {
     this.metricRegistry = requireNonNull(metricRegistry);
     this.loadedFilterManager = requireNonNull(loadedFilterManager);
     this.beneficiaryTransformerV2 = requireNonNull(beneficiaryTransformerV2);
+    this.hashResolutionCache = requireNonNull(hashResolutionCache);
   }
 
   /**
@@ -482,7 +495,7 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
       return mapOfMonth.get(month);
     }
     throw new InvalidRequestException(
-        "Unsupported extension system: " + month.getVariable().getId().toLowerCase());
+        "Unsupported extension system: " + month.getId().toLowerCase());
   }
 
   /**
@@ -745,8 +758,7 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
    */
   @Trace
   private Patient queryDatabaseByHicnHash(String hicnHash, RequestHeaders requestHeader) {
-    return queryDatabaseByHash(
-        hicnHash, "hicn", Beneficiary_.hicn, BeneficiaryHistory_.hicn, requestHeader);
+    return queryDatabaseByHash(hicnHash, "hicn", "bene_crnt_hic_num", requestHeader);
   }
 
   /**
@@ -761,8 +773,7 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
    */
   @Trace
   private Patient queryDatabaseByMbiHash(String mbiHash, RequestHeaders requestHeader) {
-    return queryDatabaseByHash(
-        mbiHash, "mbi", Beneficiary_.mbiHash, BeneficiaryHistory_.mbiHash, requestHeader);
+    return queryDatabaseByHash(mbiHash, "mbi", "mbi_hash", requestHeader);
   }
 
   /**
@@ -770,8 +781,8 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
    *
    * @param hash the {@link Beneficiary} hash value to match
    * @param hashType a string to represent the hash type (used for logging purposes)
-   * @param beneficiaryHashField the JPA location of the beneficiary hash field
-   * @param beneficiaryHistoryHashField the JPA location of the beneficiary history hash field
+   * @param hashColumnName the name of the hash column in both the beneficiaries and beneficiaries
+   *     history tables
    * @param requestHeader the {@link RequestHeaders} where resource request headers are encapsulated
    * @return a FHIR {@link Patient} for the CCW {@link Beneficiary} that matches the specified
    *     {@link Beneficiary} hash value
@@ -780,11 +791,7 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
    */
   @Trace
   private Patient queryDatabaseByHash(
-      String hash,
-      String hashType,
-      SingularAttribute<Beneficiary, String> beneficiaryHashField,
-      SingularAttribute<BeneficiaryHistory, String> beneficiaryHistoryHashField,
-      RequestHeaders requestHeader) {
+      String hash, String hashType, String hashColumnName, RequestHeaders requestHeader) {
     if (hash == null || hash.trim().isEmpty()) {
       throw new InvalidRequestException("Hash value cannot be null/empty");
     }
@@ -792,99 +799,84 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
     /*
      * Beneficiaries' MBIs can change over time and those past MBIs may land in
      * BeneficiaryHistory records. Accordingly, we need to search for matching MBIs
-     * in both the
-     * Beneficiary and the BeneficiaryHistory records.
-     *
-     * There's no sane way to do this in a single query with JPA 2.1, it appears:
-     * JPA doesn't
-     * support UNIONs and it doesn't support subqueries in FROM clauses. That said,
-     * the ideal query
-     * would look like this:
-     *
-     * SELECT * FROM ( SELECT DISTINCT "beneficiaryId" FROM "Beneficiaries" WHERE
-     * "hicn" =
-     * :'hicn_hash' UNION SELECT DISTINCT "beneficiaryId" FROM
-     * "BeneficiariesHistory" WHERE "hicn" =
-     * :'hicn_hash') AS matching_benes INNER JOIN "Beneficiaries" ON
-     * matching_benes."beneficiaryId"
-     * = "Beneficiaries"."beneficiaryId" LEFT JOIN "BeneficiariesHistory" ON
-     * "Beneficiaries"."beneficiaryId" = "BeneficiariesHistory"."beneficiaryId" LEFT
-     * JOIN
-     * "MedicareBeneficiaryIdHistory" ON "Beneficiaries"."beneficiaryId" =
-     * "MedicareBeneficiaryIdHistory"."beneficiaryId";
+     * in both the Beneficiary and the BeneficiaryHistory records.
      *
-     * ... with the returned columns and JOINs being dynamic, depending on
-     * IncludeIdentifiers.
+     * JPA doesn't support UNIONs, so this is done with a native query that finds
+     * the matching BENE_IDs in both tables and loads their Beneficiary records in
+     * a single statement (see BENES_BY_HASH_SQL).
      *
-     * In lieu of that, we run two queries: one to find MBI matches in
-     * BeneficiariesHistory,
-     * and a second to find BENE_ID or MBI matches in Beneficiaries (with all of
-     * their data, so
-     * we're ready to return the result). This is bad and dumb but I can't find a
-     * better working
-     * alternative.
-     *
-     * (I'll just note that I did also try JPA/Hibernate native SQL queries but
-     * couldn't get the
-     * joins or fetch groups to work with them.)
-     *
-     * If we want to fix this, we need to move identifiers out entirely to separate
-     * tables:
-     * i.e., BeneficiaryMbis. We could then safely query these tables and join them
-     * back to Beneficiaries (and hopefully the optimizer will play nice, too).
+     * The beneficiary's collections aren't fetch joined into that statement, where
+     * every history record would repeat the whole beneficiary row. They are only
+     * loaded, by separate queries, if and when the transformer reads them, so a
+     * collection that the response doesn't need is never loaded. Lazy loading
+     * needs the beneficiary to still be attached to the persistence context that
+     * found it, which the shared entity manager doesn't keep open outside of a
+     * transaction, so the lookup uses an entity manager of its own that stays open
+     * until the transformer is done.
      */
+    EntityManager lookupEntityManager =
+        entityManager.getEntityManagerFactory().createEntityManager();
+    try {
+      /*
+       * Hashes that were resolved before are looked up by BENE_ID, which leaves only
+       * the beneficiary itself to load. Misses and collisions are answered without
+       * the database at all.
+       */
+      final Instant loadedThrough = loadedFilterManager.getTransactionTime();
+      final Optional<long[]> cachedBeneIds = hashResolutionCache.getBeneficiaryIds(hashType, hash);
+      List<Beneficiary> matchingBenes = null;
+      final long[] beneIds;
+      if (cachedBeneIds.isPresent()) {
+        beneIds = cachedBeneIds.get();
+      } else {
+        matchingBenes =
+            queryBeneficiariesByHash(
+                lookupEntityManager, hash, hashType, hashColumnName, requestHeader);
+        beneIds =
+            matchingBenes.stream().mapToLong(Beneficiary::getBeneficiaryId).distinct().toArray();
+        hashResolutionCache.putBeneficiaryIds(hashType, hash, beneIds, loadedThrough);
+      }
 
-    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+      // Then, if we found more than one distinct BENE_ID, or none, throw an error.
+      if (beneIds.length == 0) {
+        throw new NoResultException();
+      } else if (beneIds.length > 1) {
+        BfdMDC.put(
+            "database_query_by_hash_collision_distinct_bene_ids", Long.toString(beneIds.length));
+        throw new ResourceNotFoundException(
+            "By hash query found more than one distinct BENE_ID: " + Long.toString(beneIds.length));
+      }
+      final Beneficiary beneficiary =
+          matchingBenes != null
+              ? matchingBenes.get(0)
+              : queryBeneficiaryById(lookupEntityManager, beneIds[0], hashType);
 
-    // First, find all matching hashes from BeneficiariesHistory.
-    CriteriaQuery<Long> beneHistoryMatches = builder.createQuery(Long.class);
-    Root<BeneficiaryHistory> beneHistoryMatchesRoot =
-        beneHistoryMatches.from(BeneficiaryHistory.class);
-    beneHistoryMatches
-        .select(beneHistoryMatchesRoot.get(BeneficiaryHistory_.beneficiaryId))
-        .where(builder.equal(beneHistoryMatchesRoot.get(beneficiaryHistoryHashField), hash));
-    List<Long> matchingIdsFromBeneHistory = null;
-    Long fromHistoryQueryNanoSeconds = null;
-    Timer.Context beneHistoryMatchesTimer =
-        metricRegistry
-            .timer(
-                MetricRegistry.name(
-                    getClass().getSimpleName(),
-                    "query",
-                    "bene_by_" + hashType,
-                    hashType + "s_from_beneficiarieshistory"))
-            .time();
-    try {
-      matchingIdsFromBeneHistory = entityManager.createQuery(beneHistoryMatches).getResultList();
+      // Null out the unhashed HICNs; in v2 we are ignoring HICNs
+      beneficiary.setHicnUnhashed(Optional.empty());
+
+      return beneficiaryTransformerV2.transform(beneficiary, requestHeader, true);
     } finally {
-      fromHistoryQueryNanoSeconds = beneHistoryMatchesTimer.stop();
-      TransformerUtilsV2.recordQueryInMdc(
-          "bene_by_" + hashType + "_" + hashType + "s_from_beneficiarieshistory",
-          fromHistoryQueryNanoSeconds,
-          matchingIdsFromBeneHistory == null ? 0 : matchingIdsFromBeneHistory.size());
+      lookupEntityManager.close();
     }
+  }
 
-    // Then, find all Beneficiary records that match the hash or those BENE_IDs.
-    CriteriaQuery<Beneficiary> beneMatches = builder.createQuery(Beneficiary.class);
-    Root<Beneficiary> beneMatchesRoot = beneMatches.from(Beneficiary.class);
-    beneMatchesRoot.fetch(Beneficiary_.skippedRifRecords, JoinType.LEFT);
-
-    /*
-     * Check bene history table for historical MBIs;
-     * These will be used to return any historical MBIs in the response and/or find the bene_id
-     * in the event that the user is searching using an old MBI value.
-     */
-    beneMatchesRoot.fetch(Beneficiary_.beneficiaryHistories, JoinType.LEFT);
-
-    beneMatches.select(beneMatchesRoot);
-    Predicate beneHashMatches = builder.equal(beneMatchesRoot.get(beneficiaryHashField), hash);
-    if (matchingIdsFromBeneHistory != null && !matchingIdsFromBeneHistory.isEmpty()) {
-      Predicate beneHistoryHashMatches =
-          beneMatchesRoot.get(Beneficiary_.beneficiaryId).in(matchingIdsFromBeneHistory);
-      beneMatches.where(builder.or(beneHashMatches, beneHistoryHashMatches));
-    } else {
-      beneMatches.where(beneHashMatches);
-    }
+  /**
+   * Finds the beneficiaries whose current or historical hash matches a value.
+   *
+   * @param lookupEntityManager the {@link EntityManager} that the beneficiaries are loaded by
+   * @param hash the {@link Beneficiary} hash value to match
+   * @param hashType a string to represent the hash type (used for logging purposes)
+   * @param hashColumnName the name of the hash column in both the beneficiaries and beneficiaries
+   *     history tables
+   * @param requestHeader the {@link RequestHeaders} where resource request headers are encapsulated
+   * @return the matching beneficiaries
+   */
+  private List<Beneficiary> queryBeneficiariesByHash(
+      EntityManager lookupEntityManager,
+      String hash,
+      String hashType,
+      String hashColumnName,
+      RequestHeaders requestHeader) {
     List<Beneficiary> matchingBenes = Collections.emptyList();
     Long benesByHashOrIdQueryNanoSeconds = null;
     Timer.Context timerQuery =
@@ -897,7 +889,14 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
                     "bene_by_" + hashType + "_or_id"))
             .time();
     try {
-      matchingBenes = entityManager.createQuery(beneMatches).getResultList();
+      @SuppressWarnings("unchecked")
+      List<Beneficiary> results =
+          lookupEntityManager
+              .createNativeQuery(
+                  String.format(BENES_BY_HASH_SQL, hashColumnName), Beneficiary.class)
+              .setParameter("hash", hash)
+              .getResultList();
+      matchingBenes = results;
     } finally {
       benesByHashOrIdQueryNanoSeconds = timerQuery.stop();
 
@@ -910,29 +909,38 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
           matchingBenes.size());
     }
 
-    // Then, if we found more than one distinct BENE_ID, or none, throw an error.
-    long distinctBeneIds =
-        matchingBenes.stream()
-            .map(Beneficiary::getBeneficiaryId)
-            .filter(Objects::nonNull)
-            .distinct()
-            .count();
+    return matchingBenes;
+  }
+
+  /**
+   * Loads the beneficiary that a hash was previously resolved to.
+   *
+   * @param lookupEntityManager the {@link EntityManager} that the beneficiary is loaded by
+   * @param beneficiaryId the {@link Beneficiary#getBeneficiaryId()} value to match
+   * @param hashType a string to represent the hash type (used for logging purposes)
+   * @return the matching beneficiary
+   * @throws NoResultException A {@link NoResultException} will be thrown if the {@link Beneficiary}
+   *     no longer exists
+   */
+  private Beneficiary queryBeneficiaryById(
+      EntityManager lookupEntityManager, long beneficiaryId, String hashType) {
     Beneficiary beneficiary = null;
-    if (distinctBeneIds <= 0) {
+    Timer.Context timerQuery =
+        metricRegistry
+            .timer(
+                MetricRegistry.name(
+                    getClass().getSimpleName(), "query", "bene_by_" + hashType, "bene_by_id"))
+            .time();
+    try {
+      beneficiary = lookupEntityManager.find(Beneficiary.class, beneficiaryId);
+    } finally {
+      TransformerUtilsV2.recordQueryInMdc(
+          "bene_by_" + hashType + "_bene_by_id", timerQuery.stop(), beneficiary == null ? 0 : 1);
+    }
+    if (beneficiary == null) {
       throw new NoResultException();
-    } else if (distinctBeneIds > 1) {
-      BfdMDC.put(
-          "database_query_by_hash_collision_distinct_bene_ids", Long.toString(distinctBeneIds));
-      throw new ResourceNotFoundException(
-          "By hash query found more than one distinct BENE_ID: " + Long.toString(distinctBeneIds));
-    } else if (distinctBeneIds == 1) {
-      beneficiary = matchingBenes.get(0);
     }
-
-    // Null out the unhashed HICNs; in v2 we are ignoring HICNs
-    beneficiary.setHicnUnhashed(Optional.empty());
-
-    return beneficiaryTransformerV2.transform(beneficiary, requestHeader, true);
+    return beneficiary;
   }
 
   /**
@@ -1109,7 +1117,7 @@ public final class R4PatientResourceProvider implements IResourceProvider, Commo
     }
 
     throw new InvalidRequestException(
-        "Unsupported extension system: " + month.getVariable().getId().toLowerCase());
+        "Unsupported extension system: " + month.getId().toLowerCase());
   }
 
   /**
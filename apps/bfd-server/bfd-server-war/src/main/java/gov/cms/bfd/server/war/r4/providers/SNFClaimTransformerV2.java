@@ -52,6 +52,16 @@ public class SNFClaimTransformerV2 implements ClaimTransformerInterfaceV2 {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link SNFClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return SNFClaim.class;
+  }
+
   /**
    * Transforms a {@link SNFClaim} into a FHIR {@link ExplanationOfBenefit}.
    *
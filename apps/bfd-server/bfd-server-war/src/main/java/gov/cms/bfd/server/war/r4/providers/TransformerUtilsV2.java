@@ -11,6 +11,7 @@ import com.google.common.base.Strings;
 import gov.cms.bfd.model.codebook.data.CcwCodebookMissingVariable;
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
 import gov.cms.bfd.model.codebook.model.CcwCodebookInterface;
+import gov.cms.bfd.model.codebook.model.CodedValues;
 import gov.cms.bfd.model.codebook.model.Value;
 import gov.cms.bfd.model.codebook.model.Variable;
 import gov.cms.bfd.model.rif.Beneficiary;
@@ -38,6 +39,7 @@ import gov.cms.bfd.server.sharedutils.BfdMDC;
 import gov.cms.bfd.server.war.commons.C4BBInstutionalClaimSubtypes;
 import gov.cms.bfd.server.war.commons.CCWProcedure;
 import gov.cms.bfd.server.war.commons.CCWUtils;
+import gov.cms.bfd.server.war.commons.CodeDisplayLookups;
 import gov.cms.bfd.server.war.commons.IcdCode;
 import gov.cms.bfd.server.war.commons.LinkBuilder;
 import gov.cms.bfd.server.war.commons.LoggingUtils;
@@ -61,11 +63,6 @@ import gov.cms.bfd.server.war.commons.carin.C4BBPractitionerIdentifierType;
 import gov.cms.bfd.server.war.commons.carin.C4BBSupportingInfoType;
 import gov.cms.bfd.server.war.r4.providers.BeneficiaryTransformerV2.CurrencyIdentifier;
 import gov.cms.bfd.sharedutils.exceptions.BadCodeMonkeyException;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.URLEncoder;
@@ -77,13 +74,12 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.hl7.fhir.dstu3.model.codesystems.BenefitCategory;
@@ -142,7 +138,8 @@ public final class TransformerUtilsV2 {
    *
    * @see #calculateCodingDisplay(IAnyResource, CcwCodebookInterface, String)
    */
-  private static final Set<CcwCodebookInterface> codebookLookupMissingFailures = new HashSet<>();
+  private static final Set<CcwCodebookInterface> codebookLookupMissingFailures =
+      ConcurrentHashMap.newKeySet();
 
   /**
    * Tracks the {@link CcwCodebookInterface} that have already had code lookup failures due to
@@ -152,19 +149,14 @@ public final class TransformerUtilsV2 {
    *
    * @see #calculateCodingDisplay(IAnyResource, CcwCodebookInterface, String)
    */
-  private static final Set<CcwCodebookInterface> codebookLookupDuplicateFailures = new HashSet<>();
-
-  /** Stores the procedure codes and their display values. */
-  private static Map<String, String> procedureMap = null;
+  private static final Set<CcwCodebookInterface> codebookLookupDuplicateFailures =
+      ConcurrentHashMap.newKeySet();
 
   /** Tracks the procedure codes that have already had code lookup failures. */
-  private static final Set<String> procedureLookupMissingFailures = new HashSet<>();
-
-  /** Stores the NPI codes and their display values. */
-  private static Map<String, String> npiMap = null;
+  private static final Set<String> procedureLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /** Tracks the NPI codes that have already had code lookup failures. */
-  private static final Set<String> npiCodeLookupMissingFailures = new HashSet<>();
+  private static final Set<String> npiCodeLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /** Tracks the NPI codes that have already had code lookup failures. */
   private static final String NPI_ORG_DISPLAY_DEFAULT = "UNKNOWN";
@@ -801,7 +793,7 @@ public final class TransformerUtilsV2 {
             .setCode("info")
             .setSystem(TransformerConstants.CARIN_SUPPORTING_INFO_TYPE)
             .setDisplay("Information");
-    Coding cmsBBcoding = new Coding(codingSystem, code, ccwVariable.getVariable().getLabel());
+    Coding cmsBBcoding = new Coding(codingSystem, code, ccwVariable.getLabel());
 
     CodeableConcept categoryCodeableConcept = new CodeableConcept();
     categoryCodeableConcept.addCoding(carinCoding);
@@ -833,7 +825,7 @@ public final class TransformerUtilsV2 {
     String system = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
 
     String display;
-    if (ccwVariable.getVariable().getValueGroups().isPresent())
+    if (ccwVariable.getCodedValues().isCoded())
       display = calculateCodingDisplay(rootResource, ccwVariable, codeString).orElse(null);
     else display = null;
 
@@ -872,7 +864,7 @@ public final class TransformerUtilsV2 {
     String conceptCode = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
     CodeableConcept categoryConcept =
         createCodeableConcept(TransformerConstants.CODING_CCW_ADJUDICATION_CATEGORY, conceptCode);
-    categoryConcept.getCodingFirstRep().setDisplay(ccwVariable.getVariable().getLabel());
+    categoryConcept.getCodingFirstRep().setDisplay(ccwVariable.getLabel());
     return categoryConcept;
   }
 
@@ -897,7 +889,7 @@ public final class TransformerUtilsV2 {
     String conceptCode = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
     CodeableConcept categoryConcept =
         createCodeableConcept(TransformerConstants.CODING_CCW_ADJUDICATION_CATEGORY, conceptCode);
-    categoryConcept.getCodingFirstRep().setDisplay(ccwVariable.getVariable().getLabel());
+    categoryConcept.getCodingFirstRep().setDisplay(ccwVariable.getLabel());
 
     categoryConcept
         .addCoding()
@@ -1041,7 +1033,7 @@ public final class TransformerUtilsV2 {
             new Coding(
                 TransformerConstants.CODING_CCW_ADJUDICATION_CATEGORY,
                 CCWUtils.calculateVariableReferenceUrl(ccwVariable),
-                ccwVariable.getVariable().getLabel()));
+                ccwVariable.getLabel()));
   }
 
   /**
@@ -1266,7 +1258,7 @@ public final class TransformerUtilsV2 {
                           new Coding(
                               TransformerConstants.CODING_BBAPI_INFORMATION_CATEGORY,
                               CCWUtils.calculateVariableReferenceUrl(ccwVariable),
-                              ccwVariable.getVariable().getLabel())))
+                              ccwVariable.getLabel())))
               .setTiming(new DateType(convertToDate(d)));
         });
   }
@@ -1309,7 +1301,8 @@ public final class TransformerUtilsV2 {
     if (rootResource == null) throw new IllegalArgumentException();
     if (ccwVariable == null) throw new IllegalArgumentException();
     if (code == null) throw new IllegalArgumentException();
-    if (!ccwVariable.getVariable().getValueGroups().isPresent())
+    CodedValues codedValues = ccwVariable.getCodedValues();
+    if (!codedValues.isCoded())
       throw new BadCodeMonkeyException("No display values for Variable: " + ccwVariable);
 
     /*
@@ -1320,14 +1313,10 @@ public final class TransformerUtilsV2 {
      * messy, and that the Coding's code matches more than one value -- we just log those events,
      * too.
      */
-    List<Value> matchingVariableValues =
-        ccwVariable.getVariable().getValueGroups().get().stream()
-            .flatMap(g -> g.getValues().stream())
-            .filter(v -> v.getCode().equals(code))
-            .collect(Collectors.toList());
-    if (matchingVariableValues.size() == 1) {
-      return Optional.of(matchingVariableValues.get(0).getDescription());
-    } else if (matchingVariableValues.isEmpty()) {
+    Optional<String> description = codedValues.getDescription(code);
+    if (description.isPresent()) {
+      return description;
+    } else if (!codedValues.isDuplicate(code)) {
       if (!codebookLookupMissingFailures.contains(ccwVariable)) {
         // Note: The race condition here (from concurrent requests) is harmless.
         codebookLookupMissingFailures.add(ccwVariable);
@@ -1348,7 +1337,7 @@ public final class TransformerUtilsV2 {
         }
       }
       return Optional.empty();
-    } else if (matchingVariableValues.size() > 1) {
+    } else {
       if (!codebookLookupDuplicateFailures.contains(ccwVariable)) {
         // Note: The race condition here (from concurrent requests) is harmless.
         codebookLookupDuplicateFailures.add(ccwVariable);
@@ -1369,8 +1358,6 @@ public final class TransformerUtilsV2 {
         }
       }
       return Optional.empty();
-    } else {
-      throw new BadCodeMonkeyException();
     }
   }
 
@@ -1491,19 +1478,9 @@ public final class TransformerUtilsV2 {
 
     if (npiCode.isEmpty()) return null;
 
-    /*
-     * There's a race condition here: we may initialize this static field more than once if multiple
-     * requests come in at the same time. However, the assignment is atomic, so the race and
-     * reinitialization is harmless other than maybe wasting a bit of time.
-     */
-    // read the entire NPI file the first time and put in a Map
-    if (npiMap == null) {
-      npiMap = readNpiCodeFile();
-    }
-
-    if (npiMap.containsKey(npiCode.toUpperCase())) {
-      String npiCodeDisplay = npiMap.get(npiCode);
-      return npiCodeDisplay;
+    Optional<String> npiCodeDisplay = CodeDisplayLookups.getNpiCodeDisplay(npiCode);
+    if (npiCodeDisplay.isPresent()) {
+      return npiCodeDisplay.get();
     }
 
     // log which NPI codes we couldn't find a match for in our downloaded NPI file
@@ -1512,57 +1489,6 @@ public final class TransformerUtilsV2 {
     return null;
   }
 
-  /**
-   * Reads ALL the NPI codes and display values from the NPI_Coded_Display_Values_Tab.txt file.
-   * Refer to the README file in the src/main/resources directory.
-   *
-   * @return the map of NPI codes
-   */
-  private static Map<String, String> readNpiCodeFile() {
-
-    Map<String, String> npiCodeMap = new HashMap<String, String>();
-    try (final InputStream npiCodeDisplayStream =
-            Thread.currentThread()
-                .getContextClassLoader()
-                .getResourceAsStream("NPI_Coded_Display_Values_Tab.txt");
-        final BufferedReader npiCodesIn =
-            new BufferedReader(new InputStreamReader(npiCodeDisplayStream))) {
-      /*
-       * We want to extract the NPI codes and display values and put in a map for easy retrieval to
-       * get the display value-- npiColumns[0] is the NPI Code, npiColumns[4] is the NPI
-       * Organization Code, npiColumns[8] is the NPI provider name prefix, npiColumns[6] is the NPI
-       * provider first name, npiColumns[7] is the NPI provider middle name, npiColumns[5] is the
-       * NPI provider last name, npiColumns[9] is the NPI provider suffix name, npiColumns[10] is
-       * the NPI provider credential.
-       */
-      String line = "";
-      npiCodesIn.readLine();
-      while ((line = npiCodesIn.readLine()) != null) {
-        String[] npiColumns = line.split("\t");
-        if (npiColumns[4].isEmpty()) {
-          String npiDisplayName =
-              npiColumns[8].trim()
-                  + " "
-                  + npiColumns[6].trim()
-                  + " "
-                  + npiColumns[7].trim()
-                  + " "
-                  + npiColumns[5].trim()
-                  + " "
-                  + npiColumns[9].trim()
-                  + " "
-                  + npiColumns[10].trim();
-          npiCodeMap.put(npiColumns[0], npiDisplayName.replace("  ", " ").trim());
-        } else {
-          npiCodeMap.put(npiColumns[0], npiColumns[4].replace("\"", "").trim());
-        }
-      }
-    } catch (IOException e) {
-      throw new UncheckedIOException("Unable to read NPI code data.", e);
-    }
-    return npiCodeMap;
-  }
-
   /**
    * Retrieves the Procedure code and display value from a Procedure code look up file.
    *
@@ -1573,19 +1499,10 @@ public final class TransformerUtilsV2 {
 
     if (procedureCode.isEmpty()) return null;
 
-    /*
-     * There's a race condition here: we may initialize this static field more than once if multiple
-     * requests come in at the same time. However, the assignment is atomic, so the race and
-     * reinitialization is harmless other than maybe wasting a bit of time.
-     */
-    // read the entire Procedure code file the first time and put in a Map
-    if (procedureMap == null) {
-      procedureMap = readProcedureCodeFile();
-    }
-
-    if (procedureMap.containsKey(procedureCode.toUpperCase())) {
-      String procedureCodeDisplay = procedureMap.get(procedureCode);
-      return procedureCodeDisplay;
+    Optional<String> procedureCodeDisplay =
+        CodeDisplayLookups.getProcedureCodeDisplay(procedureCode);
+    if (procedureCodeDisplay.isPresent()) {
+      return procedureCodeDisplay.get();
     }
 
     // log which Procedure codes we couldn't find a match for in our procedure codes
@@ -1601,38 +1518,6 @@ public final class TransformerUtilsV2 {
     return null;
   }
 
-  /**
-   * Reads all the procedure codes and display values from the PRCDR_CD.txt file Refer to the README
-   * file in the src/main/resources directory.
-   *
-   * @return the map of procedure codes
-   */
-  private static Map<String, String> readProcedureCodeFile() {
-
-    Map<String, String> procedureCodeMap = new HashMap<String, String>();
-    try (final InputStream procedureCodeDisplayStream =
-            Thread.currentThread().getContextClassLoader().getResourceAsStream("PRCDR_CD.txt");
-        final BufferedReader procedureCodesIn =
-            new BufferedReader(new InputStreamReader(procedureCodeDisplayStream))) {
-      /*
-       * We want to extract the procedure codes and display values and put in a map for easy
-       * retrieval to get the display value icdColumns[0] is PRCDR_CD; icdColumns[1] is
-       * PRCDR_DESC(i.e. 8295 is INJECT TENDON OF HAND description)
-       */
-      String line = "";
-      procedureCodesIn.readLine();
-      while ((line = procedureCodesIn.readLine()) != null) {
-        String[] icdColumns = line.split("\t");
-        procedureCodeMap.put(icdColumns[0], icdColumns[1]);
-      }
-      procedureCodesIn.close();
-    } catch (IOException e) {
-      throw new UncheckedIOException("Unable to read Procedure code data.", e);
-    }
-
-    return procedureCodeMap;
-  }
-
   /**
    * Create a bundle from the entire search result.
    *
@@ -1689,6 +1574,56 @@ public final class TransformerUtilsV2 {
     return bundle;
   }
 
+  /**
+   * Create a bundle from a single page of a search result whose members were selected before the
+   * resources were created, so that only the resources on the page had to be transformed.
+   *
+   * @param paging contains the {@link OffsetLinkBuilder} information
+   * @param pageResources the {@link ExplanationOfBenefit}s on the requested page, all of which will
+   *     be added to the bundle
+   * @param total the number of resources matched by the search across all pages
+   * @param lastUpdated the latest lastUpdated of any resource matched by the search, if any
+   * @param transactionTime date for the bundle
+   * @return a {@link Bundle} of {@link ExplanationOfBenefit}s, which may also be empty
+   */
+  public static Bundle createBundle(
+      OffsetLinkBuilder paging,
+      List<IBaseResource> pageResources,
+      int total,
+      Optional<Instant> lastUpdated,
+      Instant transactionTime) {
+    Bundle bundle = createBundleWithoutEntries(total, lastUpdated, transactionTime);
+    TransformerUtilsV2.addResourcesToBundle(bundle, pageResources);
+    paging.setTotal(total).addLinks(bundle);
+
+    // Add number of paginated resources to MDC logs
+    LoggingUtils.logResourceCountToMdc(pageResources.size());
+    return bundle;
+  }
+
+  /**
+   * Create a bundle describing a search result without adding any of its resources. Used when the
+   * entries of the bundle will be streamed to the response after the bundle has been returned.
+   *
+   * @param total the number of resources matched by the search
+   * @param lastUpdated the latest lastUpdated of any resource matched by the search, if any
+   * @param transactionTime date for the bundle
+   * @return a {@link Bundle} without entries
+   */
+  public static Bundle createBundleWithoutEntries(
+      int total, Optional<Instant> lastUpdated, Instant transactionTime) {
+    Bundle bundle = new Bundle();
+    Instant maxBundleDate = lastUpdated.orElse(transactionTime);
+    bundle
+        .getMeta()
+        .setLastUpdated(
+            transactionTime.isAfter(maxBundleDate)
+                ? Date.from(transactionTime)
+                : Date.from(maxBundleDate));
+    bundle.setTotal(total);
+    return bundle;
+  }
+
   /**
    * Create a bundle from the entire search result.
    *
@@ -1919,7 +1854,7 @@ public final class TransformerUtilsV2 {
     String system = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
 
     String display;
-    if (ccwVariable.getVariable().getValueGroups().isPresent())
+    if (ccwVariable.getCodedValues().isCoded())
       display = calculateCodingDisplay(rootResource, ccwVariable, codeString).orElse(null);
     else display = null;
 
@@ -2943,7 +2878,7 @@ public final class TransformerUtilsV2 {
             TransformerConstants.CODING_BBAPI_BENEFIT_BALANCE_TYPE,
             CCWUtils.calculateVariableReferenceUrl(financialType));
 
-    financialTypeConcept.getCodingFirstRep().setDisplay(financialType.getVariable().getLabel());
+    financialTypeConcept.getCodingFirstRep().setDisplay(financialType.getLabel());
 
     BenefitComponent financialEntry = new BenefitComponent(financialTypeConcept);
     eobPrimaryBenefitBalance.getFinancial().add(financialEntry);
@@ -3668,12 +3603,11 @@ public final class TransformerUtilsV2 {
    * @return a {@link CCWProcedure} or {@link Optional#empty()}
    */
   public static Optional<CCWProcedure> extractCCWProcedure(int procedure, Object claim) {
-    Optional<String> code =
-        ReflectionUtils.tryMethod(claim, String.format("getProcedure%dCode", procedure));
+    Optional<String> code = ReflectionUtils.tryMethod(claim, "getProcedure" + procedure + "Code");
     Optional<Character> codeVersion =
-        ReflectionUtils.tryMethod(claim, String.format("getProcedure%dCodeVersion", procedure));
+        ReflectionUtils.tryMethod(claim, "getProcedure" + procedure + "CodeVersion");
     Optional<LocalDate> date =
-        ReflectionUtils.tryMethod(claim, String.format("getProcedure%dDate", procedure));
+        ReflectionUtils.tryMethod(claim, "getProcedure" + procedure + "Date");
 
     return CCWProcedure.from(code, codeVersion, date);
   }
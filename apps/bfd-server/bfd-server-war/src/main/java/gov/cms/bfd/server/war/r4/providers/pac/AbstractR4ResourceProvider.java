@@ -20,8 +20,14 @@ import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.newrelic.api.agent.Trace;
+import gov.cms.bfd.server.sharedutils.BfdMDC;
 import gov.cms.bfd.server.war.commons.AbstractResourceProvider;
+import gov.cms.bfd.server.war.commons.FanOutAdmissionController;
+import gov.cms.bfd.server.war.commons.HashResolutionCache;
 import gov.cms.bfd.server.war.commons.OffsetLinkBuilder;
 import gov.cms.bfd.server.war.commons.OpenAPIContentProvider;
 import gov.cms.bfd.server.war.r4.providers.TransformerUtilsV2;
@@ -31,12 +37,17 @@ import gov.cms.bfd.server.war.r4.providers.pac.common.ResourceTypeV2;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -89,6 +100,15 @@ public abstract class AbstractR4ResourceProvider<T extends IBaseResource>
   /** The enabled source types for this provider. */
   private final Set<String> enabledSourceTypes;
 
+  /** Runs the queries of the claim types in parallel. */
+  private final ExecutorService executorService;
+
+  /** Limits how many connections the parallel queries of searches hold at once. */
+  private final FanOutAdmissionController fanOutAdmissionController;
+
+  /** Resolves MBI hashes to the ids of their MBI cache records. */
+  private final HashResolutionCache hashResolutionCache;
+
   /** The fiss transformer. */
   private final ResourceTransformer<T> fissTransformer;
   /** The mcs transformer. */
@@ -101,6 +121,9 @@ public abstract class AbstractR4ResourceProvider<T extends IBaseResource>
    * @param metricRegistry the metric registry bean
    * @param samhsaMatcher the samhsa matcher bean
    * @param oldMbiHashEnabled true if old MBI hash should be used
+   * @param executorService thread pool for running the queries of each claim type in parallel
+   * @param fanOutAdmissionController limits how many connections the parallel queries can hold
+   * @param hashResolutionCache resolves MBI hashes to the ids of their MBI cache records
    * @param fissTransformer the fiss transformer
    * @param mcsTransformer the mcs transformer
    * @param claimSourceTypeNames determines the type of claim sources to enable for constructing PAC
@@ -111,12 +134,18 @@ public abstract class AbstractR4ResourceProvider<T extends IBaseResource>
       MetricRegistry metricRegistry,
       R4ClaimSamhsaMatcher samhsaMatcher,
       Boolean oldMbiHashEnabled,
+      ExecutorService executorService,
+      FanOutAdmissionController fanOutAdmissionController,
+      HashResolutionCache hashResolutionCache,
       ResourceTransformer<T> fissTransformer,
       ResourceTransformer<T> mcsTransformer,
       String claimSourceTypeNames) {
     this.metricRegistry = metricRegistry;
     this.samhsaMatcher = samhsaMatcher;
     this.oldMbiHashEnabled = oldMbiHashEnabled;
+    this.executorService = requireNonNull(executorService);
+    this.fanOutAdmissionController = requireNonNull(fanOutAdmissionController);
+    this.hashResolutionCache = requireNonNull(hashResolutionCache);
     this.fissTransformer = requireNonNull(fissTransformer);
     this.mcsTransformer = requireNonNull(mcsTransformer);
 
@@ -141,7 +170,7 @@ public abstract class AbstractR4ResourceProvider<T extends IBaseResource>
   /** Initiates the provider's dependencies. */
   @PostConstruct
   public void init() {
-    claimDao = new ClaimDao(entityManager, metricRegistry, oldMbiHashEnabled);
+    claimDao = new ClaimDao(entityManager, metricRegistry, oldMbiHashEnabled, hashResolutionCache);
 
     setResourceType();
   }
@@ -397,6 +426,11 @@ public abstract class AbstractR4ResourceProvider<T extends IBaseResource>
   /**
    * Creates a Bundle of resources for the given data using the given {@link ResourceTypeV2}.
    *
+   * <p>The claim types are queried in parallel. When a single page is requested and SAMHSA data
+   * doesn't need to be filtered out, only the ids of the matching claims are queried at first. The
+   * ids are enough to count the claims and to sort them into the same order as their resources, so
+   * only the claims on the requested page are then loaded and transformed.
+   *
    * @param resourceTypes The {@link ResourceTypeV2} data to retrieve.
    * @param mbi The mbi to look up associated data for.
    * @param lastUpdated Date range of desired lastUpdate values to retrieve data for.
@@ -413,43 +447,225 @@ public abstract class AbstractR4ResourceProvider<T extends IBaseResource>
       DateRangeParam serviceDate,
       OffsetLinkBuilder paging,
       BundleOptions bundleOptions) {
-    List<T> resources = new ArrayList<>();
-
-    for (ResourceTypeV2<T, ?> type : resourceTypes) {
-      List<?> entities;
-
-      entities =
-          claimDao.findAllByMbiAttribute(
-              type, mbi, bundleOptions.isHashed, lastUpdated, serviceDate);
-
-      resources.addAll(
-          entities.stream()
-              .filter(e -> !bundleOptions.excludeSamhsa || samhsaMatcher.hasNoSamhsaData(e))
-              .map(e -> transformEntity(type, e, bundleOptions.includeTaxNumbers))
-              .collect(Collectors.toList()));
-    }
+    /*
+     * SAMHSA filtering needs the claims themselves, as do requests for every claim, so only a
+     * paged request without filtering can get by with querying just the claim ids up front.
+     */
+    final boolean loadEntitiesUpFront = bundleOptions.excludeSamhsa || !paging.isPagingRequested();
+    final List<ResourceTypeV2<T, ?>> types = new ArrayList<>(resourceTypes);
+    final List<List<ClaimKey<T>>> keysByType =
+        queryInParallel(
+            types,
+            type ->
+                loadEntitiesUpFront
+                    ? findClaims(type, mbi, lastUpdated, serviceDate, bundleOptions)
+                    : findClaimKeys(type, mbi, lastUpdated, serviceDate, bundleOptions));
 
     // Enforces a specific sorting for pagination that parities the EOB resource sorting.
-    resources.sort(Comparator.comparing(r -> r.getIdElement().getIdPart()));
+    List<ClaimKey<T>> keys = mergeSorted(keysByType);
 
     Bundle bundle = new Bundle();
-    bundle.setTotal(resources.size());
+    bundle.setTotal(keys.size());
 
     if (paging.isPagingRequested()) {
-      paging.setTotal(resources.size()).addLinks(bundle);
-      int endIndex = Math.min(paging.getStartIndex() + paging.getPageSize(), resources.size());
-      resources = resources.subList(paging.getStartIndex(), endIndex);
+      paging.setTotal(keys.size()).addLinks(bundle);
+      int endIndex = Math.min(paging.getStartIndex() + paging.getPageSize(), keys.size());
+      keys = keys.subList(paging.getStartIndex(), endIndex);
     }
 
-    resources.forEach(
-        c -> {
-          Bundle.BundleEntryComponent entry = bundle.addEntry();
-          entry.setResource((Resource) c);
-        });
+    if (!loadEntitiesUpFront) {
+      loadEntities(types, keys);
+    }
+
+    keys.stream()
+        // a claim can be deleted by the pipeline after its id has been queried
+        .filter(key -> key.entity != null)
+        .forEach(
+            key -> {
+              Bundle.BundleEntryComponent entry = bundle.addEntry();
+              entry.setResource(
+                  (Resource)
+                      transformEntity(key.type, key.entity, bundleOptions.includeTaxNumbers));
+            });
 
     return bundle;
   }
 
+  /**
+   * Finds the claims of one type, minus those with SAMHSA data if they are to be excluded.
+   *
+   * @param type The claim type to search
+   * @param mbi The mbi to look up associated data for.
+   * @param lastUpdated Date range of desired lastUpdate values to retrieve data for.
+   * @param serviceDate Date range of the desired service date to retrieve data for.
+   * @param bundleOptions Bundle related options that affect the results.
+   * @return The keys of the claims, with their entities, sorted by resource id
+   */
+  private List<ClaimKey<T>> findClaims(
+      ResourceTypeV2<T, ?> type,
+      String mbi,
+      DateRangeParam lastUpdated,
+      DateRangeParam serviceDate,
+      BundleOptions bundleOptions) {
+    return claimDao
+        .findAllByMbiAttribute(type, mbi, bundleOptions.isHashed, lastUpdated, serviceDate)
+        .stream()
+        .filter(e -> !bundleOptions.excludeSamhsa || samhsaMatcher.hasNoSamhsaData(e))
+        .map(e -> new ClaimKey<T>(type, claimDao.getEntityId(e), e))
+        .sorted(ClaimKey.ORDER)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Finds the ids of the claims of one type, without loading the claims themselves.
+   *
+   * @param type The claim type to search
+   * @param mbi The mbi to look up associated data for.
+   * @param lastUpdated Date range of desired lastUpdate values to retrieve data for.
+   * @param serviceDate Date range of the desired service date to retrieve data for.
+   * @param bundleOptions Bundle related options that affect the results.
+   * @return The keys of the claims, without their entities, sorted by resource id
+   */
+  private List<ClaimKey<T>> findClaimKeys(
+      ResourceTypeV2<T, ?> type,
+      String mbi,
+      DateRangeParam lastUpdated,
+      DateRangeParam serviceDate,
+      BundleOptions bundleOptions) {
+    return claimDao
+        .findAllIdsByMbiAttribute(type, mbi, bundleOptions.isHashed, lastUpdated, serviceDate)
+        .stream()
+        .map(id -> new ClaimKey<T>(type, id, null))
+        .sorted(ClaimKey.ORDER)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Loads the entities of the given keys, querying each claim type in parallel. Keys whose claims
+   * no longer exist are left without an entity.
+   *
+   * @param types The claim types being searched
+   * @param keys The keys whose entities should be loaded
+   */
+  private void loadEntities(List<ResourceTypeV2<T, ?>> types, List<ClaimKey<T>> keys) {
+    final Map<ResourceTypeV2<T, ?>, Map<String, ClaimKey<T>>> keysByType =
+        keys.stream()
+            .collect(
+                Collectors.groupingBy(
+                    key -> key.type, Collectors.toMap(key -> key.entityId, key -> key)));
+    final List<ResourceTypeV2<T, ?>> typesOnPage =
+        types.stream().filter(keysByType::containsKey).collect(Collectors.toList());
+
+    final List<List<?>> entitiesByType =
+        queryInParallel(
+            typesOnPage, type -> claimDao.findAllByIds(type, keysByType.get(type).keySet()));
+    for (int i = 0; i < typesOnPage.size(); ++i) {
+      final Map<String, ClaimKey<T>> typeKeys = keysByType.get(typesOnPage.get(i));
+      for (Object entity : entitiesByType.get(i)) {
+        typeKeys.get(claimDao.getEntityId(entity)).entity = entity;
+      }
+    }
+  }
+
+  /**
+   * Runs a query for each of the given claim types, in parallel when there is more than one.
+   *
+   * <p>The queries record their metrics in the {@link BfdMDC} so that they appear in the access
+   * log, which is written from the request thread. The entries recorded by queries that ran on
+   * other threads are copied into the request thread's {@link BfdMDC} once they finish.
+   *
+   * @param <R> the query result type
+   * @param types The claim types to query
+   * @param query The query to run for each claim type
+   * @return The results of the queries, in the same order as the claim types
+   */
+  private <R> List<R> queryInParallel(
+      List<ResourceTypeV2<T, ?>> types, Function<ResourceTypeV2<T, ?>, R> query) {
+    final Thread requestThread = Thread.currentThread();
+    final List<Map<String, String>> otherThreadMdcEntries =
+        Collections.synchronizedList(new ArrayList<>());
+    final List<Callable<R>> tasks =
+        types.stream()
+            .map(
+                type ->
+                    (Callable<R>)
+                        () -> {
+                          if (Thread.currentThread() == requestThread) {
+                            return query.apply(type);
+                          }
+                          BfdMDC.clear();
+                          try {
+                            return query.apply(type);
+                          } finally {
+                            Map<String, String> entries =
+                                BfdMDC.getMDCAdapter().getCopyOfContextMap();
+                            if (entries != null) {
+                              otherThreadMdcEntries.add(entries);
+                            }
+                            BfdMDC.clear();
+                          }
+                        })
+            .collect(Collectors.toList());
+    try {
+      return fanOutAdmissionController.invokeAll(executorService, tasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while searching claims", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      synchronized (otherThreadMdcEntries) {
+        otherThreadMdcEntries.forEach(entries -> entries.forEach(BfdMDC::put));
+      }
+    }
+  }
+
+  /**
+   * Merges the sorted keys of several claim types into a single sorted list.
+   *
+   * @param keysByType the keys of each claim type, each sorted by {@link ClaimKey#ORDER}
+   * @return all of the keys, sorted by {@link ClaimKey#ORDER}
+   */
+  private List<ClaimKey<T>> mergeSorted(List<List<ClaimKey<T>>> keysByType) {
+    return Lists.newArrayList(
+        Iterators.mergeSorted(
+            keysByType.stream().map(List::iterator).collect(Collectors.toList()), ClaimKey.ORDER));
+  }
+
+  /**
+   * The id of a claim and, once it has been loaded, its entity.
+   *
+   * @param <T> The specific fhir resource the claim is transformed into.
+   */
+  private static class ClaimKey<T extends IBaseResource> {
+    /** Orders keys by the ids of the resources they will be transformed into. */
+    private static final Comparator<ClaimKey<?>> ORDER = Comparator.comparing(key -> key.sortId);
+
+    /** The claim type. */
+    private final ResourceTypeV2<T, ?> type;
+    /** The id of the claim entity. */
+    private final String entityId;
+    /** The id of the resource the claim will be transformed into. */
+    private final String sortId;
+    /** The claim entity, or null if it hasn't been loaded yet. */
+    private Object entity;
+
+    /**
+     * Instantiates a new claim key.
+     *
+     * @param type the claim type
+     * @param entityId the id of the claim entity
+     * @param entity the claim entity, or null if it hasn't been loaded yet
+     */
+    private ClaimKey(ResourceTypeV2<T, ?> type, String entityId, Object entity) {
+      this.type = type;
+      this.entityId = entityId;
+      this.sortId = type.getResourceIdPrefix() + entityId;
+      this.entity = entity;
+    }
+  }
+
   /** Helper class for passing bundle result options. */
   private static class BundleOptions {
 
@@ -79,6 +79,16 @@ public abstract class AbstractResourceTypeV2<TResource extends IBaseResource, TE
     return entityServiceDateAttributes;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This is the same value that {@link #parse} accepts when reading a resource by its id.
+   */
+  @Override
+  public String getResourceIdPrefix() {
+    return nameForParsing.toLowerCase() + "-";
+  }
+
   /**
    * Scans the provided instances to find the first one whose {@link
    * AbstractResourceTypeV2#nameForParsing}* is equal to the provided string.
@@ -94,6 +94,18 @@ public class FissClaimTransformerV2 extends AbstractTransformerV2
     }
   }
 
+  /**
+   * Determines if the diagnosis and procedure codes of a claim are ICD9 codes, based on the
+   * statement covers-through date.
+   *
+   * @param claimGroup the claim to check
+   * @return {@code true} if the codes are ICD9 codes, {@code false} if they are ICD10 codes
+   */
+  static boolean isIcd9(RdaFissClaim claimGroup) {
+    return claimGroup.getStmtCovToDate() != null
+        && claimGroup.getStmtCovToDate().isBefore(ICD_9_CUTOFF_DATE);
+  }
+
   /**
    * Transforms a {@link RdaFissClaim} into a FHIR {@link Claim}.
    *
@@ -104,9 +116,7 @@ public class FissClaimTransformerV2 extends AbstractTransformerV2
   private Claim transformClaim(RdaFissClaim claimGroup, boolean includeTaxNumbers) {
     Claim claim = new Claim();
 
-    boolean isIcd9 =
-        claimGroup.getStmtCovToDate() != null
-            && claimGroup.getStmtCovToDate().isBefore(ICD_9_CUTOFF_DATE);
+    boolean isIcd9 = isIcd9(claimGroup);
 
     claim.setId("f-" + claimGroup.getClaimId());
     claim.setContained(
@@ -6,10 +6,13 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 import gov.cms.bfd.server.war.SpringConfiguration;
+import gov.cms.bfd.server.war.commons.FanOutAdmissionController;
+import gov.cms.bfd.server.war.commons.HashResolutionCache;
 import gov.cms.bfd.server.war.r4.providers.pac.common.ResourceTypeV2;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import org.hl7.fhir.r4.model.ClaimResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,6 +33,9 @@ public class R4ClaimResponseResourceProvider extends AbstractR4ResourceProvider<
    * @param metricRegistry the metric registry bean
    * @param samhsaMatcher the samhsa matcher bean
    * @param oldMbiHashEnabled true if old MBI hash should be used
+   * @param executorService thread pool for running the queries of each claim type in parallel
+   * @param fanOutAdmissionController limits how many connections the parallel queries can hold
+   * @param hashResolutionCache resolves MBI hashes to the ids of their MBI cache records
    * @param fissClaimResponseTransformerV2 the fiss claim response transformer
    * @param mcsClaimResponseTransformerV2 the mcs claim response transformer
    * @param claimSourceTypeNames determines the type of claim sources to enable for constructing PAC
@@ -40,6 +46,9 @@ public class R4ClaimResponseResourceProvider extends AbstractR4ResourceProvider<
       MetricRegistry metricRegistry,
       R4ClaimSamhsaMatcher samhsaMatcher,
       @Qualifier(SpringConfiguration.PAC_OLD_MBI_HASH_ENABLED) Boolean oldMbiHashEnabled,
+      ExecutorService executorService,
+      FanOutAdmissionController fanOutAdmissionController,
+      HashResolutionCache hashResolutionCache,
       FissClaimResponseTransformerV2 fissClaimResponseTransformerV2,
       McsClaimResponseTransformerV2 mcsClaimResponseTransformerV2,
       @Value("${bfdServer.pac.claimSourceTypes:}") String claimSourceTypeNames) {
@@ -47,6 +56,9 @@ public class R4ClaimResponseResourceProvider extends AbstractR4ResourceProvider<
         metricRegistry,
         samhsaMatcher,
         oldMbiHashEnabled,
+        executorService,
+        fanOutAdmissionController,
+        hashResolutionCache,
         fissClaimResponseTransformerV2,
         mcsClaimResponseTransformerV2,
         claimSourceTypeNames);
@@ -1,12 +1,20 @@
 package gov.cms.bfd.server.war.r4.providers.pac;
 
 import gov.cms.bfd.model.rda.RdaFissClaim;
+import gov.cms.bfd.model.rda.RdaFissDiagnosisCode;
+import gov.cms.bfd.model.rda.RdaFissProcCode;
+import gov.cms.bfd.model.rda.RdaFissRevenueLine;
 import gov.cms.bfd.model.rda.RdaMcsClaim;
+import gov.cms.bfd.model.rda.RdaMcsDetail;
+import gov.cms.bfd.model.rda.RdaMcsDiagnosisCode;
 import gov.cms.bfd.server.war.adapters.CodeableConcept;
 import gov.cms.bfd.server.war.adapters.r4.ClaimAdapter;
 import gov.cms.bfd.server.war.commons.AbstractSamhsaMatcher;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
+import java.util.Set;
 import java.util.function.Predicate;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.logging.log4j.util.Strings;
 import org.hl7.fhir.r4.model.Claim;
 import org.springframework.stereotype.Component;
 
@@ -17,51 +25,99 @@ import org.springframework.stereotype.Component;
  * <p>See <code>/bluebutton-data-server.git/dev/design-samhsa-filtering.md</code> for details on the
  * design of this feature.
  *
+ * <p>Claim entities are checked directly by {@link #hasNoSamhsaData}, which looks at the same
+ * columns, with the same coding systems, that {@link FissClaimTransformerV2} and {@link
+ * McsClaimTransformerV2} put into the {@link Claim} that {@link #test} checks.
+ *
  * <p>This class is designed to be thread-safe, as it's expensive to construct and so should be used
  * as a singleton.
  */
 @Component
 public final class R4ClaimSamhsaMatcher extends AbstractSamhsaMatcher<Claim> {
 
-  /** The fiss claim transformer, used for converting resources to check for samhsa data. */
-  private final FissClaimTransformerV2 fissTransformer;
-
-  /** The mcs claim transformer, used for converting resources to check for samhsa data. */
-  private final McsClaimTransformerV2 mcsTransformer;
-
   /**
-   * Instantiates a new samhsa matcher.
-   *
-   * <p>Resources should be instantiated by Spring, so this should only be directly called by tests.
-   *
-   * @param fissClaimTransformer the fiss claim transformer
-   * @param mcsClaimTransformer the mcs claim transformer
-   */
-  public R4ClaimSamhsaMatcher(
-      FissClaimTransformerV2 fissClaimTransformer, McsClaimTransformerV2 mcsClaimTransformer) {
-    this.mcsTransformer = mcsClaimTransformer;
-    this.fissTransformer = fissClaimTransformer;
-  }
-
-  /**
-   * Determines if there are no samhsa entries in the claim.
+   * Determines if there are no samhsa entries in the claim, without transforming it into a {@link
+   * Claim}.
    *
    * @param entity the claim to check
    * @return {@code true} if there are no samhsa entries in the claim
    */
   public boolean hasNoSamhsaData(Object entity) {
-    Claim claim;
-
     if (entity instanceof RdaFissClaim) {
-      claim = fissTransformer.transform(entity, false);
+      return !containsSamhsaData((RdaFissClaim) entity);
     } else if (entity instanceof RdaMcsClaim) {
-      claim = mcsTransformer.transform(entity, false);
+      return !containsSamhsaData((RdaMcsClaim) entity);
     } else {
       throw new IllegalArgumentException(
           "Unsupported entity " + entity.getClass().getCanonicalName() + " for samhsa filtering");
     }
+  }
 
-    return !test(claim);
+  /**
+   * Checks if a FISS claim contains any samhsa data.
+   *
+   * <p>The revenue line HCPCS codes are transformed into the CCW HCPCS system rather than the Carin
+   * HCPCS system, which {@link #containsOnlyKnownSystems} treats as unknown, so any revenue line
+   * with a HCPCS code makes the claim samhsa-related.
+   *
+   * @param claim the claim to check
+   * @return {@code true} if any procedure, diagnosis or revenue line code is samhsa-related
+   */
+  private boolean containsSamhsaData(RdaFissClaim claim) {
+    final boolean isIcd9 = FissClaimTransformerV2.isIcd9(claim);
+    for (RdaFissProcCode procCode :
+        ObjectUtils.defaultIfNull(claim.getProcCodes(), Set.<RdaFissProcCode>of())) {
+      if (procCode.getProcCode() != null
+          && isSamhsaIcdProcedureCode(procCode.getProcCode(), isIcd9)) {
+        return true;
+      }
+    }
+    for (RdaFissDiagnosisCode diagCode :
+        ObjectUtils.defaultIfNull(claim.getDiagCodes(), Set.<RdaFissDiagnosisCode>of())) {
+      if (Strings.isNotBlank(diagCode.getDiagCd2())
+          && isSamhsaIcdDiagnosisCode(diagCode.getDiagCd2(), isIcd9)) {
+        return true;
+      }
+    }
+    for (RdaFissRevenueLine revenueLine :
+        ObjectUtils.defaultIfNull(claim.getRevenueLines(), Set.<RdaFissRevenueLine>of())) {
+      if (Strings.isNotBlank(revenueLine.getHcpcCd())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if an MCS claim contains any samhsa data. Diagnosis codes with an unknown ICD type are
+   * transformed without a coding system, so they are assumed to be samhsa-related.
+   *
+   * @param claim the claim to check
+   * @return {@code true} if any diagnosis or detail code is samhsa-related
+   */
+  private boolean containsSamhsaData(RdaMcsClaim claim) {
+    for (RdaMcsDiagnosisCode diagCode :
+        ObjectUtils.defaultIfNull(claim.getDiagCodes(), Set.<RdaMcsDiagnosisCode>of())) {
+      if (Strings.isNotBlank(diagCode.getIdrDiagCode())) {
+        final String icdType = diagCode.getIdrDiagIcdType();
+        if ("0".equals(icdType) || "9".equals(icdType)) {
+          if (isSamhsaIcdDiagnosisCode(diagCode.getIdrDiagCode(), "9".equals(icdType))) {
+            return true;
+          }
+        } else {
+          // Fail safe: if we don't know the ICD version, assume the code is SAMHSA.
+          return true;
+        }
+      }
+    }
+    for (RdaMcsDetail detail :
+        ObjectUtils.defaultIfNull(claim.getDetails(), Set.<RdaMcsDetail>of())) {
+      if (Strings.isNotBlank(detail.getIdrProcCode())
+          && isSamhsaHcpcsCode(detail.getIdrProcCode())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /** {@inheritDoc} */
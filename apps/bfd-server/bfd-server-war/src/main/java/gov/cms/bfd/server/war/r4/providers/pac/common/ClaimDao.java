@@ -4,12 +4,15 @@ import ca.uhn.fhir.rest.param.DateRangeParam;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Longs;
 import com.newrelic.api.agent.Trace;
 import gov.cms.bfd.model.rda.Mbi;
+import gov.cms.bfd.server.war.commons.HashResolutionCache;
 import gov.cms.bfd.server.war.commons.QueryUtils;
 import gov.cms.bfd.server.war.r4.providers.TransformerUtilsV2;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -30,6 +33,12 @@ public class ClaimDao {
   static final String CLAIM_BY_MBI_QUERY = "claim_by_mbi";
   /** Query name for logging MDC. */
   static final String CLAIM_BY_ID_QUERY = "claim_by_id";
+  /** Query name for logging MDC. */
+  static final String CLAIM_IDS_BY_MBI_QUERY = "claim_ids_by_mbi";
+  /** Query name for logging MDC. */
+  static final String CLAIMS_BY_IDS_QUERY = "claims_by_ids";
+  /** Query name for logging MDC. */
+  static final String MBI_IDS_BY_HASH_QUERY = "mbi_ids_by_hash";
 
   /** {@link EntityManager} used for database access. */
   private final EntityManager entityManager;
@@ -37,6 +46,21 @@ public class ClaimDao {
   private final MetricRegistry metricRegistry;
   /** Whether or not to use old MBI hash functionality. */
   private final boolean isOldMbiHashEnabled;
+  /** Resolves MBI hashes to {@link Mbi} ids, or null if they are always resolved by joins. */
+  private final HashResolutionCache hashResolutionCache;
+
+  /**
+   * Creates a {@link ClaimDao} that resolves MBI hashes by joining to the {@link Mbi} table in each
+   * query.
+   *
+   * @param entityManager {@link EntityManager} used for database access
+   * @param metricRegistry {@link MetricRegistry} for metrics
+   * @param isOldMbiHashEnabled whether or not to use old MBI hash functionality
+   */
+  public ClaimDao(
+      EntityManager entityManager, MetricRegistry metricRegistry, boolean isOldMbiHashEnabled) {
+    this(entityManager, metricRegistry, isOldMbiHashEnabled, null);
+  }
 
   /**
    * Gets an entity by it's ID for the given claim type.
@@ -132,6 +156,111 @@ public class ClaimDao {
     return claimEntities;
   }
 
+  /**
+   * Find the ids of the records that {@link #findAllByMbiAttribute} would return, without loading
+   * the records themselves. Used to count and order the records of a search so that only those on
+   * the requested page need to be loaded.
+   *
+   * @param resourceType The {@link ResourceTypeV2} that defines properties required for the query.
+   * @param mbiSearchValue The desired value of the mbi attribute be searched on.
+   * @param isMbiSearchValueHashed True if the mbiSearchValue is a hashed MBI.
+   * @param lastUpdated The range of lastUpdated values to search on.
+   * @param serviceDate The range of the desired service date to search on.
+   * @param <T> The entity type being searched.
+   * @return The ids of the matching entities.
+   */
+  @Trace
+  public <T> List<String> findAllIdsByMbiAttribute(
+      ResourceTypeV2<?, T> resourceType,
+      String mbiSearchValue,
+      boolean isMbiSearchValueHashed,
+      DateRangeParam lastUpdated,
+      DateRangeParam serviceDate) {
+    final Class<T> entityClass = resourceType.getEntityClass();
+    final String idAttributeName = resourceType.getEntityIdAttribute();
+    final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    final CriteriaQuery<String> criteria = builder.createQuery(String.class);
+    final Root<T> root = criteria.from(entityClass);
+
+    criteria.select(root.<String>get(idAttributeName));
+    criteria.where(
+        createStandardPredicatesForMbiLookup(
+                builder,
+                root,
+                resourceType,
+                mbiSearchValue,
+                isMbiSearchValueHashed,
+                lastUpdated,
+                serviceDate)
+            .toArray(new Predicate[0]));
+
+    List<String> claimIds = null;
+
+    Timer.Context timerClaimQuery =
+        getTimerForResourceQuery(resourceType, CLAIM_IDS_BY_MBI_QUERY).time();
+    try {
+      claimIds = entityManager.createQuery(criteria).getResultList();
+    } finally {
+      logQueryMetric(
+          resourceType,
+          CLAIM_IDS_BY_MBI_QUERY,
+          timerClaimQuery.stop(),
+          claimIds == null ? 0 : claimIds.size());
+    }
+
+    return claimIds;
+  }
+
+  /**
+   * Gets the entities with the given ids for the given claim type.
+   *
+   * @param resourceType The type of claim to retrieve.
+   * @param ids The ids of the claims to retrieve.
+   * @param <T> The entity type being retrieved.
+   * @return The entities that were found, in no particular order.
+   */
+  @Trace
+  public <T> List<T> findAllByIds(ResourceTypeV2<?, T> resourceType, Collection<String> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    final Class<T> entityClass = resourceType.getEntityClass();
+    final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    final CriteriaQuery<T> criteria = builder.createQuery(entityClass);
+    final Root<T> root = criteria.from(entityClass);
+
+    criteria.select(root);
+    criteria.where(root.get(resourceType.getEntityIdAttribute()).in(ids));
+
+    List<T> claimEntities = null;
+
+    Timer.Context timerClaimQuery =
+        getTimerForResourceQuery(resourceType, CLAIMS_BY_IDS_QUERY).time();
+    try {
+      claimEntities = entityManager.createQuery(criteria).getResultList();
+    } finally {
+      logQueryMetric(
+          resourceType,
+          CLAIMS_BY_IDS_QUERY,
+          timerClaimQuery.stop(),
+          claimEntities == null ? 0 : claimEntities.size());
+    }
+
+    return claimEntities;
+  }
+
+  /**
+   * Gets the id of an entity returned by one of the queries of this class.
+   *
+   * @param entity The entity.
+   * @return The value of the entity's id attribute.
+   */
+  public String getEntityId(Object entity) {
+    return String.valueOf(
+        entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity));
+  }
+
   /**
    * Builds a list of predicates for standard MBI and date range restrictions on search. Used for
    * FISS claim lookup and for MCS root lookup when no service date restriction is in place. If an
@@ -227,6 +356,10 @@ public class ClaimDao {
    * Helper method to create the appropriate MBI predicate depending on if the current or old MBI
    * Hash should be used.
    *
+   * <p>When hashes are cached, a hashed search value is first resolved to the ids of its matching
+   * {@link Mbi} records, which the claims can be matched against without joining to the {@link Mbi}
+   * table.
+   *
    * @param root The root path of the entity to get attributes from.
    * @param mbiSearchValue The MBI value being searched for.
    * @param isMbiSearchValueHashed Indicates if the search value is a hash or raw MBI.
@@ -239,6 +372,33 @@ public class ClaimDao {
       String mbiSearchValue,
       boolean isMbiSearchValueHashed,
       CriteriaBuilder builder) {
+    if (isMbiSearchValueHashed && hashResolutionCache != null && hashResolutionCache.isEnabled()) {
+      final long[] mbiIds =
+          hashResolutionCache.resolveMbiIds(
+              isOldMbiHashEnabled ? "pac_hash_or_old_hash" : "pac_hash",
+              mbiSearchValue,
+              () -> findMbiIdsByHash(mbiSearchValue));
+      return mbiIds.length == 0
+          ? builder.disjunction()
+          : root.get(Mbi.Fields.mbiId).in(Longs.asList(mbiIds));
+    }
+    return createMbiValuePredicate(root, mbiSearchValue, isMbiSearchValueHashed, builder);
+  }
+
+  /**
+   * Creates the predicate that compares the MBI, or its current or old hash, to a search value.
+   *
+   * @param root The root path of the {@link Mbi} to get attributes from.
+   * @param mbiSearchValue The MBI value being searched for.
+   * @param isMbiSearchValueHashed Indicates if the search value is a hash or raw MBI.
+   * @param builder The builder to use for creating predicates.
+   * @return A {@link Predicate} that checks for the given mbi value.
+   */
+  private Predicate createMbiValuePredicate(
+      Path<?> root,
+      String mbiSearchValue,
+      boolean isMbiSearchValueHashed,
+      CriteriaBuilder builder) {
     final String mbiValueAttributeName = isMbiSearchValueHashed ? Mbi.Fields.hash : Mbi.Fields.mbi;
     var answer = builder.equal(root.get(mbiValueAttributeName), mbiSearchValue);
     if (isMbiSearchValueHashed && isOldMbiHashEnabled) {
@@ -248,6 +408,38 @@ public class ClaimDao {
     return answer;
   }
 
+  /**
+   * Finds the ids of the {@link Mbi} records whose current or old hash matches a value.
+   *
+   * @param mbiHash The hash being searched for.
+   * @return The distinct ids of the matching records, empty if there are none.
+   */
+  @VisibleForTesting
+  long[] findMbiIdsByHash(String mbiHash) {
+    final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    final CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
+    final Root<Mbi> root = criteria.from(Mbi.class);
+
+    criteria.select(root.get(Mbi.Fields.mbiId));
+    criteria.where(createMbiValuePredicate(root, mbiHash, true, builder));
+
+    List<Long> mbiIds = null;
+
+    Timer.Context timerMbiQuery =
+        metricRegistry
+            .timer(
+                MetricRegistry.name(ClaimDao.class.getSimpleName(), "query", MBI_IDS_BY_HASH_QUERY))
+            .time();
+    try {
+      mbiIds = entityManager.createQuery(criteria).getResultList();
+    } finally {
+      TransformerUtilsV2.recordQueryInMdc(
+          MBI_IDS_BY_HASH_QUERY, timerMbiQuery.stop(), mbiIds == null ? 0 : mbiIds.size());
+    }
+
+    return mbiIds.stream().mapToLong(Long::longValue).distinct().toArray();
+  }
+
   /**
    * Helper method to create a date range predicate to make mocking easier.
    *
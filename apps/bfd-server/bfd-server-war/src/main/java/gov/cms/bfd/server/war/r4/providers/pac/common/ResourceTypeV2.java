@@ -49,4 +49,13 @@ public interface ResourceTypeV2<TResource extends IBaseResource, TEntity> {
    * @return the list of attribute names
    */
   List<String> getEntityServiceDateAttributes();
+
+  /**
+   * Gets the prefix of the ids of the resources created from entities of this type, which is
+   * followed by the entity's id. Resources are sorted by their id, so this determines where the
+   * resources of this type appear in search results.
+   *
+   * @return the resource id prefix
+   */
+  String getResourceIdPrefix();
 }
@@ -29,7 +29,7 @@ import org.springframework.stereotype.Component;
 
 /** Transforms CCW {@link Beneficiary} instances into FHIR {@link Patient} resources. */
 @Component
-final class BeneficiaryTransformer {
+public final class BeneficiaryTransformer {
 
   /** The Metric registry. */
   private final MetricRegistry metricRegistry;
@@ -56,6 +56,16 @@ final class CarrierClaimTransformer implements ClaimTransformerInterface {
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link CarrierClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return CarrierClaim.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
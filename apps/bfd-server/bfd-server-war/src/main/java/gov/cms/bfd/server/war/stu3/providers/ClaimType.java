@@ -22,7 +22,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
-import java.util.function.Function;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
@@ -39,55 +38,55 @@ public enum ClaimType {
       CarrierClaim.class,
       CarrierClaim_.claimId,
       CarrierClaim_.beneficiaryId,
-      (entity) -> ((CarrierClaim) entity).getDateThrough(),
+      CarrierClaim_.DATE_THROUGH,
       CarrierClaim_.lines),
   /** Represents the DME claim type. */
   DME(
       DMEClaim.class,
       DMEClaim_.claimId,
       DMEClaim_.beneficiaryId,
-      (entity) -> ((DMEClaim) entity).getDateThrough(),
+      DMEClaim_.DATE_THROUGH,
       DMEClaim_.lines),
   /** Represents the hha claim type. */
   HHA(
       HHAClaim.class,
       HHAClaim_.claimId,
       HHAClaim_.beneficiaryId,
-      (entity) -> ((HHAClaim) entity).getDateThrough(),
+      HHAClaim_.DATE_THROUGH,
       HHAClaim_.lines),
   /** Represents the hospice claim type. */
   HOSPICE(
       HospiceClaim.class,
       HospiceClaim_.claimId,
       HospiceClaim_.beneficiaryId,
-      (entity) -> ((HospiceClaim) entity).getDateThrough(),
+      HospiceClaim_.DATE_THROUGH,
       HospiceClaim_.lines),
   /** Represents the inpatient claim type. */
   INPATIENT(
       InpatientClaim.class,
       InpatientClaim_.claimId,
       InpatientClaim_.beneficiaryId,
-      (entity) -> ((InpatientClaim) entity).getDateThrough(),
+      InpatientClaim_.DATE_THROUGH,
       InpatientClaim_.lines),
   /** Represents the outpatient claim type. */
   OUTPATIENT(
       OutpatientClaim.class,
       OutpatientClaim_.claimId,
       OutpatientClaim_.beneficiaryId,
-      (entity) -> ((OutpatientClaim) entity).getDateThrough(),
+      OutpatientClaim_.DATE_THROUGH,
       OutpatientClaim_.lines),
   /** Represents the PDE claim type. */
   PDE(
       PartDEvent.class,
       PartDEvent_.eventId,
       PartDEvent_.beneficiaryId,
-      (entity) -> ((PartDEvent) entity).getPrescriptionFillDate()),
+      PartDEvent_.PRESCRIPTION_FILL_DATE),
   /** Represents the SNF claim type. */
   SNF(
       SNFClaim.class,
       SNFClaim_.claimId,
       SNFClaim_.beneficiaryId,
-      (entity) -> ((SNFClaim) entity).getDateThrough(),
+      SNFClaim_.DATE_THROUGH,
       SNFClaim_.lines);
 
   /** The entity class. */
@@ -96,8 +95,8 @@ public enum ClaimType {
   private final SingularAttribute<?, Long> entityIdAttribute;
   /** The entity beneficiary id attribute. */
   private final SingularAttribute<?, Long> entityBeneficiaryIdAttribute;
-  /** The service end attribute function. */
-  private final Function<Object, LocalDate> serviceEndAttributeFunction;
+  /** The name of the entity service end date attribute. */
+  private final String entityServiceEndAttributeName;
   /** The entity lazy attributes. */
   private final Collection<PluralAttribute<?, ?, ?>> entityLazyAttributes;
 
@@ -108,19 +107,20 @@ public enum ClaimType {
    * @param entityIdAttribute the value to use for {@link #getEntityIdAttribute()}
    * @param entityBeneficiaryIdAttribute the value to use for {@link
    *     #getEntityBeneficiaryIdAttribute()}
-   * @param serviceEndAttributeFunction the service end attribute function
+   * @param entityServiceEndAttributeName the value to use for {@link
+   *     #getEntityServiceEndAttributeName()}
    * @param entityLazyAttributes the value to use for {@link #getEntityLazyAttributes()}
    */
   ClaimType(
       Class<?> entityClass,
       SingularAttribute<?, Long> entityIdAttribute,
       SingularAttribute<?, Long> entityBeneficiaryIdAttribute,
-      Function<Object, LocalDate> serviceEndAttributeFunction,
+      String entityServiceEndAttributeName,
       PluralAttribute<?, ?, ?>... entityLazyAttributes) {
     this.entityClass = entityClass;
     this.entityIdAttribute = entityIdAttribute;
     this.entityBeneficiaryIdAttribute = entityBeneficiaryIdAttribute;
-    this.serviceEndAttributeFunction = serviceEndAttributeFunction;
+    this.entityServiceEndAttributeName = entityServiceEndAttributeName;
     this.entityLazyAttributes =
         entityLazyAttributes != null
             ? Collections.unmodifiableCollection(Arrays.asList(entityLazyAttributes))
@@ -157,13 +157,13 @@ public enum ClaimType {
   }
 
   /**
-   * Gets the {@link #serviceEndAttributeFunction}.
+   * Gets the {@link #entityServiceEndAttributeName}.
    *
-   * @return the {@link Function} to use to retrieve the {@link LocalDate} to use for service date
+   * @return the name of the JPA {@link Entity} {@link LocalDate} field used for the service date
    *     filter
    */
-  public Function<Object, LocalDate> getServiceEndAttributeFunction() {
-    return serviceEndAttributeFunction;
+  public String getEntityServiceEndAttributeName() {
+    return entityServiceEndAttributeName;
   }
 
   /**
@@ -22,7 +22,7 @@ import org.springframework.stereotype.Component;
 
 /** Transforms CCW {@link Beneficiary} instances into FHIR {@link Coverage} resources. */
 @Component
-final class CoverageTransformer {
+public final class CoverageTransformer {
 
   /** Helper to record metric information. */
   private final MetricRegistry metricRegistry;
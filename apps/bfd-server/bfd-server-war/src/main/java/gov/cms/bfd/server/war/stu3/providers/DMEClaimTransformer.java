@@ -49,6 +49,16 @@ final class DMEClaimTransformer implements ClaimTransformerInterface {
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link DMEClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return DMEClaim.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
@@ -46,6 +46,16 @@ final class HHAClaimTransformer implements ClaimTransformerInterface {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link HHAClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return HHAClaim.class;
+  }
+
   /**
    * Transforms a {@link HHAClaim} into an {@link ExplanationOfBenefit}.
    *
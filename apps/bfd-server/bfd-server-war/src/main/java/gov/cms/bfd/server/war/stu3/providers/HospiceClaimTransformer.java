@@ -45,6 +45,16 @@ final class HospiceClaimTransformer implements ClaimTransformerInterface {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link HospiceClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return HospiceClaim.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
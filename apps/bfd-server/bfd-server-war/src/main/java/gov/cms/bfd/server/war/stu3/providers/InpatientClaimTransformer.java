@@ -50,6 +50,16 @@ final class InpatientClaimTransformer implements ClaimTransformerInterface {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link InpatientClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return InpatientClaim.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
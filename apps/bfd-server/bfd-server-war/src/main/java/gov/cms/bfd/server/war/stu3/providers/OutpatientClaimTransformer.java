@@ -50,6 +50,16 @@ final class OutpatientClaimTransformer implements ClaimTransformerInterface {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link OutpatientClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return OutpatientClaim.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
@@ -51,6 +51,16 @@ final class PartDEventTransformer implements ClaimTransformerInterface {
     this.drugCodeDisplayLookup = requireNonNull(drugCodeDisplayLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link PartDEvent} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return PartDEvent.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
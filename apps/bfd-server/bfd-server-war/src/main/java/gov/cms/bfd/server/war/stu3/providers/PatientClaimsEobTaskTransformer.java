@@ -11,13 +11,11 @@ import gov.cms.bfd.data.fda.lookup.FdaDrugCodeDisplayLookup;
 import gov.cms.bfd.data.npi.lookup.NPIOrgLookup;
 import gov.cms.bfd.server.war.commons.QueryUtils;
 import gov.cms.bfd.server.war.r4.providers.PatientClaimsEobTaskTransformerV2;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -92,6 +90,8 @@ public class PatientClaimsEobTaskTransformer implements Callable {
   private boolean includeTaxNumbers = false;
   /** whether to exclude SAMHSA claims. */
   private boolean excludeSamhsa;
+  /** ids of the claims to load, all of the beneficiary's claims are loaded if empty. */
+  private Optional<Set<Long>> claimIds = Optional.empty();
 
   // +++++++++++++++++++++++++++++++++++
   // task properties
@@ -175,6 +175,16 @@ public class PatientClaimsEobTaskTransformer implements Callable {
     this.includeTaxNumbers = includeTaxNumbers;
   }
 
+  /**
+   * Sets the {@link #claimIds} to restrict the task to specific claims of the beneficiary, such as
+   * the members of a single page of search results.
+   *
+   * @param claimIds the ids of the claims to load
+   */
+  public void setClaimIds(Set<Long> claimIds) {
+    this.claimIds = Optional.of(claimIds);
+  }
+
   /**
    * ExecutorService will invoke the task.
    *
@@ -184,7 +194,11 @@ public class PatientClaimsEobTaskTransformer implements Callable {
   public PatientClaimsEobTaskTransformer call() {
     LOGGER.debug("TransformPatientClaimsToEobTaskpwd.call() started for {}", id);
     try {
-      eobs.addAll(transformToEobs(findClaimTypeByPatient()));
+      List<Object> claimEntities = findClaimTypeByPatient();
+      if (excludeSamhsa) {
+        claimEntities = screenSamhsa(claimEntities);
+      }
+      eobs.addAll(transformToEobs(claimEntities));
       if (excludeSamhsa) {
         filterSamhsa(eobs);
       }
@@ -303,6 +317,16 @@ public class PatientClaimsEobTaskTransformer implements Callable {
       Predicate predicate = QueryUtils.createLastUpdatedPredicate(builder, root, lastUpdated.get());
       wherePredicate = builder.and(wherePredicate, predicate);
     }
+    if (serviceDate.isPresent()) {
+      Predicate predicate =
+          QueryUtils.createServiceDatePredicate(
+              builder, serviceDate.get(), root.get(claimType.getEntityServiceEndAttributeName()));
+      wherePredicate = builder.and(wherePredicate, predicate);
+    }
+    if (claimIds.isPresent()) {
+      Predicate predicate = root.get(claimType.getEntityIdAttribute()).in(claimIds.get());
+      wherePredicate = builder.and(wherePredicate, predicate);
+    }
     criteria.where(wherePredicate);
 
     List<T> claimEntities = null;
@@ -326,41 +350,28 @@ public class PatientClaimsEobTaskTransformer implements Callable {
           claimEntities == null ? 0 : claimEntities.size());
     }
 
-    if (claimEntities != null && !serviceDate.isEmpty()) {
-      final Instant lowerBound =
-          serviceDate.get().getLowerBoundAsInstant() != null
-              ? serviceDate.get().getLowerBoundAsInstant().toInstant()
-              : null;
-      final Instant upperBound =
-          serviceDate.get().getUpperBoundAsInstant() != null
-              ? serviceDate.get().getUpperBoundAsInstant().toInstant()
-              : null;
-      final java.util.function.Predicate<LocalDate> lowerBoundCheck =
-          lowerBound == null
-              ? (date) -> true
-              : (date) ->
-                  TransformerUtils.compareLocalDate(
-                      date,
-                      lowerBound.atZone(ZoneId.systemDefault()).toLocalDate(),
-                      serviceDate.get().getLowerBound().getPrefix());
-      final java.util.function.Predicate<LocalDate> upperBoundCheck =
-          upperBound == null
-              ? (date) -> true
-              : (date) ->
-                  TransformerUtils.compareLocalDate(
-                      date,
-                      upperBound.atZone(ZoneId.systemDefault()).toLocalDate(),
-                      serviceDate.get().getUpperBound().getPrefix());
+    return claimEntities;
+  }
 
-      return claimEntities.stream()
-          .filter(
-              entity ->
-                  lowerBoundCheck.test(claimType.getServiceEndAttributeFunction().apply(entity))
-                      && upperBoundCheck.test(
-                          claimType.getServiceEndAttributeFunction().apply(entity)))
-          .collect(Collectors.toList());
+  /**
+   * Removes claims that are certain to be SAMHSA-related before they are transformed, so that no
+   * time is spent building {@link ExplanationOfBenefit} resources that {@link #filterSamhsa} would
+   * remove anyway. Claims that pass this screen are still checked by {@link #filterSamhsa} after
+   * they are transformed.
+   *
+   * @param claimEntities the claim entities to screen
+   * @return the claim entities that might not be SAMHSA-related
+   */
+  private List<Object> screenSamhsa(List<Object> claimEntities) {
+    List<Object> screened = new ArrayList<>(claimEntities.size());
+    for (Object claimEntity : claimEntities) {
+      if (samhsaMatcher.testClaimEntity(claimEntity, claimType)) {
+        samhsaRemovedCount.getAndIncrement();
+      } else {
+        screened.add(claimEntity);
+      }
     }
-    return claimEntities;
+    return screened;
   }
 
   /**
@@ -481,7 +481,7 @@ public final class PatientResourceProvider implements IResourceProvider, CommonH
       return mapOfMonth.get(month);
     }
     throw new InvalidRequestException(
-        "Unsupported extension system: " + month.getVariable().getId().toLowerCase());
+        "Unsupported extension system: " + month.getId().toLowerCase());
   }
 
   /**
@@ -49,6 +49,16 @@ public class SNFClaimTransformer implements ClaimTransformerInterface {
     this.npiOrgLookup = requireNonNull(npiOrgLookup);
   }
 
+  /**
+   * Gets the claim entity class that this transformer transforms.
+   *
+   * @return the {@link SNFClaim} class
+   */
+  @Override
+  public Class<?> getEntityClass() {
+    return SNFClaim.class;
+  }
+
   /**
    * Transforms a claim into an {@link ExplanationOfBenefit}.
    *
@@ -62,6 +62,41 @@ public final class Stu3EobSamhsaMatcher extends AbstractSamhsaMatcher<Explanatio
     return containsSamhsa;
   }
 
+  /**
+   * Screens a claim entity before it is transformed into an {@link ExplanationOfBenefit}. Only
+   * the raw diagnosis, procedure, and line HCPCS codes of the claim are examined, so a result of
+   * <code>true</code> means {@link #test} is certain to match the transformed claim, while a result
+   * of <code>false</code> means the transformed claim must still be tested.
+   *
+   * @param claimEntity the claim entity to check
+   * @param claimType the {@link ClaimType} of the claim entity
+   * @return <code>true</code> if the claim is certainly SAMHSA-related, <code>false</code> if the
+   *     transformed claim must still be checked
+   */
+  // S128 - Fallthrough is intentional.
+  @SuppressWarnings("squid:S128")
+  public boolean testClaimEntity(Object claimEntity, ClaimType claimType) {
+    switch (claimType) {
+      case INPATIENT:
+      case OUTPATIENT:
+      case SNF:
+        if (containsSamhsaEntityProcedureCode(claimEntity)) {
+          return true;
+        }
+      case CARRIER:
+      case DME:
+      case HHA:
+      case HOSPICE:
+        return containsSamhsaEntityDiagnosisCode(claimEntity)
+            || containsSamhsaEntityLineItem(claimEntity);
+      case PDE:
+        // There are no SAMHSA fields in PDE claims
+        return false;
+      default:
+        throw new BadCodeMonkeyException("Unsupported claim type: " + claimType);
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   protected boolean containsOnlyKnownSystems(CodeableConcept procedureConcept) {
@@ -11,6 +11,7 @@ import com.google.common.base.Strings;
 import gov.cms.bfd.model.codebook.data.CcwCodebookMissingVariable;
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
 import gov.cms.bfd.model.codebook.model.CcwCodebookInterface;
+import gov.cms.bfd.model.codebook.model.CodedValues;
 import gov.cms.bfd.model.codebook.model.Value;
 import gov.cms.bfd.model.codebook.model.Variable;
 import gov.cms.bfd.model.rif.Beneficiary;
@@ -39,6 +40,7 @@ import gov.cms.bfd.model.rif.parse.InvalidRifValueException;
 import gov.cms.bfd.server.sharedutils.BfdMDC;
 import gov.cms.bfd.server.war.commons.CCWProcedure;
 import gov.cms.bfd.server.war.commons.CCWUtils;
+import gov.cms.bfd.server.war.commons.CodeDisplayLookups;
 import gov.cms.bfd.server.war.commons.Diagnosis;
 import gov.cms.bfd.server.war.commons.Diagnosis.DiagnosisLabel;
 import gov.cms.bfd.server.war.commons.IdentifierType;
@@ -51,11 +53,6 @@ import gov.cms.bfd.server.war.commons.ReflectionUtils;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
 import gov.cms.bfd.server.war.stu3.providers.BeneficiaryTransformer.CurrencyIdentifier;
 import gov.cms.bfd.sharedutils.exceptions.BadCodeMonkeyException;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.URLEncoder;
@@ -76,6 +73,7 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -152,22 +150,13 @@ public final class TransformerUtils {
   private static final Set<CcwCodebookInterface> codebookLookupDuplicateFailures = new HashSet<>();
 
   /** Tracks the icd codes that have already had code lookup failures. */
-  private static final Set<String> icdCodeLookupMissingFailures = new HashSet<>();
-
-  /** Stores the diagnosis ICD codes and their display values. */
-  private static Map<String, String> icdMap = null;
-
-  /** Stores the procedure codes and their display values. */
-  private static Map<String, String> procedureMap = null;
+  private static final Set<String> icdCodeLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /** Tracks the procedure codes that have already had code lookup failures. */
-  private static final Set<String> procedureLookupMissingFailures = new HashSet<>();
-
-  /** Stores the NPI codes and their display values. */
-  private static Map<String, String> npiMap = null;
+  private static final Set<String> procedureLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /** Tracks the NPI codes that have already had code lookup failures. */
-  private static final Set<String> npiCodeLookupMissingFailures = new HashSet<>();
+  private static final Set<String> npiCodeLookupMissingFailures = ConcurrentHashMap.newKeySet();
 
   /**
    * Adds an adjudication total to the specified {@link ExplanationOfBenefit}.
@@ -262,7 +251,7 @@ public final class TransformerUtils {
         TransformerUtils.createCodeableConcept(
             TransformerConstants.CODING_BBAPI_BENEFIT_BALANCE_TYPE,
             CCWUtils.calculateVariableReferenceUrl(financialType));
-    financialTypeConcept.getCodingFirstRep().setDisplay(financialType.getVariable().getLabel());
+    financialTypeConcept.getCodingFirstRep().setDisplay(financialType.getLabel());
 
     BenefitComponent financialEntry = new BenefitComponent(financialTypeConcept);
     eobPrimaryBenefitBalance.getFinancial().add(financialEntry);
@@ -1201,7 +1190,7 @@ public final class TransformerUtils {
   private static CodeableConcept createCodeableConceptForFieldId(
       IAnyResource rootResource, String codingSystem, CcwCodebookInterface ccwVariable) {
     String code = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
-    Coding coding = new Coding(codingSystem, code, ccwVariable.getVariable().getLabel());
+    Coding coding = new Coding(codingSystem, code, ccwVariable.getLabel());
 
     return new CodeableConcept().addCoding(coding);
   }
@@ -1230,7 +1219,7 @@ public final class TransformerUtils {
     String system = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
 
     String display;
-    if (ccwVariable.getVariable().getValueGroups().isPresent())
+    if (ccwVariable.getCodedValues().isCoded())
       display = calculateCodingDisplay(rootResource, ccwVariable, codeString).orElse(null);
     else display = null;
 
@@ -1262,7 +1251,7 @@ public final class TransformerUtils {
     String system = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
 
     String display;
-    if (ccwVariable.getVariable().getValueGroups().isPresent())
+    if (ccwVariable.getCodedValues().isCoded())
       display = calculateCodingDisplay(rootResource, ccwVariable, codeString).orElse(null);
     else display = null;
 
@@ -1304,7 +1293,7 @@ public final class TransformerUtils {
     String conceptCode = CCWUtils.calculateVariableReferenceUrl(ccwVariable);
     CodeableConcept categoryConcept =
         createCodeableConcept(TransformerConstants.CODING_CCW_ADJUDICATION_CATEGORY, conceptCode);
-    categoryConcept.getCodingFirstRep().setDisplay(ccwVariable.getVariable().getLabel());
+    categoryConcept.getCodingFirstRep().setDisplay(ccwVariable.getLabel());
     return categoryConcept;
   }
 
@@ -1326,7 +1315,7 @@ public final class TransformerUtils {
     CodeableConcept category =
         createCodeableConcept(
             TransformerConstants.CODING_CCW_ADJUDICATION_CATEGORY, categoryConceptCode);
-    category.getCodingFirstRep().setDisplay(ccwVariable.getVariable().getLabel());
+    category.getCodingFirstRep().setDisplay(ccwVariable.getLabel());
 
     AdjudicationComponent adjudication = new AdjudicationComponent(category);
     adjudication.setReason(createCodeableConcept(rootResource, ccwVariable, reasonCode));
@@ -1353,7 +1342,8 @@ public final class TransformerUtils {
     if (rootResource == null) throw new IllegalArgumentException();
     if (ccwVariable == null) throw new IllegalArgumentException();
     if (code == null) throw new IllegalArgumentException();
-    if (!ccwVariable.getVariable().getValueGroups().isPresent())
+    CodedValues codedValues = ccwVariable.getCodedValues();
+    if (!codedValues.isCoded())
       throw new BadCodeMonkeyException("No display values for Variable: " + ccwVariable);
 
     /*
@@ -1369,14 +1359,10 @@ public final class TransformerUtils {
      * those events,
      * too.
      */
-    List<Value> matchingVariableValues =
-        ccwVariable.getVariable().getValueGroups().get().stream()
-            .flatMap(g -> g.getValues().stream())
-            .filter(v -> v.getCode().equals(code))
-            .collect(Collectors.toList());
-    if (matchingVariableValues.size() == 1) {
-      return Optional.of(matchingVariableValues.get(0).getDescription());
-    } else if (matchingVariableValues.isEmpty()) {
+    Optional<String> description = codedValues.getDescription(code);
+    if (description.isPresent()) {
+      return description;
+    } else if (!codedValues.isDuplicate(code)) {
       if (!codebookLookupMissingFailures.contains(ccwVariable)) {
         // Note: The race condition here (from concurrent requests) is harmless.
         codebookLookupMissingFailures.add(ccwVariable);
@@ -1397,7 +1383,7 @@ public final class TransformerUtils {
         }
       }
       return Optional.empty();
-    } else if (matchingVariableValues.size() > 1) {
+    } else {
       if (!codebookLookupDuplicateFailures.contains(ccwVariable)) {
         // Note: The race condition here (from concurrent requests) is harmless.
         codebookLookupDuplicateFailures.add(ccwVariable);
@@ -1418,8 +1404,6 @@ public final class TransformerUtils {
         }
       }
       return Optional.empty();
-    } else {
-      throw new BadCodeMonkeyException();
     }
   }
 
@@ -2514,12 +2498,11 @@ public final class TransformerUtils {
       String substitution, Object claim, Optional<CcwCodebookInterface> ccw, DiagnosisLabel label) {
 
     Optional<String> code =
-        ReflectionUtils.tryMethod(claim, String.format("getDiagnosis%sCode", substitution));
+        ReflectionUtils.tryMethod(claim, "getDiagnosis" + substitution + "Code");
     Optional<Character> codeVersion =
-        ReflectionUtils.tryMethod(claim, String.format("getDiagnosis%sCodeVersion", substitution));
+        ReflectionUtils.tryMethod(claim, "getDiagnosis" + substitution + "CodeVersion");
     Optional<Character> presentOnAdm =
-        ReflectionUtils.tryMethod(
-            claim, String.format("getDiagnosis%sPresentOnAdmissionCode", substitution));
+        ReflectionUtils.tryMethod(claim, "getDiagnosis" + substitution + "PresentOnAdmissionCode");
 
     return Diagnosis.from(code, codeVersion, presentOnAdm, ccw, label);
   }
@@ -3267,21 +3250,9 @@ public final class TransformerUtils {
 
     if (icdCode.isEmpty()) return null;
 
-    /*
-     * There's a race condition here: we may initialize this static field more than
-     * once if multiple
-     * requests come in at the same time. However, the assignment is atomic, so the
-     * race and
-     * reinitialization is harmless other than maybe wasting a bit of time.
-     */
-    // read the entire ICD file the first time and put in a Map
-    if (icdMap == null) {
-      icdMap = readIcdCodeFile();
-    }
-
-    if (icdMap.containsKey(icdCode.toUpperCase())) {
-      String icdCodeDisplay = icdMap.get(icdCode);
-      return icdCodeDisplay;
+    Optional<String> icdCodeDisplay = CodeDisplayLookups.getIcdCodeDisplay(icdCode);
+    if (icdCodeDisplay.isPresent()) {
+      return icdCodeDisplay.get();
     }
 
     // log which ICD codes we couldn't find a match for in our downloaded ICD file
@@ -3296,40 +3267,6 @@ public final class TransformerUtils {
     return null;
   }
 
-  /**
-   * Reads ALL the ICD codes and display values from the DGNS_CD.txt file. Refer to the README file
-   * in the src/main/resources directory.
-   *
-   * @return the map of idc codes
-   */
-  private static Map<String, String> readIcdCodeFile() {
-    Map<String, String> icdDiagnosisMap = new HashMap<String, String>();
-
-    try (final InputStream icdCodeDisplayStream =
-            Thread.currentThread().getContextClassLoader().getResourceAsStream("DGNS_CD.txt");
-        final BufferedReader icdCodesIn =
-            new BufferedReader(new InputStreamReader(icdCodeDisplayStream))) {
-      /*
-       * We want to extract the ICD Diagnosis codes and display values and put in a
-       * map for easy
-       * retrieval to get the display value icdColumns[1] is DGNS_DESC(i.e. 7840 code
-       * is HEADACHE
-       * description)
-       */
-      String line = "";
-      icdCodesIn.readLine();
-      while ((line = icdCodesIn.readLine()) != null) {
-        String[] icdColumns = line.split("\t");
-        icdDiagnosisMap.put(icdColumns[0], icdColumns[1]);
-      }
-      icdCodesIn.close();
-    } catch (IOException e) {
-      throw new UncheckedIOException("Unable to read ICD code data.", e);
-    }
-
-    return icdDiagnosisMap;
-  }
-
   /**
    * Retrieves the NPI display value from an NPI code look up file.
    *
@@ -3340,21 +3277,9 @@ public final class TransformerUtils {
 
     if (npiCode.isEmpty()) return null;
 
-    /*
-     * There's a race condition here: we may initialize this static field more than
-     * once if multiple
-     * requests come in at the same time. However, the assignment is atomic, so the
-     * race and
-     * reinitialization is harmless other than maybe wasting a bit of time.
-     */
-    // read the entire NPI file the first time and put in a Map
-    if (npiMap == null) {
-      npiMap = readNpiCodeFile();
-    }
-
-    if (npiMap.containsKey(npiCode.toUpperCase())) {
-      String npiCodeDisplay = npiMap.get(npiCode);
-      return npiCodeDisplay;
+    Optional<String> npiCodeDisplay = CodeDisplayLookups.getNpiCodeDisplay(npiCode);
+    if (npiCodeDisplay.isPresent()) {
+      return npiCodeDisplay.get();
     }
 
     // log which NPI codes we couldn't find a match for in our downloaded NPI file
@@ -3407,62 +3332,6 @@ public final class TransformerUtils {
     return false;
   }
 
-  /**
-   * Reads ALL the NPI codes and display values from the NPI_Coded_Display_Values_Tab.txt file.
-   * Refer to the README file in the src/main/resources directory.
-   *
-   * @return the map of npi codes
-   */
-  private static Map<String, String> readNpiCodeFile() {
-
-    Map<String, String> npiCodeMap = new HashMap<String, String>();
-    try (final InputStream npiCodeDisplayStream =
-            Thread.currentThread()
-                .getContextClassLoader()
-                .getResourceAsStream("NPI_Coded_Display_Values_Tab.txt");
-        final BufferedReader npiCodesIn =
-            new BufferedReader(new InputStreamReader(npiCodeDisplayStream))) {
-      /*
-       * We want to extract the NPI codes and display values and put in a map for easy
-       * retrieval to
-       * get the display value-- npiColumns[0] is the NPI Code, npiColumns[4] is the
-       * NPI
-       * Organization Code, npiColumns[8] is the NPI provider name prefix,
-       * npiColumns[6] is the NPI
-       * provider first name, npiColumns[7] is the NPI provider middle name,
-       * npiColumns[5] is the
-       * NPI provider last name, npiColumns[9] is the NPI provider suffix name,
-       * npiColumns[10] is
-       * the NPI provider credential.
-       */
-      String line = "";
-      npiCodesIn.readLine();
-      while ((line = npiCodesIn.readLine()) != null) {
-        String[] npiColumns = line.split("\t");
-        if (npiColumns[4].isEmpty()) {
-          String npiDisplayName =
-              npiColumns[8].trim()
-                  + " "
-                  + npiColumns[6].trim()
-                  + " "
-                  + npiColumns[7].trim()
-                  + " "
-                  + npiColumns[5].trim()
-                  + " "
-                  + npiColumns[9].trim()
-                  + " "
-                  + npiColumns[10].trim();
-          npiCodeMap.put(npiColumns[0], npiDisplayName.replace("  ", " ").trim());
-        } else {
-          npiCodeMap.put(npiColumns[0], npiColumns[4].replace("\"", "").trim());
-        }
-      }
-    } catch (IOException e) {
-      throw new UncheckedIOException("Unable to read NPI code data.", e);
-    }
-    return npiCodeMap;
-  }
-
   /**
    * Retrieves the Procedure code and display value from a Procedure code look up file.
    *
@@ -3473,21 +3342,10 @@ public final class TransformerUtils {
 
     if (procedureCode.isEmpty()) return null;
 
-    /*
-     * There's a race condition here: we may initialize this static field more than
-     * once if multiple
-     * requests come in at the same time. However, the assignment is atomic, so the
-     * race and
-     * reinitialization is harmless other than maybe wasting a bit of time.
-     */
-    // read the entire Procedure code file the first time and put in a Map
-    if (procedureMap == null) {
-      procedureMap = readProcedureCodeFile();
-    }
-
-    if (procedureMap.containsKey(procedureCode.toUpperCase())) {
-      String procedureCodeDisplay = procedureMap.get(procedureCode);
-      return procedureCodeDisplay;
+    Optional<String> procedureCodeDisplay =
+        CodeDisplayLookups.getProcedureCodeDisplay(procedureCode);
+    if (procedureCodeDisplay.isPresent()) {
+      return procedureCodeDisplay.get();
     }
 
     // log which Procedure codes we couldn't find a match for in our procedure codes
@@ -3503,40 +3361,6 @@ public final class TransformerUtils {
     return null;
   }
 
-  /**
-   * Reads all the procedure codes and display values from the PRCDR_CD.txt file Refer to the README
-   * file in the src/main/resources directory.
-   *
-   * @return the map of procedure codes
-   */
-  private static Map<String, String> readProcedureCodeFile() {
-
-    Map<String, String> procedureCodeMap = new HashMap<String, String>();
-    try (final InputStream procedureCodeDisplayStream =
-            Thread.currentThread().getContextClassLoader().getResourceAsStream("PRCDR_CD.txt");
-        final BufferedReader procedureCodesIn =
-            new BufferedReader(new InputStreamReader(procedureCodeDisplayStream))) {
-      /*
-       * We want to extract the procedure codes and display values and put in a map
-       * for easy
-       * retrieval to get the display value icdColumns[0] is PRCDR_CD; icdColumns[1]
-       * is
-       * PRCDR_DESC(i.e. 8295 is INJECT TENDON OF HAND description)
-       */
-      String line = "";
-      procedureCodesIn.readLine();
-      while ((line = procedureCodesIn.readLine()) != null) {
-        String[] icdColumns = line.split("\t");
-        procedureCodeMap.put(icdColumns[0], icdColumns[1]);
-      }
-      procedureCodesIn.close();
-    } catch (IOException e) {
-      throw new UncheckedIOException("Unable to read Procedure code data.", e);
-    }
-
-    return procedureCodeMap;
-  }
-
   /**
    * Create a bundle from the entire search result.
    *
@@ -3596,6 +3420,56 @@ public final class TransformerUtils {
     return bundle;
   }
 
+  /**
+   * Create a bundle from a single page of a search result whose members were selected before the
+   * resources were created, so that only the resources on the page had to be transformed.
+   *
+   * @param paging contains the {@link OffsetLinkBuilder} information
+   * @param pageResources the {@link ExplanationOfBenefit}s on the requested page, all of which will
+   *     be added to the bundle
+   * @param total the number of resources matched by the search across all pages
+   * @param lastUpdated the latest lastUpdated of any resource matched by the search, if any
+   * @param transactionTime date for the bundle
+   * @return Returns a {@link Bundle} of {@link ExplanationOfBenefit}s, which may also be empty.
+   */
+  public static Bundle createBundle(
+      OffsetLinkBuilder paging,
+      List<IBaseResource> pageResources,
+      int total,
+      Optional<Instant> lastUpdated,
+      Instant transactionTime) {
+    Bundle bundle = createBundleWithoutEntries(total, lastUpdated, transactionTime);
+    TransformerUtils.addResourcesToBundle(bundle, pageResources);
+    paging.setTotal(total).addLinks(bundle);
+
+    // Add number of paginated resources to MDC logs
+    LoggingUtils.logResourceCountToMdc(pageResources.size());
+    return bundle;
+  }
+
+  /**
+   * Create a bundle describing a search result without adding any of its resources. Used when the
+   * entries of the bundle will be streamed to the response after the bundle has been returned.
+   *
+   * @param total the number of resources matched by the search
+   * @param lastUpdated the latest lastUpdated of any resource matched by the search, if any
+   * @param transactionTime date for the bundle
+   * @return a {@link Bundle} without entries
+   */
+  public static Bundle createBundleWithoutEntries(
+      int total, Optional<Instant> lastUpdated, Instant transactionTime) {
+    Bundle bundle = new Bundle();
+    Instant maxBundleDate = lastUpdated.orElse(transactionTime);
+    bundle
+        .getMeta()
+        .setLastUpdated(
+            transactionTime.isAfter(maxBundleDate)
+                ? Date.from(transactionTime)
+                : Date.from(maxBundleDate));
+    bundle.setTotal(total);
+    return bundle;
+  }
+
   /**
    * Create a bundle from the entire search result.
    *
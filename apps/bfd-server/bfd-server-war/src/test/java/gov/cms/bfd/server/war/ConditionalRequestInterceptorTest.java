@@ -0,0 +1,265 @@
+package gov.cms.bfd.server.war;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.server.IRestfulResponse;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.ResponseDetails;
+import ca.uhn.fhir.rest.server.exceptions.NotModifiedException;
+import ca.uhn.fhir.util.DateUtils;
+import com.codahale.metrics.MetricRegistry;
+import gov.cms.bfd.server.war.commons.CommonHeaders;
+import gov.cms.bfd.server.war.commons.LoadedFilterManager;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ConditionalRequestInterceptor}. */
+public class ConditionalRequestInterceptorTest {
+  /** Beneficiary whose claims are requested. */
+  private static final long BENE_ID = 42L;
+
+  /** Transaction time that is current when requests are handled. */
+  private static final Instant TRANSACTION_TIME = Instant.parse("2022-05-01T00:00:00Z");
+
+  /** Used to decide whether the beneficiary has been updated. */
+  private LoadedFilterManager loadedFilterManager;
+
+  /** Receives the interceptor metrics. */
+  private MetricRegistry metricRegistry;
+
+  /** The interceptor being tested. */
+  private ConditionalRequestInterceptor interceptor;
+
+  /** Creates an enabled interceptor whose filter manager reports no updated beneficiaries. */
+  @BeforeEach
+  public void setUp() {
+    loadedFilterManager = mock(LoadedFilterManager.class);
+    when(loadedFilterManager.getTransactionTime()).thenReturn(TRANSACTION_TIME);
+    metricRegistry = new MetricRegistry();
+    interceptor = new ConditionalRequestInterceptor(loadedFilterManager, metricRegistry, true);
+  }
+
+  /** Verifies that only requests for the resources of a single beneficiary are handled. */
+  @Test
+  public void beneficiaryIdIsFoundForSingleBeneficiaryRequests() {
+    assertEquals(
+        OptionalLong.of(123L),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createRead("Patient", "123"), RestOperationTypeEnum.READ));
+    assertEquals(
+        OptionalLong.of(-567L),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createRead("Coverage", "part-a--567"), RestOperationTypeEnum.READ));
+    assertEquals(
+        OptionalLong.of(BENE_ID),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createSearch("ExplanationOfBenefit", Map.of("patient", new String[] {"Patient/42"})),
+            RestOperationTypeEnum.SEARCH_TYPE));
+    assertEquals(
+        OptionalLong.of(BENE_ID),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createSearch("Coverage", Map.of("beneficiary", new String[] {"42"})),
+            RestOperationTypeEnum.SEARCH_TYPE));
+
+    assertEquals(
+        OptionalLong.empty(),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createRead("ExplanationOfBenefit", "carrier-123"), RestOperationTypeEnum.READ));
+    assertEquals(
+        OptionalLong.empty(),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createSearch("Patient", Map.of("identifier", new String[] {"hash"})),
+            RestOperationTypeEnum.SEARCH_TYPE));
+    assertEquals(
+        OptionalLong.empty(),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createSearch("Patient", Map.of("_id", new String[] {"1,2"})),
+            RestOperationTypeEnum.SEARCH_TYPE));
+    assertEquals(
+        OptionalLong.empty(),
+        ConditionalRequestInterceptor.findBeneficiaryId(
+            createRead("Patient", "abc"), RestOperationTypeEnum.READ));
+  }
+
+  /**
+   * Verifies that a response is tagged, and that a request with that tag is answered with a 304
+   * response while the beneficiary hasn't been updated.
+   */
+  @Test
+  public void currentTagIsNotModified() {
+    RequestDetails first = createEobSearch();
+    interceptor.requestPreHandled(first, RestOperationTypeEnum.SEARCH_TYPE);
+    interceptor.serverOutgoingResponse(first, createResponse(new Bundle()));
+    String eTag =
+        ConditionalRequestInterceptor.createETag(
+            TRANSACTION_TIME, ConditionalRequestInterceptor.createDigest(first));
+    verify(first.getResponse()).addHeader(Constants.HEADER_ETAG, eTag);
+
+    RequestDetails second = createEobSearch();
+    when(second.getHeader(Constants.HEADER_IF_NONE_MATCH)).thenReturn("W/\"1-abc\", " + eTag);
+    NotModifiedException exception =
+        assertThrows(
+            NotModifiedException.class,
+            () -> interceptor.requestPreHandled(second, RestOperationTypeEnum.SEARCH_TYPE));
+    assertEquals(List.of(eTag), exception.getResponseHeaders().get(Constants.HEADER_ETAG));
+    assertEquals(1, metricRegistry.meter("ConditionalRequestInterceptor.notModified").getCount());
+  }
+
+  /** Verifies that a request is handled once the beneficiary might have been updated. */
+  @Test
+  public void updatedBeneficiaryIsModified() {
+    when(loadedFilterManager.isUpdatedSince(BENE_ID, TRANSACTION_TIME)).thenReturn(true);
+    RequestDetails request = createEobSearch();
+    String eTag =
+        ConditionalRequestInterceptor.createETag(
+            TRANSACTION_TIME, ConditionalRequestInterceptor.createDigest(request));
+    when(request.getHeader(Constants.HEADER_IF_NONE_MATCH)).thenReturn(eTag);
+
+    interceptor.requestPreHandled(request, RestOperationTypeEnum.SEARCH_TYPE);
+    assertEquals(1, metricRegistry.meter("ConditionalRequestInterceptor.modified").getCount());
+  }
+
+  /** Verifies that tags are not shared by requests whose responses differ. */
+  @Test
+  public void tagOfDifferentRequestIsModified() {
+    String eTag =
+        ConditionalRequestInterceptor.createETag(
+            TRANSACTION_TIME, ConditionalRequestInterceptor.createDigest(createEobSearch()));
+    RequestDetails request = createEobSearch();
+    when(request.getHeader(CommonHeaders.HEADER_NAME_INCLUDE_TAX_NUMBERS)).thenReturn("true");
+    when(request.getHeader(Constants.HEADER_IF_NONE_MATCH)).thenReturn(eTag);
+
+    interceptor.requestPreHandled(request, RestOperationTypeEnum.SEARCH_TYPE);
+    assertEquals(1, metricRegistry.meter("ConditionalRequestInterceptor.modified").getCount());
+  }
+
+  /**
+   * Verifies that {@code If-Modified-Since} is answered the same way, but never for times this
+   * server can't have sent.
+   */
+  @Test
+  public void ifModifiedSinceIsAnswered() {
+    RequestDetails request = createEobSearch();
+    when(request.getHeader(Constants.HEADER_IF_MODIFIED_SINCE))
+        .thenReturn(DateUtils.formatDate(Date.from(TRANSACTION_TIME)));
+    assertThrows(
+        NotModifiedException.class,
+        () -> interceptor.requestPreHandled(request, RestOperationTypeEnum.SEARCH_TYPE));
+
+    RequestDetails future = createEobSearch();
+    when(future.getHeader(Constants.HEADER_IF_MODIFIED_SINCE))
+        .thenReturn(DateUtils.formatDate(Date.from(TRANSACTION_TIME.plusSeconds(60))));
+    interceptor.requestPreHandled(future, RestOperationTypeEnum.SEARCH_TYPE);
+    assertEquals(1, metricRegistry.meter("ConditionalRequestInterceptor.modified").getCount());
+  }
+
+  /** Verifies that a response never claims to be newer than the data it was built from. */
+  @Test
+  public void lastUpdatedIsLimitedToTransactionTime() {
+    RequestDetails request = createEobSearch();
+    interceptor.requestPreHandled(request, RestOperationTypeEnum.SEARCH_TYPE);
+    Bundle bundle = new Bundle();
+    bundle.getMeta().setLastUpdated(Date.from(TRANSACTION_TIME.plusSeconds(5)));
+
+    assertTrue(interceptor.serverOutgoingResponse(request, createResponse(bundle)));
+    assertEquals(Date.from(TRANSACTION_TIME), bundle.getMeta().getLastUpdated());
+  }
+
+  /** Verifies that a disabled interceptor neither answers nor tags anything. */
+  @Test
+  public void disabledInterceptorDoesNothing() {
+    ConditionalRequestInterceptor disabled =
+        new ConditionalRequestInterceptor(loadedFilterManager, metricRegistry, false);
+    RequestDetails request = createEobSearch();
+    when(request.getHeader(Constants.HEADER_IF_MODIFIED_SINCE))
+        .thenReturn(DateUtils.formatDate(Date.from(TRANSACTION_TIME)));
+
+    disabled.requestPreHandled(request, RestOperationTypeEnum.SEARCH_TYPE);
+    disabled.serverOutgoingResponse(request, createResponse(new Bundle()));
+    verify(request.getResponse(), never()).addHeader(anyString(), anyString());
+  }
+
+  /**
+   * Creates a mocked EOB search for {@link #BENE_ID}.
+   *
+   * @return the request
+   */
+  private static RequestDetails createEobSearch() {
+    return createSearch(
+        "ExplanationOfBenefit", Map.of("patient", new String[] {String.valueOf(BENE_ID)}));
+  }
+
+  /**
+   * Creates a mocked read request.
+   *
+   * @param resourceName the type of resource read
+   * @param id the id of the resource
+   * @return the request
+   */
+  private static RequestDetails createRead(String resourceName, String id) {
+    RequestDetails request = createRequest(resourceName, resourceName + "/" + id);
+    when(request.getId()).thenReturn(new IdType(resourceName, id));
+    return request;
+  }
+
+  /**
+   * Creates a mocked search request.
+   *
+   * @param resourceName the type of resource searched
+   * @param parameters the search parameters
+   * @return the request
+   */
+  private static RequestDetails createSearch(
+      String resourceName, Map<String, String[]> parameters) {
+    RequestDetails request = createRequest(resourceName, resourceName);
+    when(request.getParameters()).thenReturn(parameters);
+    return request;
+  }
+
+  /**
+   * Creates a mocked request with its own user data and response.
+   *
+   * @param resourceName the type of resource requested
+   * @param requestPath the path of the request
+   * @return the request
+   */
+  private static RequestDetails createRequest(String resourceName, String requestPath) {
+    RequestDetails request = mock(RequestDetails.class);
+    when(request.getResourceName()).thenReturn(resourceName);
+    when(request.getRequestPath()).thenReturn(requestPath);
+    when(request.getFhirServerBase()).thenReturn("https://localhost/v2/fhir");
+    when(request.getUserData()).thenReturn(new HashMap<>());
+    when(request.getResponse()).thenReturn(mock(IRestfulResponse.class));
+    return request;
+  }
+
+  /**
+   * Creates a mocked successful response.
+   *
+   * @param bundle the response resource
+   * @return the response
+   */
+  private static ResponseDetails createResponse(Bundle bundle) {
+    ResponseDetails response = mock(ResponseDetails.class);
+    when(response.getResponseCode()).thenReturn(Constants.STATUS_HTTP_200_OK);
+    when(response.getResponseResource()).thenReturn(bundle);
+    return response;
+  }
+}
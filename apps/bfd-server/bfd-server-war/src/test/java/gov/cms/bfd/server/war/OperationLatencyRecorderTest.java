@@ -0,0 +1,119 @@
+package gov.cms.bfd.server.war;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link OperationLatencyRecorder}. */
+public class OperationLatencyRecorderTest {
+  /** The operation name used by the tests. */
+  private static final String OPERATION = "/v2/fhir/Patient(by=id)";
+
+  /** The endpoint name used by the tests. */
+  private static final String ENDPOINT = "/v2/fhir/Patient";
+
+  /** Receives the timers. */
+  private MetricRegistry metricRegistry;
+
+  /** The recorder being tested. */
+  private OperationLatencyRecorder recorder;
+
+  /** Creates the recorder being tested. */
+  @BeforeEach
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    recorder = new OperationLatencyRecorder(metricRegistry, 1, 2);
+  }
+
+  /** Verifies that each phase of a request is recorded under its operation name. */
+  @Test
+  public void phasesAreRecordedByOperation() {
+    RequestTimings timings = new RequestTimings(0);
+    timings.markHandlerStarted(millis(1));
+    timings.addQuery("bene_by_id", 4);
+    timings.markResponseReady(millis(11));
+    timings.markCompleted(millis(13));
+
+    recorder.record(OPERATION, ENDPOINT, timings, millis(15));
+
+    assertEquals(millis(15), snapshot(OPERATION, "total").getMax());
+    assertEquals(millis(4), snapshot(OPERATION, "database").getMax());
+    assertEquals(millis(6), snapshot(OPERATION, "transformation").getMax());
+    assertEquals(millis(2), snapshot(OPERATION, "serialization").getMax());
+    assertTrue(
+        metricRegistry.getTimers().containsKey("OperationLatencyRecorder." + OPERATION + ".total"));
+  }
+
+  /**
+   * Verifies that requests that HAPI didn't handle, or that have no operation name, only record the
+   * phases that they reached.
+   */
+  @Test
+  public void unhandledRequestsRecordTotalAndDatabase() {
+    recorder.record(null, ENDPOINT, new RequestTimings(0), millis(3));
+
+    assertEquals(1, recorder.timer(ENDPOINT, "total").getCount());
+    assertEquals(1, recorder.timer(ENDPOINT, "database").getCount());
+    assertEquals(0, recorder.timer(ENDPOINT, "transformation").getCount());
+    assertEquals(0, recorder.timer(ENDPOINT, "serialization").getCount());
+  }
+
+  /** Verifies that operations beyond the limit are recorded under their endpoint's name. */
+  @Test
+  public void extraOperationsAreRecordedByEndpoint() {
+    for (int i = 0; i < OperationLatencyRecorder.MAX_OPERATION_NAMES + 3; i++) {
+      recorder.record(
+          ENDPOINT + "(pageSize=" + i + ")", ENDPOINT, new RequestTimings(0), millis(1));
+    }
+    // names that already have timers keep using them
+    recorder.record(ENDPOINT + "(pageSize=0)", ENDPOINT, new RequestTimings(0), millis(1));
+
+    assertEquals(2, recorder.timer(ENDPOINT + "(pageSize=0)", "total").getCount());
+    assertEquals(3, recorder.timer(ENDPOINT, "total").getCount());
+    assertFalse(
+        metricRegistry
+            .getTimers()
+            .containsKey(
+                MetricRegistry.name(
+                    "OperationLatencyRecorder",
+                    ENDPOINT + "(pageSize=" + OperationLatencyRecorder.MAX_OPERATION_NAMES + ")",
+                    "total")));
+  }
+
+  /** Verifies that invalid settings are rejected. */
+  @Test
+  public void invalidSettingsAreRejected() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new OperationLatencyRecorder(metricRegistry, -1, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> new OperationLatencyRecorder(metricRegistry, 0, 0));
+  }
+
+  /**
+   * Converts milliseconds to nanoseconds.
+   *
+   * @param millis the milliseconds
+   * @return the nanoseconds
+   */
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Gets the histogram of one phase of an operation.
+   *
+   * @param operationName the operation name
+   * @param phase the phase
+   * @return the histogram
+   */
+  private Snapshot snapshot(String operationName, String phase) {
+    return recorder.timer(operationName, phase).getSnapshot();
+  }
+}
@@ -3,6 +3,8 @@ package gov.cms.bfd.server.war;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import gov.cms.bfd.server.war.QueryLoggingListener.QueryType;
+import gov.cms.bfd.server.war.commons.QueryUtils;
+import gov.cms.bfd.server.war.r4.providers.R4PatientResourceProvider;
 import net.ttddyy.dsproxy.QueryInfo;
 import org.junit.jupiter.api.Test;
 
@@ -185,11 +187,50 @@ public final class QueryLoggingListenerTest {
     assertEquals(QueryType.MBI_CACHE, QueryType.computeQueryType(queryInfo));
   }
 
+  /** Verifies that {@link QueryType#BENE_BY_HASH} works as expected. */
+  @Test
+  public void computeQueryType_BENE_BY_HASH() {
+    QueryInfo queryInfo =
+        new QueryInfo(
+            String.format(R4PatientResourceProvider.BENES_BY_HASH_SQL, "mbi_hash")
+                .replace(":hash", "?"));
+    assertEquals(QueryType.BENE_BY_HASH, QueryType.computeQueryType(queryInfo));
+
+    queryInfo =
+        new QueryInfo(
+            String.format(R4PatientResourceProvider.BENES_BY_HASH_SQL, "bene_crnt_hic_num")
+                .replace(":hash", "?"));
+    assertEquals(QueryType.BENE_BY_HASH, QueryType.computeQueryType(queryInfo));
+  }
+
+  /** Verifies that {@link QueryType#BENE_HISTORIES_BY_ID} works as expected. */
+  @Test
+  public void computeQueryType_BENE_HISTORIES_BY_ID() {
+    QueryInfo queryInfo =
+        new QueryInfo(
+            "select beneficiar0_.bene_id as bene_id2_1_0_, beneficiar0_.bene_history_id as bene_his1_1_0_, beneficiar0_.bene_history_id as bene_his1_1_1_, beneficiar0_.bene_id as bene_id2_1_1_, beneficiar0_.bene_birth_dt as bene_bir3_1_1_, beneficiar0_.efctv_end_dt as efctv_en4_1_1_, beneficiar0_.efctv_bgn_dt as efctv_bg5_1_1_, beneficiar0_.bene_sex_ident_cd as bene_sex6_1_1_, beneficiar0_.bene_crnt_hic_num as bene_crn7_1_1_, beneficiar0_.hicn_unhashed as hicn_unh8_1_1_, beneficiar0_.last_updated as last_upd9_1_1_, beneficiar0_.mbi_hash as mbi_has10_1_1_, beneficiar0_.bene_mbi_id as bene_mb11_1_1_ from beneficiaries_history beneficiar0_ where beneficiar0_.bene_id=?");
+
+    assertEquals(QueryType.BENE_HISTORIES_BY_ID, QueryType.computeQueryType(queryInfo));
+  }
+
+  /** Verifies that {@link QueryType#SKIPPED_RIF_RECORDS_BY_BENE_ID} works as expected. */
+  @Test
+  public void computeQueryType_SKIPPED_RIF_RECORDS_BY_BENE_ID() {
+    QueryInfo queryInfo =
+        new QueryInfo(
+            "select skippedrif0_.bene_id as bene_id2_18_0_, skippedrif0_.record_id as record_i1_18_0_, skippedrif0_.record_id as record_i1_18_1_, skippedrif0_.bene_id as bene_id2_18_1_, skippedrif0_.dml_ind as dml_ind3_18_1_, skippedrif0_.rif_data as rif_data4_18_1_, skippedrif0_.rif_file_timestamp as rif_file5_18_1_, skippedrif0_.rif_file_type as rif_file6_18_1_, skippedrif0_.skip_reason as skip_rea7_18_1_ from skipped_rif_records skippedrif0_ where skippedrif0_.bene_id=?");
+
+    assertEquals(QueryType.SKIPPED_RIF_RECORDS_BY_BENE_ID, QueryType.computeQueryType(queryInfo));
+  }
+
   /** Verifies that {@link QueryType#CHECK_CLAIMS_MASK} works as expected. */
   @Test
   public void computeQueryType_CHECK_CLAIMS_MASK() {
     QueryInfo queryInfo = new QueryInfo("select * from check_claims_mask(1234)");
 
     assertEquals(QueryType.CHECK_CLAIMS_MASK, QueryType.computeQueryType(queryInfo));
+
+    queryInfo = new QueryInfo(QueryUtils.CHECK_CLAIMS_FOR_DATA_SQL.replace(":beneIdValue", "?"));
+    assertEquals(QueryType.CHECK_CLAIMS_MASK, QueryType.computeQueryType(queryInfo));
   }
 }
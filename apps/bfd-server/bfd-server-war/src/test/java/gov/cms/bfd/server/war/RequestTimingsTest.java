@@ -0,0 +1,160 @@
+package gov.cms.bfd.server.war;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link RequestTimings}. */
+public class RequestTimingsTest {
+  /** Unbinds any timings that a test left bound to the test thread. */
+  @AfterEach
+  public void tearDown() {
+    RequestTimings.end();
+  }
+
+  /** Verifies that timings are bound to the current thread until they are ended. */
+  @Test
+  public void timingsAreBoundToThread() {
+    assertFalse(RequestTimings.current().isPresent());
+
+    RequestTimings timings = RequestTimings.begin(0);
+    assertSame(timings, RequestTimings.current().get());
+
+    RequestTimings.end();
+    assertFalse(RequestTimings.current().isPresent());
+  }
+
+  /** Verifies that binding timings to a thread returns the timings that they replace. */
+  @Test
+  public void bindReturnsPreviousTimings() {
+    RequestTimings first = RequestTimings.begin(0);
+    RequestTimings second = new RequestTimings(0);
+
+    assertSame(first, RequestTimings.bind(second));
+    assertSame(second, RequestTimings.current().get());
+    assertSame(second, RequestTimings.bind(null));
+    assertFalse(RequestTimings.current().isPresent());
+    assertNull(RequestTimings.bind(first));
+    assertSame(first, RequestTimings.current().get());
+  }
+
+  /**
+   * Verifies that the transformation time is the handler time less the database time, and that the
+   * serialization time follows the handler's response.
+   */
+  @Test
+  public void phasesAreComputed() {
+    RequestTimings timings = new RequestTimings(1_000);
+    timings.markHandlerStarted(2_000);
+    timings.addQuery("bene_by_id", 0);
+    timings.addQuery("eobs_by_bene_id_carrier", 2);
+    timings.markResponseReady(2_000 + TimeUnit.MILLISECONDS.toNanos(5));
+    timings.markCompleted(3_000 + TimeUnit.MILLISECONDS.toNanos(5));
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(2), timings.getDatabaseNanos());
+    assertEquals(Optional.of(TimeUnit.MILLISECONDS.toNanos(3)), timings.getTransformationNanos());
+    assertEquals(Optional.of(1_000L), timings.getSerializationNanos());
+    assertEquals(9_000, timings.getTotalNanos(10_000));
+    assertEquals(2, timings.getQueryCount());
+    assertEquals(
+        List.of("bene_by_id=0ms", "eobs_by_bene_id_carrier=2ms"), timings.getQueryDetails());
+  }
+
+  /**
+   * Verifies that queries run while a streamed response is written are taken out of the
+   * serialization time rather than the transformation time.
+   */
+  @Test
+  public void streamedQueriesAreTakenFromSerialization() {
+    RequestTimings timings = new RequestTimings(0);
+    timings.markHandlerStarted(0);
+    timings.addQuery("bene_by_id", 1);
+    timings.markResponseReady(TimeUnit.MILLISECONDS.toNanos(3));
+    timings.addQuery("eobs_by_bene_id_carrier", 4);
+    timings.markCompleted(TimeUnit.MILLISECONDS.toNanos(10));
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(5), timings.getDatabaseNanos());
+    assertEquals(Optional.of(TimeUnit.MILLISECONDS.toNanos(2)), timings.getTransformationNanos());
+    assertEquals(Optional.of(TimeUnit.MILLISECONDS.toNanos(3)), timings.getSerializationNanos());
+  }
+
+  /**
+   * Verifies that queries added by several threads at once are all counted.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void concurrentQueriesAreCounted() throws Exception {
+    RequestTimings timings = new RequestTimings(0);
+    int threadCount = 4;
+    int queriesPerThread = 1000;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<?>> futures =
+          IntStream.range(0, threadCount)
+              .mapToObj(
+                  i ->
+                      executorService.submit(
+                          () -> {
+                            start.await();
+                            for (int q = 0; q < queriesPerThread; q++) {
+                              timings.addQuery("q" + i, 1);
+                            }
+                            return null;
+                          }))
+              .collect(Collectors.toList());
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertEquals(threadCount * queriesPerThread, timings.getQueryCount());
+    assertEquals(
+        TimeUnit.MILLISECONDS.toNanos(threadCount * queriesPerThread), timings.getDatabaseNanos());
+    assertEquals(RequestTimings.MAX_QUERY_DETAILS, timings.getQueryDetails().size());
+  }
+
+  /** Verifies that phases that HAPI never reached have no time. */
+  @Test
+  public void unreachedPhasesAreEmpty() {
+    RequestTimings timings = new RequestTimings(0);
+
+    assertEquals(Optional.empty(), timings.getTransformationNanos());
+    assertEquals(Optional.empty(), timings.getSerializationNanos());
+
+    timings.markHandlerStarted(10);
+    assertEquals(Optional.empty(), timings.getTransformationNanos());
+  }
+
+  /** Verifies that only the first few queries' details are kept, while all of them are counted. */
+  @Test
+  public void queryDetailsAreLimited() {
+    RequestTimings timings = new RequestTimings(0);
+    for (int i = 0; i < RequestTimings.MAX_QUERY_DETAILS + 5; i++) {
+      timings.addQuery("q" + i, 1);
+    }
+
+    assertEquals(RequestTimings.MAX_QUERY_DETAILS + 5, timings.getQueryCount());
+    assertEquals(RequestTimings.MAX_QUERY_DETAILS, timings.getQueryDetails().size());
+    assertEquals(
+        TimeUnit.MILLISECONDS.toNanos(RequestTimings.MAX_QUERY_DETAILS + 5),
+        timings.getDatabaseNanos());
+  }
+}
@@ -0,0 +1,153 @@
+package gov.cms.bfd.server.war;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.io.ByteStreams;
+import gov.cms.bfd.model.rif.Beneficiary;
+import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Verifies that FHIR responses served through the launcher are gzip compressed by Jetty, rather
+ * than by HAPI, for clients that accept it. The tests' launcher runs with {@code
+ * BFD_COMPRESSION_ENABLED} and the default minimum size of 2048 bytes.
+ */
+public final class ResponseCompressionIT extends ServerRequiredTest {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCompressionIT.class);
+
+  /** Sends the requests, without decompressing the responses so their encoding can be checked. */
+  private CloseableHttpClient httpClient;
+
+  /** Creates the {@link #httpClient} before each test. */
+  @BeforeEach
+  public void createHttpClient() {
+    httpClient =
+        HttpClients.custom()
+            .setSSLContext(
+                ServerTestUtils.get().createSslContext(Optional.of(ClientSslIdentity.TRUSTED)))
+            .disableContentCompression()
+            .build();
+  }
+
+  /**
+   * Verifies that an EOB search is gzip compressed when the client sends {@code Accept-Encoding:
+   * gzip}, that the compressed body is much smaller than the same response sent uncompressed, and
+   * that it isn't compressed for clients that don't accept gzip.
+   *
+   * @throws IOException (indicates test failure)
+   */
+  @Test
+  public void largeResponsesAreCompressed() throws IOException {
+    List<Object> loadedRecords =
+        ServerTestUtils.get()
+            .loadData(Arrays.asList(StaticRifResourceGroup.SAMPLE_A.getResources()));
+    Beneficiary beneficiary =
+        loadedRecords.stream()
+            .filter(r -> r instanceof Beneficiary)
+            .map(r -> (Beneficiary) r)
+            .findFirst()
+            .get();
+    String searchUrl = createEobSearchUrl(beneficiary.getBeneficiaryId());
+
+    try (CloseableHttpClient client = httpClient) {
+      byte[] compressed;
+      try (CloseableHttpResponse response = client.execute(createGet(searchUrl, "gzip"))) {
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals("gzip", response.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+        assertTrue(
+            response.getFirstHeader(HttpHeaders.VARY).getValue().contains("Accept-Encoding"));
+        compressed = EntityUtils.toByteArray(response.getEntity());
+      }
+      // HAPI no longer compresses the response, so it's only compressed once
+      String decompressed =
+          new String(
+              ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))),
+              StandardCharsets.UTF_8);
+      assertTrue(decompressed.contains("\"resourceType\":\"Bundle\""));
+
+      byte[] uncompressed;
+      try (CloseableHttpResponse response = client.execute(createGet(searchUrl, "identity"))) {
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+        uncompressed = EntityUtils.toByteArray(response.getEntity());
+      }
+      assertEquals(decompressed, new String(uncompressed, StandardCharsets.UTF_8));
+
+      LOGGER.info(
+          "EOB search: {} bytes with gzip, {} bytes without",
+          compressed.length,
+          uncompressed.length);
+      // FHIR JSON is very repetitive, so gzip shrinks it several times over
+      assertTrue(
+          compressed.length * 4 < uncompressed.length,
+          String.format(
+              "compressed %d bytes, uncompressed %d bytes",
+              compressed.length, uncompressed.length));
+    }
+  }
+
+  /**
+   * Verifies that responses smaller than the minimum size aren't compressed, even for clients that
+   * accept gzip.
+   *
+   * @throws IOException (indicates test failure)
+   */
+  @Test
+  public void smallResponsesAreNotCompressed() throws IOException {
+    // an empty search result bundle is only a few hundred bytes
+    String searchUrl = createEobSearchUrl(-1234L);
+
+    try (CloseableHttpClient client = httpClient;
+        CloseableHttpResponse response = client.execute(createGet(searchUrl, "gzip"))) {
+      assertEquals(200, response.getStatusLine().getStatusCode());
+      assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+      byte[] body = EntityUtils.toByteArray(response.getEntity());
+      assertTrue(body.length < 2048, String.format("%d bytes", body.length));
+      assertTrue(new String(body, StandardCharsets.UTF_8).contains("\"resourceType\":\"Bundle\""));
+    }
+  }
+
+  /**
+   * Creates the URL of a v2 EOB search for the specified beneficiary.
+   *
+   * @param beneficiaryId the id of the beneficiary
+   * @return the URL
+   */
+  private static String createEobSearchUrl(long beneficiaryId) {
+    return String.format(
+        "%s/v2/fhir/ExplanationOfBenefit?patient=%d",
+        ServerTestUtils.get().getServerBaseUrl(), beneficiaryId);
+  }
+
+  /**
+   * Creates a GET request that accepts the specified encoding.
+   *
+   * @param url the URL to get
+   * @param acceptEncoding the {@code Accept-Encoding} header value
+   * @return the request
+   */
+  private static HttpGet createGet(String url, String acceptEncoding) {
+    HttpGet get = new HttpGet(url);
+    get.setHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    return get;
+  }
+}
@@ -84,6 +84,8 @@ public class ServerExecutor {
       appRunBuilder.environment().put("BFD_TRUSTSTORE", trustStore);
       appRunBuilder.environment().put("BFD_WAR", warArtifactLocation);
       appRunBuilder.environment().put("BFD_JAVA_HOME", javaHome);
+      // compress responses in the launcher, as deployed servers do
+      appRunBuilder.environment().put("BFD_COMPRESSION_ENABLED", "true");
       serverProcess = appRunBuilder.start();
 
       appRunConsumer = new ProcessOutputConsumer(serverProcess);
@@ -149,6 +151,8 @@ public class ServerExecutor {
       String pacClaimSourceTypes = "fiss,mcs";
       String includeFakeDrugCode = "true";
       String includeFakeOrgName = "true";
+      // So that StreamingBundleIT can compare streamed responses to the ones written by HAPI
+      String streamingBundlesEnabled = "true";
       Random rand = new Random();
       // Copied this from the startup script, but may not be needed
       String bfdServerId = String.valueOf(rand.nextInt(10240));
@@ -166,6 +170,7 @@ public class ServerExecutor {
       args.add(String.format("-DbfdServer.db.password=%s", dbPassword));
       args.add(String.format("-DbfdServer.include.fake.drug.code=%s", includeFakeDrugCode));
       args.add(String.format("-DbfdServer.include.fake.org.name=%s", includeFakeOrgName));
+      args.add(String.format("-DbfdServer.streamingBundles.enabled=%s", streamingBundlesEnabled));
       args.add(String.format("-Dits.testcontainer.db.image=%s", containerImageType));
       return args.toArray(new String[0]);
     } catch (IOException e) {
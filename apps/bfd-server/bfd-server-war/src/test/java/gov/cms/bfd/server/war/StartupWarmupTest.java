@@ -0,0 +1,223 @@
+package gov.cms.bfd.server.war;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import gov.cms.bfd.model.rif.Beneficiary;
+import gov.cms.bfd.model.rif.CarrierClaim;
+import gov.cms.bfd.model.rif.DMEClaim;
+import gov.cms.bfd.model.rif.HHAClaim;
+import gov.cms.bfd.model.rif.HospiceClaim;
+import gov.cms.bfd.model.rif.InpatientClaim;
+import gov.cms.bfd.model.rif.OutpatientClaim;
+import gov.cms.bfd.model.rif.PartDEvent;
+import gov.cms.bfd.model.rif.SNFClaim;
+import gov.cms.bfd.model.rif.samples.StaticRifResource;
+import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
+import gov.cms.bfd.server.war.r4.providers.BeneficiaryTransformerV2;
+import gov.cms.bfd.server.war.r4.providers.ClaimTransformerInterfaceV2;
+import gov.cms.bfd.server.war.r4.providers.CoverageTransformerV2;
+import gov.cms.bfd.server.war.stu3.providers.BeneficiaryTransformer;
+import gov.cms.bfd.server.war.stu3.providers.ClaimTransformerInterface;
+import gov.cms.bfd.server.war.stu3.providers.CoverageTransformer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.hl7.fhir.r4.model.ExplanationOfBenefit;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link StartupWarmup}. */
+public class StartupWarmupTest {
+  /** The claim entity classes that the sample claims are parsed into, carrier claims first. */
+  private static final List<Class<?>> CLAIM_CLASSES =
+      List.of(
+          CarrierClaim.class,
+          DMEClaim.class,
+          HHAClaim.class,
+          HospiceClaim.class,
+          InpatientClaim.class,
+          OutpatientClaim.class,
+          PartDEvent.class,
+          SNFClaim.class);
+
+  /** Waits for the lookups, which are mocked to be loaded already. */
+  private LookupPreloader lookupPreloader;
+
+  /** The mocked R4 beneficiary transformer. */
+  private BeneficiaryTransformerV2 beneficiaryTransformerV2;
+
+  /** The mocked STU3 beneficiary transformer. */
+  private BeneficiaryTransformer beneficiaryTransformer;
+
+  /** The mocked R4 carrier claim transformer. */
+  private ClaimTransformerInterfaceV2 carrierClaimTransformerV2;
+
+  /** The mocked R4 claim transformers. */
+  private List<ClaimTransformerInterfaceV2> claimTransformersV2;
+
+  /** The mocked STU3 claim transformers. */
+  private List<ClaimTransformerInterface> claimTransformers;
+
+  /** Receives the warm-up timings. */
+  private MetricRegistry metricRegistry;
+
+  /** Receives the warm-up health check. */
+  private HealthCheckRegistry healthCheckRegistry;
+
+  /** Sets up transformers that return empty resources. */
+  @BeforeEach
+  public void setUp() {
+    lookupPreloader = mock(LookupPreloader.class);
+    beneficiaryTransformerV2 = mock(BeneficiaryTransformerV2.class);
+    when(beneficiaryTransformerV2.transform(any(), any())).thenReturn(new Patient());
+    beneficiaryTransformer = mock(BeneficiaryTransformer.class);
+    when(beneficiaryTransformer.transform(any(), any()))
+        .thenReturn(new org.hl7.fhir.dstu3.model.Patient());
+
+    claimTransformersV2 = new ArrayList<>();
+    claimTransformers = new ArrayList<>();
+    for (Class<?> claimClass : CLAIM_CLASSES) {
+      ClaimTransformerInterfaceV2 transformerV2 = mock(ClaimTransformerInterfaceV2.class);
+      doReturn(claimClass).when(transformerV2).getEntityClass();
+      when(transformerV2.transform(any(), anyBoolean())).thenReturn(new ExplanationOfBenefit());
+      claimTransformersV2.add(transformerV2);
+
+      ClaimTransformerInterface transformer = mock(ClaimTransformerInterface.class);
+      doReturn(claimClass).when(transformer).getEntityClass();
+      when(transformer.transform(any(), anyBoolean()))
+          .thenReturn(new org.hl7.fhir.dstu3.model.ExplanationOfBenefit());
+      claimTransformers.add(transformer);
+    }
+    carrierClaimTransformerV2 = claimTransformersV2.get(0);
+
+    metricRegistry = new MetricRegistry();
+    healthCheckRegistry = new HealthCheckRegistry();
+  }
+
+  /**
+   * Verifies that the sample beneficiaries and claims are parsed, with each claim's lines grouped
+   * together, and that beneficiary histories are skipped.
+   */
+  @Test
+  public void sampleRecordsAreParsed() {
+    List<Object> records =
+        StartupWarmup.parseSampleRecords(
+            Arrays.asList(StaticRifResourceGroup.SAMPLE_A.getResources()));
+
+    int expectedCount = 0;
+    for (StaticRifResource resource : StaticRifResourceGroup.SAMPLE_A.getResources()) {
+      if (resource != StaticRifResource.SAMPLE_A_BENEFICIARY_HISTORY) {
+        expectedCount += resource.getRecordCount();
+      }
+    }
+    assertEquals(expectedCount, records.size());
+    assertEquals(
+        StaticRifResource.SAMPLE_A_BENES.getRecordCount(),
+        records.stream().filter(Beneficiary.class::isInstance).count());
+
+    List<Object> carrierClaims =
+        StartupWarmup.parseSampleRecords(
+            List.of(StaticRifResource.SAMPLE_A_CARRIER_MULTIPLE_LINES));
+    // the sample holds a single claim with seven lines
+    assertEquals(1, carrierClaims.size());
+    assertEquals(7, ((CarrierClaim) carrierClaims.get(0)).getLines().size());
+  }
+
+  /**
+   * Verifies that the node is unhealthy until the warm-up has run each sample record through the
+   * transformers, and that each phase is timed.
+   */
+  @Test
+  public void nodeIsUnhealthyUntilWarmedUp() {
+    StartupWarmup warmup = createWarmup(true, 2);
+    assertFalse(warmup.isFinished());
+    assertFalse(healthCheckRegistry.runHealthCheck(StartupWarmup.HEALTH_CHECK_NAME).isHealthy());
+
+    warmup.run();
+    assertTrue(warmup.isFinished());
+    HealthCheck.Result result = healthCheckRegistry.runHealthCheck(StartupWarmup.HEALTH_CHECK_NAME);
+    assertTrue(result.isHealthy());
+    assertEquals(null, result.getMessage());
+
+    verify(lookupPreloader).awaitAll();
+    verify(
+            carrierClaimTransformerV2,
+            times(2 * StaticRifResource.SAMPLE_A_CARRIER.getRecordCount()))
+        .transform(any(CarrierClaim.class), anyBoolean());
+    verify(beneficiaryTransformer, times(2 * StaticRifResource.SAMPLE_A_BENES.getRecordCount()))
+        .transform(any(), any());
+    for (String phase : List.of("lookups", "sampleParsing", "transformers", "total")) {
+      assertEquals(1, metricRegistry.timer("StartupWarmup." + phase).getCount(), phase);
+    }
+  }
+
+  /** Verifies that a failed warm-up keeps the node unhealthy. */
+  @Test
+  public void failedWarmupIsUnhealthy() {
+    doThrow(new IllegalStateException("no lookups")).when(lookupPreloader).awaitAll();
+    StartupWarmup warmup = createWarmup(true, 1);
+
+    warmup.run();
+    assertTrue(warmup.isFinished());
+    HealthCheck.Result result = healthCheckRegistry.runHealthCheck(StartupWarmup.HEALTH_CHECK_NAME);
+    assertFalse(result.isHealthy());
+    assertEquals("warm-up failed: no lookups", result.getMessage());
+  }
+
+  /** Verifies that a disabled warm-up is healthy from the start and never runs. */
+  @Test
+  public void disabledWarmupIsHealthy() {
+    StartupWarmup warmup = createWarmup(false, 1);
+    warmup.start();
+
+    assertTrue(warmup.isFinished());
+    assertTrue(healthCheckRegistry.runHealthCheck(StartupWarmup.HEALTH_CHECK_NAME).isHealthy());
+    verify(beneficiaryTransformerV2, times(0)).transform(any(), any());
+  }
+
+  /** Verifies that two transformers for the same claims are rejected. */
+  @Test
+  public void duplicateTransformersAreRejected() {
+    ClaimTransformerInterfaceV2 duplicate = mock(ClaimTransformerInterfaceV2.class);
+    doReturn(CarrierClaim.class).when(duplicate).getEntityClass();
+    claimTransformersV2.add(duplicate);
+    assertThrows(IllegalArgumentException.class, () -> createWarmup(true, 1));
+  }
+
+  /**
+   * Creates the warm-up being tested.
+   *
+   * @param enabled whether the warm-up is enabled
+   * @param iterations the number of times each sample record is transformed
+   * @return the warm-up
+   */
+  private StartupWarmup createWarmup(boolean enabled, int iterations) {
+    return new StartupWarmup(
+        lookupPreloader,
+        beneficiaryTransformerV2,
+        beneficiaryTransformer,
+        mock(CoverageTransformerV2.class),
+        mock(CoverageTransformer.class),
+        claimTransformersV2,
+        claimTransformers,
+        metricRegistry,
+        healthCheckRegistry,
+        enabled,
+        iterations);
+  }
+}
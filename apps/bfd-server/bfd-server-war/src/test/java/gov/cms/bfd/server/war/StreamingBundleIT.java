@@ -0,0 +1,252 @@
+package gov.cms.bfd.server.war;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import com.google.common.io.ByteStreams;
+import gov.cms.bfd.model.rif.Beneficiary;
+import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that EOB searches streamed by {@link StreamingBundleInterceptor} can't be told apart
+ * from the same searches written by HAPI. The tests' launcher runs with streaming enabled, and
+ * adding {@code _pretty=false} to a search is enough to keep it from being streamed while leaving
+ * its response unchanged, so every streamed response can be compared to a response written by HAPI.
+ */
+public final class StreamingBundleIT extends ServerRequiredTest {
+  /** The response headers that must match between streamed and non-streamed responses. */
+  private static final List<String> COMPARED_HEADERS =
+      List.of(
+          HttpHeaders.CONTENT_TYPE,
+          HttpHeaders.CONTENT_ENCODING,
+          HttpHeaders.LAST_MODIFIED,
+          HttpHeaders.VARY);
+
+  /** Sends the requests, without decompressing the responses so their encoding can be checked. */
+  private CloseableHttpClient httpClient;
+
+  /** Creates the {@link #httpClient} before each test. */
+  @BeforeEach
+  public void createHttpClient() {
+    httpClient =
+        HttpClients.custom()
+            .setSSLContext(
+                ServerTestUtils.get().createSslContext(Optional.of(ClientSslIdentity.TRUSTED)))
+            .disableContentCompression()
+            .build();
+  }
+
+  /**
+   * Closes the {@link #httpClient} after each test.
+   *
+   * @throws IOException (indicates test failure)
+   */
+  @AfterEach
+  public void closeHttpClient() throws IOException {
+    httpClient.close();
+  }
+
+  /**
+   * Verifies that streamed v1 EOB searches match the ones written by HAPI.
+   *
+   * @throws IOException (indicates test failure)
+   */
+  @Test
+  public void v1StreamedResponsesMatchHapiResponses() throws IOException {
+    verifyStreamedResponses("v1", FhirContext.forDstu3());
+  }
+
+  /**
+   * Verifies that streamed v2 EOB searches match the ones written by HAPI.
+   *
+   * @throws IOException (indicates test failure)
+   */
+  @Test
+  public void v2StreamedResponsesMatchHapiResponses() throws IOException {
+    verifyStreamedResponses("v2", FhirContext.forR4());
+  }
+
+  /**
+   * Loads the sample data and compares the streamed EOB searches of its beneficiary to the same
+   * searches written by HAPI: byte for byte for every form of compact JSON, and after parsing for
+   * the pretty printed and XML forms that are never streamed.
+   *
+   * @param version the version of the FHIR API, such as {@code v1}
+   * @param fhirContext the {@link FhirContext} of that version
+   * @throws IOException (indicates test failure)
+   */
+  private void verifyStreamedResponses(String version, FhirContext fhirContext) throws IOException {
+    List<Object> loadedRecords =
+        ServerTestUtils.get()
+            .loadData(Arrays.asList(StaticRifResourceGroup.SAMPLE_A.getResources()));
+    Beneficiary beneficiary =
+        loadedRecords.stream()
+            .filter(r -> r instanceof Beneficiary)
+            .map(r -> (Beneficiary) r)
+            .findFirst()
+            .get();
+    String searchUrl =
+        String.format(
+            "%s/%s/fhir/ExplanationOfBenefit?patient=%d",
+            ServerTestUtils.get().getServerBaseUrl(), version, beneficiary.getBeneficiaryId());
+
+    Response streamed = get(searchUrl, "identity");
+    assertEquals(200, streamed.status);
+    assertTrue(streamed.body.contains("\"resourceType\":\"Bundle\""));
+    assertTrue(streamed.body.contains("\"resourceType\":\"ExplanationOfBenefit\""));
+    assertNull(streamed.header(HttpHeaders.CONTENT_ENCODING));
+    assertNotNull(streamed.header(HttpHeaders.LAST_MODIFIED));
+    assertMatches(get(searchUrl + "&_pretty=false", "identity"), streamed);
+
+    for (String format : List.of("json", "application/fhir+json", "application/json")) {
+      String formatUrl = searchUrl + "&_format=" + format;
+      assertMatches(get(formatUrl + "&_pretty=false", "identity"), get(formatUrl, "identity"));
+    }
+
+    Response compressed = get(searchUrl, "gzip");
+    assertEquals("gzip", compressed.header(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(streamed.body, compressed.body);
+    assertMatches(get(searchUrl + "&_pretty=false", "gzip"), compressed);
+
+    // Responses that are never streamed must still hold the same bundle
+    IParser jsonParser = fhirContext.newJsonParser();
+    String expected = encode(jsonParser, jsonParser, streamed.body);
+    for (String variant : List.of("&_pretty=true", "&_format=json&_pretty=true")) {
+      Response response = get(searchUrl + variant, "identity");
+      assertEquals(200, response.status);
+      assertEquals(
+          streamed.header(HttpHeaders.CONTENT_TYPE),
+          response.header(HttpHeaders.CONTENT_TYPE),
+          variant);
+      assertEquals(expected, encode(jsonParser, jsonParser, response.body), variant);
+    }
+    for (String variant : List.of("&_format=xml", "&_format=application/fhir+xml")) {
+      Response response = get(searchUrl + variant, "identity");
+      assertEquals(200, response.status);
+      assertTrue(response.header(HttpHeaders.CONTENT_TYPE).contains("xml"), variant);
+      assertEquals(
+          expected, encode(fhirContext.newXmlParser(), jsonParser, response.body), variant);
+    }
+  }
+
+  /**
+   * Verifies that a streamed response matches the response written by HAPI for the same search. The
+   * {@code ETag} of a response is derived from its request parameters, so only its presence is
+   * compared.
+   *
+   * @param expected the response written by HAPI
+   * @param actual the streamed response
+   */
+  private static void assertMatches(Response expected, Response actual) {
+    assertEquals(expected.status, actual.status);
+    for (String name : COMPARED_HEADERS) {
+      assertEquals(expected.header(name), actual.header(name), name);
+    }
+    assertEquals(
+        expected.header(HttpHeaders.ETAG) != null,
+        actual.header(HttpHeaders.ETAG) != null,
+        HttpHeaders.ETAG);
+    assertEquals(expected.body, actual.body);
+  }
+
+  /**
+   * Parses a response body and encodes it again, so that bodies written in different forms can be
+   * compared.
+   *
+   * @param bodyParser the parser for the form of the body
+   * @param jsonParser the parser used to encode the result
+   * @param body the response body
+   * @return the compact JSON encoding of the resource in the body
+   */
+  private static String encode(IParser bodyParser, IParser jsonParser, String body) {
+    IBaseResource resource = bodyParser.parseResource(body);
+    return jsonParser.setPrettyPrint(false).encodeResourceToString(resource);
+  }
+
+  /**
+   * Sends a GET request that accepts the specified encoding.
+   *
+   * @param url the URL to get
+   * @param acceptEncoding the {@code Accept-Encoding} header value
+   * @return the {@link Response}, with its body decompressed if needed
+   * @throws IOException (indicates test failure)
+   */
+  private Response get(String url, String acceptEncoding) throws IOException {
+    HttpGet get = new HttpGet(url);
+    get.setHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    try (CloseableHttpResponse response = httpClient.execute(get)) {
+      Map<String, String> headers = new HashMap<>();
+      for (Header header : response.getAllHeaders()) {
+        headers.putIfAbsent(header.getName().toLowerCase(Locale.ROOT), header.getValue());
+      }
+      byte[] body = EntityUtils.toByteArray(response.getEntity());
+      if ("gzip".equals(headers.get("content-encoding"))) {
+        body = ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(body)));
+      }
+      return new Response(
+          response.getStatusLine().getStatusCode(),
+          headers,
+          new String(body, StandardCharsets.UTF_8));
+    }
+  }
+
+  /** The parts of a response that are compared. */
+  private static final class Response {
+    /** The status code. */
+    private final int status;
+
+    /** The first value of each header, keyed by the lower case header name. */
+    private final Map<String, String> headers;
+
+    /** The body, decompressed if it was compressed. */
+    private final String body;
+
+    /**
+     * Instantiates a new {@link Response}.
+     *
+     * @param status the status code
+     * @param headers the first value of each header, keyed by the lower case header name
+     * @param body the body, decompressed if it was compressed
+     */
+    private Response(int status, Map<String, String> headers, String body) {
+      this.status = status;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    /**
+     * Gets the first value of a header.
+     *
+     * @param name the name of the header
+     * @return the value, or null if the response didn't have the header
+     */
+    private String header(String name) {
+      return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+  }
+}
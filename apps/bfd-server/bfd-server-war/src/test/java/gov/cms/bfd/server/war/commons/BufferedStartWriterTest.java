@@ -0,0 +1,112 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link BufferedStartWriter}. */
+public class BufferedStartWriterTest {
+  /** Receives the characters once the target is opened. */
+  private final StringWriter target = new StringWriter();
+
+  /** Counts the number of times the target is opened. */
+  private final AtomicInteger opens = new AtomicInteger();
+
+  /**
+   * Verifies that nothing is passed on until the buffer limit is reached, and that everything is
+   * passed on in order after that.
+   *
+   * @throws IOException indicates test failure
+   */
+  @Test
+  public void startIsHeldBackUntilLimit() throws IOException {
+    BufferedStartWriter writer = createWriter(5);
+    writer.write("abc");
+    writer.flush();
+    assertFalse(writer.isOpened());
+    assertEquals(0, opens.get());
+    assertEquals("", target.toString());
+
+    writer.write("defg".toCharArray(), 1, 2);
+    assertTrue(writer.isOpened());
+    assertEquals("abcef", target.toString());
+
+    writer.write('h');
+    writer.write("xijx", 1, 2);
+    assertEquals("abcefhij", target.toString());
+    assertSame(target, writer.finish());
+    assertEquals(1, opens.get());
+  }
+
+  /**
+   * Verifies that output shorter than the buffer limit is only passed on when the writer is
+   * finished.
+   *
+   * @throws IOException indicates test failure
+   */
+  @Test
+  public void shortOutputIsPassedOnWhenFinished() throws IOException {
+    BufferedStartWriter writer = createWriter(100);
+    writer.write("{\"resourceType\":\"Bundle\"}");
+    assertFalse(writer.isOpened());
+
+    assertSame(target, writer.finish());
+    assertTrue(writer.isOpened());
+    assertEquals("{\"resourceType\":\"Bundle\"}", target.toString());
+    assertSame(target, writer.finish());
+    assertEquals(1, opens.get());
+  }
+
+  /**
+   * Verifies that a writer that is abandoned before reaching the buffer limit never opens its
+   * target, so that an error can still be reported instead.
+   *
+   * @throws IOException indicates test failure
+   */
+  @Test
+  public void abandonedWriterNeverOpens() throws IOException {
+    BufferedStartWriter writer =
+        new BufferedStartWriter(
+            () -> {
+              throw new AssertionError("opened");
+            },
+            10);
+    writer.write("abc");
+    writer.flush();
+    assertFalse(writer.isOpened());
+  }
+
+  /**
+   * Verifies that a limit of zero passes everything straight through.
+   *
+   * @throws IOException indicates test failure
+   */
+  @Test
+  public void zeroLimitOpensOnFirstWrite() throws IOException {
+    BufferedStartWriter writer = createWriter(0);
+    writer.write("a");
+    assertTrue(writer.isOpened());
+    assertEquals("a", target.toString());
+  }
+
+  /**
+   * Creates a {@link BufferedStartWriter} whose target is {@link #target}.
+   *
+   * @param bufferLimit the number of characters held back
+   * @return the writer
+   */
+  private BufferedStartWriter createWriter(int bufferLimit) {
+    return new BufferedStartWriter(
+        () -> {
+          opens.incrementAndGet();
+          return target;
+        },
+        bufferLimit);
+  }
+}
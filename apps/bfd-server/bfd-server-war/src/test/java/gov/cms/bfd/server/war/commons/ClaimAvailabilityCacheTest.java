@@ -0,0 +1,129 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.codahale.metrics.MetricRegistry;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongToIntFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ClaimAvailabilityCache}. */
+public class ClaimAvailabilityCacheTest {
+  /** Transaction time that was current when masks are cached. */
+  private static final Instant LOADED_THROUGH = Instant.parse("2022-05-01T00:00:00.123Z");
+
+  /** Used to decide whether a beneficiary has been updated. */
+  private LoadedFilterManager loadedFilterManager;
+
+  /** Receives the cache metrics. */
+  private MetricRegistry metricRegistry;
+
+  /** Number of times the database lookup has been called. */
+  private AtomicInteger lookups;
+
+  /** Simulated database lookup that returns the low eight bits of the beneficiary id. */
+  private LongToIntFunction lookup;
+
+  /** Creates the mocks. Mocked filter managers report no updated beneficiaries. */
+  @BeforeEach
+  public void setUp() {
+    loadedFilterManager = mock(LoadedFilterManager.class);
+    doReturn(LOADED_THROUGH).when(loadedFilterManager).getTransactionTime();
+    metricRegistry = new MetricRegistry();
+    lookups = new AtomicInteger();
+    lookup =
+        beneficiaryId -> {
+          lookups.incrementAndGet();
+          return (int) (beneficiaryId & 0xFF);
+        };
+  }
+
+  /** Verifies that a mask is only looked up once while its beneficiary isn't updated. */
+  @Test
+  public void cachedMaskIsReused() {
+    ClaimAvailabilityCache cache =
+        new ClaimAvailabilityCache(loadedFilterManager, metricRegistry, 8);
+    assertEquals(0xA5, cache.getAvailableClaims(0x1A5L, lookup));
+    assertEquals(0xA5, cache.getAvailableClaims(0x1A5L, lookup));
+    assertEquals(0, cache.getAvailableClaims(-256L, lookup));
+    assertEquals(0, cache.getAvailableClaims(-256L, lookup));
+
+    assertEquals(2, lookups.get());
+    assertEquals(2, meterCount("hits"));
+    assertEquals(2, meterCount("misses"));
+  }
+
+  /** Verifies that a mask is looked up again once its beneficiary has been updated. */
+  @Test
+  public void updatedBeneficiaryInvalidatesMask() {
+    ClaimAvailabilityCache cache =
+        new ClaimAvailabilityCache(loadedFilterManager, metricRegistry, 8);
+    assertEquals(0xFF, cache.getAvailableClaims(0xFFL, lookup));
+
+    /*
+     * The transaction time is stored with millisecond precision, which this one has, so the
+     * filter manager must be asked about exactly the same time.
+     */
+    doReturn(true).when(loadedFilterManager).isUpdatedSince(0xFFL, LOADED_THROUGH);
+    assertEquals(0xFF, cache.getAvailableClaims(0xFFL, lookup));
+
+    assertEquals(2, lookups.get());
+    assertEquals(1, meterCount("invalidations"));
+    assertEquals(0, meterCount("hits"));
+  }
+
+  /** Verifies that beneficiaries sharing a slot replace each other without mixing up masks. */
+  @Test
+  public void collidingBeneficiariesReplaceEachOther() {
+    ClaimAvailabilityCache cache =
+        new ClaimAvailabilityCache(loadedFilterManager, metricRegistry, 1);
+    assertEquals(1, cache.getAvailableClaims(1L, lookup));
+    assertEquals(2, cache.getAvailableClaims(2L, lookup));
+    assertEquals(1, cache.getAvailableClaims(1L, lookup));
+    assertEquals(1, cache.getAvailableClaims(1L, lookup));
+
+    assertEquals(3, lookups.get());
+  }
+
+  /** Verifies that a disabled cache always calls the lookup. */
+  @Test
+  public void disabledCacheAlwaysLooksUp() {
+    ClaimAvailabilityCache cache =
+        new ClaimAvailabilityCache(loadedFilterManager, metricRegistry, 0);
+    assertFalse(cache.isEnabled());
+    assertEquals(7, cache.getAvailableClaims(7L, lookup));
+    assertEquals(7, cache.getAvailableClaims(7L, lookup));
+
+    assertEquals(2, lookups.get());
+    verifyNoInteractions(loadedFilterManager);
+  }
+
+  /** Verifies that the cache size is validated. */
+  @Test
+  public void invalidSizeIsRejected() {
+    assertTrue(new ClaimAvailabilityCache(loadedFilterManager, metricRegistry, 3).isEnabled());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ClaimAvailabilityCache(loadedFilterManager, new MetricRegistry(), -1));
+  }
+
+  /**
+   * Looks up the count of one of the cache's meters.
+   *
+   * @param name the simple name of the meter
+   * @return the count
+   */
+  private long meterCount(String name) {
+    return metricRegistry
+        .meter(MetricRegistry.name(ClaimAvailabilityCache.class.getSimpleName(), name))
+        .getCount();
+  }
+}
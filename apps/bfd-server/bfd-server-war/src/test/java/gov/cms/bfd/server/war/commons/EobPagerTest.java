@@ -0,0 +1,128 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link EobPager}. */
+public class EobPagerTest {
+  /** Stands in for the claim type enums of the resource providers. */
+  private enum TestType {
+    /** Sorts before {@link #SECOND} when claim ids are equal. */
+    FIRST,
+    /** Sorts after {@link #FIRST} when claim ids are equal. */
+    SECOND
+  }
+
+  /**
+   * Verifies that keys of all claim types are merged in the order the resource providers sort
+   * EOBs, which compares claim ids as strings and then uses the claim type to break ties.
+   */
+  @Test
+  public void keysAreMergedInEobOrder() {
+    List<List<EobPager.ClaimKey<TestType>>> keys =
+        List.of(
+            List.of(key(TestType.FIRST, 9), key(TestType.FIRST, 10), key(TestType.FIRST, 2)),
+            List.of(key(TestType.SECOND, 10), key(TestType.SECOND, 1)));
+
+    EobPager.Page<TestType> page = EobPager.selectPage(keys, 0, 10);
+    assertEquals(5, page.getTotal());
+    assertEquals(
+        List.of("SECOND-1", "FIRST-10", "SECOND-10", "FIRST-2", "FIRST-9"), describe(page));
+  }
+
+  /** Verifies that only the requested page is returned while the total covers every key. */
+  @Test
+  public void pageIsSelectedFromMergedKeys() {
+    List<List<EobPager.ClaimKey<TestType>>> keys =
+        List.of(
+            List.of(key(TestType.FIRST, 1), key(TestType.FIRST, 3), key(TestType.FIRST, 5)),
+            List.of(key(TestType.SECOND, 2), key(TestType.SECOND, 4)));
+
+    EobPager.Page<TestType> page = EobPager.selectPage(keys, 1, 2);
+    assertEquals(5, page.getTotal());
+    assertEquals(List.of("SECOND-2", "FIRST-3"), describe(page));
+    assertEquals(Set.of(3L), page.getClaimIds(TestType.FIRST));
+    assertEquals(Set.of(2L), page.getClaimIds(TestType.SECOND));
+
+    EobPager.Page<TestType> lastPage = EobPager.selectPage(keys, 4, 2);
+    assertEquals(List.of("FIRST-5"), describe(lastPage));
+    assertEquals(Set.of(), lastPage.getClaimIds(TestType.SECOND));
+
+    assertEquals(List.of(), describe(EobPager.selectPage(keys, 5, 2)));
+    assertThrows(IllegalArgumentException.class, () -> EobPager.selectPage(keys, 6, 2));
+  }
+
+  /** Verifies that partitions keep the page order along with the total and last updated time. */
+  @Test
+  public void pageIsPartitionedInOrder() {
+    List<List<EobPager.ClaimKey<TestType>>> keys =
+        List.of(
+            List.of(key(TestType.FIRST, 1), key(TestType.FIRST, 3), key(TestType.FIRST, 5)),
+            List.of(key(TestType.SECOND, 2), key(TestType.SECOND, 4)));
+    EobPager.Page<TestType> page = EobPager.selectPage(keys, 0, Integer.MAX_VALUE);
+
+    List<EobPager.Page<TestType>> parts = page.partition(2);
+    assertEquals(3, parts.size());
+    assertEquals(List.of("FIRST-1", "SECOND-2"), describe(parts.get(0)));
+    assertEquals(List.of("FIRST-3", "SECOND-4"), describe(parts.get(1)));
+    assertEquals(List.of("FIRST-5"), describe(parts.get(2)));
+    for (EobPager.Page<TestType> part : parts) {
+      assertEquals(5, part.getTotal());
+      assertEquals(page.getLastUpdated(), part.getLastUpdated());
+    }
+  }
+
+  /**
+   * Verifies that the last updated time covers every key, not just those on the page, and that
+   * keys without a value use the same fallback as the transformers.
+   */
+  @Test
+  public void lastUpdatedCoversAllKeys() {
+    Instant latest = Instant.parse("2022-05-01T00:00:00Z");
+    List<List<EobPager.ClaimKey<TestType>>> keys =
+        List.of(
+            List.of(
+                new EobPager.ClaimKey<>(TestType.FIRST, 1, Instant.parse("2021-01-01T00:00:00Z"))),
+            List.of(new EobPager.ClaimKey<>(TestType.SECOND, 2, latest)));
+    assertEquals(Optional.of(latest), EobPager.selectPage(keys, 0, 1).getLastUpdated());
+
+    List<List<EobPager.ClaimKey<TestType>>> neverUpdated =
+        List.of(List.of(key(TestType.FIRST, 1)));
+    assertEquals(
+        Optional.of(TransformerConstants.FALLBACK_LAST_UPDATED),
+        EobPager.selectPage(neverUpdated, 0, 1).getLastUpdated());
+
+    List<List<EobPager.ClaimKey<TestType>>> noKeys = List.of(List.of());
+    assertEquals(Optional.empty(), EobPager.selectPage(noKeys, 0, 1).getLastUpdated());
+  }
+
+  /**
+   * Creates a key without a last updated time.
+   *
+   * @param claimType the claim type
+   * @param claimId the claim id
+   * @return the key
+   */
+  private static EobPager.ClaimKey<TestType> key(TestType claimType, long claimId) {
+    return new EobPager.ClaimKey<>(claimType, claimId, null);
+  }
+
+  /**
+   * Describes the keys on a page in a form that is easy to compare.
+   *
+   * @param page the page
+   * @return type and claim id of each key in page order
+   */
+  private static List<String> describe(EobPager.Page<TestType> page) {
+    return page.getKeys().stream()
+        .map(key -> key.getClaimType() + "-" + key.getClaimId())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,206 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.ExplanationOfBenefit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link EobResponseCache}. */
+public class EobResponseCacheTest {
+  /** Beneficiary used in all keys. */
+  private static final long BENE_ID = 42L;
+
+  /** Transaction time that was current when bundles are cached. */
+  private static final Instant LOADED_THROUGH = Instant.parse("2022-05-01T00:00:00Z");
+
+  /** Request URL used in all keys. */
+  private static final String REQUEST_URL =
+      "http://localhost/v2/fhir/ExplanationOfBenefit?patient=42";
+
+  /** Key used for most of the tests. */
+  private static final EobResponseCache.Key KEY =
+      new EobResponseCache.Key(FhirVersionEnum.R4, BENE_ID, REQUEST_URL, Map.of(), false);
+
+  /** Used to decide whether the beneficiary has been updated. */
+  private LoadedFilterManager loadedFilterManager;
+
+  /** Receives the cache metrics. */
+  private MetricRegistry metricRegistry;
+
+  /** The cache being tested. */
+  private EobResponseCache cache;
+
+  /** Creates an enabled cache. Mocked filter managers report no updated beneficiaries. */
+  @BeforeEach
+  public void setUp() {
+    loadedFilterManager = mock(LoadedFilterManager.class);
+    doReturn(LOADED_THROUGH).when(loadedFilterManager).getTransactionTime();
+    metricRegistry = new MetricRegistry();
+    cache = new EobResponseCache(loadedFilterManager, metricRegistry, 1_000_000, 3600);
+  }
+
+  /** Verifies that an encoded bundle decodes to an equivalent bundle. */
+  @Test
+  public void encodedBundleDecodesToSameJson() {
+    Bundle bundle = createBundle();
+    byte[] content = EobResponseCache.encode(FhirVersionEnum.R4, bundle);
+    Bundle decoded = EobResponseCache.decode(FhirVersionEnum.R4, content, Bundle.class);
+    assertEquals(encodeToString(bundle), encodeToString(decoded));
+  }
+
+  /** Verifies that a cached bundle is returned for the same key but not for a different one. */
+  @Test
+  public void cachedBundleIsFoundByKey() {
+    assertEquals(Optional.empty(), cache.get(KEY, Bundle.class));
+    cache.put(KEY, createBundle(), LOADED_THROUGH);
+
+    Optional<Bundle> cached = cache.get(KEY, Bundle.class);
+    assertTrue(cached.isPresent());
+    assertEquals(encodeToString(createBundle()), encodeToString(cached.get()));
+
+    EobResponseCache.Key taxNumbersKey =
+        new EobResponseCache.Key(FhirVersionEnum.R4, BENE_ID, REQUEST_URL, Map.of(), true);
+    assertEquals(Optional.empty(), cache.get(taxNumbersKey, Bundle.class));
+
+    assertEquals(1, meterCount("hits"));
+    assertEquals(2, meterCount("misses"));
+  }
+
+  /**
+   * Verifies that searches POSTed to the same URL only share a cached bundle when their form
+   * parameters are the same, regardless of their order.
+   */
+  @Test
+  public void postedSearchesAreKeyedByFormParameters() {
+    Map<String, String[]> excludeSamhsa = new LinkedHashMap<>();
+    excludeSamhsa.put("patient", new String[] {"42"});
+    excludeSamhsa.put("excludeSAMHSA", new String[] {"true"});
+    Map<String, String[]> reordered = new LinkedHashMap<>();
+    reordered.put("excludeSAMHSA", new String[] {"true"});
+    reordered.put("patient", new String[] {"42"});
+    Map<String, String[]> includeSamhsa = Map.of("patient", new String[] {"42"});
+
+    EobResponseCache.Key excludeKey = createPostedSearchKey(excludeSamhsa);
+    assertEquals(excludeKey, createPostedSearchKey(reordered));
+    assertEquals(excludeKey.hashCode(), createPostedSearchKey(reordered).hashCode());
+    EobResponseCache.Key includeKey = createPostedSearchKey(includeSamhsa);
+    assertNotEquals(excludeKey, includeKey);
+
+    cache.put(includeKey, createBundle(), LOADED_THROUGH);
+    assertEquals(Optional.empty(), cache.get(excludeKey, Bundle.class));
+    assertTrue(cache.get(includeKey, Bundle.class).isPresent());
+  }
+
+  /** Verifies that an entry is discarded once its beneficiary has been updated. */
+  @Test
+  public void updatedBeneficiaryInvalidatesEntry() {
+    cache.put(KEY, createBundle(), LOADED_THROUGH);
+    doReturn(true).when(loadedFilterManager).isUpdatedSince(BENE_ID, LOADED_THROUGH);
+
+    assertEquals(Optional.empty(), cache.get(KEY, Bundle.class));
+    assertEquals(1, meterCount("invalidations"));
+    assertEquals(0L, metricRegistry.getGauges().get("EobResponseCache.entries").getValue());
+    assertEquals(0L, metricRegistry.getGauges().get("EobResponseCache.bytes").getValue());
+  }
+
+  /** Verifies that the lastUpdated of a cached bundle advances with the transaction time. */
+  @Test
+  public void cachedBundleLastUpdatedAdvances() {
+    cache.put(KEY, createBundle(), LOADED_THROUGH);
+    Instant later = LOADED_THROUGH.plusSeconds(60);
+    doReturn(later).when(loadedFilterManager).getTransactionTime();
+
+    Bundle cached = cache.get(KEY, Bundle.class).get();
+    assertEquals(Date.from(later), cached.getMeta().getLastUpdated());
+  }
+
+  /** Verifies that deferred bundles are never cached since their entries aren't present. */
+  @Test
+  public void deferredBundleIsNotCached() {
+    cache.put(KEY, StreamingBundle.defer(createBundle(), consumer -> {}), LOADED_THROUGH);
+    assertEquals(Optional.empty(), cache.get(KEY, Bundle.class));
+  }
+
+  /** Verifies that a disabled cache neither stores nor returns anything. */
+  @Test
+  public void disabledCacheDoesNothing() {
+    LoadedFilterManager unusedFilterManager = mock(LoadedFilterManager.class);
+    EobResponseCache disabled =
+        new EobResponseCache(unusedFilterManager, new MetricRegistry(), 0, 3600);
+    assertFalse(disabled.isEnabled());
+
+    disabled.put(KEY, createBundle(), LOADED_THROUGH);
+    assertEquals(Optional.empty(), disabled.get(KEY, Bundle.class));
+    verifyNoInteractions(unusedFilterManager);
+  }
+
+  /**
+   * Creates the key of an EOB search POSTed with the specified form parameters.
+   *
+   * @param formParameters the form parameters of the search
+   * @return the key
+   */
+  private static EobResponseCache.Key createPostedSearchKey(Map<String, String[]> formParameters) {
+    RequestDetails requestDetails = mock(RequestDetails.class);
+    doReturn("http://localhost/v2/fhir/ExplanationOfBenefit/_search")
+        .when(requestDetails)
+        .getCompleteUrl();
+    doReturn(formParameters).when(requestDetails).getParameters();
+    return EobResponseCache.Key.forRequest(FhirVersionEnum.R4, BENE_ID, requestDetails, false);
+  }
+
+  /**
+   * Looks up the count of one of the cache's meters.
+   *
+   * @param name the simple name of the meter
+   * @return the count
+   */
+  private long meterCount(String name) {
+    return metricRegistry
+        .meter(MetricRegistry.name(EobResponseCache.class.getSimpleName(), name))
+        .getCount();
+  }
+
+  /**
+   * Encodes a bundle as JSON for comparison.
+   *
+   * @param bundle the bundle
+   * @return the JSON
+   */
+  private static String encodeToString(Bundle bundle) {
+    return FhirContext.forR4Cached().newJsonParser().encodeResourceToString(bundle);
+  }
+
+  /**
+   * Creates a bundle with a single EOB.
+   *
+   * @return the bundle
+   */
+  private static Bundle createBundle() {
+    Bundle bundle = new Bundle();
+    bundle.getMeta().setLastUpdated(Date.from(LOADED_THROUGH));
+    bundle.setTotal(1);
+    ExplanationOfBenefit eob = new ExplanationOfBenefit();
+    eob.setId("carrier-1");
+    eob.setStatus(ExplanationOfBenefit.ExplanationOfBenefitStatus.ACTIVE);
+    bundle.addEntry().setResource(eob);
+    return bundle;
+  }
+}
@@ -0,0 +1,251 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.Uninterruptibles;
+import gov.cms.bfd.server.war.RequestTimings;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link FanOutAdmissionController}. */
+public class FanOutAdmissionControllerTest {
+  /** Runs the tasks of the searches. */
+  private ExecutorService executorService;
+
+  /** Holds the metrics updated by the controllers. */
+  private MetricRegistry metricRegistry;
+
+  /** Sets up the executor and metrics before each test. */
+  @BeforeEach
+  public void setup() {
+    executorService = Executors.newCachedThreadPool();
+    metricRegistry = new MetricRegistry();
+  }
+
+  /** Shuts down the executor after each test. */
+  @AfterEach
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Verifies that a disabled controller runs every task at once and returns the results in order.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void disabledControllerRunsAllTasks() throws Exception {
+    FanOutAdmissionController controller = new FanOutAdmissionController(metricRegistry, 0, 1000);
+    assertFalse(controller.isEnabled());
+
+    CountDownLatch allStarted = new CountDownLatch(4);
+    List<Callable<Integer>> tasks =
+        IntStream.range(0, 4)
+            .mapToObj(
+                i ->
+                    (Callable<Integer>)
+                        () -> {
+                          allStarted.countDown();
+                          // fails unless all of the tasks run at the same time
+                          assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+                          return i;
+                        })
+            .collect(Collectors.toList());
+
+    assertEquals(List.of(0, 1, 2, 3), controller.invokeAll(executorService, tasks));
+  }
+
+  /**
+   * Verifies that no more tasks run at once than the budget allows, and that the results are in the
+   * same order as the tasks.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void fanOutIsLimitedToBudget() throws Exception {
+    FanOutAdmissionController controller = new FanOutAdmissionController(metricRegistry, 2, 5000);
+    assertTrue(controller.isEnabled());
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Callable<Integer>> tasks =
+        IntStream.range(0, 8)
+            .mapToObj(
+                i ->
+                    (Callable<Integer>)
+                        () -> {
+                          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                          Thread.sleep(20);
+                          running.decrementAndGet();
+                          return i;
+                        })
+            .collect(Collectors.toList());
+
+    assertEquals(
+        IntStream.range(0, 8).boxed().collect(Collectors.toList()),
+        controller.invokeAll(executorService, tasks));
+    assertTrue(maxRunning.get() <= 2);
+    assertEquals(
+        2,
+        metricRegistry.histogram("FanOutAdmissionController.fanOutWidth").getSnapshot().getMax());
+  }
+
+  /**
+   * Verifies that a search is rejected with a 503 response if no connections become free before its
+   * deadline, and that connections stay reserved for as long as their tasks are still running.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void searchIsRejectedWhenBudgetIsExhausted() throws Exception {
+    FanOutAdmissionController controller = new FanOutAdmissionController(metricRegistry, 1, 200);
+
+    CountDownLatch blocking = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<List<Integer>> firstSearch =
+        executorService.submit(
+            () ->
+                controller.invokeAll(
+                    executorService,
+                    List.<Callable<Integer>>of(
+                        () -> {
+                          blocking.countDown();
+                          // keeps holding its connection even after the search gives up on it
+                          Uninterruptibles.awaitUninterruptibly(release);
+                          return 1;
+                        })));
+    assertTrue(blocking.await(5, TimeUnit.SECONDS));
+
+    UnclassifiedServerFailureException exception =
+        assertThrows(
+            UnclassifiedServerFailureException.class,
+            () -> controller.invokeAll(executorService, List.<Callable<Integer>>of(() -> 2)));
+    assertEquals(503, exception.getStatusCode());
+    assertEquals(1, metricRegistry.meter("FanOutAdmissionController.rejections").getCount());
+
+    // the first search ran out of time too, but its connection is free once its task finishes
+    release.countDown();
+    ExecutionException firstFailure =
+        assertThrows(ExecutionException.class, () -> firstSearch.get(5, TimeUnit.SECONDS));
+    assertTrue(firstFailure.getCause() instanceof UnclassifiedServerFailureException);
+    assertEquals(
+        List.of(3), controller.invokeAll(executorService, List.<Callable<Integer>>of(() -> 3)));
+  }
+
+  /**
+   * Verifies that a search is rejected with a 503 response if its tasks don't finish before its
+   * deadline, and that the connections are returned to the budget once they do.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void searchIsRejectedWhenDeadlineIsExceeded() throws Exception {
+    FanOutAdmissionController controller = new FanOutAdmissionController(metricRegistry, 1, 200);
+
+    UnclassifiedServerFailureException exception =
+        assertThrows(
+            UnclassifiedServerFailureException.class,
+            () ->
+                controller.invokeAll(
+                    executorService,
+                    List.<Callable<Integer>>of(
+                        () -> {
+                          Thread.sleep(5000);
+                          return 1;
+                        })));
+    assertEquals(503, exception.getStatusCode());
+    assertEquals(1, metricRegistry.meter("FanOutAdmissionController.deadlinesExceeded").getCount());
+
+    // the connection is available again once the cancelled task stops
+    assertEquals(
+        List.of(4), controller.invokeAll(executorService, List.<Callable<Integer>>of(() -> 4)));
+  }
+
+  /**
+   * Verifies that the timings of the request are bound to every thread running its tasks, so that
+   * all of their queries are counted, and are unbound again once the tasks finish.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void requestTimingsAreBoundToTaskThreads() throws Exception {
+    FanOutAdmissionController controller = new FanOutAdmissionController(metricRegistry, 0, 5000);
+
+    RequestTimings timings = RequestTimings.begin(0);
+    try {
+      CountDownLatch allStarted = new CountDownLatch(3);
+      List<Callable<Boolean>> tasks =
+          IntStream.range(0, 3)
+              .mapToObj(
+                  i ->
+                      (Callable<Boolean>)
+                          () -> {
+                            allStarted.countDown();
+                            // ensures that the tasks run on different threads
+                            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+                            RequestTimings.current().ifPresent(t -> t.addQuery("q" + i, 1));
+                            return RequestTimings.current().orElse(null) == timings;
+                          })
+              .collect(Collectors.toList());
+
+      assertEquals(List.of(true, true, true), controller.invokeAll(executorService, tasks));
+      assertEquals(3, timings.getQueryCount());
+      assertSame(timings, RequestTimings.current().get());
+    } finally {
+      RequestTimings.end();
+    }
+
+    // the executor's threads no longer have the request's timings
+    assertEquals(
+        List.of(false, false),
+        controller.invokeAll(
+            executorService,
+            List.<Callable<Boolean>>of(
+                () -> RequestTimings.current().isPresent(),
+                () -> RequestTimings.current().isPresent())));
+  }
+
+  /**
+   * Verifies that task failures are passed on to the caller.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void failuresArePropagated() throws Exception {
+    FanOutAdmissionController controller = new FanOutAdmissionController(metricRegistry, 2, 5000);
+
+    assertThrows(
+        ExecutionException.class,
+        () ->
+            controller.invokeAll(
+                executorService,
+                List.<Callable<Integer>>of(
+                    () -> 1,
+                    () -> {
+                      throw new IllegalStateException("bad query");
+                    })));
+
+    // the failed search returned its connections
+    assertEquals(
+        List.of(5, 6),
+        controller.invokeAll(executorService, List.<Callable<Integer>>of(() -> 5, () -> 6)));
+  }
+}
@@ -0,0 +1,143 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.codahale.metrics.MetricRegistry;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link HashResolutionCache}. */
+public class HashResolutionCacheTest {
+  /** A SHA-256 hash in the hex form used by the API. */
+  private static final String HASH =
+      "3a3fe4bd42b6fdb8b2c0e5b1d8d6c3fa07f0c4e7c9a2b5d8e1f4a7b0c3d6e9f2";
+
+  /** Transaction time that was current when hashes are resolved. */
+  private static final Instant LOADED_THROUGH = Instant.parse("2022-05-01T00:00:00Z");
+
+  /** Used to decide whether newer CCW data has been loaded. */
+  private LoadedFilterManager loadedFilterManager;
+
+  /** Receives the cache metrics. */
+  private MetricRegistry metricRegistry;
+
+  /** The cache being tested. */
+  private HashResolutionCache cache;
+
+  /** Creates an enabled cache whose filter manager reports no newer data. */
+  @BeforeEach
+  public void setUp() {
+    loadedFilterManager = mock(LoadedFilterManager.class);
+    doReturn(LOADED_THROUGH).when(loadedFilterManager).getTransactionTime();
+    metricRegistry = new MetricRegistry();
+    cache = new HashResolutionCache(loadedFilterManager, metricRegistry, 1000, 60);
+  }
+
+  /**
+   * Verifies that resolved BENE_IDs are found by hash type and hash, including misses and
+   * collisions.
+   */
+  @Test
+  public void beneficiaryIdsAreFoundByHash() {
+    assertEquals(Optional.empty(), cache.getBeneficiaryIds("mbi", HASH));
+    cache.putBeneficiaryIds("mbi", HASH, new long[] {1L, 2L}, LOADED_THROUGH);
+    cache.putBeneficiaryIds("hicn", HASH, new long[0], LOADED_THROUGH);
+
+    assertArrayEquals(new long[] {1L, 2L}, cache.getBeneficiaryIds("mbi", HASH).get());
+    assertArrayEquals(new long[0], cache.getBeneficiaryIds("hicn", HASH).get());
+    assertEquals(Optional.empty(), cache.getBeneficiaryIds("mbi", "not-hex"));
+
+    assertEquals(2, metricRegistry.meter("HashResolutionCache.beneficiaryHits").getCount());
+    assertEquals(2, metricRegistry.meter("HashResolutionCache.beneficiaryMisses").getCount());
+  }
+
+  /** Verifies that entries are discarded once newer CCW data has been loaded. */
+  @Test
+  public void beneficiaryIdsAreInvalidatedByNewerData() {
+    cache.putBeneficiaryIds("mbi", HASH, new long[] {1L}, LOADED_THROUGH);
+    assertTrue(cache.getBeneficiaryIds("mbi", HASH).isPresent());
+
+    doReturn(LOADED_THROUGH.plusSeconds(1)).when(loadedFilterManager).getTransactionTime();
+    assertEquals(Optional.empty(), cache.getBeneficiaryIds("mbi", HASH));
+    assertEquals(1, metricRegistry.meter("HashResolutionCache.invalidations").getCount());
+
+    // the stale entry was removed rather than checked again
+    assertEquals(Optional.empty(), cache.getBeneficiaryIds("mbi", HASH));
+    assertEquals(1, metricRegistry.meter("HashResolutionCache.invalidations").getCount());
+  }
+
+  /** Verifies that callers can't change the cached ids. */
+  @Test
+  public void cachedIdsAreCopies() {
+    long[] ids = {1L};
+    cache.putBeneficiaryIds("mbi", HASH, ids, LOADED_THROUGH);
+    ids[0] = 2L;
+    cache.getBeneficiaryIds("mbi", HASH).get()[0] = 3L;
+
+    assertArrayEquals(new long[] {1L}, cache.getBeneficiaryIds("mbi", HASH).get());
+  }
+
+  /** Verifies that PAC hashes are resolved by the database only once. */
+  @Test
+  public void mbiIdsAreResolvedOnce() {
+    AtomicInteger resolutions = new AtomicInteger();
+    for (int i = 0; i < 3; ++i) {
+      long[] ids =
+          cache.resolveMbiIds(
+              "pac_hash",
+              HASH,
+              () -> {
+                resolutions.incrementAndGet();
+                return new long[] {7L};
+              });
+      assertArrayEquals(new long[] {7L}, ids);
+    }
+    // a miss is remembered too
+    cache.resolveMbiIds("pac_hash_or_old_hash", HASH, () -> new long[0]);
+    assertArrayEquals(
+        new long[0], cache.resolveMbiIds("pac_hash_or_old_hash", HASH, () -> new long[] {8L}));
+
+    assertEquals(1, resolutions.get());
+    assertEquals(3, metricRegistry.meter("HashResolutionCache.mbiHits").getCount());
+    assertEquals(2, metricRegistry.meter("HashResolutionCache.mbiMisses").getCount());
+  }
+
+  /** Verifies that a disabled cache remembers nothing. */
+  @Test
+  public void disabledCacheResolvesEveryTime() {
+    HashResolutionCache disabled =
+        new HashResolutionCache(loadedFilterManager, new MetricRegistry(), 0, 60);
+    assertFalse(disabled.isEnabled());
+
+    disabled.putBeneficiaryIds("mbi", HASH, new long[] {1L}, LOADED_THROUGH);
+    assertEquals(Optional.empty(), disabled.getBeneficiaryIds("mbi", HASH));
+
+    AtomicInteger resolutions = new AtomicInteger();
+    disabled.resolveMbiIds("pac_hash", HASH, () -> new long[] {resolutions.incrementAndGet()});
+    assertArrayEquals(
+        new long[] {2L},
+        disabled.resolveMbiIds("pac_hash", HASH, () -> new long[] {resolutions.incrementAndGet()}));
+  }
+
+  /** Verifies that hex hashes are stored as raw bytes and that keys of other hashes differ. */
+  @Test
+  public void keysAreCompact() {
+    assertEquals("mbi".length() + 2 + 32, HashResolutionCache.createKey("mbi", HASH).remaining());
+    assertEquals(
+        HashResolutionCache.createKey("mbi", HASH), HashResolutionCache.createKey("mbi", HASH));
+    assertNotEquals(
+        HashResolutionCache.createKey("mbi", HASH), HashResolutionCache.createKey("hicn", HASH));
+    // a non-hex value that happens to share the hex value's bytes still gets its own key
+    assertNotEquals(
+        HashResolutionCache.createKey("mbi", "41"), HashResolutionCache.createKey("mbi", "A"));
+  }
+}
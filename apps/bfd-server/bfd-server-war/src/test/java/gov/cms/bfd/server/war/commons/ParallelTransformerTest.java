@@ -0,0 +1,79 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ParallelTransformer}. */
+public class ParallelTransformerTest {
+  /** Verifies that parallel results are in the same order as the entities. */
+  @Test
+  public void resultsKeepEntityOrder() {
+    List<Integer> entities = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    try (ParallelTransformer transformer = new ParallelTransformer(4, 10)) {
+      assertTrue(transformer.isEnabled());
+      List<String> results =
+          transformer.transform(
+              entities,
+              i -> {
+                threadNames.add(Thread.currentThread().getName());
+                return "eob-" + i;
+              });
+
+      assertEquals(entities.stream().map(i -> "eob-" + i).collect(Collectors.toList()), results);
+      assertTrue(threadNames.stream().allMatch(name -> name.startsWith("eob_transforms-")));
+    }
+  }
+
+  /** Verifies that small lists are transformed on the calling thread. */
+  @Test
+  public void smallListsAreTransformedByCaller() {
+    String caller = Thread.currentThread().getName();
+    try (ParallelTransformer transformer = new ParallelTransformer(4, 10)) {
+      List<String> results =
+          transformer.transform(List.of(1, 2, 3), i -> Thread.currentThread().getName());
+      assertEquals(List.of(caller, caller, caller), results);
+    }
+  }
+
+  /** Verifies that a disabled transformer transforms everything on the calling thread. */
+  @Test
+  public void disabledTransformerIsSequential() {
+    String caller = Thread.currentThread().getName();
+    try (ParallelTransformer transformer = new ParallelTransformer(4, 0)) {
+      assertFalse(transformer.isEnabled());
+      List<String> results =
+          transformer.transform(
+              IntStream.range(0, 100).boxed().collect(Collectors.toList()),
+              i -> Thread.currentThread().getName());
+      assertTrue(results.stream().allMatch(caller::equals));
+    }
+  }
+
+  /** Verifies that a failed transformation is passed on to the caller. */
+  @Test
+  public void failuresArePropagated() {
+    try (ParallelTransformer transformer = new ParallelTransformer(2, 1)) {
+      assertThrows(
+          IllegalStateException.class,
+          () ->
+              transformer.transform(
+                  List.of(1, 2, 3, 4),
+                  i -> {
+                    if (i == 3) {
+                      throw new IllegalStateException("bad claim");
+                    }
+                    return i;
+                  }));
+    }
+  }
+}
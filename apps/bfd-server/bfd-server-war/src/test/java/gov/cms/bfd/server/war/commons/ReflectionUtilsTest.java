@@ -0,0 +1,105 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ReflectionUtils}. */
+public class ReflectionUtilsTest {
+  /** Verifies that declared accessors are called, repeatedly, on different instances. */
+  @Test
+  public void tryMethodCallsAccessor() {
+    assertEquals(Optional.of("A1"), ReflectionUtils.tryMethod(new Claim("A1"), "getCode"));
+    assertEquals(Optional.of("B2"), ReflectionUtils.tryMethod(new Claim("B2"), "getCode"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryMethod(new Claim(null), "getCode"));
+  }
+
+  /** Verifies that methods which can't be used as accessors are treated as missing. */
+  @Test
+  public void tryMethodIgnoresUnusableMethods() {
+    Claim claim = new Claim("A1");
+    assertEquals(Optional.empty(), ReflectionUtils.tryMethod(claim, "getMissing"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryMethod(claim, "getLength"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryMethod(claim, "getHidden"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryMethod(claim, "getFailure"));
+    // inherited methods aren't declared by the class itself
+    assertEquals(Optional.empty(), ReflectionUtils.tryMethod(new SubClaim("A1"), "getCode"));
+  }
+
+  /** Verifies that getters of any return type are called, and that unusable ones are missing. */
+  @Test
+  public void tryGetterCallsAnyGetter() {
+    Claim claim = new Claim("A1");
+    assertEquals(Optional.of(2), ReflectionUtils.tryGetter(claim, "getLength"));
+    assertEquals(Optional.of(Optional.of("A1")), ReflectionUtils.tryGetter(claim, "getCode"));
+    assertEquals(Optional.of(3), ReflectionUtils.tryGetter(new Claim("B12"), "getLength"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryGetter(claim, "getMissing"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryGetter(claim, "getHidden"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryGetter(claim, "getFailure"));
+    assertEquals(Optional.empty(), ReflectionUtils.tryGetter(new Claim(null), "getLength"));
+  }
+
+  /** A simple stand-in for a claim entity. */
+  public static class Claim {
+    /** The value returned by {@link #getCode()}. */
+    private final String code;
+
+    /**
+     * Instantiates a new claim.
+     *
+     * @param code the value returned by {@link #getCode()}
+     */
+    public Claim(String code) {
+      this.code = code;
+    }
+
+    /**
+     * Gets the code.
+     *
+     * @return the code, if any
+     */
+    public Optional<String> getCode() {
+      return Optional.ofNullable(code);
+    }
+
+    /**
+     * Gets a value that isn't optional.
+     *
+     * @return the length of the code
+     */
+    public int getLength() {
+      return code.length();
+    }
+
+    /**
+     * Gets a value that isn't public.
+     *
+     * @return the code, if any
+     */
+    private Optional<String> getHidden() {
+      return getCode();
+    }
+
+    /**
+     * Gets a value by failing.
+     *
+     * @return never returns
+     */
+    public Optional<String> getFailure() {
+      throw new IllegalStateException();
+    }
+  }
+
+  /** A subclass that doesn't declare any accessors of its own. */
+  public static class SubClaim extends Claim {
+    /**
+     * Instantiates a new sub claim.
+     *
+     * @param code the value returned by {@link #getCode()}
+     */
+    public SubClaim(String code) {
+      super(code);
+    }
+  }
+}
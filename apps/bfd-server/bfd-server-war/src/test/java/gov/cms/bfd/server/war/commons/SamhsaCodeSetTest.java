@@ -0,0 +1,102 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SamhsaCodeSet}. */
+public class SamhsaCodeSetTest {
+  /** Verifies that exactly the codes in the set are found, including codes that prefix others. */
+  @Test
+  public void codesAreFound() {
+    SamhsaCodeSet codeSet = SamhsaCodeSet.of(List.of("F10", "F1010", "F1011", "H0005", "F10"));
+
+    assertEquals(4, codeSet.size());
+    assertTrue(codeSet.contains("F10"));
+    assertTrue(codeSet.contains("F1010"));
+    assertTrue(codeSet.contains("F1011"));
+    assertTrue(codeSet.contains("H0005"));
+    assertFalse(codeSet.contains("F101"));
+    assertFalse(codeSet.contains("F10100"));
+    assertFalse(codeSet.contains("F"));
+    assertFalse(codeSet.contains(""));
+    assertFalse(codeSet.contains("f10"));
+  }
+
+  /** Verifies that an empty set doesn't contain any codes. */
+  @Test
+  public void emptySetHasNoCodes() {
+    SamhsaCodeSet codeSet = SamhsaCodeSet.of(Set.of());
+
+    assertEquals(0, codeSet.size());
+    assertFalse(codeSet.contains(""));
+    assertFalse(codeSet.containsIcdCode("F10.10"));
+    assertFalse(codeSet.containsHcpcsCode("H0005"));
+  }
+
+  /**
+   * Verifies that ICD codes are normalized the same way {@link
+   * AbstractSamhsaMatcher#normalizeIcdCode} does as they are looked up.
+   */
+  @Test
+  public void icdCodesAreNormalized() {
+    SamhsaCodeSet codeSet = SamhsaCodeSet.of(Set.of("F1010", "2910"));
+
+    for (String code :
+        List.of(
+            "F1010",
+            "F10.10",
+            "f10.10",
+            " F10.10\t",
+            "F.1010",
+            "2910",
+            "291.0",
+            "29.10",
+            "2910.")) {
+      assertTrue(codeSet.containsIcdCode(code), code);
+      assertEquals(
+          codeSet.contains(AbstractSamhsaMatcher.normalizeIcdCode(code)),
+          codeSet.containsIcdCode(code),
+          code);
+    }
+    for (String code : List.of("F10..10", "F1O10", "F10 10", "291.0.", "", " ", "F10.1")) {
+      assertFalse(codeSet.containsIcdCode(code), code);
+      assertEquals(
+          codeSet.contains(AbstractSamhsaMatcher.normalizeIcdCode(code)),
+          codeSet.containsIcdCode(code),
+          code);
+    }
+  }
+
+  /**
+   * Verifies that HCPCS codes are normalized the same way {@link
+   * AbstractSamhsaMatcher#normalizeHcpcsCode} does as they are looked up, so periods are kept.
+   */
+  @Test
+  public void hcpcsCodesAreNormalized() {
+    SamhsaCodeSet codeSet = SamhsaCodeSet.of(Set.of("H0005", "G.0396"));
+
+    assertTrue(codeSet.containsHcpcsCode("H0005"));
+    assertTrue(codeSet.containsHcpcsCode(" h0005 "));
+    assertTrue(codeSet.containsHcpcsCode("g.0396"));
+    assertFalse(codeSet.containsHcpcsCode("G0396"));
+    assertFalse(codeSet.containsHcpcsCode("H0.005"));
+  }
+
+  /**
+   * Verifies that codes that aren't plain ASCII are normalized with {@link String#toUpperCase()},
+   * which can change their length.
+   */
+  @Test
+  public void nonAsciiCodesAreNormalized() {
+    SamhsaCodeSet codeSet = SamhsaCodeSet.of(Set.of("STRASSE1", "\u00c91"));
+
+    assertTrue(codeSet.containsHcpcsCode("stra\u00dfe1"));
+    assertTrue(codeSet.containsIcdCode("\u00e9.1"));
+    assertFalse(codeSet.containsIcdCode("\u00e9.2"));
+  }
+}
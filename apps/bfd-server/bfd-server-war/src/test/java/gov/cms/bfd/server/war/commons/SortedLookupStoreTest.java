@@ -0,0 +1,119 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SortedLookupStore}. */
+public class SortedLookupStoreTest {
+  /** Verifies that keys in a sorted file are found, and that missing keys are not. */
+  @Test
+  public void sortedKeysAreFound() {
+    SortedLookupStore store = createStore("a\t1\nb\t2\nc\t3\n", false);
+
+    assertEquals(3, store.size());
+    assertEquals(Optional.of("1"), store.get("a"));
+    assertEquals(Optional.of("2"), store.get("b"));
+    assertEquals(Optional.of("3"), store.get("c"));
+    assertEquals(Optional.empty(), store.get("d"));
+    assertEquals(Optional.empty(), store.get(""));
+    assertFalse(store.containsKey("ab"));
+  }
+
+  /**
+   * Verifies that an unsorted file is sorted when it is loaded, and that the last line of a
+   * duplicated key wins.
+   */
+  @Test
+  public void unsortedKeysAreSortedAndLastDuplicateWins() {
+    SortedLookupStore store = createStore("c\t3\na\t1\nb\told\nb\t2", false);
+
+    assertEquals(3, store.size());
+    assertEquals(Optional.of("1"), store.get("a"));
+    assertEquals(Optional.of("2"), store.get("b"));
+    assertEquals(Optional.of("3"), store.get("c"));
+  }
+
+  /**
+   * Verifies that the header is skipped, that blank lines and DOS line endings are handled, that
+   * keys without a value have an empty value, and that values keep all of their columns.
+   */
+  @Test
+  public void linesAreParsed() {
+    SortedLookupStore store =
+        createStore("KEY\tVALUE\r\n\r\n10\tten\tX\r\n20\r\n30\tthirty \r\n", true);
+
+    assertEquals(3, store.size());
+    assertFalse(store.containsKey("KEY"));
+    assertEquals(Optional.of("ten\tX"), store.get("10"));
+    assertEquals(Optional.of(""), store.get("20"));
+    assertEquals(Optional.of("thirty "), store.get("30"));
+  }
+
+  /** Verifies that keys and values outside of ASCII are compared and decoded as UTF-8. */
+  @Test
+  public void utf8KeysAreFound() {
+    SortedLookupStore store = createStore("z\tlast\n\u00e9\t\u00e8t\u00e9\na\tfirst\n", false);
+
+    assertEquals(Optional.of("\u00e8t\u00e9"), store.get("\u00e9"));
+    assertEquals(Optional.of("last"), store.get("z"));
+  }
+
+  /** Verifies that the map view looks up and iterates over the entries in key order. */
+  @Test
+  public void mapViewHasEntries() {
+    Map<String, String> map = createStore("b\t2\na\t1\n", false).asMap();
+
+    Map<String, String> expected = new LinkedHashMap<>();
+    expected.put("a", "1");
+    expected.put("b", "2");
+    assertEquals(expected, map);
+    assertEquals(2, map.size());
+    assertTrue(map.containsKey("a"));
+    assertFalse(map.containsKey(1));
+    assertEquals("2", map.get("b"));
+    assertEquals(null, map.get("c"));
+    assertEquals(expected.toString(), map.toString());
+  }
+
+  /** Verifies that a store is loaded from a classpath resource. */
+  @Test
+  public void storeIsLoadedFromResource() {
+    SortedLookupStore store =
+        SortedLookupStore.fromResource("sorted_lookup_store_test.tsv", true);
+
+    assertEquals(3, store.size());
+    assertEquals(Optional.of("HEADACHE\tB"), store.get("7840"));
+    assertEquals(Optional.of("ROUTINE EXAM\tC"), store.get("V700"));
+  }
+
+  /** Verifies that a missing resource is reported clearly. */
+  @Test
+  public void missingResourceIsRejected() {
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SortedLookupStore.fromResource("no_such_resource.tsv", false));
+    assertEquals("Unable to find resource: no_such_resource.tsv", exception.getMessage());
+  }
+
+  /**
+   * Creates a store from the contents of a file.
+   *
+   * @param contents the contents of the file
+   * @param skipHeader true if the first line is a header
+   * @return the store
+   */
+  private static SortedLookupStore createStore(String contents, boolean skipHeader) {
+    return new SortedLookupStore(
+        ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8)), skipHeader);
+  }
+}
@@ -0,0 +1,119 @@
+package gov.cms.bfd.server.war.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.ExplanationOfBenefit;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link StreamingBundle}. */
+public class StreamingBundleTest {
+  /** Parser used to encode bundles. */
+  private final IParser parser = FhirContext.forR4().newJsonParser();
+
+  /**
+   * Verifies that a deferred bundle is written exactly as HAPI would encode the same bundle with
+   * all of its entries present.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void writtenBundleMatchesEncodedBundle() throws Exception {
+    List<IBaseResource> eobs = List.of(createEob("carrier-1"), createEob("pde-2"));
+
+    Bundle complete = createEnvelope(eobs.size());
+    eobs.forEach(eob -> complete.addEntry().setResource((ExplanationOfBenefit) eob));
+
+    StringWriter writer = new StringWriter();
+    int count =
+        StreamingBundle.writeJson(
+            parser, createEnvelope(eobs.size()), consumer -> eobs.forEach(consumer), writer);
+    assertEquals(2, count);
+    assertEquals(parser.encodeResourceToString(complete), writer.toString());
+  }
+
+  /**
+   * Verifies that a deferred bundle without any entries omits the entry element just as HAPI
+   * does.
+   *
+   * @throws Exception indicates test failure
+   */
+  @Test
+  public void emptyBundleHasNoEntryElement() throws Exception {
+    Bundle envelope = createEnvelope(0);
+    String expected = parser.encodeResourceToString(envelope);
+
+    StringWriter writer = new StringWriter();
+    assertEquals(0, StreamingBundle.writeJson(parser, envelope, consumer -> {}, writer));
+    assertEquals(expected, writer.toString());
+  }
+
+  /** Verifies that entry sources are attached to and found on bundles. */
+  @Test
+  public void entrySourceIsAttachedToBundle() {
+    StreamingBundle.EntrySource source = consumer -> {};
+    Bundle bundle = StreamingBundle.defer(createEnvelope(0), source);
+    assertSame(source, StreamingBundle.getEntrySource(bundle).get());
+    assertEquals(Optional.empty(), StreamingBundle.getEntrySource(createEnvelope(0)));
+    assertEquals(Optional.empty(), StreamingBundle.getEntrySource(createEob("pde-1")));
+  }
+
+  /** Verifies that streaming is only supported for requests marked by the interceptor. */
+  @Test
+  public void streamingSupportedOnlyWhenMarked() {
+    RequestDetails requestDetails = mock(RequestDetails.class);
+    assertFalse(StreamingBundle.isStreamingSupported(null));
+    assertFalse(StreamingBundle.isStreamingSupported(requestDetails));
+
+    Map<Object, Object> userData = new HashMap<>();
+    doReturn(userData).when(requestDetails).getUserData();
+    assertFalse(StreamingBundle.isStreamingSupported(requestDetails));
+
+    userData.put(StreamingBundle.STREAMING_SUPPORTED_KEY, Boolean.TRUE);
+    assertTrue(StreamingBundle.isStreamingSupported(requestDetails));
+  }
+
+  /**
+   * Creates a bundle without entries.
+   *
+   * @param total the total to report
+   * @return the bundle
+   */
+  private static Bundle createEnvelope(int total) {
+    Bundle bundle = new Bundle();
+    bundle.getMeta().setLastUpdated(Date.from(Instant.parse("2022-05-01T00:00:00Z")));
+    bundle.setTotal(total);
+    bundle.addLink().setRelation("self").setUrl("http://localhost/v2/fhir/ExplanationOfBenefit");
+    return bundle;
+  }
+
+  /**
+   * Creates a minimal EOB.
+   *
+   * @param id the id of the EOB
+   * @return the EOB
+   */
+  private static ExplanationOfBenefit createEob(String id) {
+    ExplanationOfBenefit eob = new ExplanationOfBenefit();
+    eob.setId(id);
+    eob.getMeta().setLastUpdated(Date.from(Instant.parse("2022-04-01T00:00:00Z")));
+    eob.setStatus(ExplanationOfBenefit.ExplanationOfBenefitStatus.ACTIVE);
+    return eob;
+  }
+}
@@ -12,6 +12,7 @@ import gov.cms.bfd.model.rif.InpatientClaim;
 import gov.cms.bfd.model.rif.OutpatientClaim;
 import gov.cms.bfd.model.rif.PartDEvent;
 import gov.cms.bfd.model.rif.SNFClaim;
+import java.lang.reflect.Method;
 import java.time.LocalDate;
 import java.util.EnumSet;
 import java.util.Map;
@@ -20,11 +21,14 @@ import org.junit.jupiter.api.Test;
 /** Tests the {@link ClaimTypeV2} enum logic. */
 public final class ClaimTypeV2Test {
   /**
-   * Verifies that our service end date function is working as expected. Since we are type casting
-   * our claim object, we need to verify that every ClaimType is tested.
+   * Verifies that our service end date attribute names the entity field used for service date
+   * filtering. Since the attribute is only referenced by name, we need to verify that every
+   * ClaimType is tested.
+   *
+   * @throws Exception (indicates test failure)
    */
   @Test
-  public void verifyServiceEndAttributeFunc() {
+  public void verifyServiceEndAttributeName() throws Exception {
     LocalDate start = LocalDate.now();
     LocalDate end = start.plusDays(10);
 
@@ -79,14 +83,20 @@ public final class ClaimTypeV2Test {
                     claimTypeToClaim.containsKey(claimType),
                     String.format("ClaimType %s not tested", claimType.name())));
 
-    claimTypeToClaim
-        .entrySet()
-        .forEach(
-            entry ->
-                assertEquals(
-                    end,
-                    entry.getKey().getServiceEndAttributeFunction().apply(entry.getValue()),
-                    String.format(
-                        "Claim type %s does not match expectations", entry.getKey().name())));
+    for (Map.Entry<ClaimTypeV2, Object> entry : claimTypeToClaim.entrySet()) {
+      String attributeName = entry.getKey().getEntityServiceEndAttributeName();
+      Method getter =
+          entry
+              .getValue()
+              .getClass()
+              .getMethod(
+                  "get"
+                      + Character.toUpperCase(attributeName.charAt(0))
+                      + attributeName.substring(1));
+      assertEquals(
+          end,
+          getter.invoke(entry.getValue()),
+          String.format("Claim type %s does not match expectations", entry.getKey().name()));
+    }
   }
 }
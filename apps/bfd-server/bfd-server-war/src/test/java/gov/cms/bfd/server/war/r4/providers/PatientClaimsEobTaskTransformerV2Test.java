@@ -13,6 +13,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import ca.uhn.fhir.context.FhirContext;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import gov.cms.bfd.data.fda.lookup.FdaDrugCodeDisplayLookup;
@@ -27,6 +28,7 @@ import gov.cms.bfd.model.rif.PartDEvent;
 import gov.cms.bfd.model.rif.SNFClaim;
 import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
 import gov.cms.bfd.server.war.ServerTestUtils;
+import gov.cms.bfd.server.war.commons.ParallelTransformer;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
 import gov.cms.bfd.sharedutils.exceptions.BadCodeMonkeyException;
 import java.io.IOException;
@@ -74,6 +76,8 @@ class PatientClaimsEobTaskTransformerV2Test {
   @Mock FdaDrugCodeDisplayLookup mockDrugDisplayLookup;
   /** The mock samhsa matcher. */
   @Mock R4EobSamhsaMatcher mockSamhsaMatcher;
+  /** Transforms claims sequentially, since parallel transformation is disabled. */
+  ParallelTransformer sequentialTransformer = new ParallelTransformer(1, 0);
 
   /** The carrier claim returned in tests. */
   CarrierClaim testCarrierClaim;
@@ -191,7 +195,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new CarrierClaimTransformerV2(metricRegistry, mockDrugDisplayLookup, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     taskTransformer.setIncludeTaxNumbers(true);
     taskTransformer.setupTaskParams(
@@ -222,7 +230,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new CarrierClaimTransformerV2(metricRegistry, mockDrugDisplayLookup, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     taskTransformer.setIncludeTaxNumbers(true);
     taskTransformer.setupTaskParams(
@@ -253,7 +265,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new DMEClaimTransformerV2(metricRegistry, mockDrugDisplayLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     taskTransformer.setIncludeTaxNumbers(true);
     taskTransformer.setupTaskParams(
@@ -284,7 +300,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new DMEClaimTransformerV2(metricRegistry, mockDrugDisplayLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     taskTransformer.setIncludeTaxNumbers(true);
     taskTransformer.setupTaskParams(
@@ -315,7 +335,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new HHAClaimTransformerV2(metricRegistry, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -347,7 +371,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new HospiceClaimTransformerV2(metricRegistry, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -379,7 +407,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new InpatientClaimTransformerV2(metricRegistry, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -411,7 +443,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new OutpatientClaimTransformerV2(metricRegistry, mockDrugDisplayLookup, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -443,7 +479,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new PartDEventTransformerV2(metricRegistry, mockDrugDisplayLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -475,7 +515,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new SNFClaimTransformerV2(metricRegistry, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -492,6 +536,62 @@ class PatientClaimsEobTaskTransformerV2Test {
     assertEquals(1, taskTransformer.eobsIgnoredBySamhsaFilter());
   }
 
+  /**
+   * Verify that the {@link PatientClaimsEobTaskTransformerV2} produces the same {@link
+   * ExplanationOfBenefit}s, in the same order, when a large list of claims is transformed in
+   * parallel chunks by the {@link ParallelTransformer}.
+   */
+  @Test
+  void testTaskTransformerWithParallelTransformMatchesSequential() throws IOException {
+    CriteriaQuery<CarrierClaim> clmMockCriteria = mock(CriteriaQuery.class);
+    Root<CarrierClaim> clmRoot = mock(Root.class);
+    TypedQuery clmMockQuery =
+        setupClaimEntity(mockEntityManager, ClaimTypeV2.CARRIER, clmMockCriteria, clmRoot);
+    CarrierClaim otherCarrierClaim =
+        ServerTestUtils.parseData(Arrays.asList(StaticRifResourceGroup.SAMPLE_A.getResources()))
+            .stream()
+            .filter(r -> r instanceof CarrierClaim)
+            .map(CarrierClaim.class::cast)
+            .findFirst()
+            .get();
+    otherCarrierClaim.setClaimId(otherCarrierClaim.getClaimId() + 1);
+    List<CarrierClaim> claims =
+        List.of(testCarrierClaim, otherCarrierClaim, testCarrierClaim, otherCarrierClaim);
+    when(clmMockQuery.getResultList()).thenAnswer(invocation -> new ArrayList<>(claims));
+
+    ClaimTransformerInterfaceV2 claimTransformer =
+        new CarrierClaimTransformerV2(metricRegistry, mockDrugDisplayLookup, mockNpiOrgLookup);
+    List<String> expected = new ArrayList<>();
+    for (CarrierClaim claim : claims) {
+      expected.add(
+          FhirContext.forR4Cached()
+              .newJsonParser()
+              .encodeResourceToString(claimTransformer.transform(claim, true)));
+    }
+
+    try (ParallelTransformer parallelTransformer = new ParallelTransformer(2, 1)) {
+      PatientClaimsEobTaskTransformerV2 taskTransformer =
+          new PatientClaimsEobTaskTransformerV2(
+              metricRegistry,
+              mockSamhsaMatcher,
+              mockDrugDisplayLookup,
+              mockNpiOrgLookup,
+              parallelTransformer);
+      taskTransformer.setIncludeTaxNumbers(true);
+      taskTransformer.setupTaskParams(
+          claimTransformer, ClaimTypeV2.CARRIER, 1234L, Optional.empty(), Optional.empty(), false);
+      taskTransformer.setEntityManager(mockEntityManager);
+
+      taskTransformer.call();
+      assertTrue(taskTransformer.ranSuccessfully());
+      List<String> actual = new ArrayList<>();
+      for (ExplanationOfBenefit eob : taskTransformer.fetchEOBs()) {
+        actual.add(FhirContext.forR4Cached().newJsonParser().encodeResourceToString(eob));
+      }
+      assertEquals(expected, actual);
+    }
+  }
+
   /**
    * Verify that the {@link PatientClaimsEobTaskTransformerV2} can handle internal processing {@link
    * Exception} and can return it to the caller via its {@link
@@ -510,7 +610,11 @@ class PatientClaimsEobTaskTransformerV2Test {
         new SNFClaimTransformerV2(metricRegistry, mockNpiOrgLookup);
     PatientClaimsEobTaskTransformerV2 taskTransformer =
         new PatientClaimsEobTaskTransformerV2(
-            metricRegistry, mockSamhsaMatcher, mockDrugDisplayLookup, mockNpiOrgLookup);
+            metricRegistry,
+            mockSamhsaMatcher,
+            mockDrugDisplayLookup,
+            mockNpiOrgLookup,
+            sequentialTransformer);
 
     // should ignore processing of NPI tax numbers even though it is set
     taskTransformer.setIncludeTaxNumbers(true);
@@ -531,8 +635,9 @@ class PatientClaimsEobTaskTransformerV2Test {
    * @param claimType the {@link ClaimTypeV2} claim data to mock.
    * @param clmMockCriteria the {@link CriteriaQuery} claim query criteria being mocked.
    * @param clmRoot the {@link Root} claim root being mocked.
+   * @return the mocked {@link TypedQuery} that returns the claim data
    */
-  private void setupClaimEntity(
+  private TypedQuery setupClaimEntity(
       EntityManager em, ClaimTypeV2 claimType, CriteriaQuery clmMockCriteria, Root clmRoot) {
     CriteriaBuilder clmCriteriaBuilder = mock(CriteriaBuilder.class);
     Path clmMockPath = mock(Path.class);
@@ -586,5 +691,6 @@ class PatientClaimsEobTaskTransformerV2Test {
       default -> {}
     }
     when(clmMockQuery.getResultList()).thenReturn(list);
+    return clmMockQuery;
   }
 }
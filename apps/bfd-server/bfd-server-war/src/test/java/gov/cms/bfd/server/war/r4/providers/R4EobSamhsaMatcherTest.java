@@ -1,19 +1,26 @@
 package gov.cms.bfd.server.war.r4.providers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 
 import gov.cms.bfd.model.codebook.data.CcwCodebookVariable;
+import gov.cms.bfd.model.rif.CarrierClaim;
+import gov.cms.bfd.model.rif.CarrierClaimLine;
+import gov.cms.bfd.model.rif.PartDEvent;
 import gov.cms.bfd.server.war.adapters.CodeableConcept;
 import gov.cms.bfd.server.war.adapters.Coding;
 import gov.cms.bfd.server.war.commons.CCWUtils;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -96,4 +103,37 @@ public class R4EobSamhsaMatcherTest {
     assertEquals(
         expectedResult, matcher.containsOnlyKnownSystems(mockConcept), name + " " + errorMessage);
   }
+
+  /**
+   * Verifies that {@link R4EobSamhsaMatcher#testClaimEntity} flags claim entities using their raw
+   * diagnosis, line item, and version columns and leaves other claims for the full matcher.
+   */
+  @Test
+  public void testClaimEntityScreensRawColumns() {
+    R4EobSamhsaMatcher matcher = new R4EobSamhsaMatcher();
+
+    CarrierClaim claim = new CarrierClaim();
+    CarrierClaimLine line = new CarrierClaimLine();
+    line.setHcpcsCode(Optional.of("99213"));
+    claim.getLines().add(line);
+    claim.setDiagnosisPrincipalCode(Optional.of("Z00.00"));
+    claim.setDiagnosisPrincipalCodeVersion(Optional.of('0'));
+    assertFalse(matcher.testClaimEntity(claim, ClaimTypeV2.CARRIER));
+
+    claim.setDiagnosis1Code(Optional.of("F1010"));
+    claim.setDiagnosis1CodeVersion(Optional.of('0'));
+    assertTrue(matcher.testClaimEntity(claim, ClaimTypeV2.CARRIER));
+
+    claim.setDiagnosis1CodeVersion(Optional.of('X'));
+    assertTrue(
+        matcher.testClaimEntity(claim, ClaimTypeV2.CARRIER),
+        "unknown code systems should be treated as SAMHSA");
+
+    claim.setDiagnosis1Code(Optional.empty());
+    claim.setDiagnosis1CodeVersion(Optional.empty());
+    line.setHcpcsCode(Optional.of("H0005"));
+    assertTrue(matcher.testClaimEntity(claim, ClaimTypeV2.CARRIER));
+
+    assertFalse(matcher.testClaimEntity(new PartDEvent(), ClaimTypeV2.PDE));
+  }
 }
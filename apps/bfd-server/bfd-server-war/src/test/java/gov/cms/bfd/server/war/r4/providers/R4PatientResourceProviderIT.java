@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -20,6 +21,7 @@ import gov.cms.bfd.model.rif.BeneficiaryHistory;
 import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
 import gov.cms.bfd.server.war.ServerTestUtils;
 import gov.cms.bfd.server.war.commons.CommonHeaders;
+import gov.cms.bfd.server.war.commons.HashResolutionCache;
 import gov.cms.bfd.server.war.commons.LoadedFilterManager;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
 import java.sql.Date;
@@ -29,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -95,7 +98,11 @@ public final class R4PatientResourceProviderIT {
     beneficiaryTransformer = new BeneficiaryTransformerV2(metricRegistry);
 
     patientProvider =
-        new R4PatientResourceProvider(metricRegistry, loadedFilterManager, beneficiaryTransformer);
+        new R4PatientResourceProvider(
+            metricRegistry,
+            loadedFilterManager,
+            beneficiaryTransformer,
+            new HashResolutionCache(loadedFilterManager, new MetricRegistry(), 0, 60));
     patientProvider.setEntityManager(entityManager);
 
     List<Object> parsedRecords =
@@ -168,6 +175,11 @@ public final class R4PatientResourceProviderIT {
     when(mockCriteria.distinct(anyBoolean())).thenReturn(mockCriteria);
     when(mockSubquery.select(any())).thenReturn(mockSubquery);
     when(mockSubquery.from(any(Class.class))).thenReturn(root);
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+    when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+    when(entityManager.createNativeQuery(any(), eq(Beneficiary.class))).thenReturn(mockQuery);
+    when(mockQuery.setParameter(any(String.class), any())).thenReturn(mockQuery);
   }
 
   /**
@@ -26,6 +26,7 @@ import gov.cms.bfd.model.rif.Beneficiary;
 import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
 import gov.cms.bfd.server.war.ServerTestUtils;
 import gov.cms.bfd.server.war.commons.CommonHeaders;
+import gov.cms.bfd.server.war.commons.HashResolutionCache;
 import gov.cms.bfd.server.war.commons.LoadedFilterManager;
 import gov.cms.bfd.server.war.commons.RequestHeaders;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
@@ -38,6 +39,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -117,7 +119,10 @@ public class R4PatientResourceProviderTest {
   public void setup() {
     patientProvider =
         new R4PatientResourceProvider(
-            metricRegistry, loadedFilterManager, beneficiaryTransformerV2);
+            metricRegistry,
+            loadedFilterManager,
+            beneficiaryTransformerV2,
+            new HashResolutionCache(loadedFilterManager, new MetricRegistry(), 0, 60));
     patientProvider.setEntityManager(entityManager);
 
     List<Object> parsedRecords =
@@ -192,6 +197,11 @@ public class R4PatientResourceProviderTest {
     when(mockCriteria.distinct(anyBoolean())).thenReturn(mockCriteria);
     when(mockSubquery.select(any())).thenReturn(mockSubquery);
     when(mockSubquery.from(any(Class.class))).thenReturn(root);
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+    when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+    when(entityManager.createNativeQuery(any(), eq(Beneficiary.class))).thenReturn(mockQuery);
+    when(mockQuery.setParameter(any(String.class), any())).thenReturn(mockQuery);
   }
 
   /**
@@ -562,6 +572,44 @@ public class R4PatientResourceProviderTest {
         patientProvider.searchByIdentifier(mbiHashIdentifier, null, null, requestDetails);
 
     assertEquals(1, bundle.getTotal());
+    // current and historical hashes are looked up by a single query, in its own entity manager
+    verify(entityManager)
+        .createNativeQuery(
+            String.format(R4PatientResourceProvider.BENES_BY_HASH_SQL, "mbi_hash"),
+            Beneficiary.class);
+    verify(mockQuery).setParameter("hash", mbiHashIdentifier.getValue());
+    verify(entityManager).close();
+  }
+
+  /**
+   * Verifies that {@link R4PatientResourceProvider#searchByIdentifier} only resolves a hashed mbi
+   * with the database once when the hash resolution cache is enabled, and loads the beneficiary by
+   * its id after that.
+   */
+  @Test
+  public void testSearchByIdentifierIdWhenMbiHashIsCachedExpectLookupById() {
+    patientProvider =
+        new R4PatientResourceProvider(
+            metricRegistry,
+            loadedFilterManager,
+            beneficiaryTransformerV2,
+            new HashResolutionCache(loadedFilterManager, new MetricRegistry(), 100, 60));
+    patientProvider.setEntityManager(entityManager);
+    when(requestDetails.getHeader(any())).thenReturn("");
+    when(entityManager.find(Beneficiary.class, testBene.getBeneficiaryId())).thenReturn(testBene);
+
+    Bundle first =
+        patientProvider.searchByIdentifier(mbiHashIdentifier, null, null, requestDetails);
+    Bundle second =
+        patientProvider.searchByIdentifier(mbiHashIdentifier, null, null, requestDetails);
+
+    assertEquals(1, first.getTotal());
+    assertEquals(1, second.getTotal());
+    verify(entityManager, times(1))
+        .createNativeQuery(
+            String.format(R4PatientResourceProvider.BENES_BY_HASH_SQL, "mbi_hash"),
+            Beneficiary.class);
+    verify(entityManager, times(1)).find(Beneficiary.class, testBene.getBeneficiaryId());
   }
 
   /**
@@ -45,7 +45,7 @@ public class SamhsaMatcherR4FromClaimTransformerV2Test {
   private static final String CODING_SYSTEM_HCPCS_CD =
       TransformerConstants.BASE_URL_CCW_VARIABLES
           + "/"
-          + CcwCodebookVariable.HCPCS_CD.getVariable().getId().toLowerCase();
+          + CcwCodebookVariable.HCPCS_CD.getId().toLowerCase();
   /** The DRG system url for use in test cases. */
   private static final String DRG_SYSTEM =
       CCWUtils.calculateVariableReferenceUrl(CcwCodebookVariable.CLM_DRG_CD);
@@ -1,49 +1,24 @@
 package gov.cms.bfd.server.war.r4.providers.pac;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 import gov.cms.bfd.model.rda.RdaFissClaim;
 import gov.cms.bfd.model.rda.RdaMcsClaim;
-import java.util.ArrayList;
-import java.util.List;
-import org.hl7.fhir.r4.model.Claim;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.mockito.junit.jupiter.MockitoSettings;
-import org.mockito.quality.Strictness;
 
 /** Tests the methods of the {@link R4ClaimSamhsaMatcher}. */
-@ExtendWith(MockitoExtension.class)
-@MockitoSettings(strictness = Strictness.LENIENT)
 public class R4ClaimSamhsaMatcherTest {
 
   /** The class under test. */
   private R4ClaimSamhsaMatcher samhsaMatcher;
 
-  /** The fiss claim transformer. */
-  @Mock private FissClaimTransformerV2 mockFissTransformer;
-
-  /** The mock mcs claim transformer. */
-  @Mock private McsClaimTransformerV2 mockMcsTransformer;
-
-  /** The mock claim returned by the transformers. */
-  @Mock private Claim mockClaim;
-
-  /** Sets up the class under test and dependencies. */
+  /** Sets up the class under test. */
   @BeforeEach
   public void setup() {
-    samhsaMatcher = new R4ClaimSamhsaMatcher(mockFissTransformer, mockMcsTransformer);
-    when(mockFissTransformer.transform(any(), anyBoolean())).thenReturn(mockClaim);
-    when(mockMcsTransformer.transform(any(), anyBoolean())).thenReturn(mockClaim);
-    List<Claim.ProcedureComponent> procedureComponentList = new ArrayList<>();
-    when(mockClaim.getProcedure()).thenReturn(procedureComponentList);
+    samhsaMatcher = new R4ClaimSamhsaMatcher();
   }
 
   /**
@@ -73,4 +48,10 @@ public class R4ClaimSamhsaMatcherTest {
 
     assertTrue(hasNoSamhsa);
   }
+
+  /** Tests that entities that aren't FISS or MCS claims are rejected. */
+  @Test
+  public void testHasNoSamhsaDataWhenUnsupportedEntityExpectException() {
+    assertThrows(IllegalArgumentException.class, () -> samhsaMatcher.hasNoSamhsaData("claim"));
+  }
 }
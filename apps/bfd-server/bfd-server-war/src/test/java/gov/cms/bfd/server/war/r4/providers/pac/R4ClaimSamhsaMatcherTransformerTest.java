@@ -7,6 +7,7 @@ import com.codahale.metrics.MetricRegistry;
 import gov.cms.bfd.model.rda.RdaFissClaim;
 import gov.cms.bfd.model.rda.RdaFissDiagnosisCode;
 import gov.cms.bfd.model.rda.RdaFissProcCode;
+import gov.cms.bfd.model.rda.RdaFissRevenueLine;
 import gov.cms.bfd.model.rda.RdaMcsClaim;
 import gov.cms.bfd.model.rda.RdaMcsDetail;
 import gov.cms.bfd.model.rda.RdaMcsDiagnosisCode;
@@ -188,14 +189,61 @@ public class R4ClaimSamhsaMatcherTransformerTest {
 
     FissClaimTransformerV2 fissClaimTransformerV2 =
         new FissClaimTransformerV2(new MetricRegistry());
-    McsClaimTransformerV2 mcsClaimTransformerV2 = new McsClaimTransformerV2(new MetricRegistry());
 
     Claim claim = fissClaimTransformerV2.transform(entity, true);
 
-    R4ClaimSamhsaMatcher matcher =
-        new R4ClaimSamhsaMatcher(fissClaimTransformerV2, mcsClaimTransformerV2);
+    R4ClaimSamhsaMatcher matcher = new R4ClaimSamhsaMatcher();
 
     assertEquals(expectedResult, matcher.test(claim), testName + " " + errorMessagePostFix);
+    assertEquals(
+        expectedResult,
+        !matcher.hasNoSamhsaData(entity),
+        testName + " (entity) " + errorMessagePostFix);
+  }
+
+  /**
+   * Data method for the fissRevenueLineTest. Used automatically via the MethodSource annotation.
+   *
+   * @return the data for the test
+   */
+  public static Stream<Arguments> fissRevenueLineTest() {
+    return Stream.of(
+        arguments("SAMHSA HCPCS code", CPT_SAMHSA_CODE, null, true),
+        arguments("Non-Samhsa HCPCS code", NON_SAMHSA_CODE, null, true),
+        arguments("APC code only", null, NON_SAMHSA_CODE, false),
+        arguments("No codes", null, null, false));
+  }
+
+  /**
+   * These tests check that FISS revenue lines are filtered the same way whether the claim entity or
+   * the transformed claim is checked. The revenue line HCPCS codes use the CCW HCPCS system, which
+   * the matcher treats as unknown, so any HCPCS code is filtered.
+   *
+   * @param testName the test name for reporting
+   * @param hcpcCode the HCPCS code of the revenue line
+   * @param apcCode the APC code of the revenue line
+   * @param expectedResult the expected result
+   */
+  @ParameterizedTest(name = "{index}: {0}")
+  @MethodSource
+  public void fissRevenueLineTest(
+      String testName, String hcpcCode, String apcCode, boolean expectedResult) {
+    RdaFissClaim entity = new RdaFissClaim();
+    entity.setLastUpdated(Instant.ofEpochMilli(1));
+    entity.setStmtCovToDate(ICD_10_DATE);
+
+    RdaFissRevenueLine revenueLine = new RdaFissRevenueLine();
+    revenueLine.setRdaPosition((short) 1);
+    revenueLine.setHcpcCd(hcpcCode);
+    revenueLine.setApcHcpcsApc(apcCode);
+    entity.setRevenueLines(Set.of(revenueLine));
+
+    Claim claim = new FissClaimTransformerV2(new MetricRegistry()).transform(entity, true);
+
+    R4ClaimSamhsaMatcher matcher = new R4ClaimSamhsaMatcher();
+
+    assertEquals(expectedResult, matcher.test(claim), testName);
+    assertEquals(expectedResult, !matcher.hasNoSamhsaData(entity), testName + " (entity)");
   }
 
   /**
@@ -285,15 +333,16 @@ public class R4ClaimSamhsaMatcherTransformerTest {
 
     entity.setDetails(procedures);
 
-    FissClaimTransformerV2 fissClaimTransformerV2 =
-        new FissClaimTransformerV2(new MetricRegistry());
     McsClaimTransformerV2 mcsClaimTransformerV2 = new McsClaimTransformerV2(new MetricRegistry());
 
     Claim claim = mcsClaimTransformerV2.transform(entity, true);
 
-    R4ClaimSamhsaMatcher matcher =
-        new R4ClaimSamhsaMatcher(fissClaimTransformerV2, mcsClaimTransformerV2);
+    R4ClaimSamhsaMatcher matcher = new R4ClaimSamhsaMatcher();
 
     assertEquals(expectedResult, matcher.test(claim), testName + " " + errorMessagePostFix);
+    assertEquals(
+        expectedResult,
+        !matcher.hasNoSamhsaData(entity),
+        testName + " (entity) " + errorMessagePostFix);
   }
 }
@@ -16,6 +16,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -318,6 +319,63 @@ class ClaimDaoTest {
     assertEquals(0, sizeCaptor.getValue());
   }
 
+  /**
+   * Verifies that {@link ClaimDao#findAllIdsByMbiAttribute} returns the ids found by its query and
+   * invokes {@link ClaimDao#logQueryMetric(ResourceTypeV2, String, long, int)} with their count.
+   */
+  @Test
+  void shouldSetClaimIdsByMbiMetricForClaimIdsSearch() {
+    ClaimDao daoSpy = spy(new ClaimDao(mockEntityManager, metricRegistry, false));
+
+    // unchecked - Creating mocks, this is ok.
+    //noinspection unchecked
+    CriteriaQuery<Object> mockQuery = mock(CriteriaQuery.class);
+    // unchecked - Creating mocks, this is ok.
+    //noinspection unchecked
+    Root<Object> mockRoot = mock(Root.class);
+    // rawtypes - Due to mocking the object.
+    //noinspection rawtypes
+    TypedQuery mockTypedQuery = mock(TypedQuery.class);
+
+    doReturn(null)
+        .when(daoSpy)
+        .createMbiPredicate(any(), anyString(), anyBoolean(), any(CriteriaBuilder.class));
+
+    doReturn(mockRoot).when(mockQuery).from(claimType.getEntityClass());
+
+    doReturn(mockBuilder).when(mockEntityManager).getCriteriaBuilder();
+
+    doReturn(mockQuery).when(mockBuilder).createQuery(String.class);
+
+    List<String> mockIds = List.of("1", "2", "3");
+
+    doReturn(mockIds).when(mockTypedQuery).getResultList();
+
+    // unchecked - Creating mocks, this is ok.
+    //noinspection unchecked
+    doReturn(mockTypedQuery).when(mockEntityManager).createQuery(any(CriteriaQuery.class));
+
+    doNothing().when(daoSpy).logQueryMetric(any(), anyString(), anyLong(), anyInt());
+
+    assertSame(mockIds, daoSpy.findAllIdsByMbiAttribute(claimType, "value", false, null, null));
+
+    verify(daoSpy, times(1))
+        .logQueryMetric(same(claimType), eq(ClaimDao.CLAIM_IDS_BY_MBI_QUERY), anyLong(), eq(3));
+  }
+
+  /**
+   * Verifies that {@link ClaimDao#findAllByIds} doesn't query the database when there are no ids to
+   * look up.
+   */
+  @Test
+  void shouldNotQueryClaimsByIdsWithoutIds() {
+    ClaimDao dao = new ClaimDao(mockEntityManager, metricRegistry, false);
+
+    assertEquals(List.of(), dao.findAllByIds(claimType, List.of()));
+
+    verifyNoInteractions(mockEntityManager);
+  }
+
   /**
    * Verify that {@link ClaimDao#createServiceDatePredicates} handles cases with one and two service
    * date attribute names properly.
@@ -36,7 +36,10 @@ import gov.cms.bfd.model.rif.DMEClaim;
 import gov.cms.bfd.model.rif.PartDEvent;
 import gov.cms.bfd.model.rif.samples.StaticRifResourceGroup;
 import gov.cms.bfd.server.war.ServerTestUtils;
+import gov.cms.bfd.server.war.commons.ClaimAvailabilityCache;
 import gov.cms.bfd.server.war.commons.CommonHeaders;
+import gov.cms.bfd.server.war.commons.EobResponseCache;
+import gov.cms.bfd.server.war.commons.FanOutAdmissionController;
 import gov.cms.bfd.server.war.commons.LoadedFilterManager;
 import gov.cms.bfd.server.war.commons.TransformerConstants;
 import java.sql.Date;
@@ -179,6 +182,9 @@ public class ExplanationOfBenefitResourceProviderTest {
             metricRegistry,
             loadedFilterManager,
             executorService,
+            new FanOutAdmissionController(metricRegistry, 0, 30000),
+            new EobResponseCache(loadedFilterManager, metricRegistry, 0, 0),
+            new ClaimAvailabilityCache(loadedFilterManager, metricRegistry, 0),
             mockCarrierClaimTransformer,
             mockDmeClaimTransformer,
             Mockito.mock(HHAClaimTransformer.class),
@@ -397,7 +403,8 @@ public class ExplanationOfBenefitResourceProviderTest {
     InvalidRequestException exception =
         assertThrows(InvalidRequestException.class, () -> eobProvider.read(eobId, requestDetails));
     assertEquals(
-        "ExplanationOfBenefit ID pattern: '1234' does not match expected pattern: {alphaString}-{idNumber}",
+        "ExplanationOfBenefit ID pattern: '1234' does not match expected pattern:"
+            + " {alphaString}-{idNumber}",
         exception.getLocalizedMessage());
   }
 
@@ -21,6 +21,12 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -29,7 +35,6 @@ import org.slf4j.LoggerFactory;
 
 /** Unit tests for the {@link LoadedFilterManager}. */
 public final class LoadedFilterManagerTest {
-  @SuppressWarnings("unused")
   private static final Logger LOGGER = LoggerFactory.getLogger(LoadedFilterManagerIT.class);
 
   /** Sample valid bene for the test. */
@@ -173,6 +178,95 @@ public final class LoadedFilterManagerTest {
     assertTrue(filterManagerA.isResultSetEmpty(SAMPLE_BENE, afterRange));
   }
 
+  /** Tests the {@link LoadedFilterManager#isUpdatedSince} works for various times. */
+  @Test
+  public void testIsUpdatedSince() {
+    final MockDb mockDb =
+        new MockDb()
+            .insert(1, preDates[1])
+            .insert(2, preDates[11])
+            .insert(preBatches[0], preBatches[1], preBatches[2]);
+    final List<LoadedFileFilter> aFilters =
+        LoadedFilterManager.buildFilters(mockDb.fetchAllTuples(), mockDb::fetchById);
+
+    // Nothing is known before the filters have been refreshed
+    final LoadedFilterManager filterManagerA = new LoadedFilterManager();
+    assertTrue(filterManagerA.isUpdatedSince(INVALID_BENE, preDates[10]));
+
+    filterManagerA.set(aFilters, preDates[1], preBatches[2].getCreated());
+    assertTrue(filterManagerA.isUpdatedSince(INVALID_BENE, preDates[0]));
+    assertTrue(filterManagerA.isUpdatedSince(SAMPLE_BENE, preDates[10]));
+    assertFalse(filterManagerA.isUpdatedSince(INVALID_BENE, preDates[10]));
+    assertFalse(filterManagerA.isUpdatedSince(SAMPLE_BENE, preBatches[2].getCreated()));
+  }
+
+  /**
+   * Tests that many readers never block on, or see a mix of, snapshots that are being replaced
+   * concurrently, and logs the read throughput they achieve while that happens.
+   *
+   * @throws Exception if the test fails
+   */
+  @Test
+  public void testConcurrentReadsDuringRefreshes() throws Exception {
+    final MockDb mockDb = new MockDb().insert(1, preDates[1]).insert(preBatches[0], preBatches[1]);
+    final List<LoadedFileFilter> aFilters =
+        LoadedFilterManager.buildFilters(mockDb.fetchAllTuples(), mockDb::fetchById);
+    final LoadedFilterManager filterManager = new LoadedFilterManager();
+    filterManager.set(aFilters, preDates[1], preBatches[1].getCreated());
+    final String aState = filterManager.toString();
+    filterManager.set(List.of(), preDates[0], preDates[30]);
+    final String bState = filterManager.toString();
+
+    final int readerCount = 8;
+    final long durationMillis = 500;
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicLong reads = new AtomicLong();
+    final ExecutorService executor = Executors.newFixedThreadPool(readerCount + 1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(
+          executor.submit(
+              () -> {
+                for (long i = 0; running.get(); ++i) {
+                  if (i % 2 == 0) {
+                    filterManager.set(aFilters, preDates[1], preBatches[1].getCreated());
+                  } else {
+                    filterManager.set(List.of(), preDates[0], preDates[30]);
+                  }
+                }
+              }));
+      for (int i = 0; i < readerCount; ++i) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  long count = 0;
+                  while (running.get()) {
+                    String state = filterManager.toString();
+                    assertTrue(state.equals(aState) || state.equals(bState), state);
+                    filterManager.isUpdatedSince(SAMPLE_BENE, preDates[2]);
+                    filterManager.isResultSetEmpty(
+                        SAMPLE_BENE,
+                        new DateRangeParam(Date.from(preDates[2]), Date.from(preDates[20])));
+                    count += 3;
+                  }
+                  reads.addAndGet(count);
+                }));
+      }
+      Thread.sleep(durationMillis);
+      running.set(false);
+      for (Future<?> future : futures) {
+        future.get(5, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info(
+        "{} readers made {} reads per second during concurrent refreshes",
+        readerCount,
+        reads.get() * 1000 / durationMillis);
+    assertTrue(reads.get() > 0);
+  }
+
   /** Tests a typical flow for using the filter. */
   @Test
   public void testTypicalSequence() {